@@ -0,0 +1,33 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.client.common.listener;
+
+/**
+ * A {@link BaseTagListener} that only needs the latest value of the tags it
+ * subscribes to.
+ *
+ * <p>As long as all listeners subscribed to a tag implement this interface,
+ * updates arriving while the listeners are busy are conflated: only the most
+ * recent update of the tag is kept and delivered, so slow listeners never
+ * hold back the JMS session. Intermediate updates may therefore not be seen
+ * at all, which suits GUIs and dashboards but not listeners that need every
+ * change of a value.
+ *
+ * @see TagListener
+ */
+public interface ConflatingTagListener extends BaseTagListener {
+}
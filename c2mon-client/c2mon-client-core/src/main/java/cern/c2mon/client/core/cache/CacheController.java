@@ -49,6 +49,12 @@ interface CacheController {
    * @return The history cache reference
    */
   Map<Long, TagController> getHistoryCache();
+
+  /**
+   * @return The secondary indexes of the cached tags, which are shared by
+   *         the live and the history cache
+   */
+  TagIndex getTagIndex();
   
   /**
    * @return <code>true</code>, if the history mode of the cache is enabled 
@@ -61,6 +61,9 @@ class CacheControllerImpl implements CacheController {
    */
   private volatile boolean historyMode = false;
 
+  /** Secondary indexes by name, equipment, process and listener */
+  private final TagIndex tagIndex = new TagIndex();
+
   /** Thread lock for access to the <code>dataTags</code> Map */
   private final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock();
 
@@ -86,6 +89,11 @@ class CacheControllerImpl implements CacheController {
     return liveCache;
   }
 
+  @Override
+  public TagIndex getTagIndex() {
+    return tagIndex;
+  }
+
   @Override
   public boolean isHistoryModeEnabled() {
     return historyMode;
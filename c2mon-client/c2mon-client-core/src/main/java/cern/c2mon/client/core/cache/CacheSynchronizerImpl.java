@@ -160,6 +160,7 @@ public class CacheSynchronizerImpl implements CacheSynchronizer, HeartbeatListen
         if (!liveCache.containsKey(tagId)) {
           cdt = new TagController(tagId, true);
           liveCache.put(cdt.getTagImpl().getId(), cdt);
+          controller.getTagIndex().index(cdt.getTagImpl());
           newTags.add(tagId);
         }
       }
@@ -205,6 +206,7 @@ public class CacheSynchronizerImpl implements CacheSynchronizer, HeartbeatListen
               cdt.update(tagUpdate);
               subscribeToSupervisionManager(cdt);
               liveCache.put(cdt.getTagImpl().getId(), cdt);
+              controller.getTagIndex().index(cdt.getTagImpl());
 
               newTags.add(cdt.getTagImpl().getId());
             }
@@ -252,6 +254,7 @@ public class CacheSynchronizerImpl implements CacheSynchronizer, HeartbeatListen
           historyCache.remove(tagId);
         }
         TagController liveTag = liveCache.remove(tagId);
+        controller.getTagIndex().remove(tagId);
         if (liveTag.getTagImpl().getDataTagQuality().isExistingTag()) {
           try {
             jmsProxy.unregisterUpdateListener(liveTag);
@@ -336,6 +339,7 @@ public class CacheSynchronizerImpl implements CacheSynchronizer, HeartbeatListen
             final TagController unkownTag = new TagController(tagId, true);
             unkownTag.addUpdateListeners(liveTag.getUpdateListeners());
             liveCache.put(tagId, unkownTag);
+            controller.getTagIndex().index(unkownTag.getTagImpl());
           }
         }
       }
@@ -368,6 +372,7 @@ public class CacheSynchronizerImpl implements CacheSynchronizer, HeartbeatListen
         boolean wasUnknown = !liveTag.getTagImpl().getDataTagQuality().isExistingTag();
 
         liveTag.update(tagUpdate);
+        controller.getTagIndex().index(liveTag.getTagImpl());
 
         if (wasUnknown) {
           subscribeToSupervisionManager(liveTag);
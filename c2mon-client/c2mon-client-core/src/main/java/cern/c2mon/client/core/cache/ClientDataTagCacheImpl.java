@@ -18,6 +18,7 @@ package cern.c2mon.client.core.cache;
 
 import java.util.*;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
+import java.util.function.Predicate;
 
 import javax.annotation.PostConstruct;
 
@@ -109,19 +110,10 @@ public class ClientDataTagCacheImpl implements ClientDataTagCache {
 
   @Override
   public Tag getByName(final String tagName) {
-    cacheReadLock.lock();
-    try {
-      Collection<TagController> values = controller.getActiveCache().values();
-      for (TagController cdt : values) {
-        if (cdt.getTagImpl().getName().equalsIgnoreCase(tagName)) {
-          return cdt.getTagImpl();
-        }
-      }
-    } finally {
-      cacheReadLock.unlock();
-    }
+    Collection<Tag> tags = getIndexedTags(controller.getTagIndex().getTagIdsByName(tagName),
+        tag -> tag.getName().equalsIgnoreCase(tagName));
 
-    return null;
+    return tags.isEmpty() ? null : tags.iterator().next();
   }
 
   @Override
@@ -144,35 +136,19 @@ public class ClientDataTagCacheImpl implements ClientDataTagCache {
 
   @Override
   public Collection<Tag> getAllTagsForEquipment(final Long equipmentId) {
-    Collection<Tag> list = new ArrayList<>();
-
-    cacheReadLock.lock();
-    try {
-      for (TagController cdt : controller.getActiveCache().values()) {
-        if (cdt.getTagImpl().getEquipmentIds().contains(equipmentId)) {
-          list.add(cdt.getTagImpl());
-        }
-      }
-    } finally {
-      cacheReadLock.unlock();
-    }
-
-    return list;
+    return getIndexedTags(controller.getTagIndex().getTagIdsForEquipment(equipmentId),
+        tag -> tag.getEquipmentIds().contains(equipmentId));
   }
 
   @Override
   public Collection<Tag> getAllTagsForListener(final BaseTagListener listener) {
     Collection<Tag> list = new ArrayList<>();
 
-    cacheReadLock.lock();
-    try {
-      for (TagController cdt : controller.getActiveCache().values()) {
-        if (cdt.isUpdateListenerRegistered(listener)) {
-          list.add(cdt.getTagImpl());
-        }
+    for (Long tagId : controller.getTagIndex().getTagIdsForListener(listener)) {
+      TagController cdt = controller.getActiveCache().get(tagId);
+      if (cdt != null && cdt.isUpdateListenerRegistered(listener)) {
+        list.add(cdt.getTagImpl());
       }
-    } finally {
-      cacheReadLock.unlock();
     }
 
     return list;
@@ -182,15 +158,11 @@ public class ClientDataTagCacheImpl implements ClientDataTagCache {
   public Set<Long> getAllTagIdsForListener(final BaseTagListener listener) {
     Set<Long> list = new HashSet<>();
 
-    cacheReadLock.lock();
-    try {
-      for (TagController cdt : controller.getActiveCache().values()) {
-        if (cdt.isUpdateListenerRegistered(listener)) {
-          list.add(cdt.getTagImpl().getId());
-        }
+    for (Long tagId : controller.getTagIndex().getTagIdsForListener(listener)) {
+      TagController cdt = controller.getActiveCache().get(tagId);
+      if (cdt != null && cdt.isUpdateListenerRegistered(listener)) {
+        list.add(tagId);
       }
-    } finally {
-      cacheReadLock.unlock();
     }
 
     return list;
@@ -198,17 +170,27 @@ public class ClientDataTagCacheImpl implements ClientDataTagCache {
 
   @Override
   public Collection<Tag> getAllTagsForProcess(final Long processId) {
-    Collection<Tag> list = new ArrayList<>();
+    return getIndexedTags(controller.getTagIndex().getTagIdsForProcess(processId),
+        tag -> tag.getProcessIds().contains(processId));
+  }
 
-    cacheReadLock.lock();
-    try {
-      for (TagController cdt : controller.getActiveCache().values()) {
-        if (cdt.getTagImpl().getProcessIds().contains(processId)) {
-          list.add(cdt.getTagImpl());
-        }
+  /**
+   * Resolves the tag ids returned by the {@link TagIndex} in the active cache.
+   * Tags that have been removed or changed since they were indexed are
+   * filtered out.
+   *
+   * @param tagIds the tag ids found in the index
+   * @param filter the criteria of the index lookup
+   * @return the matching tags of the active cache
+   */
+  private Collection<Tag> getIndexedTags(final Set<Long> tagIds, final Predicate<Tag> filter) {
+    Collection<Tag> list = new ArrayList<>(tagIds.size());
+
+    for (Long tagId : tagIds) {
+      TagController cdt = controller.getActiveCache().get(tagId);
+      if (cdt != null && filter.test(cdt.getTagImpl())) {
+        list.add(cdt.getTagImpl());
       }
-    } finally {
-      cacheReadLock.unlock();
     }
 
     return list;
@@ -263,18 +245,11 @@ public class ClientDataTagCacheImpl implements ClientDataTagCache {
       resultMap.put(tagName, null);
     }
 
-    cacheReadLock.lock();
-    try {
-      Collection<TagController> values = controller.getActiveCache().values();
-      for (TagController cdt : values) {
-        for (String tagName : tagNames) {
-          if (cdt.getTagImpl().getName().equalsIgnoreCase(tagName)) {
-            resultMap.put(tagName, cdt.getTagImpl());
-          }
-        }
+    for (String tagName : tagNames) {
+      Tag tag = getByName(tagName);
+      if (tag != null) {
+        resultMap.put(tagName, tag);
       }
-    } finally {
-      cacheReadLock.unlock();
     }
 
     return resultMap;
@@ -0,0 +1,213 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.client.core.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cern.c2mon.client.common.listener.BaseTagListener;
+import cern.c2mon.client.common.tag.Tag;
+
+/**
+ * Secondary indexes of the client cache, mapping tag names (case-insensitive),
+ * equipment ids, process ids and listeners to the ids of the cached tags.
+ * <p>
+ * The indexes only hold tag ids and are shared by the live and the history
+ * cache, which always contain the same tags. They are kept in concurrent maps,
+ * so that lookups do not need the cache lock. An index entry can be briefly
+ * out of date while a tag is updated, so callers must check the returned tags
+ * against their criteria.
+ */
+class TagIndex {
+
+  /** Lower case tag name to tag ids */
+  private final Map<String, Set<Long>> tagIdsByName = new ConcurrentHashMap<>();
+
+  private final Map<Long, Set<Long>> tagIdsByEquipment = new ConcurrentHashMap<>();
+
+  private final Map<Long, Set<Long>> tagIdsByProcess = new ConcurrentHashMap<>();
+
+  private final Map<ListenerKey, Set<Long>> tagIdsByListener = new ConcurrentHashMap<>();
+
+  /** The index keys under which each tag is currently registered */
+  private final Map<Long, IndexedTag> indexedTags = new ConcurrentHashMap<>();
+
+  /**
+   * Adds the tag to the name, equipment and process indexes, or moves it to
+   * its new keys if it was already indexed.
+   *
+   * @param tag a tag of the live cache
+   */
+  void index(final Tag tag) {
+    final Long tagId = tag.getId();
+    indexedTags.compute(tagId, (id, previous) -> {
+      IndexedTag current = new IndexedTag(tag);
+      if (previous != null) {
+        current.listeners.addAll(previous.listeners);
+        remove(tagIdsByName, previous.name, tagId);
+        removeAll(tagIdsByEquipment, previous.equipmentIds, tagId);
+        removeAll(tagIdsByProcess, previous.processIds, tagId);
+      }
+      add(tagIdsByName, current.name, tagId);
+      for (Long equipmentId : current.equipmentIds) {
+        add(tagIdsByEquipment, equipmentId, tagId);
+      }
+      for (Long processId : current.processIds) {
+        add(tagIdsByProcess, processId, tagId);
+      }
+      return current;
+    });
+  }
+
+  /**
+   * Removes a tag from all indexes.
+   *
+   * @param tagId the id of the tag removed from the live cache
+   */
+  void remove(final Long tagId) {
+    indexedTags.computeIfPresent(tagId, (id, previous) -> {
+      remove(tagIdsByName, previous.name, tagId);
+      removeAll(tagIdsByEquipment, previous.equipmentIds, tagId);
+      removeAll(tagIdsByProcess, previous.processIds, tagId);
+      for (ListenerKey listener : previous.listeners) {
+        remove(tagIdsByListener, listener, tagId);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Registers a listener subscribed to a tag.
+   */
+  void addListener(final Long tagId, final BaseTagListener listener) {
+    ListenerKey key = new ListenerKey(listener);
+    IndexedTag indexedTag = indexedTags.get(tagId);
+    if (indexedTag != null) {
+      indexedTag.listeners.add(key);
+    }
+    add(tagIdsByListener, key, tagId);
+  }
+
+  /**
+   * Removes a listener unsubscribed from a tag.
+   */
+  void removeListener(final Long tagId, final BaseTagListener listener) {
+    ListenerKey key = new ListenerKey(listener);
+    IndexedTag indexedTag = indexedTags.get(tagId);
+    if (indexedTag != null) {
+      indexedTag.listeners.remove(key);
+    }
+    remove(tagIdsByListener, key, tagId);
+  }
+
+  /**
+   * @return the ids of the tags with the given name, ignoring case
+   */
+  Set<Long> getTagIdsByName(final String tagName) {
+    return tagName == null ? Collections.emptySet() : get(tagIdsByName, toKey(tagName));
+  }
+
+  Set<Long> getTagIdsForEquipment(final Long equipmentId) {
+    return get(tagIdsByEquipment, equipmentId);
+  }
+
+  Set<Long> getTagIdsForProcess(final Long processId) {
+    return get(tagIdsByProcess, processId);
+  }
+
+  Set<Long> getTagIdsForListener(final BaseTagListener listener) {
+    return get(tagIdsByListener, new ListenerKey(listener));
+  }
+
+  private static String toKey(final String tagName) {
+    return tagName.toLowerCase(Locale.ROOT);
+  }
+
+  private static <K> Set<Long> get(final Map<K, Set<Long>> index, final K key) {
+    Set<Long> tagIds = index.get(key);
+    return tagIds == null ? Collections.emptySet() : new HashSet<>(tagIds);
+  }
+
+  private static <K> void add(final Map<K, Set<Long>> index, final K key, final Long tagId) {
+    index.compute(key, (k, tagIds) -> {
+      Set<Long> result = tagIds == null ? ConcurrentHashMap.newKeySet() : tagIds;
+      result.add(tagId);
+      return result;
+    });
+  }
+
+  private static <K> void remove(final Map<K, Set<Long>> index, final K key, final Long tagId) {
+    index.computeIfPresent(key, (k, tagIds) -> {
+      tagIds.remove(tagId);
+      return tagIds.isEmpty() ? null : tagIds;
+    });
+  }
+
+  private static <K> void removeAll(final Map<K, Set<Long>> index, final Collection<K> keys, final Long tagId) {
+    for (K key : keys) {
+      remove(index, key, tagId);
+    }
+  }
+
+  /**
+   * The keys under which a tag is indexed.
+   */
+  private static final class IndexedTag {
+
+    private final String name;
+
+    private final Set<Long> equipmentIds;
+
+    private final Set<Long> processIds;
+
+    private final Set<ListenerKey> listeners;
+
+    private IndexedTag(final Tag tag) {
+      this.name = toKey(tag.getName());
+      this.equipmentIds = new HashSet<>(tag.getEquipmentIds());
+      this.processIds = new HashSet<>(tag.getProcessIds());
+      this.listeners = ConcurrentHashMap.newKeySet();
+    }
+  }
+
+  /**
+   * Compares listeners by identity, as the tags do when registering them.
+   */
+  private static final class ListenerKey {
+
+    private final BaseTagListener listener;
+
+    private ListenerKey(final BaseTagListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof ListenerKey && ((ListenerKey) obj).listener == listener;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(listener);
+    }
+  }
+}
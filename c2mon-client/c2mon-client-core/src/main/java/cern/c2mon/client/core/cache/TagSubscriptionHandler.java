@@ -149,6 +149,7 @@ class TagSubscriptionHandler {
     for (Long tagId : subscriptionList) {
       cdt = controller.getActiveCache().get(tagId);
       cdt.addUpdateListener(listener, initialUpdates.get(tagId));
+      controller.getTagIndex().addListener(tagId, listener);
     }
 
     if (!newTagIds.isEmpty()) {
@@ -168,6 +169,7 @@ class TagSubscriptionHandler {
       for (TagController cdt : controller.getActiveCache().values()) {
         if (cdt.isUpdateListenerRegistered(listener)) {
           cdt.removeUpdateListener(listener);
+          controller.getTagIndex().removeListener(cdt.getTagImpl().getId(), listener);
           if (!cdt.hasUpdateListeners()) {
             tagsToRemove.add(cdt.getTagImpl().getId());
           }
@@ -190,6 +192,7 @@ class TagSubscriptionHandler {
       TagController cdt = null;
       for (Long tagId : dataTagIds) {
         cdt = controller.getActiveCache().get(tagId);
+        controller.getTagIndex().removeListener(tagId, listener);
         if (cdt != null) {
           cdt.removeUpdateListener(listener);
           if (!cdt.hasUpdateListeners()) {
@@ -66,5 +66,8 @@ public class C2monClientProperties {
 
     /** The maximum amount of results that shall be returned from Elasticsearch query */
     private int maxResults = 10_000;
+
+    /** The number of hits fetched per request when streaming the history of a tag */
+    private int pageSize = 1000;
   }
 }
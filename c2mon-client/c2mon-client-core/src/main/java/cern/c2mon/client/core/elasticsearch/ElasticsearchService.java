@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -47,6 +49,14 @@ import cern.c2mon.client.core.config.C2monClientProperties;
 @Slf4j
 public class ElasticsearchService {
 
+  /** Downsampling intervals (ms) chosen from for a requested resolution */
+  private static final long[] INTERVALS = {
+      1000L, 5 * 1000L, 10 * 1000L, 30 * 1000L,
+      60 * 1000L, 5 * 60 * 1000L, 10 * 60 * 1000L, 30 * 60 * 1000L,
+      3600 * 1000L, 3 * 3600 * 1000L, 6 * 3600 * 1000L, 12 * 3600 * 1000L,
+      24 * 3600 * 1000L
+  };
+
   private final JestClient client;
 
   private final String timeSeriesIndex;
@@ -57,12 +67,15 @@ public class ElasticsearchService {
 
   private final int maxResults;
 
+  private final int pageSize;
+
   @Autowired
   public ElasticsearchService(C2monClientProperties properties, @Value("${c2mon.domain}") String domain) {
     this.timeSeriesIndex = domain + "-tag*";
     this.configIndex = domain + "-tag-config";
     this.alarmIndex = domain + "-alarm*";
     this.maxResults = properties.getElasticsearch().getMaxResults();
+    this.pageSize = properties.getElasticsearch().getPageSize();
 
     JestClientFactory factory = new JestClientFactory();
     factory.setHttpClientConfig(new HttpClientConfig.Builder(properties.getElasticsearch().getUrl())
@@ -93,20 +106,61 @@ public class ElasticsearchService {
     }
   }
 
+  /**
+   * Retrieve the history of the given tag for the specified time period,
+   * downsampled by Elasticsearch to the averages of at most about
+   * {@code maxPoints} intervals.
+   * <p>
+   * The interval is the smallest of 1s, 5s, 10s, 30s, 1m, 5m, 10m, 30m, 1h,
+   * 3h, 6h, 12h and 1d that gives no more than {@code maxPoints} intervals
+   * over the time period, or a multiple of days for longer periods.
+   *
+   * @param id        the id of the tag
+   * @param min       the beginning of the requested date range (ms)
+   * @param max       the end of the requested date range (ms)
+   * @param maxPoints the requested resolution, e.g. the width of a chart in pixels
+   * @return list of [timestamp (ms), average value] pairs
+   * @throws IllegalArgumentException if maxPoints is not positive
+   */
+  public List<Object[]> getTagHistory(Long id, Long min, Long max, int maxPoints) {
+    return getAggregatedHistory(id, min, max, getInterval(min, max, maxPoints));
+  }
+
+  /**
+   * Stream the raw history of the given tag for the specified time period, in
+   * ascending timestamp order.
+   * <p>
+   * Unlike {@link #getTagHistory(Long, Long, Long, String)}, the values are
+   * not limited to the maximum amount of results. They are fetched lazily in
+   * pages while the stream is consumed, so that long time ranges can be
+   * processed with constant memory. Values with the same source, server and
+   * DAQ timestamps are kept on the same page, so that none is skipped at a
+   * page boundary.
+   *
+   * @param id  the id of the tag
+   * @param min the beginning of the requested date range (ms)
+   * @param max the end of the requested date range (ms)
+   * @return stream of [timestamp (ms), value] pairs
+   */
+  public Stream<Object[]> streamTagHistory(Long id, Long min, Long max) {
+    Iterator<Object[]> values = new TagHistoryIterator(client, timeSeriesIndex, id, min, max, pageSize);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(values,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
   private List<Object[]> getAggregatedHistory(Long id, Long min, Long max, String aggregate) {
     // Figure out the right interval
     String interval = aggregate.equals("auto") ? getInterval(min, max) : aggregate;
     log.info("Using interval: " + interval);
     String query = String.format("{\n" +
-        "  \"size\" : " + maxResults + ",\n" +
+        "  \"size\" : 0,\n" +
         "  \"query\" : {\n" +
-        "    \"term\" : {\n" +
-        "      \"id\" : %d\n" +
-        "    }\n" +
-        "  },\n" +
-        "  \"aggregations\" : {\n" +
-        "    \"time-range\" : {\n" +
-        "      \"filter\" : {\n" +
+        "    \"bool\" : {\n" +
+        "      \"must\" : [ {\n" +
+        "        \"term\" : {\n" +
+        "          \"id\" : %d\n" +
+        "        }\n" +
+        "      }, {\n" +
         "        \"range\" : {\n" +
         "          \"timestamp\" : {\n" +
         "            \"from\" : %d,\n" +
@@ -115,31 +169,31 @@ public class ElasticsearchService {
         "            \"include_upper\" : true\n" +
         "          }\n" +
         "        }\n" +
+        "      } ]\n" +
+        "    }\n" +
+        "  },\n" +
+        "  \"aggregations\" : {\n" +
+        "    \"events-per-interval\" : {\n" +
+        "      \"date_histogram\" : {\n" +
+        "        \"field\" : \"timestamp\",\n" +
+        "        \"interval\" : \"%s\"\n" +
         "      },\n" +
         "      \"aggregations\" : {\n" +
-        "        \"events-per-interval\" : {\n" +
-        "          \"date_histogram\" : {\n" +
-        "            \"field\" : \"timestamp\",\n" +
-        "            \"interval\" : \"%s\"\n" +
-        "          },\n" +
-        "          \"aggregations\" : {\n" +
-        "            \"avg-value\" : {\n" +
-        "              \"avg\" : {\n" +
-        "                \"field\" : \"value\"\n" +
-        "              }\n" +
-        "            }\n" +
+        "        \"avg-value\" : {\n" +
+        "          \"avg\" : {\n" +
+        "            \"field\" : \"value\"\n" +
         "          }\n" +
         "        }\n" +
         "      }\n" +
         "    }\n" +
         "  }\n" +
-        "}", id, min, max, aggregate);
+        "}", id, min, max, interval);
     Search search = new Search.Builder(query).addIndex(timeSeriesIndex).build();
     long start = System.currentTimeMillis();
     try {
       List<Object[]> results = new ArrayList<>();
       SearchResult result = client.execute(search);
-      DateHistogramAggregation aggregation = result.getAggregations().getFilterAggregation("time-range").getDateHistogramAggregation("events-per-interval");
+      DateHistogramAggregation aggregation = result.getAggregations().getDateHistogramAggregation("events-per-interval");
       for (DateHistogram bucket : aggregation.getBuckets()) {
         AvgAggregation avg = bucket.getAvgAggregation("avg-value");
         results.add(new Object[]{Long.parseLong(bucket.getTimeAsString()), avg.getAvg()});
@@ -151,6 +205,37 @@ public class ElasticsearchService {
     }
   }
 
+  /**
+   * @return the smallest of {@link #INTERVALS} giving at most maxPoints
+   * intervals between min and max, or a multiple of days
+   * @throws IllegalArgumentException if maxPoints is not positive
+   */
+  static String getInterval(Long min, Long max, int maxPoints) {
+    if (maxPoints <= 0) {
+      throw new IllegalArgumentException("The maximum number of points must be positive: " + maxPoints);
+    }
+    long range = Math.max(max - min, 1L);
+    for (long interval : INTERVALS) {
+      if (range / interval < maxPoints) {
+        return toIntervalString(interval);
+      }
+    }
+    long day = INTERVALS[INTERVALS.length - 1];
+    long days = (range + day * maxPoints - 1) / (day * maxPoints);
+    return toIntervalString(days * day);
+  }
+
+  private static String toIntervalString(long interval) {
+    if (interval % (24 * 3600 * 1000L) == 0) {
+      return interval / (24 * 3600 * 1000L) + "d";
+    } else if (interval % (3600 * 1000L) == 0) {
+      return interval / (3600 * 1000L) + "h";
+    } else if (interval % (60 * 1000L) == 0) {
+      return interval / (60 * 1000L) + "m";
+    }
+    return interval / 1000L + "s";
+  }
+
   private String getInterval(Long min, Long max) {
     String interval;
     Long range = max - min;
@@ -186,6 +271,7 @@ public class ElasticsearchService {
   private List<Object[]> getRawHistory(Long id, Long min, Long max) {
     String query = String.format("{\n" +
         "  \"size\" : " + maxResults + ",\n" +
+        "  \"_source\" : [ \"timestamp\", \"value\" ],\n" +
         "  \"query\" : {\n" +
         "    \"bool\" : {\n" +
         "      \"must\" : [ {\n" +
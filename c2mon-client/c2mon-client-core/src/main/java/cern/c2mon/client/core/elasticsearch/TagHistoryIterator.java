@@ -0,0 +1,228 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.client.core.elasticsearch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Search;
+import io.searchbox.core.SearchResult;
+
+/**
+ * Iterates over the raw history of a tag in ascending timestamp order.
+ * <p>
+ * The hits are fetched one page at a time. Each page continues after the sort
+ * values of the last hit of the previous one (search_after), so only the
+ * current page is held in memory and no search context is kept open on the
+ * cluster between pages. The server and DAQ timestamps break ties between
+ * values with the same source timestamp; unlike the document id, they are
+ * sorted on doc values and do not load fielddata. As values may still share
+ * all three timestamps, a page never ends in the middle of such a group.
+ */
+class TagHistoryIterator implements Iterator<Object[]> {
+
+  private final JestClient client;
+
+  private final String index;
+
+  private final Long id;
+
+  private final Long min;
+
+  private final Long max;
+
+  private final int pageSize;
+
+  private Iterator<Object[]> page = Collections.emptyIterator();
+
+  /** Sort values of the last hit fetched, or null before the first page */
+  private JsonArray searchAfter;
+
+  private boolean lastPage = false;
+
+  TagHistoryIterator(JestClient client, String index, Long id, Long min, Long max, int pageSize) {
+    this.client = client;
+    this.index = index;
+    this.id = id;
+    this.min = min;
+    this.max = max;
+    this.pageSize = pageSize;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!page.hasNext() && !lastPage) {
+      fetchPage();
+    }
+    return page.hasNext();
+  }
+
+  @Override
+  public Object[] next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.next();
+  }
+
+  /**
+   * Fetches the next page, with one more hit than the page size. If that hit
+   * has the same sort values as the last hit of the page, search_after would
+   * skip it: the hits with these sort values are then held back and fetched
+   * with the next page instead. A page made only of such hits is completed
+   * with {@link #fetchTies}.
+   */
+  private void fetchPage() {
+    String query = String.format("{\n" +
+        "  \"size\" : %d,\n" +
+        "  \"_source\" : [ \"timestamp\", \"value\" ],\n" +
+        "  \"query\" : {\n" +
+        "    \"bool\" : {\n" +
+        "      \"must\" : [ {\n" +
+        "        \"term\" : {\n" +
+        "          \"id\" : %d\n" +
+        "        }\n" +
+        "      }, {\n" +
+        "        \"range\" : {\n" +
+        "          \"timestamp\" : {\n" +
+        "            \"from\" : %d,\n" +
+        "            \"to\" : %d,\n" +
+        "            \"include_lower\" : true,\n" +
+        "            \"include_upper\" : true\n" +
+        "          }\n" +
+        "        }\n" +
+        "      } ]\n" +
+        "    }\n" +
+        "  },\n" +
+        (searchAfter == null ? "" : "  \"search_after\" : " + searchAfter + ",\n") +
+        "  \"sort\" : [ {\n" +
+        "    \"timestamp\" : {\n" +
+        "      \"order\" : \"asc\"\n" +
+        "    }\n" +
+        "  }, {\n" +
+        "    \"c2mon.serverTimestamp\" : {\n" +
+        "      \"order\" : \"asc\"\n" +
+        "    }\n" +
+        "  }, {\n" +
+        "    \"c2mon.daqTimestamp\" : {\n" +
+        "      \"order\" : \"asc\"\n" +
+        "    }\n" +
+        "  } ]\n" +
+        "}", pageSize + 1, id, min, max);
+    JsonArray hits = search(query);
+
+    List<Object[]> values = new ArrayList<>();
+    if (hits.size() <= pageSize) {
+      for (JsonElement hit : hits) {
+        values.add(toValue(hit.getAsJsonObject()));
+      }
+      lastPage = true;
+    } else {
+      JsonArray lastKey = sortValues(hits.get(pageSize - 1));
+      int end = pageSize;
+      if (sortValues(hits.get(pageSize)).equals(lastKey)) {
+        while (end > 0 && sortValues(hits.get(end - 1)).equals(lastKey)) {
+          end--;
+        }
+      }
+      if (end > 0) {
+        for (int i = 0; i < end; i++) {
+          values.add(toValue(hits.get(i).getAsJsonObject()));
+        }
+        searchAfter = sortValues(hits.get(end - 1));
+      } else {
+        values.addAll(fetchTies(lastKey));
+        searchAfter = lastKey;
+      }
+    }
+    page = values.iterator();
+  }
+
+  /**
+   * Fetches all values with the given sort values, a page at a time.
+   */
+  private List<Object[]> fetchTies(JsonArray key) {
+    String clauses = "{ \"term\" : { \"id\" : " + id + " } }, " +
+        "{ \"term\" : { \"timestamp\" : " + key.get(0) + " } }";
+    String[] tieBreakers = { "c2mon.serverTimestamp", "c2mon.daqTimestamp" };
+    String missing = "";
+    for (int i = 0; i < tieBreakers.length; i++) {
+      // documents without the field are sorted last, with the maximum long value
+      if (key.get(i + 1).getAsLong() == Long.MAX_VALUE) {
+        missing += (missing.isEmpty() ? "" : ", ") + "{ \"exists\" : { \"field\" : \"" + tieBreakers[i] + "\" } }";
+      } else {
+        clauses += ", { \"term\" : { \"" + tieBreakers[i] + "\" : " + key.get(i + 1) + " } }";
+      }
+    }
+
+    List<Object[]> values = new ArrayList<>();
+    JsonArray hits;
+    do {
+      String query = "{\n" +
+          "  \"from\" : " + values.size() + ",\n" +
+          "  \"size\" : " + pageSize + ",\n" +
+          "  \"_source\" : [ \"timestamp\", \"value\" ],\n" +
+          "  \"query\" : {\n" +
+          "    \"bool\" : {\n" +
+          "      \"must\" : [ " + clauses + " ]" +
+          (missing.isEmpty() ? "" : ",\n      \"must_not\" : [ " + missing + " ]") + "\n" +
+          "    }\n" +
+          "  },\n" +
+          "  \"sort\" : [ \"_doc\" ]\n" +
+          "}";
+      hits = search(query);
+      for (JsonElement hit : hits) {
+        values.add(toValue(hit.getAsJsonObject()));
+      }
+    } while (hits.size() == pageSize);
+    return values;
+  }
+
+  private JsonArray search(String query) {
+    Search search = new Search.Builder(query).addIndex(index).build();
+
+    SearchResult result;
+    try {
+      result = client.execute(search);
+    } catch (IOException e) {
+      throw new RuntimeException("Error querying raw history for tag #" + id, e);
+    }
+    if (!result.isSucceeded()) {
+      throw new RuntimeException("Error querying raw history for tag #" + id + ": " + result.getErrorMessage());
+    }
+    return result.getJsonObject().getAsJsonObject("hits").getAsJsonArray("hits");
+  }
+
+  private static JsonArray sortValues(JsonElement hit) {
+    return hit.getAsJsonObject().getAsJsonArray("sort");
+  }
+
+  private static Object[] toValue(JsonObject hit) {
+    JsonObject source = hit.getAsJsonObject("_source");
+    JsonElement value = source.get("value");
+    return new Object[]{source.get("timestamp").getAsLong(),
+        value == null || value.isJsonNull() ? null : value.getAsDouble()};
+  }
+}
@@ -17,9 +17,14 @@
 package cern.c2mon.client.core.jms.impl;
 
 import java.sql.Timestamp;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,6 +41,11 @@ import org.springframework.context.Lifecycle;
  * listeners on a separate thread. Notifies a health monitoring interface
  * if slow consumers are detected.
  *
+ * <p>Events for which {@link #getConflationKey(Object)} returns a key are not
+ * queued one by one: only the latest event per key is kept in a dirty set,
+ * which is drained in batches. The work done for these events is bounded
+ * by the number of keys rather than by the rate of incoming messages.
+ *
  * <p>Use the lifecycle methods at application startup/shutdown.
  *
  * @author Mark Brightwell
@@ -52,6 +62,26 @@ public abstract class AbstractQueuedWrapper<U> implements Lifecycle, MessageList
    */
   private ArrayBlockingQueue<U> eventQueue;
 
+  /**
+   * Latest event per conflation key, for keys waiting to be notified.
+   */
+  private final Map<Object, U> latestEvents = new ConcurrentHashMap<>();
+
+  /**
+   * Conflation keys in the order they became dirty; each key is contained at most once.
+   */
+  private final Queue<Object> dirtyKeys = new ConcurrentLinkedQueue<>();
+
+  /**
+   * One permit per queued event and per dirty key.
+   */
+  private final Semaphore pendingEvents = new Semaphore(0);
+
+  /**
+   * Maximum number of conflated events notified in one go.
+   */
+  private static final int CONFLATION_BATCH_SIZE = 100;
+
   /**
    * Single listener for slow consumer callbacks.
    */
@@ -106,6 +136,30 @@ public abstract class AbstractQueuedWrapper<U> implements Lifecycle, MessageList
    */
   protected abstract void notifyListeners(U event);
 
+  /**
+   * Returns the key under which this event may be conflated with later
+   * events, or null if it must be queued and notified like any other.
+   * Called on the JMS thread, so must not block on the listeners.
+   *
+   * @param event the incoming event
+   * @return the conflation key, or null (default)
+   */
+  protected Object getConflationKey(U event) {
+    return null;
+  }
+
+  /**
+   * Chooses the event to keep when a new event arrives for a key that is
+   * still waiting to be notified. Defaults to the new event.
+   *
+   * @param waiting the event waiting to be notified
+   * @param event the incoming event
+   * @return the event to notify
+   */
+  protected U conflate(U waiting, U event) {
+    return event;
+  }
+
   public AbstractQueuedWrapper(final int queueCapacity, final SlowConsumerListener slowConsumerListener,
                                     final ExecutorService executorService) {
     super();
@@ -116,13 +170,14 @@ public abstract class AbstractQueuedWrapper<U> implements Lifecycle, MessageList
 
       @Override
       public Boolean call() throws Exception {
-        U event;
         try {
-          event = eventQueue.poll(POLL_TIMEOUT, TimeUnit.SECONDS);
-          if (event != null) {
-            notificationTime.set(System.currentTimeMillis());
-            notifyListeners(event);
-            notificationTime.set(0);
+          if (pendingEvents.tryAcquire(POLL_TIMEOUT, TimeUnit.SECONDS)) {
+            U event = eventQueue.poll();
+            if (event != null) {
+              notifyEvent(event);
+            } else {
+              notifyConflatedEvents();
+            }
           }
         } catch (Exception e) {
           log.error("Exception caught while polling queue: ", e);
@@ -135,6 +190,62 @@ public abstract class AbstractQueuedWrapper<U> implements Lifecycle, MessageList
     });
   }
 
+  private void notifyEvent(U event) {
+    notificationTime.set(System.currentTimeMillis());
+    try {
+      notifyListeners(event);
+    } finally {
+      notificationTime.set(0);
+    }
+  }
+
+  /**
+   * Notifies the latest event of up to {@link #CONFLATION_BATCH_SIZE} dirty
+   * keys. The permit of the first key has already been acquired by the caller.
+   */
+  private void notifyConflatedEvents() {
+    int notified = 0;
+    Object key;
+    while (notified < CONFLATION_BATCH_SIZE && (notified == 0 || pendingEvents.tryAcquire())) {
+      key = dirtyKeys.poll();
+      if (key == null) {
+        // permit released for an event of the other queue, or not yet for a new key
+        if (notified > 0) {
+          pendingEvents.release();
+        }
+        return;
+      }
+      U event = latestEvents.remove(key);
+      if (event != null) {
+        try {
+          notifyEvent(event);
+        } catch (Exception e) {
+          log.error("Exception caught while notifying conflated event: ", e);
+        }
+      }
+      notified++;
+    }
+  }
+
+  /**
+   * Keeps the event as latest event of its key, marking the key dirty if it
+   * was not already waiting to be notified.
+   */
+  private void putLatest(Object key, U event) {
+    boolean[] dirty = new boolean[1];
+    latestEvents.compute(key, (k, waiting) -> {
+      if (waiting == null) {
+        dirty[0] = true;
+        return event;
+      }
+      return conflate(waiting, event);
+    });
+    if (dirty[0]) {
+      dirtyKeys.add(key);
+      pendingEvents.release();
+    }
+  }
+
   /**
    * Converts message into SupervisionEvent and notifies registered listeners.
    *
@@ -160,7 +271,13 @@ public abstract class AbstractQueuedWrapper<U> implements Lifecycle, MessageList
           log.warn("No returning call from listener since {}", new Timestamp(lastNotificationTime));
           slowConsumerListener.onSlowConsumer(warning);
         }
-        eventQueue.put(event);
+        Object conflationKey = getConflationKey(event);
+        if (conflationKey != null) {
+          putLatest(conflationKey, event);
+        } else {
+          eventQueue.put(event);
+          pendingEvents.release();
+        }
       } else {
         log.warn("Non-text message received for " + this.getClass().getSimpleName() + " - ignoring event");
       }
@@ -193,10 +310,11 @@ public abstract class AbstractQueuedWrapper<U> implements Lifecycle, MessageList
   }
 
   /**
-   * @return size of the internal queue of events
+   * @return size of the internal queue of events, including the conflated events
+   *         waiting to be notified
    */
   public int getQueueSize(){
-    return eventQueue.size();
+    return eventQueue.size() + latestEvents.size();
   }
 
   /**
@@ -27,6 +27,7 @@ import javax.jms.TextMessage;
 
 import lombok.extern.slf4j.Slf4j;
 
+import cern.c2mon.client.core.listener.ConflatingTagUpdateListener;
 import cern.c2mon.client.core.listener.TagUpdateListener;
 import cern.c2mon.shared.client.serializer.TransferTagSerializer;
 import cern.c2mon.shared.client.tag.TagValueUpdate;
@@ -40,6 +41,9 @@ import cern.c2mon.shared.client.tag.TransferTagValueImpl;
  * wrapper listens on a the given topic and notifies {@link TagUpdateListener}s when an update is received for the
  * corresponding Tag. Notice only one TagUpdateListener will be registered for a given id (the latest one added). In
  * other words, this wrapper also functions as a filter on the topic, with undesired messages being filtered out.
+ * <p>
+ * Updates for tags whose listener is a {@link ConflatingTagUpdateListener} in conflating mode are not queued:
+ * only the latest update per tag is kept until the listener is notified.
  *
  * @author Mark Brightwell
  */
@@ -56,6 +60,12 @@ class MessageListenerWrapper extends AbstractQueuedWrapper<TagValueUpdate> {
      */
     private ConcurrentHashMap<Long, Long> eventTimes = new ConcurrentHashMap<>();
 
+    /**
+     * The listeners that may conflate updates, by tag id. Read on the JMS thread without
+     * synchronizing on this wrapper, which is held while listeners are notified.
+     */
+    private Map<Long, ConflatingTagUpdateListener> conflatingListeners = new ConcurrentHashMap<>();
+
     /**
      * Constructor. Adds the listener to receive updates for the specified Tag id.
      *
@@ -79,6 +89,11 @@ class MessageListenerWrapper extends AbstractQueuedWrapper<TagValueUpdate> {
      */
     public synchronized void addListener(final TagUpdateListener listener, final Long tagId) {
         listeners.put(tagId, listener);
+        if (listener instanceof ConflatingTagUpdateListener) {
+          conflatingListeners.put(tagId, (ConflatingTagUpdateListener) listener);
+        } else {
+          conflatingListeners.remove(tagId);
+        }
     }
 
     /**
@@ -88,6 +103,7 @@ class MessageListenerWrapper extends AbstractQueuedWrapper<TagValueUpdate> {
      */
     public synchronized void removeListener(final Long tagId) {
         listeners.remove(tagId);
+        conflatingListeners.remove(tagId);
         eventTimes.remove(tagId);
     }
 
@@ -106,6 +122,23 @@ class MessageListenerWrapper extends AbstractQueuedWrapper<TagValueUpdate> {
       return TransferTagSerializer.fromJson(((TextMessage) message).getText(), TransferTagValueImpl.class);
     }
 
+    @Override
+    protected Object getConflationKey(TagValueUpdate tagValueUpdate) {
+      ConflatingTagUpdateListener listener = conflatingListeners.get(tagValueUpdate.getId());
+      return listener != null && listener.isConflating() ? tagValueUpdate.getId() : null;
+    }
+
+    /**
+     * Keeps the update with the most recent server timestamp.
+     */
+    @Override
+    protected TagValueUpdate conflate(TagValueUpdate waiting, TagValueUpdate tagValueUpdate) {
+      if (waiting.getServerTimestamp().getTime() > tagValueUpdate.getServerTimestamp().getTime()) {
+        return waiting;
+      }
+      return tagValueUpdate;
+    }
+
     @Override
     protected synchronized void notifyListeners(TagValueUpdate tagValueUpdate) {
       if (listeners.containsKey(tagValueUpdate.getId())) {
@@ -0,0 +1,38 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.client.core.listener;
+
+/**
+ * A {@link TagUpdateListener} that may only need the latest value of its tag.
+ *
+ * <p>While {@link #isConflating()} returns true, updates arriving while the
+ * listener is busy are conflated: only the most recent update per tag is kept
+ * and delivered, so the listener never falls behind and never blocks the JMS
+ * session. Intermediate updates may therefore not be seen at all.
+ */
+public interface ConflatingTagUpdateListener extends TagUpdateListener {
+
+  /**
+   * Called for every incoming update, so that the mode can change while the
+   * listener is registered.
+   *
+   * @return true if only the latest update of the tag must be delivered
+   */
+  default boolean isConflating() {
+    return true;
+  }
+}
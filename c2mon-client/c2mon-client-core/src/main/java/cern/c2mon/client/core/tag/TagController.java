@@ -25,11 +25,12 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import cern.c2mon.client.common.listener.BaseTagListener;
+import cern.c2mon.client.common.listener.ConflatingTagListener;
 import cern.c2mon.client.common.listener.TagListener;
 import cern.c2mon.client.common.tag.Tag;
 import cern.c2mon.client.common.util.ConcurrentIdentitySet;
 import cern.c2mon.client.core.jms.SupervisionListener;
-import cern.c2mon.client.core.listener.TagUpdateListener;
+import cern.c2mon.client.core.listener.ConflatingTagUpdateListener;
 import cern.c2mon.shared.client.supervision.SupervisionEvent;
 import cern.c2mon.shared.client.tag.TagUpdate;
 import cern.c2mon.shared.client.tag.TagValueUpdate;
@@ -46,7 +47,7 @@ import cern.c2mon.shared.rule.RuleFormatException;
  */
 @Data
 @Slf4j
-public class TagController implements TagUpdateListener, SupervisionListener {
+public class TagController implements ConflatingTagUpdateListener, SupervisionListener {
 
   private TagImpl tagImpl;
 
@@ -98,6 +99,26 @@ public class TagController implements TagUpdateListener, SupervisionListener {
     return update(tagValueUpdate);
   }
 
+  /**
+   * Updates of this tag may only be conflated if all its listeners
+   * subscribed as {@link ConflatingTagListener}.
+   *
+   * @return <code>true</code>, if only the latest update of this tag
+   * has to be delivered
+   */
+  @Override
+  public boolean isConflating() {
+    if (listeners.isEmpty()) {
+      return false;
+    }
+    for (BaseTagListener listener : listeners) {
+      if (!(listener instanceof ConflatingTagListener)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * This thread safe method updates the accessible state of the given
    * <code>Tag</code> object. Once the accessibility has been updated
@@ -0,0 +1,96 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.client.core.cache;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import cern.c2mon.client.common.listener.BaseTagListener;
+import cern.c2mon.client.core.tag.TagImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TagIndexTest {
+
+  private final TagIndex index = new TagIndex();
+
+  private final BaseTagListener listener = tagUpdate -> { };
+
+  @Test
+  public void testLookupByNameIsCaseInsensitive() {
+    index.index(createTag(1L, "Tag.Name", 10L, 100L));
+
+    assertEquals(Collections.singleton(1L), index.getTagIdsByName("TAG.name"));
+    assertTrue(index.getTagIdsByName("other").isEmpty());
+  }
+
+  @Test
+  public void testLookupByEquipmentAndProcess() {
+    index.index(createTag(1L, "tag1", 10L, 100L));
+    index.index(createTag(2L, "tag2", 10L, 200L));
+
+    assertEquals(2, index.getTagIdsForEquipment(10L).size());
+    assertEquals(Collections.singleton(2L), index.getTagIdsForProcess(200L));
+  }
+
+  @Test
+  public void testReindexMovesTagAndKeepsListeners() {
+    index.index(createTag(1L, "tag1", 10L, 100L));
+    index.addListener(1L, listener);
+
+    index.index(createTag(1L, "renamed", 11L, 101L));
+
+    assertTrue(index.getTagIdsByName("tag1").isEmpty());
+    assertTrue(index.getTagIdsForEquipment(10L).isEmpty());
+    assertEquals(Collections.singleton(1L), index.getTagIdsByName("renamed"));
+    assertEquals(Collections.singleton(1L), index.getTagIdsForProcess(101L));
+    assertEquals(Collections.singleton(1L), index.getTagIdsForListener(listener));
+  }
+
+  @Test
+  public void testRemove() {
+    index.index(createTag(1L, "tag1", 10L, 100L));
+    index.addListener(1L, listener);
+
+    index.remove(1L);
+
+    assertTrue(index.getTagIdsByName("tag1").isEmpty());
+    assertTrue(index.getTagIdsForEquipment(10L).isEmpty());
+    assertTrue(index.getTagIdsForProcess(100L).isEmpty());
+    assertTrue(index.getTagIdsForListener(listener).isEmpty());
+  }
+
+  @Test
+  public void testRemoveListener() {
+    index.index(createTag(1L, "tag1", 10L, 100L));
+    index.addListener(1L, listener);
+
+    index.removeListener(1L, listener);
+
+    assertTrue(index.getTagIdsForListener(listener).isEmpty());
+  }
+
+  private static TagImpl createTag(Long tagId, String name, Long equipmentId, Long processId) {
+    TagImpl tag = new TagImpl(tagId);
+    tag.setTagName(name);
+    tag.getEquipmentSupervisionStatus().put(equipmentId, null);
+    tag.getProcessSupervisionStatus().put(processId, null);
+    return tag;
+  }
+}
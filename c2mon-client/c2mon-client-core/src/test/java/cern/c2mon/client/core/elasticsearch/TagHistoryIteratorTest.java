@@ -0,0 +1,135 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.client.core.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Search;
+import io.searchbox.core.SearchResult;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class TagHistoryIteratorTest {
+
+  private final Gson gson = new Gson();
+
+  @Test
+  public void testPagesAreFetchedAfterLastSortValues() throws Exception {
+    JestClient client = createMock(JestClient.class);
+    Capture<Search> searches = newCapture(CaptureType.ALL);
+    expect(client.execute(capture(searches))).andReturn(page(1, 2, 3)).andReturn(page(3, 4, 5)).andReturn(page(5));
+    replay(client);
+
+    TagHistoryIterator iterator = new TagHistoryIterator(client, "c2mon-tag*", 1L, 0L, 100L, 2);
+    List<Object[]> values = new ArrayList<>();
+    iterator.forEachRemaining(values::add);
+
+    assertEquals(5, values.size());
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i + 1L, values.get(i)[0]);
+      assertEquals(i + 1.5, values.get(i)[1]);
+    }
+    String first = searches.getValues().get(0).getData(gson);
+    assertFalse(first.contains("search_after"));
+    assertTrue(first.contains("\"c2mon.serverTimestamp\""));
+    assertTrue(first.contains("\"c2mon.daqTimestamp\""));
+    assertFalse(first.contains("\"_id\""));
+    assertTrue(first.contains("\"size\" : 3"));
+    assertTrue(searches.getValues().get(1).getData(gson).contains("\"search_after\" : [2,12,22]"));
+    assertTrue(searches.getValues().get(2).getData(gson).contains("\"search_after\" : [4,14,24]"));
+    verify(client);
+  }
+
+  @Test
+  public void testTiedValuesOnPageBoundaryAreNotSkipped() throws Exception {
+    JestClient client = createMock(JestClient.class);
+    Capture<Search> searches = newCapture(CaptureType.ALL);
+    expect(client.execute(capture(searches)))
+        .andReturn(page(1, 2, 2))
+        .andReturn(page(2, 2, 2))
+        // all values of the tie, fetched by their sort values
+        .andReturn(page(2, 2)).andReturn(page(2, 2)).andReturn(page())
+        .andReturn(page(3));
+    replay(client);
+
+    TagHistoryIterator iterator = new TagHistoryIterator(client, "c2mon-tag*", 1L, 0L, 100L, 2);
+    List<Object[]> values = new ArrayList<>();
+    iterator.forEachRemaining(values::add);
+
+    long[] expected = {1, 2, 2, 2, 2, 3};
+    assertEquals(expected.length, values.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], values.get(i)[0]);
+    }
+    List<Search> requests = searches.getValues();
+    assertTrue(requests.get(1).getData(gson).contains("\"search_after\" : [1,11,21]"));
+    String ties = requests.get(2).getData(gson);
+    assertTrue(ties.contains("\"timestamp\" : 2 }"));
+    assertTrue(ties.contains("\"c2mon.serverTimestamp\" : 12 }"));
+    assertTrue(ties.contains("\"c2mon.daqTimestamp\" : 22 }"));
+    assertTrue(requests.get(3).getData(gson).contains("\"from\" : 2"));
+    assertTrue(requests.get(5).getData(gson).contains("\"search_after\" : [2,12,22]"));
+    verify(client);
+  }
+
+  @Test
+  public void testEmptyHistory() throws Exception {
+    JestClient client = createMock(JestClient.class);
+    expect(client.execute(anyObject(Search.class))).andReturn(page());
+    replay(client);
+
+    TagHistoryIterator iterator = new TagHistoryIterator(client, "c2mon-tag*", 1L, 0L, 100L, 2);
+    assertFalse(iterator.hasNext());
+    assertFalse(iterator.hasNext());
+    verify(client);
+  }
+
+  private SearchResult page(long... timestamps) {
+    JsonArray hits = new JsonArray();
+    for (long timestamp : timestamps) {
+      JsonObject source = new JsonObject();
+      source.addProperty("timestamp", timestamp);
+      source.addProperty("value", timestamp + 0.5);
+      JsonArray sort = new JsonArray();
+      sort.add(timestamp);
+      sort.add(timestamp + 10);
+      sort.add(timestamp + 20);
+      JsonObject hit = new JsonObject();
+      hit.add("_source", source);
+      hit.add("sort", sort);
+      hits.add(hit);
+    }
+    JsonObject hitsObject = new JsonObject();
+    hitsObject.add("hits", hits);
+    JsonObject json = new JsonObject();
+    json.add("hits", hitsObject);
+
+    SearchResult result = new SearchResult(gson);
+    result.setJsonObject(json);
+    result.setSucceeded(true);
+    return result;
+  }
+}
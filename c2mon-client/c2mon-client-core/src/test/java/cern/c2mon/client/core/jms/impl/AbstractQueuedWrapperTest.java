@@ -19,7 +19,13 @@ package cern.c2mon.client.core.jms.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
@@ -86,6 +92,59 @@ public class AbstractQueuedWrapperTest {
     
   }
   
+  /**
+   * Wrapper conflating all events under a single key, whose first
+   * notification blocks until released.
+   */
+  private class ConflatingWrapper extends AbstractQueuedWrapper<Integer> {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final List<Integer> notified = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch firstNotification = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch lastNotification = new CountDownLatch(1);
+
+    private final int lastEvent;
+
+    public ConflatingWrapper(int queueCapacity, SlowConsumerListener slowConsumerListener, int lastEvent) {
+      super(queueCapacity, slowConsumerListener, Executors.newFixedThreadPool(2));
+      this.lastEvent = lastEvent;
+    }
+
+    @Override
+    protected Integer convertMessage(Message message) throws JMSException {
+      return counter.incrementAndGet();
+    }
+
+    @Override
+    protected Object getConflationKey(Integer event) {
+      return "key";
+    }
+
+    @Override
+    protected void notifyListeners(Integer event) {
+      notified.add(event);
+      firstNotification.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (event == lastEvent) {
+        lastNotification.countDown();
+      }
+    }
+
+    @Override
+    protected String getDescription(Integer event) {
+      return "test description";
+    }
+  }
+
   @Before
   public void beforeTest() {
     mocksControl = EasyMock.createNiceControl();
@@ -142,4 +201,32 @@ public class AbstractQueuedWrapperTest {
     assertEquals(2, listenerNotified);    
   }
   
+  /**
+   * Conflated events never block the incoming thread, even with a full queue,
+   * and the latest event is always notified.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testConflation() throws InterruptedException {
+    ConflatingWrapper conflatingWrapper = new ConflatingWrapper(2, mockSlowConsumerListener, 50);
+    conflatingWrapper.start();
+    try {
+      conflatingWrapper.onMessage(mockMessage);
+      assertTrue(conflatingWrapper.firstNotification.await(5, TimeUnit.SECONDS));
+      // the listener is now busy: the other events must neither block nor queue up
+      for (int i = 1; i < 50; i++) {
+        conflatingWrapper.onMessage(mockMessage);
+      }
+      assertEquals("only the latest event is waiting", 1, conflatingWrapper.getQueueSize());
+      conflatingWrapper.release.countDown();
+
+      assertTrue(conflatingWrapper.lastNotification.await(5, TimeUnit.SECONDS));
+      assertEquals(Arrays.asList(1, 50), conflatingWrapper.notified);
+      assertEquals(0, conflatingWrapper.getQueueSize());
+    } finally {
+      conflatingWrapper.release.countDown();
+      conflatingWrapper.stop();
+    }
+  }
+
 }
@@ -8,6 +8,8 @@ import java.util.Arrays;
 
 import org.junit.Test;
 
+import cern.c2mon.client.common.listener.BaseTagListener;
+import cern.c2mon.client.common.listener.ConflatingTagListener;
 import cern.c2mon.client.core.tag.utils.TestTagUpdate;
 import cern.c2mon.shared.client.supervision.SupervisionEvent;
 import cern.c2mon.shared.client.supervision.SupervisionEventImpl;
@@ -113,4 +115,21 @@ public class TagControllerTest {
     tagController.onSupervisionUpdate(processDownEvent);
     assertFalse("The data tag should be invalid", tagController.getTagImpl().getDataTagQuality().isValid());
   }
+
+  @Test
+  public void testConflatingOnlyIfAllListenersConflate() {
+    TagController tagController = new TagController(TAG_ID);
+    assertFalse("A tag without listeners is not conflated", tagController.isConflating());
+
+    ConflatingTagListener conflatingListener = tag -> { };
+    tagController.addUpdateListener(conflatingListener);
+    assertTrue(tagController.isConflating());
+
+    BaseTagListener listener = tag -> { };
+    tagController.addUpdateListener(listener);
+    assertFalse("Every update must reach a non-conflating listener", tagController.isConflating());
+
+    tagController.removeUpdateListener(listener);
+    assertTrue(tagController.isConflating());
+  }
 }
@@ -512,6 +512,9 @@ public class EquipmentMessageSender implements ICoreDataTagChanger, IEquipmentMe
   public void onRemoveDataTag(final SourceDataTag sourceDataTag, final ChangeReport changeReport) {
     this.medDynamicTimeDeadbandFilterActivator.removeDataTag(sourceDataTag);
     this.lowDynamicTimeDeadbandFilterActivator.removeDataTag(sourceDataTag);
+    if (this.equipmentSenderValid != null) {
+      this.equipmentSenderValid.resetPipeline(sourceDataTag.getId());
+    }
     changeReport.appendInfo("Data tag " + sourceDataTag.getId() + " removed from any filters.");
   }
 
@@ -525,6 +528,9 @@ public class EquipmentMessageSender implements ICoreDataTagChanger, IEquipmentMe
    */
   @Override
   public void onUpdateDataTag(final SourceDataTag sourceDataTag, final SourceDataTag oldSourceDataTag, final ChangeReport changeReport) {
+    if (this.equipmentSenderValid != null) {
+      this.equipmentSenderValid.resetPipeline(sourceDataTag.getId());
+    }
     if (!sourceDataTag.getAddress().isStaticTimedeadband() && sourceDataTag.getAddress().getPriority() != oldSourceDataTag.getAddress().getPriority()) {
       onRemoveDataTag(sourceDataTag, changeReport);
       onAddDataTag(sourceDataTag, changeReport);
@@ -29,8 +29,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static cern.c2mon.shared.common.type.TypeConverter.*;
 import static java.lang.String.format;
 
 /**
@@ -83,6 +84,10 @@ class EquipmentSenderValid {
    */
   private final EquipmentTimeDeadband equipmentTimeDeadband;
 
+  /**
+   * The compiled value pipelines of the tags, by tag id
+   */
+  private final Map<Long, TagValuePipeline> pipelines = new ConcurrentHashMap<>();
 
   /**
    * Creates a new EquipmentValidSender.
@@ -146,17 +151,18 @@ class EquipmentSenderValid {
    * False if the tag has been invalidated or filtered out.
    */
   private boolean doUpdate(final SourceDataTag currentSourceDataTag, final ValueUpdate update) {
+    TagValuePipeline pipeline = getPipeline(currentSourceDataTag);
+
+    // cast the value to the defined dataType if the type is not 'ArbitraryObject':
+    Object newValueCasted = pipeline.cast(update.getValue());
+
     // do a validation check on the new value:
-    if (!checkValidation(currentSourceDataTag, update)) {
+    if (!checkValidation(currentSourceDataTag, pipeline, update, newValueCasted)) {
       return false; //TODO Check, if that case is correctly treated by upper logic
     }
 
-    // cast the value to the defined dataType if the type is not 'ArbitraryObject':
-    if (isKnownClass(currentSourceDataTag.getDataType())) {
-      Object newValueCasted = cast(update.getValue(), currentSourceDataTag.getDataType());
-      if (newValueCasted != null) {
-        update.setValue(newValueCasted);
-      }
+    if (newValueCasted != null) {
+      update.setValue(newValueCasted);
     }
 
     // do a filtering on the new value:
@@ -181,12 +187,37 @@ class EquipmentSenderValid {
   }
 
 
+  /**
+   * Returns the compiled value pipeline of the tag, compiling it on the first
+   * value or after the tag has been changed.
+   */
+  private TagValuePipeline getPipeline(final SourceDataTag currentSourceDataTag) {
+    TagValuePipeline pipeline = pipelines.get(currentSourceDataTag.getId());
+    if (pipeline == null || !pipeline.isCompiledFrom(currentSourceDataTag)) {
+      log.trace("getPipeline - compiling value pipeline for tag #{}", currentSourceDataTag.getId());
+      pipeline = TagValuePipeline.compile(currentSourceDataTag);
+      pipelines.put(currentSourceDataTag.getId(), pipeline);
+    }
+    return pipeline;
+  }
+
+  /**
+   * Drops the compiled value pipeline of a tag, so that it is compiled again
+   * from the current configuration on its next value.
+   *
+   * @param tagId the id of the reconfigured or removed tag
+   */
+  public void resetPipeline(final Long tagId) {
+    pipelines.remove(tagId);
+  }
+
   /**
    * Helper method which validates the new tag value and triggers an invalidation in case of a problem
    *
    * @return false, if validation was unsuccessful
    */
-  private boolean checkValidation(final SourceDataTag currentSourceDataTag, final ValueUpdate update) {
+  private boolean checkValidation(final SourceDataTag currentSourceDataTag, final TagValuePipeline pipeline,
+                                  final ValueUpdate update, final Object newValueCasted) {
 
     // check if the timestamp is valid.
     if (!isTimestampValid(currentSourceDataTag, update)) {
@@ -194,13 +225,13 @@ class EquipmentSenderValid {
     }
 
     // If the DataType is not an arbitrary object check if the Type if the value is convertible.
-    if (!isConvertible(currentSourceDataTag, update)) {
+    if (!isConvertible(currentSourceDataTag, pipeline, update, newValueCasted)) {
       return false;
     }
 
     // if the dataType is a number check if the value is convertible and in the defined range.
-    if (isNumber(currentSourceDataTag.getDataType())
-        && !isInRange(currentSourceDataTag, update)) {
+    if (pipeline.isNumber()
+        && !isInRange(currentSourceDataTag, pipeline, update, newValueCasted)) {
       return false;
     }
 
@@ -217,7 +248,7 @@ class EquipmentSenderValid {
     // is Candidate for filtering?
     FilterType filterType = this.dataTagValueFilter.isCandidateForFiltering(currentSourceDataTag, castedUpdate, newSDQuality);
 
-    log.debug("checkFiltering - tag #" + currentSourceDataTag.getId() + " with Filter Type " + filterType);
+    log.debug("checkFiltering - tag #{} with Filter Type {}", currentSourceDataTag.getId(), filterType);
     // Check filters on (OLD_UPDATE, VALUE_DEADBAND, REPEATED_VALUE or none)
     if (!isFilterOk(filterType, currentSourceDataTag.getId())) {
 
@@ -337,16 +368,18 @@ class EquipmentSenderValid {
    * If both fail, the value is invalid and the method returns false.
    *
    * @param currentSourceDataTag The current {@link SourceDataTag} known by the daq.
-   * @param newTagValue          the new tag value.
-   * @param sourceTimestamp      actual sourceTimeStamp.
+   * @param pipeline             The compiled value pipeline of the tag.
+   * @param update               the new tag value.
+   * @param newValueCasted       the new value casted by the pipeline.
    * @return True if the new value is Convertible.
    */
-  private boolean isConvertible(final SourceDataTag currentSourceDataTag, final ValueUpdate update) {
+  private boolean isConvertible(final SourceDataTag currentSourceDataTag, final TagValuePipeline pipeline,
+                                final ValueUpdate update, final Object newValueCasted) {
     boolean result = false;
 
-    if ((isKnownClass(currentSourceDataTag.getDataType())
-        && !(this.dataTagValueValidator.isConvertible(currentSourceDataTag, update.getValue())
-        || isInstantiable(update.getValue(), getType(currentSourceDataTag.getDataType()))))) {
+    if ((pipeline.getType() != null
+        && !(newValueCasted != null
+        || isInstantiable(update.getValue(), pipeline.getType())))) {
       String description = format(
           "\tconvertible : The value (%s) received for tag[%d] and the tag's type (" + currentSourceDataTag.getDataType() + ") are not compatible.",
           update.getValue(), currentSourceDataTag.getId());
@@ -369,10 +402,11 @@ class EquipmentSenderValid {
    *
    * @return If its in range return true.
    */
-  private boolean isInRange(final SourceDataTag currentSourceDataTag, final ValueUpdate update) {
+  private boolean isInRange(final SourceDataTag currentSourceDataTag, final TagValuePipeline pipeline,
+                            final ValueUpdate update, final Object newValueCasted) {
     boolean result = false;
 
-    if (!this.dataTagValueValidator.isInRange(currentSourceDataTag, update.getValue())) {
+    if (!pipeline.isInRange(newValueCasted)) {
       log.warn(format(
           "\tin range : the value of tag[%d] was out of range and will only be propagated the first time to the server",
           currentSourceDataTag.getId()));
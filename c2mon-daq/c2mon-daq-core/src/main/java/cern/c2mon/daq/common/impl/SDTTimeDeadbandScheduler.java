@@ -27,15 +27,17 @@ import cern.c2mon.shared.common.filter.FilteredDataTagValue.FilterType;
 import cern.c2mon.shared.common.type.TypeConverter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 /**
  * The SourceDataTagTimeDeadbandScheduler class models threads responsible for
  * handling source time deadband filtering. It will work with the Static TimeDeadband
+ *
+ * <p>The scheduler is only put on the {@link TimeDeadbandWheel} when a value is
+ * scheduled for sending. The value is then sent once the time deadband has
+ * elapsed since the last sent value, so that at most one value per time
+ * deadband interval is sent to the server.
  */
 @Slf4j
-public class SDTTimeDeadbandScheduler extends TimerTask {
+public class SDTTimeDeadbandScheduler implements Runnable {
 
   /**
    * The process message sender takes the messages actually send to the server.
@@ -68,9 +70,29 @@ public class SDTTimeDeadbandScheduler extends TimerTask {
   private DataTagValueFilter dataTagValueFilter;
 
   /**
-   * The timer to schedule this task on
+   * The wheel to schedule this task on
+   */
+  private TimeDeadbandWheel timeDeadbandWheel;
+
+  /**
+   * True once {@link #start()} has been called
    */
-  private Timer timeDeadbandTimer;
+  private boolean started = false;
+
+  /**
+   * True once the scheduler has been cancelled
+   */
+  private volatile boolean cancelled = false;
+
+  /**
+   * True while the scheduler is waiting on the wheel
+   */
+  private boolean onWheel = false;
+
+  /**
+   * Time of the last run with a value to send, in ms
+   */
+  private long lastRunTime = 0;
 
   /**
    * The dynamic time dead band filterer for recording the current source data tag
@@ -93,14 +115,14 @@ public class SDTTimeDeadbandScheduler extends TimerTask {
    * @param sourceDataTag               The source data tag controlled by this object.
    * @param processMessageSender        Takes the messages sent to the server
    * @param equipmentSenderValid        Used to send messages to the server.
-   * @param timeDeadbandTimer           The timer to schedule this task on.
+   * @param timeDeadbandWheel           The wheel to schedule this task on.
    * @param valueChecker                Value checker object to avoid repeated values.
    * @param dynamicTimeDeadbandFilterer The dynamic time dead band filterer for recording the current source data tag
    */
   public SDTTimeDeadbandScheduler(final SourceDataTag sourceDataTag,
                                   final IProcessMessageSender processMessageSender,
                                   final EquipmentSenderFilterModule equipmentSenderFilterModule,
-                                  final Timer timeDeadbandTimer,
+                                  final TimeDeadbandWheel timeDeadbandWheel,
                                   final DataTagValueFilter dataTagValueFilter,
                                   final IDynamicTimeDeadbandFilterer dynamicTimeDeadbandFilterer) {
     this.dataTagValueFilter = dataTagValueFilter;
@@ -108,7 +130,7 @@ public class SDTTimeDeadbandScheduler extends TimerTask {
     this.equipmentSenderFilterModule = equipmentSenderFilterModule;
     this.dynamicTimeDeadbandFilterer = dynamicTimeDeadbandFilterer;
 
-    this.timeDeadbandTimer = timeDeadbandTimer;
+    this.timeDeadbandWheel = timeDeadbandWheel;
 
     log.debug("creating time-deadband scheduler for tag : " + sourceDataTag.getId());
 
@@ -116,22 +138,33 @@ public class SDTTimeDeadbandScheduler extends TimerTask {
   }
 
   /**
-   * Starts the timer task with the scheduled fixed rate defined for the given {@link SourceDataTag}
+   * Activates the scheduler for the time deadband defined for the given {@link SourceDataTag}.
+   * From now on, values scheduled for sending are sent by the wheel.
    */
   public void start() {
-    // create timers
     if (sourceDataTag.getAddress().isTimeDeadbandEnabled()) {
-      if (sourceDataTag.getAddress().getTimeDeadband() > 0) {
+      synchronized (this.sourceDataTag) {
         log.debug("\tscheduler[" + this.sourceDataTag.getId() + "] : setting scheduling interval to : "
-              + this.sourceDataTag.getAddress().getTimeDeadband() + " miliseconds");
-      }
+            + this.sourceDataTag.getAddress().getTimeDeadband() + " miliseconds");
 
-      this.timeDeadbandTimer.scheduleAtFixedRate(this, 0, this.sourceDataTag.getAddress().getTimeDeadband());
+        this.started = true;
+        if (isScheduledForSending()) {
+          putOnWheel();
+        }
 
-      log.debug("\tscheduler[" + this.sourceDataTag.getId() + "] : setting scheduled");
+        log.debug("\tscheduler[" + this.sourceDataTag.getId() + "] : setting scheduled");
+      }
     }
   }
 
+  /**
+   * Cancels the scheduler. A value already scheduled for sending will no longer be
+   * sent by the wheel.
+   */
+  public void cancel() {
+    this.cancelled = true;
+  }
+
   /**
    * flushes and resets the scheduler
    */
@@ -151,11 +184,42 @@ public class SDTTimeDeadbandScheduler extends TimerTask {
    * of the source data tag
    */
   public void scheduleValueForSending() {
-    this.sendValue = true;
+    synchronized (this.sourceDataTag) {
+      this.sendValue = true;
+      if (this.started) {
+        putOnWheel();
+      }
+    }
+  }
+
+  /**
+   * Puts the scheduler on the wheel, if not already waiting there. The deadline
+   * is one time deadband after the last sent value, using the current time
+   * deadband of the tag, which can be changed by the dynamic time deadband filter.
+   * Has to be called with the lock on the source data tag.
+   */
+  private void putOnWheel() {
+    if (!this.onWheel && !this.cancelled) {
+      this.onWheel = true;
+      long delay = this.lastRunTime + this.sourceDataTag.getAddress().getTimeDeadband() - System.currentTimeMillis();
+      this.timeDeadbandWheel.schedule(this::onDeadline, delay);
+    }
+  }
+
+  /**
+   * Called by the wheel once the time deadband has elapsed.
+   */
+  private void onDeadline() {
+    synchronized (this.sourceDataTag) {
+      this.onWheel = false;
+      if (!this.cancelled) {
+        run();
+      }
+    }
   }
 
   /**
-   * The run method called from the timer.
+   * Sends the scheduled value, if any. Called from the wheel, or directly to flush the value.
    */
   @Override
   public void run() {
@@ -216,6 +280,7 @@ public class SDTTimeDeadbandScheduler extends TimerTask {
 
           // Reset the sendValue variable
           this.sendValue = false;
+          this.lastRunTime = System.currentTimeMillis();
         } else {
           log.debug("\tscheduler[" + this.sourceDataTag.getId() + "] : no new value to be sent");
         }
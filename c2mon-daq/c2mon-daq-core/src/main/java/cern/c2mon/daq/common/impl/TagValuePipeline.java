@@ -0,0 +1,138 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import cern.c2mon.shared.common.datatag.SourceDataTag;
+import cern.c2mon.shared.common.type.TypeConverter;
+
+/**
+ * The value handling of a {@link SourceDataTag} resolved once from its
+ * configuration: the class of its data type and its range limits already
+ * converted to that class. Validating and casting a value then goes through
+ * the resolved class directly, without looking up the data type by name.
+ *
+ * <p>A pipeline is compiled on the first value of a tag and dropped again
+ * when the tag is reconfigured or removed. In addition it is only used for
+ * the exact data type and range objects it was compiled from, so a tag
+ * changed by other means is recompiled as well.
+ */
+@Slf4j
+final class TagValuePipeline {
+
+  /** The data type the pipeline was compiled from */
+  private final String dataType;
+
+  /** The class of the data type, {@literal null} if not known by the DAQ */
+  private final Class<?> type;
+
+  /** Whether the data type is a subclass of {@link Number} */
+  private final boolean number;
+
+  private final Number minValue;
+
+  private final Number maxValue;
+
+  private TagValuePipeline(final SourceDataTag tag) {
+    this.dataType = tag.getDataType();
+    this.type = TypeConverter.getType(dataType);
+    this.number = type != null && Number.class.isAssignableFrom(type);
+
+    // the range limits are converted to the data type of the tag, so that
+    // they can be compared with the casted values
+    if (number) {
+      if (tag.getMinValue() != null && !tag.getMinValue().getClass().equals(type)) {
+        tag.setMinValue((Number) TypeConverter.castToType(tag.getMinValue(), type));
+      }
+      if (tag.getMaxValue() != null && !tag.getMaxValue().getClass().equals(type)) {
+        tag.setMaxValue((Number) TypeConverter.castToType(tag.getMaxValue(), type));
+      }
+    }
+    this.minValue = tag.getMinValue();
+    this.maxValue = tag.getMaxValue();
+  }
+
+  /**
+   * @param tag the tag to compile the value handling for
+   * @return the compiled pipeline of the tag
+   */
+  static TagValuePipeline compile(final SourceDataTag tag) {
+    return new TagValuePipeline(tag);
+  }
+
+  /**
+   * @return true if the data type and the range limits of the tag are still
+   * the ones this pipeline was compiled from
+   */
+  boolean isCompiledFrom(final SourceDataTag tag) {
+    return tag.getDataType() == dataType && tag.getMinValue() == minValue && tag.getMaxValue() == maxValue;
+  }
+
+  /**
+   * @return the class of the tag's data type, or {@literal null} for an
+   * arbitrary object type not known by the DAQ
+   */
+  Class<?> getType() {
+    return type;
+  }
+
+  boolean isNumber() {
+    return number;
+  }
+
+  /**
+   * Casts a value to the data type of the tag, with the same semantics as
+   * {@link TypeConverter#cast(Object, String)}.
+   *
+   * @param value the value to cast
+   * @return the casted value, or {@literal null} if the data type is not known
+   * or the value cannot be casted
+   */
+  Object cast(final Object value) {
+    if (value == null) {
+      return null;
+    }
+    Object result = null;
+    try {
+      if (type == String.class) {
+        result = value.toString();
+      } else if (type != null) {
+        result = TypeConverter.castToType(value, type);
+      }
+      if (result == null) {
+        log.error("Conversion error: Could not cast input value [" + value + "] of type "
+            + value.getClass().getName() + " to resulting type " + dataType);
+      }
+    } catch (ClassCastException cce) {
+      log.error("Conversion error: {}", cce.getMessage());
+    }
+    return result;
+  }
+
+  /**
+   * @param castedValue a value already casted to the data type of the tag
+   * @return true if the value is within the range limits of the tag
+   */
+  @SuppressWarnings("unchecked")
+  boolean isInRange(final Object castedValue) {
+    if (minValue != null && ((Comparable) minValue).compareTo(castedValue) > 0) {
+      return false;
+    }
+    return maxValue == null || ((Comparable) maxValue).compareTo(castedValue) >= 0;
+  }
+}
@@ -0,0 +1,181 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hashed timing wheel running the time deadband flushes. A task is only
+ * put on the wheel when a value is pending for its tag, so idle tags do
+ * not cost anything. All the tasks due at a tick are collected first and
+ * then run one after the other on the wheel thread.
+ *
+ * <p>New tasks are passed to the wheel thread through a lock-free queue,
+ * the buckets themselves are only accessed by the wheel thread. While the
+ * wheel is empty the thread is parked until the next task is scheduled.
+ *
+ * <p>The precision of the deadlines is one tick.
+ */
+@Slf4j
+final class TimeDeadbandWheel {
+
+  /** Name of the wheel thread */
+  private final String threadName;
+
+  /** Tick duration in nanoseconds */
+  private final long tickNanos;
+
+  /** The buckets of the wheel, only accessed by the wheel thread */
+  private final List<Timeout>[] buckets;
+
+  /** wheel size - 1, the wheel size being a power of two */
+  private final int mask;
+
+  /** Tasks scheduled since the last tick */
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+
+  /** Number of tasks in the buckets, only accessed by the wheel thread */
+  private int size;
+
+  /** Reference time of the ticks */
+  private long startTime;
+
+  /** The current tick, only accessed by the wheel thread */
+  private long tick;
+
+  private volatile Thread worker;
+
+  /**
+   * @param threadName the name of the wheel thread
+   * @param tickDuration the tick duration in milliseconds
+   * @param wheelSize the number of buckets, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  TimeDeadbandWheel(final String threadName, final long tickDuration, final int wheelSize) {
+    this.threadName = threadName;
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+    int normalizedSize = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+    this.buckets = new List[normalizedSize];
+    for (int i = 0; i < normalizedSize; i++) {
+      buckets[i] = new ArrayList<>();
+    }
+    this.mask = normalizedSize - 1;
+  }
+
+  /**
+   * Schedules a task to be run once, after the given delay.
+   *
+   * @param task the task to run on the wheel thread
+   * @param delay the delay in milliseconds
+   */
+  void schedule(final Runnable task, final long delay) {
+    Thread thread = worker;
+    if (thread == null) {
+      thread = start();
+    }
+    newTimeouts.add(new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0))));
+    LockSupport.unpark(thread);
+  }
+
+  private synchronized Thread start() {
+    if (worker == null) {
+      Thread thread = new Thread(this::runWheel, threadName);
+      thread.setDaemon(true);
+      startTime = System.nanoTime();
+      worker = thread;
+      thread.start();
+    }
+    return worker;
+  }
+
+  private void runWheel() {
+    List<Timeout> expired = new ArrayList<>();
+    while (true) {
+      if (size == 0 && newTimeouts.isEmpty()) {
+        LockSupport.park(this);
+        // nothing is in the buckets, so the ticks missed while parked can be skipped
+        tick = Math.max(tick, (System.nanoTime() - startTime) / tickNanos);
+        continue;
+      }
+
+      waitForNextTick();
+      transferNewTimeouts();
+
+      Iterator<Timeout> iterator = buckets[(int) (tick & mask)].iterator();
+      while (iterator.hasNext()) {
+        Timeout timeout = iterator.next();
+        if (timeout.remainingRounds <= 0) {
+          iterator.remove();
+          size--;
+          expired.add(timeout);
+        } else {
+          timeout.remainingRounds--;
+        }
+      }
+      tick++;
+
+      for (Timeout timeout : expired) {
+        try {
+          timeout.task.run();
+        } catch (RuntimeException e) {
+          log.error("Error while running time deadband task", e);
+        }
+      }
+      expired.clear();
+    }
+  }
+
+  private void waitForNextTick() {
+    long deadline = startTime + (tick + 1) * tickNanos;
+    long sleepNanos;
+    while ((sleepNanos = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(this, sleepNanos);
+    }
+  }
+
+  private void transferNewTimeouts() {
+    Timeout timeout;
+    while ((timeout = newTimeouts.poll()) != null) {
+      long dueTick = Math.max((timeout.deadline - startTime) / tickNanos, tick);
+      timeout.remainingRounds = (dueTick - tick) / buckets.length;
+      buckets[(int) (dueTick & mask)].add(timeout);
+      size++;
+    }
+  }
+
+  private static final class Timeout {
+
+    private final Runnable task;
+
+    private final long deadline;
+
+    private long remainingRounds;
+
+    Timeout(final Runnable task, final long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+  }
+}
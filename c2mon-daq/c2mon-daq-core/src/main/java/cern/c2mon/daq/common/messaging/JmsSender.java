@@ -16,6 +16,8 @@
  *****************************************************************************/
 package cern.c2mon.daq.common.messaging;
 
+import java.util.concurrent.CompletableFuture;
+
 import javax.jms.JMSException;
 
 import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
@@ -49,6 +51,25 @@ public interface JmsSender {
    */
   void processValues(DataTagValueUpdate dataTagValueUpdate) throws JMSException;
 
+  /**
+   * Sends the collection of values and returns without waiting for the
+   * broker, if the implementation supports it. The default implementation
+   * sends them with {@link #processValues}.
+   * @param dataTagValueUpdate the collection of SourceDataTagValue's to send
+   * @return completed once the values have been sent, or exceptionally if
+   *         they could not be sent
+   */
+  default CompletableFuture<Void> sendValues(DataTagValueUpdate dataTagValueUpdate) {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    try {
+      processValues(dataTagValueUpdate);
+      result.complete(null);
+    } catch (JMSException | RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
   /**
    * The ProcessValue method creates a JMS message with a content of the DataTagValue
    * object (passed as an argument) encoded into XML.
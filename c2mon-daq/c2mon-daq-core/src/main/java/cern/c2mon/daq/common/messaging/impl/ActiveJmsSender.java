@@ -16,13 +16,31 @@
  *****************************************************************************/
 package cern.c2mon.daq.common.messaging.impl;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
 import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.ActiveMQMessageProducer;
+import org.apache.activemq.AsyncCallback;
 import org.springframework.jms.core.JmsTemplate;
 
 import cern.c2mon.daq.common.conf.core.ProcessConfigurationHolder;
 import cern.c2mon.daq.common.messaging.JmsSender;
+import cern.c2mon.shared.common.datatag.DataTagAddress;
 import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
 import cern.c2mon.shared.common.datatag.SourceDataTagValue;
 import cern.c2mon.shared.common.process.ProcessConfiguration;
@@ -30,6 +48,19 @@ import cern.c2mon.shared.common.process.ProcessConfiguration;
 /**
  * Implementation of the JMSSender interface for sending update messages to
  * ActiveMQ brokers.
+ * <p>
+ * The connection factory, destination and message converter are taken from
+ * the JmsTemplate, but the messages are sent by one lane per delivery mode
+ * and priority, each with its own thread, session and producer. The calling
+ * threads only queue the updates, so that high priority values never wait
+ * behind bulk low priority sends. A lane sends its messages asynchronously
+ * and completes the future of each update once the broker has acknowledged
+ * it. Updates queued while the lane is busy are merged into one message.
+ * <p>
+ * The queue of each lane is bounded: while it is full, for instance because
+ * the broker is unreachable, the updates are rejected by completing their
+ * future exceptionally, so that a {@link JournalingJmsSender} journals them
+ * instead of the queue growing without limit.
  *
  * @author mbrightw
  */
@@ -37,14 +68,37 @@ import cern.c2mon.shared.common.process.ProcessConfiguration;
 public class ActiveJmsSender implements JmsSender {
 
   /**
-   * The Spring JmsTemplate managing the calls to JMS.
+   * Maximum number of values merged into one message.
+   */
+  private static final int MAX_MERGED_VALUES = 1000;
+
+  /**
+   * Default maximum number of updates queued per lane.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+  /**
+   * The Spring JmsTemplate providing the connection factory, destination and
+   * message converter.
    */
   private JmsTemplate jmsTemplate;
 
+  /**
+   * Maximum number of updates queued per lane.
+   */
+  private final int queueCapacity;
+
   /**
    * Enabling/disabling the action of sending information to the brokers
    */
-  private boolean isEnabled = true;
+  private volatile boolean isEnabled = true;
+
+  /**
+   * Sending lanes by delivery mode and priority.
+   */
+  private final Map<Integer, SenderLane> lanes = new ConcurrentHashMap<>();
+
+  private volatile boolean shutdown = false;
 
   /**
    * Unique constructor. Notice the JmsTemplate needs a Qualifier annotation
@@ -54,15 +108,28 @@ public class ActiveJmsSender implements JmsSender {
    * @param jmsTemplate             The JMS template.
    */
   public ActiveJmsSender(final JmsTemplate jmsTemplate) {
+    this(jmsTemplate, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * @param jmsTemplate   The JMS template.
+   * @param queueCapacity The maximum number of updates queued per lane.
+   */
+  public ActiveJmsSender(final JmsTemplate jmsTemplate, final int queueCapacity) {
     this.jmsTemplate = jmsTemplate;
+    this.queueCapacity = queueCapacity;
   }
 
   /**
-   * Not necessary for the Spring managed sender.
+   * Creates the lanes of the usual delivery modes and priorities. Their
+   * sessions are only opened with the first message.
    */
   @Override
   public void connect() {
-    // do nothing, connection is managed by Spring
+    for (int priority : new int[] {DataTagAddress.PRIORITY_LOW, DataTagAddress.PRIORITY_MEDIUM, DataTagAddress.PRIORITY_HIGH}) {
+      getLane(DeliveryMode.PERSISTENT, priority);
+      getLane(DeliveryMode.NON_PERSISTENT, priority);
+    }
   }
 
   /**
@@ -79,91 +146,62 @@ public class ActiveJmsSender implements JmsSender {
    */
   @Override
   public final void processValue(final SourceDataTagValue sourceDataTagValue) {
-    log.debug("entering processValue()..");
     ProcessConfiguration processConfiguration = ProcessConfigurationHolder.getInstance();
 
     // The PIK is also check before building the XML in DataTagValueUpdate class
     DataTagValueUpdate dataTagValueUpdate;
     dataTagValueUpdate = new DataTagValueUpdate(processConfiguration.getProcessID(), processConfiguration.getprocessPIK());
-
     dataTagValueUpdate.addValue(sourceDataTagValue);
-    log.trace("value added to value update message");
-
-    // If the sending action is Enabled
-    if (this.isEnabled) {
-
-      log.trace("not in test mode.");
-
-      // set message properties
-      jmsTemplate.setPriority(sourceDataTagValue.getPriority());
-      jmsTemplate.setTimeToLive(sourceDataTagValue.getTimeToLive());
-
-      // set appropriate priority
-      if (sourceDataTagValue.isGuaranteedDelivery()) {
-        log.debug("\t sending PERSISTENT message");
-        // set message delivery mode
-        jmsTemplate.setDeliveryMode(javax.jms.DeliveryMode.PERSISTENT);
-      } else {
-        log.debug("\t sending NON-PERSISTENT message");
-        // send the message (put it into the queue)
-        jmsTemplate.setDeliveryMode(javax.jms.DeliveryMode.NON_PERSISTENT);
-      } // else
-
-      // send the message
-      jmsTemplate.convertAndSend(dataTagValueUpdate);
-    }
-    log.debug("leaving processValue()");
+
+    sendValues(dataTagValueUpdate).whenComplete((result, e) -> {
+      if (e != null) {
+        log.error("Unable to send value of tag {} - the value update will be lost", sourceDataTagValue.getId(), e);
+      }
+    });
   }
 
   /**
-   * Send the collection of updates using the ActiveMQ JmsTemplate.
+   * Send the collection of updates asynchronously; failures are logged.
    *
    * @param dataTagValueUpdate the values to send
-   *
-   * @throws JMSException if problem sending the values
    */
   @Override
-  public final void processValues(final DataTagValueUpdate dataTagValueUpdate) throws JMSException {
-    if (log.isDebugEnabled()) {
-      log.debug("entering processValues()...");
-    }
-
-    // If the sending action is Enabled
-    if (this.isEnabled) {
-      // take the first SourceDataTagValue object from collection and find
-      // out
-      // if it's persistent or not (all those in the collection will have
-      // the same persistence setting).
-      // The message's alive-time will be also set by taking the value
-      SourceDataTagValue sdtValue = dataTagValueUpdate.getValues().iterator().next();
-
-      // set priority and TTL from the first value in the message
-      // (priority is always LOW for values
-      // put in the synchrobuffer)
-      jmsTemplate.setPriority(sdtValue.getPriority());
-      jmsTemplate.setTimeToLive(sdtValue.getTimeToLive());
-
-      if (sdtValue.isGuaranteedDelivery()) {
-        log.debug("\t sending PERSISTENT message");
-
-        // set message delivery mode
-        jmsTemplate.setDeliveryMode(javax.jms.DeliveryMode.PERSISTENT);
-
-      } else {
-        log.debug("\t sending NON-PERSISTENT message");
-
-        // set message delivery NON-PERSISTENT
-        jmsTemplate.setDeliveryMode(javax.jms.DeliveryMode.NON_PERSISTENT);
+  public final void processValues(final DataTagValueUpdate dataTagValueUpdate) {
+    sendValues(dataTagValueUpdate).whenComplete((result, e) -> {
+      if (e != null) {
+        log.error("Unable to send a collection of {} values - the updates will be lost",
+            dataTagValueUpdate.getValues().size(), e);
       }
+    });
+  }
 
-      // convert and send the collection of updates
-      jmsTemplate.convertAndSend(dataTagValueUpdate);
-
-    } else {
+  /**
+   * Queues the collection of updates on the lane of its delivery mode and
+   * priority. These are taken from the first value, as all values of a
+   * collection have the same persistence setting.
+   *
+   * @param dataTagValueUpdate the values to send
+   * @return completed once the broker has received the values, or
+   *         exceptionally if the queue of the lane is full
+   */
+  @Override
+  public CompletableFuture<Void> sendValues(final DataTagValueUpdate dataTagValueUpdate) {
+    if (!this.isEnabled) {
       log.debug("DAQ in test mode; not sending the value to JMS");
+      return CompletableFuture.completedFuture(null);
     }
+    if (shutdown) {
+      CompletableFuture<Void> result = new CompletableFuture<>();
+      result.completeExceptionally(new IllegalStateException("JMS sender has been shut down"));
+      return result;
+    }
+    SourceDataTagValue sdtValue = dataTagValueUpdate.getValues().iterator().next();
+    int deliveryMode = sdtValue.isGuaranteedDelivery() ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT;
+    return getLane(deliveryMode, sdtValue.getPriority()).submit(dataTagValueUpdate);
+  }
 
-    log.debug("leaving processValues()");
+  private SenderLane getLane(final int deliveryMode, final int priority) {
+    return lanes.computeIfAbsent(deliveryMode * 100 + priority, key -> new SenderLane(deliveryMode, priority));
   }
 
   /**
@@ -173,8 +211,15 @@ public class ActiveJmsSender implements JmsSender {
     this.jmsTemplate = jmsTemplate;
   }
 
+  /**
+   * Sends the updates already queued, then closes the lanes.
+   */
   @Override
   public void shutdown() {
+    shutdown = true;
+    for (SenderLane lane : lanes.values()) {
+      lane.close();
+    }
     disconnect();
   }
 
@@ -197,4 +242,167 @@ public class ActiveJmsSender implements JmsSender {
   public final boolean getEnabled() {
     return this.isEnabled;
   }
+
+  /**
+   * An update waiting to be sent.
+   */
+  private static final class PendingUpdate {
+
+    private final DataTagValueUpdate update;
+
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    private PendingUpdate(final DataTagValueUpdate update) {
+      this.update = update;
+    }
+  }
+
+  /**
+   * Sends the updates of one delivery mode and priority, in the order they
+   * were queued, on its own thread and session.
+   */
+  private final class SenderLane implements Runnable {
+
+    private final int deliveryMode;
+
+    private final int priority;
+
+    private final BlockingQueue<PendingUpdate> queue = new LinkedBlockingQueue<>(queueCapacity);
+
+    private final Thread thread;
+
+    /** Only used by the lane thread; null until opened or after a failure */
+    private Connection connection;
+
+    private Session session;
+
+    private MessageProducer producer;
+
+    private SenderLane(final int deliveryMode, final int priority) {
+      this.deliveryMode = deliveryMode;
+      this.priority = priority;
+      this.thread = new Thread(this, "JmsSender-" + (deliveryMode == DeliveryMode.PERSISTENT ? "P" : "NP") + "-" + priority);
+      this.thread.setDaemon(true);
+      this.thread.start();
+    }
+
+    private CompletableFuture<Void> submit(final DataTagValueUpdate update) {
+      PendingUpdate pending = new PendingUpdate(update);
+      if (!queue.offer(pending)) {
+        pending.result.completeExceptionally(new IllegalStateException(
+            "Queue of JMS sender lane " + thread.getName() + " is full (" + queueCapacity + " updates)"));
+      }
+      return pending.result;
+    }
+
+    @Override
+    public void run() {
+      List<PendingUpdate> batch = new ArrayList<>();
+      while (!shutdown || !queue.isEmpty()) {
+        try {
+          PendingUpdate first = queue.poll(1, TimeUnit.SECONDS);
+          if (first == null) {
+            continue;
+          }
+          batch.add(first);
+          queue.drainTo(batch);
+          send(batch);
+        } catch (InterruptedException e) {
+          break;
+        } finally {
+          batch.clear();
+        }
+      }
+      for (PendingUpdate pending : queue) {
+        pending.result.completeExceptionally(new IllegalStateException("JMS sender has been shut down"));
+      }
+      closeSession();
+    }
+
+    /**
+     * Merges the queued updates with the same time-to-live into messages of
+     * at most {@link #MAX_MERGED_VALUES} values, and sends them.
+     */
+    private void send(final List<PendingUpdate> batch) {
+      Map<Integer, List<PendingUpdate>> byTimeToLive = new LinkedHashMap<>();
+      for (PendingUpdate pending : batch) {
+        int timeToLive = pending.update.getValues().iterator().next().getTimeToLive();
+        byTimeToLive.computeIfAbsent(timeToLive, key -> new ArrayList<>()).add(pending);
+      }
+      for (Map.Entry<Integer, List<PendingUpdate>> group : byTimeToLive.entrySet()) {
+        List<PendingUpdate> merged = new ArrayList<>();
+        DataTagValueUpdate message = null;
+        for (PendingUpdate pending : group.getValue()) {
+          if (message != null && message.getValues().size() + pending.update.getValues().size() > MAX_MERGED_VALUES) {
+            send(message, group.getKey(), merged);
+            merged = new ArrayList<>();
+            message = null;
+          }
+          if (message == null) {
+            message = new DataTagValueUpdate(pending.update.getProcessId(), pending.update.getProcessPIK());
+          }
+          for (SourceDataTagValue value : pending.update.getValues()) {
+            message.addValue(value);
+          }
+          merged.add(pending);
+        }
+        send(message, group.getKey(), merged);
+      }
+    }
+
+    private void send(final DataTagValueUpdate update, final int timeToLive, final List<PendingUpdate> merged) {
+      try {
+        if (producer == null) {
+          connection = jmsTemplate.getConnectionFactory().createConnection();
+          session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+          producer = session.createProducer(jmsTemplate.getDefaultDestination());
+        }
+        Message message = jmsTemplate.getMessageConverter().toMessage(update, session);
+        if (producer instanceof ActiveMQMessageProducer) {
+          ((ActiveMQMessageProducer) producer).send(message, deliveryMode, priority, timeToLive, new AsyncCallback() {
+            @Override
+            public void onSuccess() {
+              merged.forEach(pending -> pending.result.complete(null));
+            }
+
+            @Override
+            public void onException(final JMSException e) {
+              merged.forEach(pending -> pending.result.completeExceptionally(e));
+            }
+          });
+        } else {
+          producer.send(message, deliveryMode, priority, timeToLive);
+          merged.forEach(pending -> pending.result.complete(null));
+        }
+      } catch (JMSException | RuntimeException e) {
+        closeSession();
+        merged.forEach(pending -> pending.result.completeExceptionally(e));
+      }
+    }
+
+    private void closeSession() {
+      try {
+        if (session != null) {
+          session.close();
+        }
+        if (connection != null) {
+          // no effect on the connection of a SingleConnectionFactory
+          connection.close();
+        }
+      } catch (JMSException | RuntimeException e) {
+        log.debug("Error closing the session of JMS sender lane {}", thread.getName(), e);
+      }
+      connection = null;
+      session = null;
+      producer = null;
+    }
+
+    private void close() {
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 }
@@ -0,0 +1,258 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.messaging.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import cern.c2mon.daq.common.conf.core.ProcessConfigurationHolder;
+import cern.c2mon.daq.common.messaging.JmsSender;
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+import cern.c2mon.shared.common.process.ProcessConfiguration;
+
+/**
+ * Wraps a JmsSender so that the values that cannot be sent to the broker are
+ * stored in a local {@link UpdateJournal} instead of being lost.
+ * <p>
+ * As soon as a send fails, the sender switches to journaling: the values of
+ * the failed send and all following values are appended to the journal. A
+ * replay thread then sends the journaled values, latest
+ * value per tag only, in batches of replayBatchSize values and at most
+ * replayRate values per second. Once the journal is empty, values are sent
+ * directly again. Values journaled before a restart are replayed on start-up.
+ * <p>
+ * Sends to a failover URL block while the broker is unreachable; the failover
+ * <code>timeout</code> option must be set for the journal to be used.
+ */
+@Slf4j
+public class JournalingJmsSender implements JmsSender {
+
+  /**
+   * Delay before retrying to send the journal after a failure.
+   */
+  private static final long DEFAULT_RETRY_INTERVAL_MILLIS = 5000;
+
+  /**
+   * Maximum time to wait for the broker to receive a replayed message.
+   */
+  private static final long SEND_TIMEOUT_SECONDS = 60;
+
+  /**
+   * The JmsSender to wrap.
+   */
+  private final JmsSender wrappedSender;
+
+  private final UpdateJournal journal;
+
+  private final int replayBatchSize;
+
+  private final int replayRate;
+
+  private final long retryIntervalMillis;
+
+  private final Thread replayThread;
+
+  private volatile boolean running = true;
+
+  /**
+   * @param wrappedSender the sender to the broker
+   * @param directory the directory of the journal files
+   * @param segmentSize the size of a journal file in bytes
+   * @param maxSegments the maximum number of journal files
+   * @param replayBatchSize the maximum number of values per replayed message
+   * @param replayRate the maximum number of values replayed per second
+   * @throws IOException if the journal cannot be opened
+   */
+  public JournalingJmsSender(final JmsSender wrappedSender, final Path directory, final int segmentSize,
+                             final int maxSegments, final int replayBatchSize, final int replayRate) throws IOException {
+    this(wrappedSender, directory, segmentSize, maxSegments, replayBatchSize, replayRate, DEFAULT_RETRY_INTERVAL_MILLIS);
+  }
+
+  JournalingJmsSender(final JmsSender wrappedSender, final Path directory, final int segmentSize, final int maxSegments,
+                      final int replayBatchSize, final int replayRate, final long retryIntervalMillis) throws IOException {
+    this.wrappedSender = wrappedSender;
+    this.journal = new UpdateJournal(directory, segmentSize, maxSegments);
+    this.replayBatchSize = replayBatchSize;
+    this.replayRate = replayRate;
+    this.retryIntervalMillis = retryIntervalMillis;
+    this.replayThread = new Thread(this::replay, "JournalReplay");
+    this.replayThread.setDaemon(true);
+  }
+
+  @Override
+  public void connect() {
+    wrappedSender.connect();
+    replayThread.start();
+  }
+
+  @Override
+  public void disconnect() {
+    wrappedSender.disconnect();
+  }
+
+  /**
+   * Sends the value, or journals it if the journal is not empty or the send fails.
+   *
+   * @param sourceDataTagValue the value to send
+   */
+  @Override
+  public void processValue(final SourceDataTagValue sourceDataTagValue) {
+    ProcessConfiguration processConfiguration = ProcessConfigurationHolder.getInstance();
+    DataTagValueUpdate dataTagValueUpdate = new DataTagValueUpdate(processConfiguration.getProcessID(),
+        processConfiguration.getprocessPIK());
+    dataTagValueUpdate.addValue(sourceDataTagValue);
+    processValues(dataTagValueUpdate);
+  }
+
+  /**
+   * Sends the values, or journals them if the journal is not empty or the send fails.
+   *
+   * @param dataTagValueUpdate the values to send
+   */
+  @Override
+  public void processValues(final DataTagValueUpdate dataTagValueUpdate) {
+    synchronized (journal) {
+      if (journal.isEmpty()) {
+        wrappedSender.sendValues(dataTagValueUpdate).whenComplete((result, e) -> {
+          if (e != null) {
+            log.warn("Unable to send {} values, journaling the following values until the broker is reachable",
+                dataTagValueUpdate.getValues().size(), e);
+            append(dataTagValueUpdate);
+          }
+        });
+      } else {
+        append(dataTagValueUpdate);
+      }
+    }
+  }
+
+  /**
+   * Appends the values to the journal. The sends of a tag may fail in any
+   * order, so the journal keeps the newest value of each tag rather than the
+   * last one appended. The values of a failed send may also be journaled
+   * after newer values of the same tags have been sent; these are rejected by
+   * the server as older than the current value.
+   */
+  private void append(final DataTagValueUpdate dataTagValueUpdate) {
+    synchronized (journal) {
+      for (SourceDataTagValue value : dataTagValueUpdate.getValues()) {
+        append(value);
+      }
+    }
+  }
+
+  private void append(final SourceDataTagValue value) {
+    try {
+      journal.append(value);
+    } catch (IOException e) {
+      log.error("Unable to journal value of tag {} - the value update will be lost", value.getId(), e);
+    }
+  }
+
+  /**
+   * Sends the journaled values while the journal is not empty, waiting after
+   * each failure before retrying.
+   */
+  private void replay() {
+    while (running) {
+      try {
+        if (journal.isEmpty()) {
+          Thread.sleep(retryIntervalMillis);
+          continue;
+        }
+        long start = System.nanoTime();
+        UpdateJournal.Batch batch = journal.read(replayBatchSize);
+        send(batch.getValues());
+        journal.remove(batch);
+        log.debug("Replayed {} journaled values, {} tags left in the journal", batch.getValues().size(), journal.size());
+
+        long minNanos = TimeUnit.SECONDS.toNanos(batch.getValues().size()) / Math.max(1, replayRate);
+        long waitNanos = minNanos - (System.nanoTime() - start);
+        if (waitNanos > 0) {
+          TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        log.warn("Unable to replay the journal ({} tags), retrying in {} ms", journal.size(), retryIntervalMillis, e);
+        try {
+          Thread.sleep(retryIntervalMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends the values that have not expired, grouped by delivery mode and
+   * time-to-live since these are set per message.
+   */
+  private void send(final List<SourceDataTagValue> values) throws InterruptedException, ExecutionException,
+      TimeoutException {
+    ProcessConfiguration processConfiguration = ProcessConfigurationHolder.getInstance();
+    Map<String, DataTagValueUpdate> updates = new LinkedHashMap<>();
+    for (SourceDataTagValue value : values) {
+      if (isExpired(value)) {
+        continue;
+      }
+      String key = value.isGuaranteedDelivery() + ":" + value.getTimeToLive();
+      updates.computeIfAbsent(key, k -> new DataTagValueUpdate(processConfiguration.getProcessID(),
+          processConfiguration.getprocessPIK())).addValue(value);
+    }
+    for (DataTagValueUpdate update : updates.values()) {
+      wrappedSender.sendValues(update).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  private static boolean isExpired(final SourceDataTagValue value) {
+    return value.getTimeToLive() != DataTagAddress.TTL_FOREVER
+        && value.getDaqTimestamp().getTime() + value.getTimeToLive() < System.currentTimeMillis();
+  }
+
+  @Override
+  public void shutdown() {
+    running = false;
+    replayThread.interrupt();
+    synchronized (journal) {
+      journal.close();
+    }
+    wrappedSender.shutdown();
+  }
+
+  @Override
+  public void setEnabled(final boolean value) {
+    wrappedSender.setEnabled(value);
+  }
+
+  @Override
+  public boolean getEnabled() {
+    return wrappedSender.getEnabled();
+  }
+}
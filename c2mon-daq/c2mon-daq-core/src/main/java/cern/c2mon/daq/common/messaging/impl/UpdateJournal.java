@@ -0,0 +1,493 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.messaging.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+import cern.c2mon.shared.daq.datatag.DataTagValueUpdateConverter;
+
+/**
+ * Append-only journal of the tag values that could not be sent to the
+ * broker, kept in memory-mapped segment files so that it survives a restart
+ * of the DAQ.
+ * <p>
+ * Each record is a header (payload length, CRC, type, tag id) followed by the
+ * value in the binary update format. Only the newest value of each tag (by
+ * source, then DAQ timestamp) is kept for replay: an in-memory index maps
+ * every tag id to the position of that value, and values are replayed in
+ * journal order by scanning the segments and skipping the records the index
+ * no longer points to. Sent values are marked with a removal record, so that
+ * they are not replayed again after a restart; the index is rebuilt from the
+ * segments on start-up.
+ * <p>
+ * The journal holds at most maxSegments segments. When a new segment is
+ * needed, the latest values still held by the oldest segment are copied to
+ * the new segment and the oldest segment is deleted; if they do not fit, the
+ * oldest values are dropped. Segments are deleted as soon as all their values
+ * have been sent.
+ * <p>
+ * The memory-mapped writes survive a crash of the DAQ process; they are only
+ * forced to disk when a segment is full or the journal is closed.
+ */
+@Slf4j
+class UpdateJournal implements Closeable {
+
+  private static final String SEGMENT_PREFIX = "journal-";
+
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private static final byte TYPE_VALUE = 1;
+
+  private static final byte TYPE_REMOVE = 2;
+
+  /** Payload length (4), CRC (4), type (1) and tag id (8) */
+  private static final int HEADER_SIZE = 17;
+
+  private final Path directory;
+
+  private final int segmentSize;
+
+  private final int maxSegments;
+
+  private final DataTagValueUpdateConverter converter = new DataTagValueUpdateConverter();
+
+  /** Segments by sequence number, oldest first */
+  private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+  /** Tag id to the location of its latest value not sent yet */
+  private final Map<Long, Long> index = new HashMap<>();
+
+  /** The segment values are appended to */
+  private Segment active;
+
+  /** Location of the next record to replay */
+  private long cursor;
+
+  /** Number of values dropped because the journal was full */
+  private long dropped;
+
+  /**
+   * Opens the journal in the given directory, recovering the values not sent
+   * before the last shutdown.
+   *
+   * @param directory the journal directory, created if needed
+   * @param segmentSize the size of a segment file in bytes
+   * @param maxSegments the maximum number of segment files
+   * @throws IOException if the journal cannot be opened
+   */
+  UpdateJournal(final Path directory, final int segmentSize, final int maxSegments) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxSegments = Math.max(2, maxSegments);
+    Files.createDirectories(directory);
+    recover();
+    if (segments.isEmpty()) {
+      active = createSegment(1);
+    } else {
+      active = segments.lastEntry().getValue();
+      removeSentSegments();
+    }
+    cursor = location(segments.firstKey(), 0);
+    if (!index.isEmpty()) {
+      log.info("Recovered {} unsent tag values from the journal in {}", index.size(), directory);
+    }
+  }
+
+  /**
+   * @return true if all journaled values have been sent
+   */
+  synchronized boolean isEmpty() {
+    return index.isEmpty();
+  }
+
+  /**
+   * @return the number of tags with a value waiting to be sent
+   */
+  synchronized int size() {
+    return index.size();
+  }
+
+  /**
+   * @return the number of values dropped so far because the journal was full
+   */
+  synchronized long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * Appends a value, replacing any value of the same tag not sent yet, unless
+   * that value is newer: failed sends do not complete in the order of their
+   * values.
+   *
+   * @param value the value to journal
+   * @throws IOException if the value cannot be written
+   */
+  synchronized void append(final SourceDataTagValue value) throws IOException {
+    Long previous = index.get(value.getId());
+    if (previous != null && isNewer(readValue(previous), value)) {
+      log.debug("Not journaling value of tag {}: a newer value is journaled already", value.getId());
+      return;
+    }
+    DataTagValueUpdate update = new DataTagValueUpdate(null, (Long) null);
+    update.addValue(value);
+    byte[] payload = converter.toBytes(update);
+    if (HEADER_SIZE + payload.length > active.capacity()) {
+      throw new IOException("Value of tag " + value.getId() + " does not fit in a journal segment");
+    }
+    if (!active.fits(payload.length)) {
+      roll(true);
+      if (!active.fits(payload.length)) {
+        roll(false);
+      }
+    }
+    putValue(value.getId(), write(TYPE_VALUE, value.getId(), payload));
+  }
+
+  /**
+   * Reads the next values to replay, in journal order, without removing them.
+   *
+   * @param maxValues the maximum number of values to read
+   * @return the values, empty if all values have been read
+   * @throws IOException if a value cannot be decoded
+   */
+  synchronized Batch read(final int maxValues) throws IOException {
+    if (!segments.containsKey(segmentOf(cursor))) {
+      cursor = location(segments.firstKey(), 0);
+    }
+    Batch batch = new Batch();
+    Segment segment = segments.get(segmentOf(cursor));
+    int offset = offsetOf(cursor);
+    while (batch.values.size() < maxValues) {
+      if (offset >= segment.position) {
+        Map.Entry<Long, Segment> next = segments.higherEntry(segment.sequence);
+        if (next == null) {
+          break;
+        }
+        segment = next.getValue();
+        offset = 0;
+        continue;
+      }
+      long location = location(segment.sequence, offset);
+      int length = segment.buffer.getInt(offset);
+      long tagId = segment.buffer.getLong(offset + 9);
+      if (segment.buffer.get(offset + 8) == TYPE_VALUE && Long.valueOf(location).equals(index.get(tagId))) {
+        batch.values.add(readValue(location));
+        batch.locations.add(location);
+      }
+      offset += HEADER_SIZE + length;
+    }
+    batch.end = location(segment.sequence, offset);
+    return batch;
+  }
+
+  /**
+   * Removes the values of a batch once sent, unless a newer value of the tag
+   * has been appended in the meantime.
+   *
+   * @param batch a batch returned by {@link #read}
+   * @throws IOException if the removal cannot be written
+   */
+  synchronized void remove(final Batch batch) throws IOException {
+    for (int i = 0; i < batch.values.size(); i++) {
+      Long tagId = batch.values.get(i).getId();
+      Long location = batch.locations.get(i);
+      if (location.equals(index.get(tagId))) {
+        if (!active.fits(0)) {
+          roll(true);
+        }
+        index.remove(tagId);
+        segments.get(segmentOf(location)).live--;
+        write(TYPE_REMOVE, tagId, new byte[0]);
+      }
+    }
+    cursor = batch.end;
+    removeSentSegments();
+  }
+
+  @Override
+  public synchronized void close() {
+    active.buffer.force();
+    for (Segment segment : segments.values()) {
+      segment.close();
+    }
+  }
+
+  private void recover() throws IOException {
+    TreeMap<Long, Path> files = new TreeMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path file : stream) {
+        String name = file.getFileName().toString();
+        try {
+          files.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+        } catch (NumberFormatException e) {
+          log.warn("Ignoring unexpected file {} in the journal directory", file);
+        }
+      }
+    }
+    for (Map.Entry<Long, Path> file : files.entrySet()) {
+      Segment segment = openSegment(file.getKey(), file.getValue());
+      segments.put(segment.sequence, segment);
+      int offset = 0;
+      while (offset + HEADER_SIZE <= segment.capacity()) {
+        int length = segment.buffer.getInt(offset);
+        if (length < 0 || length == 0 && segment.buffer.get(offset + 8) == 0
+            || offset + HEADER_SIZE + length > segment.capacity()) {
+          break;
+        }
+        if (segment.buffer.getInt(offset + 4) != checksum(segment.buffer, offset, length)) {
+          log.warn("Truncating journal segment {} at offset {}: checksum mismatch", file.getValue(), offset);
+          break;
+        }
+        long tagId = segment.buffer.getLong(offset + 9);
+        if (segment.buffer.get(offset + 8) == TYPE_VALUE) {
+          putValue(tagId, location(segment.sequence, offset));
+        } else {
+          Long removed = index.remove(tagId);
+          if (removed != null) {
+            segments.get(segmentOf(removed)).live--;
+          }
+        }
+        offset += HEADER_SIZE + length;
+      }
+      segment.position = offset;
+    }
+  }
+
+  /**
+   * Decodes the value recorded at the given location.
+   */
+  private SourceDataTagValue readValue(final long location) throws IOException {
+    Segment segment = segments.get(segmentOf(location));
+    int offset = offsetOf(location);
+    byte[] payload = new byte[segment.buffer.getInt(offset)];
+    ByteBuffer record = segment.buffer.duplicate();
+    record.position(offset + HEADER_SIZE);
+    record.get(payload);
+    return converter.fromBytes(payload).getValues().iterator().next();
+  }
+
+  /**
+   * @return true if the journaled value has a newer source timestamp than the
+   *         incoming one or, with the same or no source timestamps, a newer DAQ
+   *         timestamp
+   */
+  private static boolean isNewer(final SourceDataTagValue journaled, final SourceDataTagValue incoming) {
+    int source = compare(journaled.getTimestamp(), incoming.getTimestamp());
+    return source != 0 ? source > 0 : compare(journaled.getDaqTimestamp(), incoming.getDaqTimestamp()) > 0;
+  }
+
+  /**
+   * Compares two timestamps, 0 if either is missing.
+   */
+  private static int compare(final Timestamp first, final Timestamp second) {
+    return first == null || second == null ? 0 : first.compareTo(second);
+  }
+
+  private void putValue(final long tagId, final long location) {
+    Long previous = index.put(tagId, location);
+    if (previous != null) {
+      segments.get(segmentOf(previous)).live--;
+    }
+    segments.get(segmentOf(location)).live++;
+  }
+
+  private long write(final byte type, final long tagId, final byte[] payload) {
+    int offset = active.position;
+    MappedByteBuffer buffer = active.buffer;
+    buffer.put(offset + 8, type);
+    buffer.putLong(offset + 9, tagId);
+    ByteBuffer record = buffer.duplicate();
+    record.position(offset + HEADER_SIZE);
+    record.put(payload);
+    buffer.putInt(offset + 4, checksum(buffer, offset, payload.length));
+    buffer.putInt(offset, payload.length);
+    active.position = offset + HEADER_SIZE + payload.length;
+    return location(active.sequence, offset);
+  }
+
+  /**
+   * Starts a new segment. If the journal is full, the values of the oldest
+   * segment that are still to be sent are copied to the new segment (if
+   * compact is true and they fit) or dropped, and the oldest segment is deleted.
+   */
+  private void roll(final boolean compact) throws IOException {
+    active.buffer.force();
+    active = createSegment(active.sequence + 1);
+    while (segments.size() > maxSegments) {
+      Segment oldest = segments.firstEntry().getValue();
+      int offset = 0;
+      while (offset < oldest.position) {
+        int length = oldest.buffer.getInt(offset);
+        long tagId = oldest.buffer.getLong(offset + 9);
+        long location = location(oldest.sequence, offset);
+        if (oldest.buffer.get(offset + 8) == TYPE_VALUE && Long.valueOf(location).equals(index.get(tagId))) {
+          if (compact && active.fits(length)) {
+            byte[] payload = new byte[length];
+            ByteBuffer record = oldest.buffer.duplicate();
+            record.position(offset + HEADER_SIZE);
+            record.get(payload);
+            putValue(tagId, write(TYPE_VALUE, tagId, payload));
+          } else {
+            index.remove(tagId);
+            dropped++;
+          }
+        }
+        offset += HEADER_SIZE + length;
+      }
+      if (dropped > 0) {
+        log.warn("Journal full: {} tag values dropped so far", dropped);
+      }
+      deleteSegment(oldest);
+    }
+  }
+
+  /**
+   * Deletes the oldest segments as long as all their values have been sent,
+   * and restarts with an empty segment once the journal is empty. Only the
+   * oldest segments can be deleted, as their removal records may refer to
+   * values of older segments.
+   */
+  private void removeSentSegments() throws IOException {
+    while (segments.size() > 1 && segments.firstEntry().getValue().live == 0) {
+      deleteSegment(segments.firstEntry().getValue());
+    }
+    if (index.isEmpty() && active.position > 0) {
+      long sequence = active.sequence + 1;
+      deleteSegment(active);
+      active = createSegment(sequence);
+      cursor = location(sequence, 0);
+    }
+  }
+
+  private Segment createSegment(final long sequence) throws IOException {
+    Segment segment = openSegment(sequence, directory.resolve(SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX));
+    segments.put(sequence, segment);
+    return segment;
+  }
+
+  private Segment openSegment(final long sequence, final Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long size = channel.size() > 0 ? channel.size() : segmentSize;
+    return new Segment(sequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+  }
+
+  private void deleteSegment(final Segment segment) throws IOException {
+    segments.remove(segment.sequence);
+    segment.close();
+    Files.deleteIfExists(segment.path);
+  }
+
+  /**
+   * CRC of the type, tag id and payload of the record at the given offset.
+   */
+  private static int checksum(final ByteBuffer buffer, final int offset, final int length) {
+    ByteBuffer record = buffer.duplicate();
+    record.position(offset + 8);
+    record.limit(offset + HEADER_SIZE + length);
+    CRC32 crc = new CRC32();
+    crc.update(record);
+    return (int) crc.getValue();
+  }
+
+  private static long location(final long sequence, final int offset) {
+    return sequence << 32 | offset;
+  }
+
+  private static long segmentOf(final long location) {
+    return location >>> 32;
+  }
+
+  private static int offsetOf(final long location) {
+    return (int) location;
+  }
+
+  /**
+   * Values read for replay, with their location in the journal.
+   */
+  static final class Batch {
+
+    private final List<SourceDataTagValue> values = new ArrayList<>();
+
+    private final List<Long> locations = new ArrayList<>();
+
+    /** Location following the last record read */
+    private long end;
+
+    List<SourceDataTagValue> getValues() {
+      return values;
+    }
+  }
+
+  private static final class Segment {
+
+    private final long sequence;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    /** End of the records written so far */
+    private int position;
+
+    /** Number of values of this segment referenced by the index */
+    private int live;
+
+    private Segment(final long sequence, final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+      this.sequence = sequence;
+      this.path = path;
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+
+    private int capacity() {
+      return buffer.capacity();
+    }
+
+    private boolean fits(final int payloadLength) {
+      return position + HEADER_SIZE + payloadLength <= capacity();
+    }
+
+    private void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.warn("Error closing journal segment {}", path, e);
+      }
+    }
+  }
+}
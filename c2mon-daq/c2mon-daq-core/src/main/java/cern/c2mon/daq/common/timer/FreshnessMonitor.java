@@ -1,10 +1,16 @@
 package cern.c2mon.daq.common.timer;
 
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,20 +23,51 @@ import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
 import cern.c2mon.shared.common.datatag.SourceDataTagQualityCode;
 
 /**
+ * Sends a STALE quality for every tag that has not been updated within
+ * freshnessInterval * freshnessTolerance seconds.
+ * <p>
+ * Resetting a tag only records the time it was last seen; no timer task is
+ * cancelled or rescheduled. A single sweeper thread keeps the armed tags in
+ * coarse buckets keyed by their deadline tick and checks each bucket once when
+ * it falls due: tags that have been seen in the meantime are moved to the
+ * bucket of their new deadline, all others are reported STALE in one batch.
+ *
  * @author Franz Ritter
  */
 @Component
 @Slf4j
 public class FreshnessMonitor {
 
+  /** Granularity of the freshness checks; freshness intervals are configured in seconds */
+  private static final long DEFAULT_TICK_MILLIS = 1000;
+
   private final DaqProperties properties;
-  private final Map<Long, Runnable> freshnessTasks = new HashMap<>();
-  private IEquipmentMessageSender equipmentMessageSender;
-  private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(2);
+
+  private final long tickMillis;
+
+  /** Freshness state of all monitored tags */
+  private final Map<Long, Freshness> freshnessEntries = new ConcurrentHashMap<>();
+
+  /** Entries armed by the equipment threads, waiting to be bucketed by the sweeper */
+  private final Queue<Freshness> armedEntries = new ConcurrentLinkedQueue<>();
+
+  /** Deadline tick to entries due at that tick. Only accessed by the sweeper thread */
+  private final TreeMap<Long, List<Freshness>> buckets = new TreeMap<>();
+
+  private final AtomicBoolean started = new AtomicBoolean(false);
+
+  private volatile Thread sweeper;
+
+  private volatile IEquipmentMessageSender equipmentMessageSender;
 
   @Autowired
   public FreshnessMonitor(DaqProperties properties) {
+    this(properties, DEFAULT_TICK_MILLIS);
+  }
+
+  FreshnessMonitor(DaqProperties properties, long tickMillis) {
     this.properties = properties;
+    this.tickMillis = tickMillis;
   }
 
   public void setIEquipmentMessageSender(IEquipmentMessageSender equipmentMessageSender) {
@@ -45,50 +82,131 @@ public class FreshnessMonitor {
 
       log.trace("Checking freshness for tag {}", sourceDataTag.getName());
       Long tagId = sourceDataTag.getId();
-      Runnable task;
-
-      if (freshnessTasks.containsKey(tagId)) {
-        task = freshnessTasks.get(tagId);
-        timer.remove(task);
-        timer.purge();
 
-      } else {
-        task = new FreshnessTask(tagId);
-        freshnessTasks.put(tagId, task);
+      Freshness entry = freshnessEntries.get(tagId);
+      if (entry == null) {
+        entry = freshnessEntries.computeIfAbsent(tagId, Freshness::new);
       }
+      entry.timeout = (long) (sourceDataTag.getAddress().getFreshnessInterval() * properties.getFreshnessTolerance() * 1000);
+      entry.lastSeen = System.currentTimeMillis();
 
-      Double freshnessTolerance = properties.getFreshnessTolerance();
-      timer.schedule(task, (long) (sourceDataTag.getAddress().getFreshnessInterval() * freshnessTolerance), TimeUnit.SECONDS);
+      if (entry.armed.compareAndSet(false, true)) {
+        armedEntries.add(entry);
+        wakeUp();
+      }
     }
   }
 
   public void removeDataTag(SourceDataTag sourceDataTag) {
-    if (sourceDataTag.getAddress() != null
-        && sourceDataTag.getAddress().getFreshnessInterval() != null
-        && sourceDataTag.getAddress().getFreshnessInterval() != 0L) {
+    Freshness entry = freshnessEntries.remove(sourceDataTag.getId());
+    if (entry != null) {
+      log.trace("Removing freshness check for tag {}", sourceDataTag.getName());
+      entry.removed = true;
+    }
+  }
 
-      Long tagId = sourceDataTag.getId();
-      if (freshnessTasks.containsKey(tagId)) {
-        log.trace("Removing freshness check for tag {}", sourceDataTag.getName());
-        timer.remove(freshnessTasks.get(tagId));
-        freshnessTasks.remove(tagId);
+  private void wakeUp() {
+    if (sweeper == null && started.compareAndSet(false, true)) {
+      Thread thread = new Thread(this::sweep, "FreshnessMonitor");
+      thread.setDaemon(true);
+      sweeper = thread;
+      thread.start();
+    } else if (sweeper != null) {
+      LockSupport.unpark(sweeper);
+    }
+  }
+
+  private void sweep() {
+    while (!Thread.currentThread().isInterrupted()) {
+      long now = System.currentTimeMillis();
+
+      Freshness armed;
+      while ((armed = armedEntries.poll()) != null) {
+        bucket(armed, armed.lastSeen + armed.timeout);
+      }
+
+      List<Freshness> expired = new ArrayList<>();
+      long currentTick = now / tickMillis;
+      while (!buckets.isEmpty() && buckets.firstKey() <= currentTick) {
+        for (Freshness entry : buckets.pollFirstEntry().getValue()) {
+          check(entry, now, expired);
+        }
+      }
+      sendStale(expired);
+
+      if (buckets.isEmpty()) {
+        if (armedEntries.isEmpty()) {
+          LockSupport.park(this);
+        }
+      } else {
+        long nextDeadline = buckets.firstKey() * tickMillis;
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.max(1, nextDeadline - System.currentTimeMillis())));
       }
     }
   }
 
-  class FreshnessTask implements Runnable {
+  /**
+   * Moves a due entry to the bucket of its current deadline, or adds it to the
+   * expired list if it has not been seen in time.
+   */
+  private void check(Freshness entry, long now, List<Freshness> expired) {
+    if (entry.removed) {
+      return;
+    }
+    if (entry.lastSeen + entry.timeout > now) {
+      bucket(entry, entry.lastSeen + entry.timeout);
+      return;
+    }
+
+    // disarm before the final check, so that a concurrent reset() re-arms the entry
+    entry.armed.set(false);
+    if (entry.lastSeen + entry.timeout > now) {
+      if (entry.armed.compareAndSet(false, true)) {
+        bucket(entry, entry.lastSeen + entry.timeout);
+      }
+    } else {
+      expired.add(entry);
+    }
+  }
 
-    private Long id;
+  private void bucket(Freshness entry, long deadline) {
+    // round up, so an entry is never checked before its deadline
+    long tick = (deadline + tickMillis - 1) / tickMillis;
+    buckets.computeIfAbsent(tick, key -> new ArrayList<>()).add(entry);
+  }
 
-    public FreshnessTask(Long id) {
-      this.id = id;
+  private void sendStale(List<Freshness> expired) {
+    if (expired.isEmpty()) {
+      return;
     }
+    log.debug("{} tag(s) have not been updated within their freshness interval", expired.size());
 
-    @Override
-    public void run() {
-      SourceDataTagQuality tagQuality = new SourceDataTagQuality(SourceDataTagQualityCode.STALE);
-      equipmentMessageSender.update(id, tagQuality);
+    for (Freshness entry : expired) {
+      try {
+        equipmentMessageSender.update(entry.tagId, new SourceDataTagQuality(SourceDataTagQualityCode.STALE));
+      } catch (RuntimeException e) {
+        log.error("Unable to send STALE quality for tag {}", entry.tagId, e);
+      }
     }
   }
 
+  private static final class Freshness {
+
+    private final Long tagId;
+
+    /** Time of the last reset, in milliseconds */
+    private volatile long lastSeen;
+
+    /** freshnessInterval * freshnessTolerance, in milliseconds */
+    private volatile long timeout;
+
+    /** Whether the entry is currently held by the sweeper */
+    private final AtomicBoolean armed = new AtomicBoolean(false);
+
+    private volatile boolean removed;
+
+    private Freshness(Long tagId) {
+      this.tagId = tagId;
+    }
+  }
 }
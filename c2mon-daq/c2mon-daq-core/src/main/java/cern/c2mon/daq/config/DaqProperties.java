@@ -63,6 +63,56 @@ public class DaqProperties {
      * running in double publication mode)
      */
     private String secondaryUrl = "tcp://0.0.0.0:61617";
+
+    /**
+     * Send tag updates in the compact binary format instead of JSON. Only
+     * supported by servers from version 1.9.5 on
+     */
+    private boolean binaryUpdates = false;
+
+    /**
+     * Maximum number of updates waiting to be sent per delivery mode and
+     * priority. When reached, the updates are journaled if the journal is
+     * enabled, and lost otherwise
+     */
+    private int senderQueueCapacity = 10000;
+
+    /**
+     * Local journal of the tag updates that could not be sent to the broker
+     */
+    private final Journal journal = new Journal();
+  }
+
+  @Data
+  public static class Journal {
+
+    /**
+     * Directory of the journal files. If not set (default), the journal is
+     * disabled and updates that cannot be sent are lost
+     */
+    private String directory = null;
+
+    /**
+     * Size of a journal file, in bytes
+     */
+    private int segmentSize = 16 * 1024 * 1024;
+
+    /**
+     * Maximum number of journal files. When the journal is full, the oldest
+     * values are dropped
+     */
+    private int maxSegments = 16;
+
+    /**
+     * Maximum number of journaled values sent per message once the broker is
+     * reachable again
+     */
+    private int replayBatchSize = 500;
+
+    /**
+     * Maximum number of journaled values sent per second
+     */
+    private int replayRate = 5000;
   }
 
   /**
@@ -27,14 +27,17 @@ public class JmsConfig {
 
   @Bean
   public SingleConnectionFactory singleConnectionFactory() {
-    return new SingleConnectionFactory(activeMQConnectionFactory());
+    SingleConnectionFactory factory = new SingleConnectionFactory(activeMQConnectionFactory());
+    // the sender lanes keep their sessions open, so replace the shared connection once it fails
+    factory.setReconnectOnException(true);
+    return factory;
   }
 
   @Bean
   public JmsTemplate sourceUpdateJmsTemplate() {
     JmsTemplate template = new JmsTemplate(singleConnectionFactory());
     template.setDefaultDestination(new ActiveMQQueue(properties.getJms().getQueuePrefix() + ".update." + properties.getName()));
-    template.setMessageConverter(new DataTagValueUpdateConverter());
+    template.setMessageConverter(new DataTagValueUpdateConverter(properties.getJms().isBinaryUpdates()));
     return template;
   }
 
@@ -93,14 +96,17 @@ public class JmsConfig {
 
   @Bean
   public SingleConnectionFactory secondSingleConnectionFactory() {
-    return new SingleConnectionFactory(secondActiveMQConnectionFactory());
+    SingleConnectionFactory factory = new SingleConnectionFactory(secondActiveMQConnectionFactory());
+    // the sender lanes keep their sessions open, so replace the shared connection once it fails
+    factory.setReconnectOnException(true);
+    return factory;
   }
 
   @Bean
   public JmsTemplate secondSourceUpdateJmsTemplate() {
     JmsTemplate template = new JmsTemplate(secondSingleConnectionFactory());
     template.setDefaultDestination(new ActiveMQQueue(properties.getJms().getQueuePrefix() + ".update." + properties.getName()));
-    template.setMessageConverter(new DataTagValueUpdateConverter());
+    template.setMessageConverter(new DataTagValueUpdateConverter(properties.getJms().isBinaryUpdates()));
     return template;
   }
 
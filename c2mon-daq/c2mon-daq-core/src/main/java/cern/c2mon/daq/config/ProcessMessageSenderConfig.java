@@ -16,6 +16,8 @@
  ******************************************************************************/
 package cern.c2mon.daq.config;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -28,6 +30,7 @@ import org.springframework.jms.core.JmsTemplate;
 import cern.c2mon.daq.common.messaging.JmsSender;
 import cern.c2mon.daq.common.messaging.impl.ActiveJmsSender;
 import cern.c2mon.daq.common.messaging.impl.DummyJmsSender;
+import cern.c2mon.daq.common.messaging.impl.JournalingJmsSender;
 import cern.c2mon.daq.common.messaging.impl.ProcessMessageSender;
 import cern.c2mon.daq.common.messaging.impl.ProxyJmsSender;
 import cern.c2mon.daq.filter.IFilterMessageSender;
@@ -93,11 +96,21 @@ public class ProcessMessageSenderConfig {
   }
 
   private JmsSender activeJmsSender() {
-    return new ActiveJmsSender(sourceUpdateJmsTemplate);
+    JmsSender activeJmsSender = new ActiveJmsSender(sourceUpdateJmsTemplate, properties.getJms().getSenderQueueCapacity());
+    DaqProperties.Journal journal = properties.getJms().getJournal();
+    if (journal.getDirectory() == null) {
+      return activeJmsSender;
+    }
+    try {
+      return new JournalingJmsSender(activeJmsSender, Paths.get(journal.getDirectory()), journal.getSegmentSize(),
+          journal.getMaxSegments(), journal.getReplayBatchSize(), journal.getReplayRate());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to open the update journal in " + journal.getDirectory(), e);
+    }
   }
 
   private JmsSender secondActiveJmsSender() {
-    return new ActiveJmsSender(secondSourceUpdateJmsTemplate);
+    return new ActiveJmsSender(secondSourceUpdateJmsTemplate, properties.getJms().getSenderQueueCapacity());
   }
 
   private JmsSender proxyJmsSender() {
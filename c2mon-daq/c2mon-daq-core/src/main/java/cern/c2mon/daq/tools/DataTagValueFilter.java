@@ -27,7 +27,6 @@ import cern.c2mon.shared.common.datatag.SourceDataTagQualityCode;
 import cern.c2mon.shared.common.datatag.SourceDataTagValue;
 import cern.c2mon.shared.common.datatag.ValueUpdate;
 import cern.c2mon.shared.common.filter.FilteredDataTagValue.FilterType;
-import cern.c2mon.shared.common.type.TypeConverter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -87,7 +86,10 @@ public class DataTagValueFilter {
                     && (currentTag.getCurrentValue().getQuality().getQualityCode() == newSDQuality.getQualityCode())) {
                 valueDeadband = currentTag.getAddress().getValueDeadband();
 
-                if (TypeConverter.isNumber(currentTag.getDataType())) {
+                // the current value has been casted to the data type of the tag, the update
+                // may still hold a value of another type
+                if (currentTag.getCurrentValue().getValue() instanceof Number
+                        && (update.getValue() == null || update.getValue() instanceof Number)) {
                     if (isCurrentValueAvailable(currentTag)) {
                         Number currentValue = (Number) currentTag.getCurrentValue().getValue();
                         Number newValue = update.getValue() == null ? null : (Number) update.getValue();
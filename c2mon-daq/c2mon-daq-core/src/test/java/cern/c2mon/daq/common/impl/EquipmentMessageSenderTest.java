@@ -26,7 +26,9 @@ import lombok.Builder;
 import lombok.Data;
 import org.easymock.EasyMock;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import cern.c2mon.daq.common.messaging.IProcessMessageSender;
 import cern.c2mon.daq.filter.IFilterMessageSender;
@@ -50,6 +52,9 @@ public class EquipmentMessageSenderTest {
   private static final Long SUB_KEY1 = 1337L;
   private static final Long SUB_KEY2 = 31415926L;
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   // Mocks
   private IFilterMessageSender filterMessageSenderMock;
   private IProcessMessageSender processMessageSenderMock;
@@ -1491,7 +1496,7 @@ public class EquipmentMessageSenderTest {
       mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
       mapper.enable(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY);
 
-      File tempOut = new File("temp.json");
+      File tempOut = temporaryFolder.newFile("temp.json");
 
       // Test Integer:
       SourceDataTagValue valueToWrite = sdt3.update(new ValueUpdate(1, "test", System.currentTimeMillis()));
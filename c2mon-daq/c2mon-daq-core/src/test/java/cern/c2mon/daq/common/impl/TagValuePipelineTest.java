@@ -0,0 +1,92 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.impl;
+
+import org.junit.Test;
+
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.DataTagConstants;
+import cern.c2mon.shared.common.datatag.SourceDataTag;
+
+import static org.junit.Assert.*;
+
+public class TagValuePipelineTest {
+
+  @Test
+  public void testCastToKnownType() {
+    TagValuePipeline pipeline = TagValuePipeline.compile(createTag("Integer"));
+
+    assertEquals(Integer.class, pipeline.getType());
+    assertTrue(pipeline.isNumber());
+    assertEquals(3, pipeline.cast(3.2f));
+    assertEquals(5, pipeline.cast("5"));
+    assertNull(pipeline.cast("not a number"));
+    assertNull(pipeline.cast(null));
+  }
+
+  @Test
+  public void testCastToString() {
+    TagValuePipeline pipeline = TagValuePipeline.compile(createTag("String"));
+
+    assertFalse(pipeline.isNumber());
+    assertEquals("1.5", pipeline.cast(1.5));
+  }
+
+  @Test
+  public void testUnknownType() {
+    TagValuePipeline pipeline = TagValuePipeline.compile(createTag("cern.c2mon.SomeUnknownClass"));
+
+    assertNull(pipeline.getType());
+    assertFalse(pipeline.isNumber());
+    assertNull(pipeline.cast(1));
+  }
+
+  @Test
+  public void testRangeLimitsAreConvertedToDataType() {
+    SourceDataTag tag = createTag("Double");
+    tag.setMinValue(1);
+    tag.setMaxValue(10L);
+    TagValuePipeline pipeline = TagValuePipeline.compile(tag);
+
+    assertEquals(1.0, tag.getMinValue());
+    assertEquals(10.0, tag.getMaxValue());
+    assertTrue(pipeline.isInRange(1.0));
+    assertTrue(pipeline.isInRange(10.0));
+    assertFalse(pipeline.isInRange(0.5));
+    assertFalse(pipeline.isInRange(10.5));
+  }
+
+  @Test
+  public void testIsCompiledFrom() {
+    SourceDataTag tag = createTag("Integer");
+    TagValuePipeline pipeline = TagValuePipeline.compile(tag);
+    assertTrue(pipeline.isCompiledFrom(tag));
+
+    tag.setMaxValue(100);
+    assertFalse(pipeline.isCompiledFrom(tag));
+
+    pipeline = TagValuePipeline.compile(tag);
+    assertTrue(pipeline.isCompiledFrom(tag));
+
+    tag.setDataType("Long");
+    assertFalse(pipeline.isCompiledFrom(tag));
+  }
+
+  private SourceDataTag createTag(String dataType) {
+    return new SourceDataTag(1L, "tag", false, DataTagConstants.MODE_OPERATIONAL, dataType, new DataTagAddress());
+  }
+}
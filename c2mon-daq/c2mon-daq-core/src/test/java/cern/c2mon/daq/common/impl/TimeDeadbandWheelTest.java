@@ -0,0 +1,75 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimeDeadbandWheelTest {
+
+  @Test
+  public void testTasksRunAfterDelay() throws InterruptedException {
+    TimeDeadbandWheel wheel = new TimeDeadbandWheel("Test wheel", 5, 8);
+    CountDownLatch latch = new CountDownLatch(3);
+    List<Integer> order = new CopyOnWriteArrayList<>();
+    long start = System.currentTimeMillis();
+
+    // 200ms is more than one round of the wheel (8 * 5ms)
+    wheel.schedule(() -> { order.add(3); latch.countDown(); }, 200);
+    wheel.schedule(() -> { order.add(1); latch.countDown(); }, 0);
+    wheel.schedule(() -> { order.add(2); latch.countDown(); }, 50);
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(System.currentTimeMillis() - start >= 200);
+    assertEquals(3, order.size());
+    assertEquals(Integer.valueOf(1), order.get(0));
+    assertEquals(Integer.valueOf(2), order.get(1));
+    assertEquals(Integer.valueOf(3), order.get(2));
+  }
+
+  @Test
+  public void testWheelResumesAfterIdle() throws InterruptedException {
+    TimeDeadbandWheel wheel = new TimeDeadbandWheel("Test wheel", 5, 8);
+    CountDownLatch first = new CountDownLatch(1);
+    wheel.schedule(first::countDown, 10);
+    assertTrue(first.await(5, TimeUnit.SECONDS));
+
+    Thread.sleep(100);
+
+    CountDownLatch second = new CountDownLatch(1);
+    long start = System.currentTimeMillis();
+    wheel.schedule(second::countDown, 30);
+    assertTrue(second.await(5, TimeUnit.SECONDS));
+    assertTrue(System.currentTimeMillis() - start >= 30);
+  }
+
+  @Test
+  public void testFailingTaskDoesNotStopWheel() throws InterruptedException {
+    TimeDeadbandWheel wheel = new TimeDeadbandWheel("Test wheel", 5, 8);
+    CountDownLatch latch = new CountDownLatch(1);
+    wheel.schedule(() -> { throw new IllegalStateException("test"); }, 0);
+    wheel.schedule(latch::countDown, 20);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+  }
+}
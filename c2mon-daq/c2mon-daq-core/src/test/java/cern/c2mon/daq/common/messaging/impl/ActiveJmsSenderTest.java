@@ -0,0 +1,243 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.messaging.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.BytesMessage;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+
+import cern.c2mon.daq.common.conf.core.ProcessConfigurationHolder;
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
+import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+import cern.c2mon.shared.common.process.ProcessConfiguration;
+import cern.c2mon.shared.daq.datatag.DataTagValueUpdateConverter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ActiveJmsSenderTest {
+
+  private static final String BROKER_URL = "vm://ActiveJmsSenderTest?broker.persistent=false&broker.useJmx=false";
+
+  private static final String QUEUE = "c2mon.process.update.P_TEST";
+
+  private ActiveMQConnectionFactory connectionFactory;
+
+  private Connection consumerConnection;
+
+  private ActiveJmsSender sender;
+
+  @Before
+  public void setUp() throws Exception {
+    ProcessConfiguration configuration = new ProcessConfiguration();
+    configuration.setProcessID(1L);
+    ProcessConfigurationHolder.setInstance(configuration);
+
+    connectionFactory = new ActiveMQConnectionFactory(BROKER_URL);
+    consumerConnection = connectionFactory.createConnection();
+    consumerConnection.start();
+    sender = new ActiveJmsSender(createTemplate(new SingleConnectionFactory(connectionFactory)));
+    sender.connect();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    sender.shutdown();
+    consumerConnection.close();
+  }
+
+  @Test
+  public void testValuesOfConcurrentThreadsAreSentInOrder() throws Exception {
+    List<Thread> threads = new ArrayList<>();
+    for (long tagId = 1; tagId <= 4; tagId++) {
+      final long id = tagId;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 250; i++) {
+          sender.processValue(value(id, i, false, DataTagAddress.PRIORITY_LOW));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Map<Long, List<Object>> received = new HashMap<>();
+    int count = 0;
+    for (Message message : receive(1000)) {
+      for (SourceDataTagValue value : update(message).getValues()) {
+        received.computeIfAbsent(value.getId(), id -> new ArrayList<>()).add(value.getValue());
+        count++;
+      }
+    }
+    assertEquals(1000, count);
+    for (List<Object> values : received.values()) {
+      for (int i = 0; i < 250; i++) {
+        assertEquals(i, values.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testDeliveryModeAndPriorityAreApplied() throws Exception {
+    sender.sendValues(update(value(1L, 1, true, DataTagAddress.PRIORITY_HIGH))).get(10, TimeUnit.SECONDS);
+    sender.sendValues(update(value(2L, 2, false, DataTagAddress.PRIORITY_LOW))).get(10, TimeUnit.SECONDS);
+
+    Map<Long, Message> messages = new HashMap<>();
+    for (Message message : receive(2)) {
+      messages.put(update(message).getValues().iterator().next().getId(), message);
+    }
+    assertEquals(DeliveryMode.PERSISTENT, messages.get(1L).getJMSDeliveryMode());
+    assertEquals(DataTagAddress.PRIORITY_HIGH, messages.get(1L).getJMSPriority());
+    assertEquals(DeliveryMode.NON_PERSISTENT, messages.get(2L).getJMSDeliveryMode());
+    assertEquals(DataTagAddress.PRIORITY_LOW, messages.get(2L).getJMSPriority());
+  }
+
+  @Test
+  public void testFailedSendCompletesExceptionally() throws Exception {
+    ActiveJmsSender unreachable = new ActiveJmsSender(createTemplate(
+        new SingleConnectionFactory(new ActiveMQConnectionFactory("vm://unreachable?create=false"))));
+    CompletableFuture<Void> result = unreachable.sendValues(update(value(1L, 1, false, DataTagAddress.PRIORITY_LOW)));
+    try {
+      result.get(10, TimeUnit.SECONDS);
+      fail("The send should have failed");
+    } catch (ExecutionException e) {
+      assertTrue(result.isCompletedExceptionally());
+    } finally {
+      unreachable.shutdown();
+    }
+  }
+
+  @Test
+  public void testHighPriorityIsNotDelayedBySaturatedLowPriorityLane() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    ActiveMQConnectionFactory blockingFactory = new ActiveMQConnectionFactory(BROKER_URL) {
+      @Override
+      public Connection createConnection() throws JMSException {
+        // the low priority lane cannot reach the broker until released
+        if (Thread.currentThread().getName().endsWith("-" + DataTagAddress.PRIORITY_LOW)) {
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return super.createConnection();
+      }
+    };
+    ActiveJmsSender bounded = new ActiveJmsSender(createTemplate(blockingFactory), 5);
+    List<CompletableFuture<Void>> lowPriority = new ArrayList<>();
+    try {
+      CompletableFuture<Void> rejected = null;
+      for (int i = 0; i < 100 && rejected == null; i++) {
+        CompletableFuture<Void> result = bounded.sendValues(update(value(1L, i, false, DataTagAddress.PRIORITY_LOW)));
+        if (result.isCompletedExceptionally()) {
+          rejected = result;
+        } else {
+          lowPriority.add(result);
+        }
+      }
+      assertNotNull("The full low priority lane should reject updates", rejected);
+      // at most one batch drained by the blocked lane thread and a full queue
+      assertTrue(lowPriority.size() <= 2 * 5 + 1);
+
+      bounded.sendValues(update(value(2L, 1, false, DataTagAddress.PRIORITY_HIGH))).get(10, TimeUnit.SECONDS);
+      assertTrue(lowPriority.stream().noneMatch(CompletableFuture::isDone));
+
+      release.countDown();
+      CompletableFuture.allOf(lowPriority.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+      assertEquals(lowPriority.size() + 1, receive(lowPriority.size() + 1).stream()
+          .mapToInt(message -> {
+            try {
+              return update(message).getValues().size();
+            } catch (Exception e) {
+              throw new IllegalStateException(e);
+            }
+          }).sum());
+    } finally {
+      release.countDown();
+      bounded.shutdown();
+    }
+  }
+
+  private List<Message> receive(int values) throws Exception {
+    Session session = consumerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    MessageConsumer consumer = session.createConsumer(new ActiveMQQueue(QUEUE));
+    List<Message> messages = new ArrayList<>();
+    int received = 0;
+    while (received < values) {
+      Message message = consumer.receive(10000);
+      if (message == null) {
+        break;
+      }
+      messages.add(message);
+      received += update(message).getValues().size();
+    }
+    session.close();
+    return messages;
+  }
+
+  private static JmsTemplate createTemplate(ConnectionFactory connectionFactory) {
+    JmsTemplate template = new JmsTemplate(connectionFactory);
+    template.setDefaultDestination(new ActiveMQQueue(QUEUE));
+    template.setMessageConverter(new DataTagValueUpdateConverter(true));
+    return template;
+  }
+
+  private static DataTagValueUpdate update(Message message) throws Exception {
+    // messages are decoded more than once, so rewind the body first
+    ((BytesMessage) message).reset();
+    return (DataTagValueUpdate) new DataTagValueUpdateConverter().fromMessage(message);
+  }
+
+  private static DataTagValueUpdate update(SourceDataTagValue value) {
+    DataTagValueUpdate update = new DataTagValueUpdate(1L);
+    update.addValue(value);
+    return update;
+  }
+
+  private static SourceDataTagValue value(Long tagId, int value, boolean guaranteedDelivery, int priority) {
+    return new SourceDataTagValue(tagId, "tag" + tagId, false, value, new SourceDataTagQuality(),
+        System.currentTimeMillis(), priority, guaranteedDelivery, null, DataTagAddress.TTL_FOREVER);
+  }
+}
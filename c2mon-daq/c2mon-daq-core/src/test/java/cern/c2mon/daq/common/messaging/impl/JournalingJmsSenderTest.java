@@ -0,0 +1,191 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.messaging.impl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.jms.JMSException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cern.c2mon.daq.common.conf.core.ProcessConfigurationHolder;
+import cern.c2mon.daq.common.messaging.JmsSender;
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
+import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+import cern.c2mon.shared.common.process.ProcessConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JournalingJmsSenderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final BrokerStub broker = new BrokerStub();
+
+  private JournalingJmsSender sender;
+
+  @Before
+  public void setUp() throws Exception {
+    ProcessConfiguration configuration = new ProcessConfiguration();
+    configuration.setProcessID(1L);
+    ProcessConfigurationHolder.setInstance(configuration);
+    sender = new JournalingJmsSender(broker, folder.getRoot().toPath(), 4096, 4, 3, 1000, 50);
+    sender.connect();
+  }
+
+  @After
+  public void tearDown() {
+    sender.shutdown();
+  }
+
+  @Test
+  public void testValuesAreJournaledDuringOutageAndReplayed() throws Exception {
+    sender.processValue(value(1L, 1));
+    assertEquals(1, broker.sent.size());
+
+    broker.reachable = false;
+    sender.processValue(value(1L, 2));
+    sender.processValue(value(2L, 1));
+    DataTagValueUpdate update = new DataTagValueUpdate(1L);
+    for (long tagId = 2; tagId <= 6; tagId++) {
+      update.addValue(value(tagId, 2));
+    }
+    sender.processValues(update);
+    Thread.sleep(200);
+    assertEquals(1, broker.sent.size());
+
+    broker.reachable = true;
+    for (int i = 0; i < 100 && broker.sent.size() < 7; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(7, broker.sent.size());
+    // latest values only, in journal order
+    assertEquals(2, broker.sent.get(1).getValue());
+    assertEquals(1L, (long) broker.sent.get(1).getId());
+    for (int i = 2; i < 7; i++) {
+      assertEquals(2, broker.sent.get(i).getValue());
+    }
+    assertEquals(3, broker.messages);
+
+    sender.processValue(value(1L, 3));
+    assertEquals(8, broker.sent.size());
+  }
+
+  @Test
+  public void testNewestValueIsJournaledWhenFailuresCompleteOutOfOrder() throws Exception {
+    broker.deferred = true;
+    sender.processValue(value(1L, 1, 1000L));
+    sender.processValue(value(1L, 2, 2000L));
+    assertEquals(2, broker.pending.size());
+
+    // the newer value is rejected first, e.g. by a full sender lane
+    broker.reachable = false;
+    broker.deferred = false;
+    broker.pending.get(1).completeExceptionally(new JMSException("Queue full"));
+    broker.pending.get(0).completeExceptionally(new JMSException("Broker unreachable"));
+
+    broker.reachable = true;
+    for (int i = 0; i < 100 && broker.sent.isEmpty(); i++) {
+      Thread.sleep(50);
+    }
+    Thread.sleep(200);
+    assertEquals(1, broker.sent.size());
+    assertEquals(2, broker.sent.get(0).getValue());
+  }
+
+  private static SourceDataTagValue value(Long tagId, int value) {
+    return value(tagId, value, System.currentTimeMillis());
+  }
+
+  private static SourceDataTagValue value(Long tagId, int value, long timestamp) {
+    return new SourceDataTagValue(tagId, "tag" + tagId, false, value, new SourceDataTagQuality(),
+        timestamp, DataTagAddress.PRIORITY_LOW, false, null, DataTagAddress.TTL_FOREVER);
+  }
+
+  private static final class BrokerStub implements JmsSender {
+
+    private final List<SourceDataTagValue> sent = new CopyOnWriteArrayList<>();
+
+    private volatile boolean reachable = true;
+
+    private volatile int messages;
+
+    /** Whether sends are left pending until the test completes them */
+    private volatile boolean deferred = false;
+
+    private final List<CompletableFuture<Void>> pending = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public void processValues(DataTagValueUpdate dataTagValueUpdate) throws JMSException {
+      if (!reachable) {
+        throw new JMSException("Broker unreachable");
+      }
+      messages++;
+      sent.addAll(dataTagValueUpdate.getValues());
+    }
+
+    @Override
+    public CompletableFuture<Void> sendValues(DataTagValueUpdate dataTagValueUpdate) {
+      if (deferred) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        pending.add(result);
+        return result;
+      }
+      return JmsSender.super.sendValues(dataTagValueUpdate);
+    }
+
+    @Override
+    public void processValue(SourceDataTagValue sourceDataTagValue) throws JMSException {
+      if (!reachable) {
+        throw new JMSException("Broker unreachable");
+      }
+      messages++;
+      sent.add(sourceDataTagValue);
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public void setEnabled(boolean value) {
+    }
+
+    @Override
+    public boolean getEnabled() {
+      return true;
+    }
+  }
+}
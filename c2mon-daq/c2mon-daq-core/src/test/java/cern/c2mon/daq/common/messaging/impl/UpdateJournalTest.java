@@ -0,0 +1,142 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.messaging.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateJournalTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testLatestValueOfEachTagIsReplayed() throws IOException {
+    UpdateJournal journal = new UpdateJournal(folder.getRoot().toPath(), 4096, 4);
+    journal.append(value(1L, 1));
+    journal.append(value(2L, 1));
+    journal.append(value(1L, 2));
+
+    UpdateJournal.Batch batch = journal.read(10);
+    assertEquals(2, batch.getValues().size());
+    assertEquals(2L, (long) batch.getValues().get(0).getId());
+    assertEquals(1L, (long) batch.getValues().get(1).getId());
+    assertEquals(2, batch.getValues().get(1).getValue());
+
+    journal.remove(batch);
+    assertTrue(journal.isEmpty());
+    assertTrue(journal.read(10).getValues().isEmpty());
+    journal.close();
+  }
+
+  @Test
+  public void testValueAppendedDuringReplayIsKept() throws IOException {
+    UpdateJournal journal = new UpdateJournal(folder.getRoot().toPath(), 4096, 4);
+    journal.append(value(1L, 1));
+    UpdateJournal.Batch batch = journal.read(10);
+    journal.append(value(1L, 2));
+    journal.remove(batch);
+
+    assertEquals(1, journal.size());
+    assertEquals(2, journal.read(10).getValues().get(0).getValue());
+    journal.close();
+  }
+
+  @Test
+  public void testNewerJournaledValueIsKept() throws IOException {
+    UpdateJournal journal = new UpdateJournal(folder.getRoot().toPath(), 4096, 4);
+    journal.append(value(1L, 2, 2000L));
+    journal.append(value(1L, 1, 1000L));
+
+    assertEquals(1, journal.size());
+    assertEquals(2, journal.read(10).getValues().get(0).getValue());
+    journal.close();
+  }
+
+  @Test
+  public void testUnsentValuesAreRecoveredAfterRestart() throws IOException {
+    UpdateJournal journal = new UpdateJournal(folder.getRoot().toPath(), 4096, 4);
+    for (long tagId = 1; tagId <= 3; tagId++) {
+      journal.append(value(tagId, (int) tagId));
+    }
+    journal.remove(journal.read(1));
+    journal.close();
+
+    journal = new UpdateJournal(folder.getRoot().toPath(), 4096, 4);
+    assertEquals(2, journal.size());
+    List<SourceDataTagValue> values = journal.read(10).getValues();
+    assertEquals(2L, (long) values.get(0).getId());
+    assertEquals(3L, (long) values.get(1).getId());
+    assertEquals(3, values.get(1).getValue());
+    journal.close();
+  }
+
+  @Test
+  public void testJournalSizeIsBounded() throws IOException {
+    UpdateJournal journal = new UpdateJournal(folder.getRoot().toPath(), 4096, 3);
+    for (int i = 0; i < 10000; i++) {
+      journal.append(value((long) (i % 10), i));
+    }
+
+    assertTrue(countSegments() <= 3);
+    assertEquals(10, journal.size());
+    assertEquals(0, journal.getDropped());
+    List<SourceDataTagValue> values = journal.read(100).getValues();
+    List<Object> latest = new ArrayList<>();
+    for (SourceDataTagValue value : values) {
+      latest.add(value.getValue());
+    }
+    for (int i = 9990; i < 10000; i++) {
+      assertTrue(latest.contains(i));
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      journal.append(value((long) (100 + i), i));
+    }
+    assertTrue(countSegments() <= 3);
+    assertTrue(journal.getDropped() > 0);
+    assertEquals(1010 - journal.getDropped(), journal.size());
+    journal.close();
+  }
+
+  private int countSegments() {
+    File[] files = folder.getRoot().listFiles();
+    return files == null ? 0 : files.length;
+  }
+
+  private static SourceDataTagValue value(Long tagId, int value) {
+    return value(tagId, value, System.currentTimeMillis());
+  }
+
+  private static SourceDataTagValue value(Long tagId, int value, long timestamp) {
+    return new SourceDataTagValue(tagId, "tag" + tagId, false, value, new SourceDataTagQuality(),
+        timestamp, DataTagAddress.PRIORITY_LOW, false, null, DataTagAddress.TTL_FOREVER);
+  }
+}
@@ -0,0 +1,125 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.daq.common.timer;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Before;
+import org.junit.Test;
+
+import cern.c2mon.daq.common.IEquipmentMessageSender;
+import cern.c2mon.daq.config.DaqProperties;
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.DataTagConstants;
+import cern.c2mon.shared.common.datatag.SourceDataTag;
+import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
+import cern.c2mon.shared.common.datatag.SourceDataTagQualityCode;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FreshnessMonitorTest {
+
+  private FreshnessMonitor freshnessMonitor;
+
+  private IEquipmentMessageSender equipmentMessageSender;
+
+  private Capture<Long> staleTagIds;
+
+  private Capture<SourceDataTagQuality> staleQualities;
+
+  @Before
+  public void setUp() {
+    DaqProperties properties = new DaqProperties();
+    // 1 second freshness interval * 0.1 = tags become stale after 100ms
+    properties.setFreshnessTolerance(0.1);
+    freshnessMonitor = new FreshnessMonitor(properties, 10);
+
+    staleTagIds = newCapture(CaptureType.ALL);
+    staleQualities = newCapture(CaptureType.ALL);
+    equipmentMessageSender = createMock(IEquipmentMessageSender.class);
+    equipmentMessageSender.update(capture(staleTagIds), capture(staleQualities));
+    expectLastCall().anyTimes();
+    replay(equipmentMessageSender);
+    freshnessMonitor.setIEquipmentMessageSender(equipmentMessageSender);
+  }
+
+  @Test
+  public void testStaleAfterFreshnessInterval() throws InterruptedException {
+    freshnessMonitor.reset(createTag(1L, 1));
+    freshnessMonitor.reset(createTag(2L, 1));
+    Thread.sleep(400);
+
+    assertEquals(2, staleTagIds.getValues().size());
+    assertTrue(staleTagIds.getValues().contains(1L));
+    assertTrue(staleTagIds.getValues().contains(2L));
+    for (SourceDataTagQuality quality : staleQualities.getValues()) {
+      assertEquals(SourceDataTagQualityCode.STALE, quality.getQualityCode());
+    }
+  }
+
+  @Test
+  public void testResetKeepsTagFresh() throws InterruptedException {
+    SourceDataTag tag = createTag(1L, 1);
+    for (int i = 0; i < 20; i++) {
+      freshnessMonitor.reset(tag);
+      Thread.sleep(20);
+    }
+    assertTrue(staleTagIds.getValues().isEmpty());
+
+    Thread.sleep(400);
+    assertEquals(1, staleTagIds.getValues().size());
+  }
+
+  @Test
+  public void testStaleIsSentOnlyOnceUntilNextReset() throws InterruptedException {
+    SourceDataTag tag = createTag(1L, 1);
+    freshnessMonitor.reset(tag);
+    Thread.sleep(400);
+    assertEquals(1, staleTagIds.getValues().size());
+
+    freshnessMonitor.reset(tag);
+    Thread.sleep(400);
+    assertEquals(2, staleTagIds.getValues().size());
+  }
+
+  @Test
+  public void testRemovedTagIsNotReported() throws InterruptedException {
+    SourceDataTag tag = createTag(1L, 1);
+    freshnessMonitor.reset(tag);
+    freshnessMonitor.removeDataTag(tag);
+    Thread.sleep(400);
+
+    assertTrue(staleTagIds.getValues().isEmpty());
+  }
+
+  @Test
+  public void testTagWithoutFreshnessIntervalIsIgnored() throws InterruptedException {
+    freshnessMonitor.reset(createTag(1L, null));
+    freshnessMonitor.reset(createTag(2L, 0));
+    Thread.sleep(400);
+
+    assertTrue(staleTagIds.getValues().isEmpty());
+  }
+
+  private SourceDataTag createTag(Long id, Integer freshnessInterval) {
+    DataTagAddress address = new DataTagAddress();
+    address.setFreshnessInterval(freshnessInterval);
+    return new SourceDataTag(id, "tag" + id, false, DataTagConstants.MODE_OPERATIONAL, "Integer", address);
+  }
+}
@@ -5,6 +5,12 @@ import static org.junit.Assert.*;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.DataTagConstants;
+import cern.c2mon.shared.common.datatag.DataTagDeadband;
+import cern.c2mon.shared.common.datatag.SourceDataTag;
+import cern.c2mon.shared.common.datatag.ValueUpdate;
+
 public class DataTagValueFilterTest {
 	DataTagValueFilter dvf = new DataTagValueFilter();
 	
@@ -58,6 +64,18 @@ public class DataTagValueFilterTest {
 		
 	}
 	
+	@Test
+	public void testNonNumericUpdateOfNumericValueIsNotDeadbandFiltered() {
+		DataTagAddress address = new DataTagAddress(null, 100, DataTagDeadband.DEADBAND_PROCESS_ABSOLUTE, 1.0f, 0,
+				DataTagConstants.PRIORITY_MEDIUM, false);
+		SourceDataTag tag = new SourceDataTag(1L, "tag", false, DataTagConstants.MODE_OPERATIONAL, "Float", address);
+		tag.update(new ValueUpdate(1.0f));
+
+		assertFalse("A value that is not a number cannot be within the deadband",
+				dvf.isValueDeadbandFiltered(tag, new ValueUpdate("not a number")));
+		assertTrue(dvf.isValueDeadbandFiltered(tag, new ValueUpdate(1.5f)));
+	}
+
 	@Test
 	@Ignore("Reactivate me once issue 196 is fixed")
 	public void testDeadbandAsAFloatIssue() {
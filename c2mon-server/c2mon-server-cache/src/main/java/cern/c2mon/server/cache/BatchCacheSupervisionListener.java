@@ -0,0 +1,44 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache;
+
+import java.util.Collection;
+
+import cern.c2mon.server.common.tag.Tag;
+
+/**
+ * A {@link CacheSupervisionListener} that accepts the tags affected
+ * by a supervision change in batches.
+ *
+ * <p>When a DAQ or Equipment changes state, the supervision status of
+ * all its tags is propagated in batches; listeners implementing this
+ * interface receive one call per batch instead of one call per tag.
+ *
+ * @param <T> the type in the cache
+ */
+public interface BatchCacheSupervisionListener<T extends Tag> extends CacheSupervisionListener<T> {
+
+  /**
+   * Called when the status of the DAQ/Equipment changes from
+   * RUNNING to DOWN/STOPPED and vice-versa, with a batch of
+   * the affected tags.
+   *
+   * @param tags copies of the Tags with new status applied
+   */
+  void onSupervisionChanges(Collection<? extends T> tags);
+
+}
@@ -17,6 +17,7 @@
 package cern.c2mon.server.cache;
 
 import cern.c2mon.server.cache.exception.CacheElementNotFoundException;
+import cern.c2mon.server.cache.listener.ListenerOverflowPolicy;
 import cern.c2mon.server.common.component.Lifecycle;
 import cern.c2mon.shared.common.Cacheable;
 
@@ -90,6 +91,21 @@ public interface C2monCacheWithListeners<K, T extends Cacheable> extends C2monCa
    */
   Lifecycle registerThreadedListener(C2monCacheListener< ? super T> timCacheListener, int queueCapacity, int threadPoolSize);
 
+  /**
+   * As {@link #registerThreadedListener(C2monCacheListener, int, int)}, with the
+   * given policy applying once the queue is full instead of making the server
+   * thread wait. Updates made by the listener threads themselves never wait
+   * and are never dropped: they are queued apart while the queue is full.
+   *
+   * @param timCacheListener the listener to register
+   * @param queueCapacity the capacity of the queue of notification events
+   * @param threadPoolSize the number of threads on which the listener will be invoked
+   * @param overflowPolicy what to do with an update once the queue is full
+   * @return a Lifecycle object to start and stop the listener thread
+   */
+  Lifecycle registerThreadedListener(C2monCacheListener< ? super T> timCacheListener, int queueCapacity, int threadPoolSize,
+                                     ListenerOverflowPolicy overflowPolicy);
+
   /**
    * Identical to the {@link #notifyListenersOfUpdate(Cacheable)} method but fetches first for you
    * the Cacheable object and makes a copy.
@@ -66,6 +66,17 @@ public interface C2monCacheWithSupervision<K, T extends Tag> extends C2monCacheW
    *        status applied
    */
   void notifyListenersOfSupervisionChange(T tag);
+
+  /**
+   * Calls all listeners notified for supervision invalidation messages with
+   * a batch of tags. Listeners implementing {@link BatchCacheSupervisionListener}
+   * are called once for the batch, all others once per tag. Tags removed
+   * from the cache in the meantime are left out.
+   *
+   * @param tags the tags affected by the supervision change, *with* the supervision
+   *        status applied
+   */
+  void notifyListenersOfSupervisionChange(Collection<T> tags);
   
   /**
    * Check whether the cache contains a tag with
@@ -16,6 +16,7 @@
  *****************************************************************************/
 package cern.c2mon.server.cache;
 
+import cern.c2mon.server.cache.listener.ListenerOverflowPolicy;
 import cern.c2mon.server.common.alarm.Alarm;
 import cern.c2mon.server.common.component.Lifecycle;
 import cern.c2mon.server.common.datatag.DataTag;
@@ -76,6 +77,34 @@ public interface CacheRegistrationService {
    *          and the stop() at the beginning of its own stop method
    */
   Lifecycle registerToAllTags(C2monCacheListener<Tag> tagCacheListener, int nbThreads);
+
+  /**
+   * Register for all updates to data tags, control tags and rules, with a
+   * bounded queue between the caches and the listener threads.
+   *
+   * <p>A listener may write to the tag caches itself (e.g. the rule
+   * evaluation): the updates made on its own threads never wait and are
+   * never dropped, but are queued apart while the queue is full.
+   *
+   * @param tagCacheListener the listener to notify of the updates
+   * @param nbThreads the number of threads used to call the listener
+   * @param queueCapacity the maximum number of pending notifications
+   * @param overflowPolicy what to do with an update once the queue is full
+   * @return a Lifecycle object to allow the registered listener to stop/start its thread as required
+   */
+  Lifecycle registerToAllTags(C2monCacheListener<Tag> tagCacheListener, int nbThreads, int queueCapacity,
+                              ListenerOverflowPolicy overflowPolicy);
+
+  /**
+   * As {@link #registerToAllTags(C2monCacheListener, int, int, ListenerOverflowPolicy)},
+   * with the queue capacity configured for bounded listeners.
+   *
+   * @param tagCacheListener the listener to notify of the updates
+   * @param nbThreads the number of threads used to call the listener
+   * @param overflowPolicy what to do with an update once the queue is full
+   * @return a Lifecycle object to allow the registered listener to stop/start its thread as required
+   */
+  Lifecycle registerToAllTags(C2monCacheListener<Tag> tagCacheListener, int nbThreads, ListenerOverflowPolicy overflowPolicy);
   
   /**
    * Register to be notified of updates to the DataTag cache only.
@@ -142,6 +171,17 @@ public interface CacheRegistrationService {
    */
   Lifecycle registerBufferedListenerToTags(C2monBufferedCacheListener<Tag> bufferedTimCacheListener);
 
+  /**
+   * As {@link #registerBufferedListenerToTags(C2monBufferedCacheListener)}, but the
+   * buffer holds at most the configured listener queue capacity. Once it is full,
+   * the cache threads wait for the listener to empty it, so the listener must not
+   * update the tag caches itself.
+   *
+   * @param bufferedTimCacheListener the listener to register (called on single thread)
+   * @return a Lifecycle object to allow the registered listener to stop/start its thread as required
+   */
+  Lifecycle registerBoundedBufferedListenerToTags(C2monBufferedCacheListener<Tag> bufferedTimCacheListener);
+
   /**
    * Registers for all updates to C2MON alarms. Notice this includes all invalidations
    * of alarms due to DAQ/Equipment supervision events. This listener is called on it's 
@@ -153,4 +193,14 @@ public interface CacheRegistrationService {
    *          and the stop() at the beginning of its own stop method
    */
   Lifecycle registerToAlarms(C2monCacheListener<Alarm> timCacheListener);
+
+  /**
+   * As {@link #registerToAlarms(C2monCacheListener)}, with a queue bounded by the
+   * configured listener queue capacity.
+   *
+   * @param timCacheListener the listener
+   * @param overflowPolicy what to do with an alarm update once the queue is full
+   * @return a Lifecycle object to allow the registered listener to stop/start its thread as required
+   */
+  Lifecycle registerToAlarms(C2monCacheListener<Alarm> timCacheListener, ListenerOverflowPolicy overflowPolicy);
 }
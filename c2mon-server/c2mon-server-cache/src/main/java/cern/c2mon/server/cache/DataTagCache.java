@@ -59,4 +59,24 @@ public interface DataTagCache extends C2monCacheWithSupervision<Long, DataTag> {
    * @return The list ids of all dataTag attached to the subEquipment.
    */
   List<Long> getDataTagIdsBySubEquipmentId(Long equipmentId);
+
+  /**
+   * Retrieve the number of data tags of a given process, as counted in memory
+   * on every cache update.
+   *
+   * @param processId the ID of the process
+   * @return the number of tags of the process, or null if the tags are not
+   *         counted in memory (multi-server mode)
+   */
+  Integer getNumTags(Long processId);
+
+  /**
+   * Retrieve the number of data tags of a given process that currently have
+   * an invalid quality, as counted in memory on every cache update.
+   *
+   * @param processId the ID of the process
+   * @return the number of invalid tags of the process, or null if the tags
+   *         are not counted in memory (multi-server mode)
+   */
+  Integer getNumInvalidTags(Long processId);
 }
@@ -35,7 +35,8 @@ public interface AlarmAggregatorListener {
    * Is called when a Tag update has been received, and associated
    * alarms have been evaluated.
    * 
-   * @param tag the updated Tag
+   * @param tag the updated Tag; the same copy is passed to all
+   *          listeners, so it must not be modified
    * @param alarms the new values of the associated alarms; 
    *          this list is <b>null</b> if no alarms are associated to the tag
    */
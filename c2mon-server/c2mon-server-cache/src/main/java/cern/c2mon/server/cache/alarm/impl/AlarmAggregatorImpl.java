@@ -17,6 +17,7 @@
 package cern.c2mon.server.cache.alarm.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.PostConstruct;
@@ -24,9 +25,9 @@ import javax.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import cern.c2mon.server.cache.BatchCacheSupervisionListener;
 import cern.c2mon.server.cache.C2monCacheListener;
 import cern.c2mon.server.cache.CacheRegistrationService;
-import cern.c2mon.server.cache.CacheSupervisionListener;
 import cern.c2mon.server.cache.TagFacadeGateway;
 import cern.c2mon.server.cache.alarm.AlarmAggregator;
 import cern.c2mon.server.cache.alarm.AlarmAggregatorListener;
@@ -48,7 +49,7 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @Service
-public class AlarmAggregatorImpl implements AlarmAggregator, C2monCacheListener<Tag>, CacheSupervisionListener<Tag> {
+public class AlarmAggregatorImpl implements AlarmAggregator, C2monCacheListener<Tag>, BatchCacheSupervisionListener<Tag> {
 
   /**
    * List of registered listeners.
@@ -130,12 +131,10 @@ public class AlarmAggregatorImpl implements AlarmAggregator, C2monCacheListener<
    *          the associated list of evaluated alarms
    */
   private void notifyListeners(final Tag tag, final List<Alarm> alarmList) {
+    // the tag is already a private copy of the cache object, shared by all
+    // cache listeners, so it is passed on without cloning it again
     for (AlarmAggregatorListener listener : listeners) {
-      try {
-        listener.notifyOnUpdate((Tag) tag.clone(), alarmList);
-      } catch (CloneNotSupportedException e) {
-        log.error("Unexpected exception caught: clone should be implemented for this class! " + "Alarm & tag listener was not notified: " + listener.getClass().getSimpleName());
-      }
+      listener.notifyOnUpdate(tag, alarmList);
     }
   }
 
@@ -146,6 +145,15 @@ public class AlarmAggregatorImpl implements AlarmAggregator, C2monCacheListener<
     evaluateAlarms(tag);
   }
 
+  @Override
+  public void onSupervisionChanges(final Collection<? extends Tag> tags) {
+    log.trace("Evaluating alarms for {} tags due to supervision status notification.", tags.size());
+
+    for (Tag tag : tags) {
+      evaluateAlarms(tag);
+    }
+  }
+
   private List<Alarm> evaluateAlarms(final Tag tag) {
     List<Alarm> alarmList = null;
     if (!tag.getAlarmIds().isEmpty()) {
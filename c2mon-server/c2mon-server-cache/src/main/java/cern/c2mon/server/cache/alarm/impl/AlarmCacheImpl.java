@@ -37,6 +37,8 @@ import org.springframework.stereotype.Service;
 import cern.c2mon.server.cache.AlarmCache;
 import cern.c2mon.server.cache.ClusterCache;
 import cern.c2mon.server.cache.common.AbstractCache;
+import cern.c2mon.server.cache.common.CacheObjectCopier;
+import cern.c2mon.server.cache.common.CloningCopier;
 import cern.c2mon.server.cache.config.CacheProperties;
 import cern.c2mon.server.cache.loading.AlarmLoaderDAO;
 import cern.c2mon.server.cache.loading.common.C2monCacheLoader;
@@ -58,6 +60,11 @@ public class AlarmCacheImpl extends AbstractCache<Long, Alarm> implements AlarmC
   /** A special logger that can be used later to store alarm updates in a separate log file */
   private static final Logger ALARM_LOGGER = LoggerFactory.getLogger("AlarmLogger");
 
+  /**
+   * Field-level copy strategy used by {@link #getCopy(Object)}.
+   */
+  private final CacheObjectCopier<Alarm> copier = new CloningCopier<>();
+
   @Autowired
   public AlarmCacheImpl(@Qualifier("clusterCache") final ClusterCache clusterCache,
                         @Qualifier("alarmEhcache") final Ehcache ehcache,
@@ -96,6 +103,11 @@ public class AlarmCacheImpl extends AbstractCache<Long, Alarm> implements AlarmC
     return cacheInitializedKey;
   }
 
+  @Override
+  protected CacheObjectCopier<Alarm> getCopier() {
+    return copier;
+  }
+
   @Override
   public Collection<Long> findAlarm(AlarmQuery query) {
 
@@ -30,6 +30,8 @@ import org.springframework.stereotype.Service;
 import cern.c2mon.server.cache.AliveTimerCache;
 import cern.c2mon.server.cache.ClusterCache;
 import cern.c2mon.server.cache.common.AbstractCache;
+import cern.c2mon.server.cache.common.CacheObjectCopier;
+import cern.c2mon.server.cache.common.CloningCopier;
 import cern.c2mon.server.cache.loading.common.C2monCacheLoader;
 import cern.c2mon.server.cache.loading.SimpleCacheLoaderDAO;
 import cern.c2mon.server.common.alive.AliveTimer;
@@ -44,6 +46,11 @@ import cern.c2mon.server.common.config.C2monCacheName;
 @Service("aliveTimerCache")
 public class AliveTimerCacheImpl extends AbstractCache<Long, AliveTimer> implements AliveTimerCache {
 
+  /**
+   * Field-level copy strategy used by {@link #getCopy(Object)}.
+   */
+  private final CacheObjectCopier<AliveTimer> copier = new CloningCopier<>();
+
   @Autowired
   public AliveTimerCacheImpl(final ClusterCache clusterCache,
                              @Qualifier("aliveTimerEhcache") final Ehcache ehcache,
@@ -81,4 +88,9 @@ public class AliveTimerCacheImpl extends AbstractCache<Long, AliveTimer> impleme
     return cacheInitializedKey;
   }
 
+  @Override
+  protected CacheObjectCopier<AliveTimer> getCopier() {
+    return copier;
+  }
+
 }
@@ -16,10 +16,6 @@
  *****************************************************************************/
 package cern.c2mon.server.cache.common;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -40,8 +36,9 @@ import cern.c2mon.server.cache.C2monCacheListener;
 import cern.c2mon.server.cache.ClusterCache;
 import cern.c2mon.server.cache.exception.CacheElementNotFoundException;
 import cern.c2mon.server.cache.listener.BufferedKeyCacheListener;
-import cern.c2mon.server.cache.listener.CacheListener;
+import cern.c2mon.server.cache.listener.CacheRegistrationServiceImpl;
 import cern.c2mon.server.cache.listener.DefaultBufferedCacheListener;
+import cern.c2mon.server.cache.listener.ListenerOverflowPolicy;
 import cern.c2mon.server.cache.listener.MultiThreadedCacheListener;
 import cern.c2mon.server.cache.loading.SimpleCacheLoaderDAO;
 import cern.c2mon.server.common.component.Lifecycle;
@@ -97,6 +94,11 @@ private final CacheProperties properties;
    */
   private LinkedBlockingDeque<C2monCacheListener<? super T>> cacheListeners = new LinkedBlockingDeque<>();
 
+  /**
+   * Default copy strategy, used if the cache does not override {@link #getCopier()}.
+   */
+  private final CacheObjectCopier<T> serializationCopier = new SerializationCopier<>();
+
   /**
    * the RegisteredEventListeners instance for this cache which is used
    * to register and unregister listeners.
@@ -186,48 +188,42 @@ private final CacheProperties properties;
 
   /**
    * Find an object in the cache given the object id and create a deep copy.
-   * The copy is relealized through serialization and NOT by cloning.
+   * The copy is realized through the {@link CacheObjectCopier} returned by
+   * {@link #getCopier()}, which falls back to serialization if the cache does
+   * not provide a cheaper field-level copy.
    *
    * @param id the unique id of the cache object (should not be NULL)
    * @return Copy to the {@link Cacheable} object
    * @throws CacheElementNotFoundException if the element if not found in the cache
    * @throws IllegalArgumentException if the cache is accessed with a null key
-   * @throws UnsupportedOperationException If something goes wrong whilst creating a deep clone
-   *         through serialization
+   * @throws UnsupportedOperationException If something goes wrong whilst creating a deep copy
    */
-  @SuppressWarnings("unchecked")
   public final T getCopy(final K id) {
     if (id != null) {
-        cache.acquireReadLockOnKey(id);
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(baos);) {
-            T reference = get(id);
-    
-            oos.writeObject(reference);
-    
-            ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-            ObjectInputStream ois = new ObjectInputStream(bais);
-            return (T) ois.readObject();
-        } catch (CacheElementNotFoundException cenfe) {
-            throw cenfe;
-        } catch (Exception ex) {
-            log.error(
-                    "Unable to get a serialized copy of the cache element as serialization is not supported for this object.",
-                    ex);
-            throw new UnsupportedOperationException(
-                    "The getCopy() method is not supported for this cache element since the cache object is not entirely serializable. Please revisit your object.",
-                    ex);
-        } finally {
-            cache.releaseReadLockOnKey(id);
-        }
-    }
-    else {
+      cache.acquireReadLockOnKey(id);
+      try {
+        return getCopier().copy(get(id));
+      } finally {
+        cache.releaseReadLockOnKey(id);
+      }
+    } else {
       log.error("getCopy() - Trying to access cache with a NULL key - throwing an exception!");
       //TODO throw runtime exception here or not?
       throw new IllegalArgumentException("Accessing cache with null key!");
     }
   }
 
+  /**
+   * Returns the strategy used by {@link #getCopy(Object)} to copy the cache
+   * objects. Caches whose objects provide a complete deep {@code clone()}
+   * should override this method and return a {@link CloningCopier}.
+   *
+   * @return the copy strategy of this cache, by default a {@link SerializationCopier}
+   */
+  protected CacheObjectCopier<T> getCopier() {
+    return serializationCopier;
+  }
+
   /**
    * Puts an object in the cache, without notifying the cache listeners.
    * Wraps the call to the underlying Ehcache.
@@ -249,7 +245,8 @@ private final CacheProperties properties;
   }
 
   public void notifyListenersOfUpdate(final K id) {
-    notifyListenersOfUpdate(this.getCopy(id));
+    // the copy is not reachable from the cache, so it is passed on without cloning it again
+    notifyListenersOfCopy(this.getCopy(id));
   }
 
   /**
@@ -263,19 +260,29 @@ private final CacheProperties properties;
    * @param cacheable the cache object that has been updated
    */
   public void notifyListenersOfUpdate(final T cacheable) {
-    registeredEventListeners.notifyElementUpdated(new Element(cacheable.getId(), null), false); //only for monitoring via Ehcache: not using Ehcache listeners o.w.
     try {
       @SuppressWarnings("unchecked")
       T cloned = (T) cacheable.clone();
-      for (C2monCacheListener< ? super T> listener : cacheListeners) {
-        listener.notifyElementUpdated(cloned);
-      }
+      notifyListenersOfCopy(cloned);
     } catch (CloneNotSupportedException e) {
       log.error(CLONE_NOT_SUPPORTED_EXCEPTION_CAUGHT_WHILE_CLONING_A_CACHE_ELEMENT, e);
       throw new FailedCacheElementCloningException(CLONE_NOT_SUPPORTED_EXCEPTION_CAUGHT_WHILE_CLONING_A_CACHE_ELEMENT, e);
     }
   }
 
+  /**
+   * Passes a private copy of an updated cache object to all the listeners.
+   * The same copy is shared by all listeners, which must not modify it.
+   *
+   * @param copy a copy of the cache object, not reachable from the cache
+   */
+  private void notifyListenersOfCopy(final T copy) {
+    registeredEventListeners.notifyElementUpdated(new Element(copy.getId(), null), false); //only for monitoring via Ehcache: not using Ehcache listeners o.w.
+    for (C2monCacheListener< ? super T> listener : cacheListeners) {
+      listener.notifyElementUpdated(copy);
+    }
+  }
+
   public void notifyListenerStatusConfirmation(final T cacheable, final long timestamp) {
     try {
       @SuppressWarnings("unchecked")
@@ -294,13 +301,17 @@ private final CacheProperties properties;
   }
 
   public Lifecycle registerListener(C2monCacheListener<? super T> cacheListener) {
-    CacheListener<? super T> wrappedCacheListener = new CacheListener<>(cacheListener);
-    cacheListeners.add(wrappedCacheListener);
-    return wrappedCacheListener;
+    return registerThreadedListener(cacheListener, CacheRegistrationServiceImpl.QUEUE_SIZE_DEFAULT, 1);
   }
 
   public Lifecycle registerThreadedListener(C2monCacheListener<? super T> cacheListener, int queueCapacity, int threadPoolSize) {
-    MultiThreadedCacheListener<? super T> threadedCacheListener = new MultiThreadedCacheListener<>(cacheListener, queueCapacity, threadPoolSize);
+    return registerThreadedListener(cacheListener, queueCapacity, threadPoolSize, ListenerOverflowPolicy.BLOCK);
+  }
+
+  public Lifecycle registerThreadedListener(C2monCacheListener<? super T> cacheListener, int queueCapacity, int threadPoolSize,
+                                            ListenerOverflowPolicy overflowPolicy) {
+    MultiThreadedCacheListener<? super T> threadedCacheListener =
+        new MultiThreadedCacheListener<>(cacheListener, queueCapacity, threadPoolSize, overflowPolicy);
     cacheListeners.add(threadedCacheListener);
     return threadedCacheListener;
   }
@@ -415,13 +426,31 @@ private final CacheProperties properties;
     for (C2monCacheListener listener : cacheListeners) {
       if (listener instanceof MultiThreadedCacheListener) {
         queueSizes.add(((MultiThreadedCacheListener) listener).getTaskQueueSize());
-      } else if (listener instanceof CacheListener) {
-        queueSizes.add(((CacheListener) listener).getTaskQueueSize());
       }
     }
     return queueSizes;
   }
 
+  /**
+   * For management purposes.
+   * @return for each asynchronous listener to this cache, its queue depth and
+   *         capacity, overflow counters and latency percentiles
+   */
+  @ManagedOperation(description="Get listener queue depths, overflow counters and latencies.")
+  public List<String> getListenerStatistics() {
+    ArrayList<String> statistics = new ArrayList<>();
+    for (C2monCacheListener listener : cacheListeners) {
+      if (listener instanceof MultiThreadedCacheListener) {
+        MultiThreadedCacheListener threadedListener = (MultiThreadedCacheListener) listener;
+        statistics.add(threadedListener.getWrappedListener().getClass().getSimpleName()
+            + " [policy=" + threadedListener.getOverflowPolicy()
+            + ", depth=" + threadedListener.getTaskQueueSize() + "/" + threadedListener.getTaskQueueCapacity()
+            + ", " + threadedListener.getStatistics() + "]");
+      }
+    }
+    return statistics;
+  }
+
   /**
    * For management purposes.
    * @return the number of active threads for multi-threaded listeners
@@ -0,0 +1,46 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import cern.c2mon.shared.common.Cacheable;
+
+/**
+ * Creates a deep copy through the field-level {@link Cacheable#clone()}
+ * implementation of the cache object. This avoids the byte stream and
+ * reflection overhead of {@link SerializationCopier}, but must only be used for
+ * cache objects whose clone method copies all mutable fields (e.g.
+ * {@code DataTagCacheObject}, {@code RuleTagCacheObject},
+ * {@code AlarmCacheObject} or {@code AliveTimerCacheObject}).
+ *
+ * @param <T> the cache object type
+ */
+@Slf4j
+public final class CloningCopier<T extends Cacheable> implements CacheObjectCopier<T> {
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T copy(final T original) {
+    try {
+      return (T) original.clone();
+    } catch (CloneNotSupportedException e) {
+      log.error("CloneNotSupportedException caught while copying cache element {}", original.getId(), e);
+      throw new UnsupportedOperationException("The cache element " + original.getId() + " does not support cloning.", e);
+    }
+  }
+}
@@ -40,6 +40,13 @@ public class CacheProperties {
    */
   private int bufferedListenerPullFrequency = 5000;
 
+  /**
+   * Maximum number of pending notifications of the listeners that bound their
+   * queue (rule evaluation, alarm publication, Elasticsearch and history tag
+   * listeners)
+   */
+  private int listenerQueueCapacity = 100000;
+
   private int timeRange = 60;
   private int oscNumbers = 6;
 }
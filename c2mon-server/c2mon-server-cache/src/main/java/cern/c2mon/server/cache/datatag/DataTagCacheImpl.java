@@ -24,6 +24,7 @@ import javax.annotation.PostConstruct;
 import cern.c2mon.server.cache.config.CacheProperties;
 import lombok.extern.slf4j.Slf4j;
 import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
 import net.sf.ehcache.loader.CacheLoader;
 import net.sf.ehcache.search.Attribute;
 import net.sf.ehcache.search.Results;
@@ -52,6 +53,17 @@ import cern.c2mon.server.common.datatag.DataTag;
 @ManagedResource(objectName="cern.c2mon:type=cache,name=dataTagCache")
 public class DataTagCacheImpl extends AbstractTagCache<DataTag> implements DataTagCache {
 
+  /**
+   * Tag counts per process. Not used in multi-server mode, since updates done
+   * by the other servers do not pass through this instance.
+   */
+  private final DataTagStatistics statistics = new DataTagStatistics();
+
+  /**
+   * Whether the {@link #statistics} are kept.
+   */
+  private final boolean statisticsEnabled;
+
   @Autowired
   public DataTagCacheImpl(@Qualifier("clusterCache") final ClusterCache clusterCache,
                           @Qualifier("dataTagEhcache") final Ehcache ehcache,
@@ -60,6 +72,7 @@ public class DataTagCacheImpl extends AbstractTagCache<DataTag> implements DataT
                           @Qualifier("dataTagLoaderDAO") final SimpleCacheLoaderDAO<DataTag> cacheLoaderDAO,
                           final CacheProperties properties) {
     super(clusterCache, ehcache, cacheLoader, c2monCacheLoader, cacheLoaderDAO, properties);
+    statisticsEnabled = !properties.getMode().equalsIgnoreCase("multi");
   }
 
   /**
@@ -73,9 +86,56 @@ public class DataTagCacheImpl extends AbstractTagCache<DataTag> implements DataT
     //common initialization (other than preload, which needs synch below)
     commonInit();
 
+    if (statisticsEnabled) {
+      initStatistics();
+    }
+
     log.info("DataTag cache initialization complete");
   }
 
+  /**
+   * Registers the statistics as cache listener and counts the tags loaded in
+   * the cache. The listener is registered first, so that no update is missed.
+   */
+  private void initStatistics() {
+    registerSynchronousListener(statistics);
+    statistics.clear();
+    for (Long key : getKeys()) {
+      Element element = getCache().get(key);
+      if (element != null) {
+        statistics.put((DataTag) element.getObjectValue());
+      }
+    }
+    log.debug("initStatistics() - Counted {} data tags per process", getCache().getSize());
+  }
+
+  @Override
+  public void putQuiet(final DataTag value) {
+    super.putQuiet(value);
+    if (statisticsEnabled) {
+      statistics.put(value);
+    }
+  }
+
+  @Override
+  public boolean remove(final Long id) {
+    boolean removed = super.remove(id);
+    if (statisticsEnabled) {
+      statistics.remove(id);
+    }
+    return removed;
+  }
+
+  @Override
+  public Integer getNumTags(final Long processId) {
+    return statisticsEnabled ? statistics.getNumTags(processId) : null;
+  }
+
+  @Override
+  public Integer getNumInvalidTags(final Long processId) {
+    return statisticsEnabled ? statistics.getNumInvalidTags(processId) : null;
+  }
+
   @Override
   public List<Long> getDataTagIdsByEquipmentId(Long equipmentId) {
     return getDataTagIds(equipmentId, "equipmentId");
@@ -0,0 +1,152 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.datatag;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import cern.c2mon.server.cache.C2monCacheListener;
+import cern.c2mon.server.common.datatag.DataTag;
+
+/**
+ * Counts the data tags and the invalid data tags of each process, replacing
+ * the COUNT queries on the DATATAG table.
+ *
+ * <p>The counters are fed by the cache: the class is registered as synchronous
+ * listener of the data tag cache, so it sees every update (including the
+ * creation of a tag by the configuration), and the cache calls
+ * {@link #remove(Long)} when a tag is removed. For every tag, the process and
+ * the validity last counted are kept, so that an update only changes the
+ * counters if the tag moved between the valid and invalid states.
+ *
+ * <p>The counters of different processes are independent and use
+ * {@link LongAdder}s, so concurrent updates of different tags do not contend.
+ * The counts read while updates are running may be off by the updates in
+ * progress.
+ */
+class DataTagStatistics implements C2monCacheListener<DataTag> {
+
+  /** Tag id -> state of the tag as counted */
+  private final Map<Long, CountedState> tags = new ConcurrentHashMap<>();
+
+  /** Process id -> counters */
+  private final Map<Long, Counters> processes = new ConcurrentHashMap<>();
+
+  @Override
+  public void notifyElementUpdated(final DataTag tag) {
+    put(tag);
+  }
+
+  @Override
+  public void confirmStatus(final DataTag tag) {
+    // the status confirmation does not change the quality
+  }
+
+  /**
+   * Counts the tag, or updates its counted state.
+   *
+   * @param tag the current tag
+   */
+  void put(final DataTag tag) {
+    Long processId = tag.getProcessId();
+    boolean invalid = tag.getDataTagQuality() == null || !tag.getDataTagQuality().isValid();
+    tags.compute(tag.getId(), (id, previous) -> {
+      if (previous != null && previous.invalid == invalid && equal(previous.processId, processId)) {
+        return previous;
+      }
+      count(previous, -1);
+      CountedState current = new CountedState(processId, invalid);
+      count(current, 1);
+      return current;
+    });
+  }
+
+  /**
+   * Removes the tag from the counters.
+   *
+   * @param tagId the id of the removed tag
+   */
+  void remove(final Long tagId) {
+    tags.computeIfPresent(tagId, (id, previous) -> {
+      count(previous, -1);
+      return null;
+    });
+  }
+
+  /**
+   * Removes all tags from the counters.
+   */
+  void clear() {
+    tags.clear();
+    processes.clear();
+  }
+
+  /**
+   * @param processId the process id
+   * @return the number of data tags of the process
+   */
+  int getNumTags(final Long processId) {
+    Counters counters = processes.get(processId);
+    return counters == null ? 0 : counters.total.intValue();
+  }
+
+  /**
+   * @param processId the process id
+   * @return the number of data tags of the process with an invalid quality
+   */
+  int getNumInvalidTags(final Long processId) {
+    Counters counters = processes.get(processId);
+    return counters == null ? 0 : counters.invalid.intValue();
+  }
+
+  private void count(final CountedState state, final int delta) {
+    if (state == null || state.processId == null) {
+      return;
+    }
+    Counters counters = processes.computeIfAbsent(state.processId, id -> new Counters());
+    counters.total.add(delta);
+    if (state.invalid) {
+      counters.invalid.add(delta);
+    }
+  }
+
+  private static boolean equal(final Long a, final Long b) {
+    return a == null ? b == null : a.equals(b);
+  }
+
+  /**
+   * Process and validity of a tag, as counted.
+   */
+  private static final class CountedState {
+    private final Long processId;
+    private final boolean invalid;
+
+    private CountedState(final Long processId, final boolean invalid) {
+      this.processId = processId;
+      this.invalid = invalid;
+    }
+  }
+
+  /**
+   * Counters of a process.
+   */
+  private static final class Counters {
+    private final LongAdder total = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+  }
+}
@@ -55,8 +55,8 @@ public abstract class AbstractBufferedCacheListener<T extends Cacheable, S> impl
   /**
    * Queues keeping the keys for supported methods.
    */
-  private final LinkedBlockingQueue<S> onUpdateQueue = new LinkedBlockingQueue<>();
-  private final LinkedBlockingQueue<S> statusConfirmationQueue = new LinkedBlockingQueue<>();
+  private final LinkedBlockingQueue<S> onUpdateQueue;
+  private final LinkedBlockingQueue<S> statusConfirmationQueue;
 
   /**
    * Wrapped listener.
@@ -76,8 +76,22 @@ public abstract class AbstractBufferedCacheListener<T extends Cacheable, S> impl
    * @param frequency the frequency (in ms) at which the buffer should be emptied
    */
   public AbstractBufferedCacheListener(C2monBufferedCacheListener<S> bufferedCacheListener, int frequency) {
+    this(bufferedCacheListener, frequency, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Once a queue holds {@code queueCapacity} objects, the notifying cache thread
+   * waits for the next flush, which is brought forward and empties the queue.
+   *
+   * @param bufferedCacheListener listener expecting collections of cache objects
+   * @param frequency the frequency (in ms) at which the buffer should be emptied
+   * @param queueCapacity the maximum number of objects waiting in each queue
+   */
+  public AbstractBufferedCacheListener(C2monBufferedCacheListener<S> bufferedCacheListener, int frequency, int queueCapacity) {
     this.bufferedCacheListener = bufferedCacheListener;
     this.frequency = frequency;
+    this.onUpdateQueue = new LinkedBlockingQueue<>(queueCapacity);
+    this.statusConfirmationQueue = new LinkedBlockingQueue<>(queueCapacity);
     enabled = false;
   }
 
@@ -140,7 +154,7 @@ public abstract class AbstractBufferedCacheListener<T extends Cacheable, S> impl
         while (enabled || !onUpdateQueue.isEmpty() || !statusConfirmationQueue.isEmpty()) {
           long millisStart = System.currentTimeMillis();
           flush();
-          while (System.currentTimeMillis() - millisStart < frequency) {
+          while (System.currentTimeMillis() - millisStart < frequency && !isQueueFull()) {
             try {
               Thread.sleep(CHECK_FREQUENCY);
             } catch (InterruptedException e) {
@@ -164,10 +178,30 @@ public abstract class AbstractBufferedCacheListener<T extends Cacheable, S> impl
     }
   }
 
+  private boolean isQueueFull() {
+    return onUpdateQueue.remainingCapacity() == 0 || statusConfirmationQueue.remainingCapacity() == 0;
+  }
+
+  /**
+   * Passes the queued objects to the listener in chunks of at most
+   * {@link #MAX_TO_LISTENER}, until the queues are empty.
+   */
   private synchronized void flush() {
+    boolean drained;
+    do {
+      drained = flushChunk();
+    } while (drained);
+  }
+
+  /**
+   * @return true if a full chunk was passed on, so more objects may be waiting
+   */
+  private boolean flushChunk() {
+    boolean full = false;
     if (!onUpdateQueue.isEmpty()) {
       LinkedList<S> updateKeys = new LinkedList<>();
       onUpdateQueue.drainTo(updateKeys, MAX_TO_LISTENER);
+      full = updateKeys.size() == MAX_TO_LISTENER;
       if (!updateKeys.isEmpty()) {
         try {
           bufferedCacheListener.notifyElementUpdated(updateKeys);
@@ -180,6 +214,7 @@ public abstract class AbstractBufferedCacheListener<T extends Cacheable, S> impl
     if (!statusConfirmationQueue.isEmpty()) {
       LinkedList<S> confirmationKeys = new LinkedList<>();
       statusConfirmationQueue.drainTo(confirmationKeys, MAX_TO_LISTENER);
+      full |= confirmationKeys.size() == MAX_TO_LISTENER;
       if (!confirmationKeys.isEmpty()) {
         try {
           bufferedCacheListener.confirmStatus(confirmationKeys);
@@ -188,6 +223,7 @@ public abstract class AbstractBufferedCacheListener<T extends Cacheable, S> impl
         }
       }
     }
+    return full;
   }
 
 
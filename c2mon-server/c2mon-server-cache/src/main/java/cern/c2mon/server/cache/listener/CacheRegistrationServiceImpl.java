@@ -34,15 +34,14 @@ import cern.c2mon.server.common.component.Lifecycle;
 import cern.c2mon.server.common.datatag.DataTag;
 import cern.c2mon.server.common.rule.RuleTag;
 import cern.c2mon.server.common.tag.Tag;
-import cern.c2mon.shared.util.threadhandler.ThreadHandler;
 
 /**
  * Implementation of the cache registration service bean.
  *
- * <p>Internally, registration on a single thread uses the
- * {@link ThreadHandler} implementation while registrations
- * on several threads use the {@link MultiThreadedCacheListener}
- * and the Java concurrency library.
+ * <p>Internally, asynchronous registrations use the
+ * {@link MultiThreadedCacheListener}. Its queue is unbounded, unless the
+ * listener registers with a {@link ListenerOverflowPolicy}, in which case the
+ * queue is bounded by the configured listener queue capacity.
  *
  * @author Mark Brightwell
  *
@@ -116,6 +115,21 @@ public class CacheRegistrationServiceImpl implements CacheRegistrationService {
     }
   }
 
+  @Override
+  public Lifecycle registerToAllTags(final C2monCacheListener<Tag> tagCacheListener, final int threads,
+                                     final int queueCapacity, final ListenerOverflowPolicy overflowPolicy) {
+    MultiThreadedCacheListener<Tag> threadedCacheListener = new MultiThreadedCacheListener<Tag>(tagCacheListener,
+        queueCapacity, threads, overflowPolicy);
+    registerListenerToTags(threadedCacheListener);
+    return threadedCacheListener;
+  }
+
+  @Override
+  public Lifecycle registerToAllTags(final C2monCacheListener<Tag> tagCacheListener, final int threads,
+                                     final ListenerOverflowPolicy overflowPolicy) {
+    return registerToAllTags(tagCacheListener, threads, properties.getListenerQueueCapacity(), overflowPolicy);
+  }
+
   @Override
   public void registerForSupervisionChanges(CacheSupervisionListener<Tag> cacheSupervisionListener) {
     dataTagCache.registerListenerWithSupervision(cacheSupervisionListener);
@@ -125,7 +139,7 @@ public class CacheRegistrationServiceImpl implements CacheRegistrationService {
 
   @Override
   public Lifecycle registerToAllTags(final C2monCacheListener<Tag> tagCacheListener) {
-    CacheListener<Tag> wrappedCacheListener = new CacheListener<Tag>(tagCacheListener);
+    MultiThreadedCacheListener<Tag> wrappedCacheListener = new MultiThreadedCacheListener<Tag>(tagCacheListener, QUEUE_SIZE_DEFAULT, 1);
     registerListenerToTags(wrappedCacheListener);
     return wrappedCacheListener;
   }
@@ -173,11 +187,24 @@ public class CacheRegistrationServiceImpl implements CacheRegistrationService {
     return bufferedCacheListener;
   }
 
+  @Override
+  public Lifecycle registerBoundedBufferedListenerToTags(final C2monBufferedCacheListener<Tag> bufferListener) {
+    DefaultBufferedCacheListener<Tag> bufferedCacheListener = new DefaultBufferedCacheListener<>(bufferListener,
+        properties.getBufferedListenerPullFrequency(), properties.getListenerQueueCapacity());
+    registerListenerToTags(bufferedCacheListener);
+    return bufferedCacheListener;
+  }
+
   @Override
   public Lifecycle registerToAlarms(final C2monCacheListener<Alarm> cacheListener) {
     return alarmCache.registerListener(cacheListener);
   }
 
+  @Override
+  public Lifecycle registerToAlarms(final C2monCacheListener<Alarm> cacheListener, final ListenerOverflowPolicy overflowPolicy) {
+    return alarmCache.registerThreadedListener(cacheListener, properties.getListenerQueueCapacity(), 1, overflowPolicy);
+  }
+
   private void registerListenerToTags(C2monCacheListener<Tag> cacheListener) {
     dataTagCache.registerSynchronousListener(cacheListener);
     controlTagCache.registerSynchronousListener(cacheListener);
@@ -38,6 +38,17 @@ public class DefaultBufferedCacheListener<T extends Cacheable> extends AbstractB
     super(bufferedCacheListener, frequency);
   }
 
+  /**
+   * Constructor for a listener with bounded queues.
+   *
+   * @param bufferedCacheListener listener expecting collections of cache objects
+   * @param frequency the frequency (in seconds) at which the buffer should be emptied
+   * @param queueCapacity the maximum number of cache objects waiting in each queue
+   */
+  public DefaultBufferedCacheListener(final C2monBufferedCacheListener<T> bufferedCacheListener, int frequency, int queueCapacity) {
+    super(bufferedCacheListener, frequency, queueCapacity);
+  }
+
   /**
    * Returns the cache object itself.
    */
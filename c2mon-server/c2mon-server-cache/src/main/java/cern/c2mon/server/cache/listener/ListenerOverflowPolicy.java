@@ -0,0 +1,44 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.listener;
+
+/**
+ * What a {@link MultiThreadedCacheListener} does with an update once its
+ * queue has reached its capacity.
+ */
+public enum ListenerOverflowPolicy {
+
+  /**
+   * The notifying thread waits for space in the queue. The threads of the
+   * listener itself never wait: their updates are queued apart.
+   */
+  BLOCK,
+
+  /**
+   * An update replaces the pending update of the same cache object, if any,
+   * so that only the latest value is passed to the listener. Updates of other
+   * objects block as with {@link #BLOCK} when the queue is full.
+   */
+  COALESCE,
+
+  /**
+   * The update is not queued and is passed to the {@link RejectedUpdateListener}
+   * of the listener instead, or dropped if none is set. Updates made by the
+   * threads of the listener itself are never shed.
+   */
+  SHED
+}
@@ -0,0 +1,196 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.listener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histograms of an asynchronous cache listener, for
+ * management purposes.
+ *
+ * <p>Two latencies are recorded for every notification: the time it spent
+ * in the listener queue (enqueue to dispatch) and the time the wrapped
+ * listener took to process it (dispatch duration). Both are kept in
+ * power-of-two microsecond buckets, so percentiles are upper bounds
+ * accurate to a factor of two.
+ */
+public final class ListenerStatistics {
+
+  private final AtomicLong enqueued = new AtomicLong();
+
+  private final AtomicLong dispatched = new AtomicLong();
+
+  private final AtomicLong coalesced = new AtomicLong();
+
+  private final AtomicLong shed = new AtomicLong();
+
+  private final AtomicLong blocked = new AtomicLong();
+
+  private final AtomicLong overflowed = new AtomicLong();
+
+  private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+  private final LatencyHistogram dispatchDuration = new LatencyHistogram();
+
+  void recordEnqueued() {
+    enqueued.incrementAndGet();
+  }
+
+  void recordCoalesced() {
+    coalesced.incrementAndGet();
+  }
+
+  /**
+   * @return the total number of shed updates, including this one
+   */
+  long recordShed() {
+    return shed.incrementAndGet();
+  }
+
+  void recordBlocked() {
+    blocked.incrementAndGet();
+  }
+
+  void recordOverflowed() {
+    overflowed.incrementAndGet();
+  }
+
+  void recordDispatched(final long queueLatencyNanos, final long dispatchDurationNanos) {
+    dispatched.incrementAndGet();
+    queueLatency.record(queueLatencyNanos);
+    dispatchDuration.record(dispatchDurationNanos);
+  }
+
+  /**
+   * @return the number of notifications put on the queue
+   */
+  public long getEnqueued() {
+    return enqueued.get();
+  }
+
+  /**
+   * @return the number of notifications passed to the wrapped listener
+   */
+  public long getDispatched() {
+    return dispatched.get();
+  }
+
+  /**
+   * @return the number of updates merged into a pending update of the same object
+   */
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  /**
+   * @return the number of updates rejected because the queue was full
+   */
+  public long getShed() {
+    return shed.get();
+  }
+
+  /**
+   * @return the number of times a notifying thread had to wait for the queue
+   */
+  public long getBlocked() {
+    return blocked.get();
+  }
+
+  /**
+   * @return the number of updates made by the listener threads themselves
+   *         while the queue was full, queued apart without limit
+   */
+  public long getOverflowed() {
+    return overflowed.get();
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return an upper bound (in microseconds) of the given percentile of the
+   *         time notifications waited in the queue
+   */
+  public long getQueueLatencyMicros(final double percentile) {
+    return queueLatency.percentile(percentile);
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return an upper bound (in microseconds) of the given percentile of the
+   *         time the wrapped listener took to process a notification
+   */
+  public long getDispatchDurationMicros(final double percentile) {
+    return dispatchDuration.percentile(percentile);
+  }
+
+  @Override
+  public String toString() {
+    return "enqueued=" + enqueued.get()
+        + ", dispatched=" + dispatched.get()
+        + ", coalesced=" + coalesced.get()
+        + ", shed=" + shed.get()
+        + ", blocked=" + blocked.get()
+        + ", overflowed=" + overflowed.get()
+        + ", queueLatencyMicros=" + queueLatency
+        + ", dispatchMicros=" + dispatchDuration;
+  }
+
+  /**
+   * Lock-free histogram with power-of-two microsecond buckets: bucket 0 counts
+   * values below 1us and bucket i values in [2^(i-1), 2^i) us.
+   */
+  private static final class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    private void record(final long nanos) {
+      long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+      int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+      buckets.incrementAndGet(bucket);
+      count.incrementAndGet();
+      max.accumulateAndGet(micros, Math::max);
+    }
+
+    private long percentile(final double percentile) {
+      long total = count.get();
+      if (total == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(total * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets.get(i);
+        if (seen >= rank) {
+          return Math.min(1L << i, max.get());
+        }
+      }
+      return max.get();
+    }
+
+    @Override
+    public String toString() {
+      return "[p50<=" + percentile(50) + ", p99<=" + percentile(99) + ", max=" + max.get() + "]";
+    }
+  }
+}
@@ -16,6 +16,8 @@
  *****************************************************************************/
 package cern.c2mon.server.cache.listener;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -40,6 +42,15 @@ import cern.c2mon.shared.common.Cacheable;
  * <p>The number of threads used should be chosen according to the cache
  * the listener will be subscribed to and the expected operational load
  * of the system for that cache.
+ *
+ * <p>The queue between the cache and the listener threads can be bounded;
+ * what happens to an update once it is full is set by the
+ * {@link ListenerOverflowPolicy}. Updates made by the listener threads
+ * themselves (a listener writing to the cache it listens to) never wait for
+ * space in the queue, nor are they shed: once the queue is full, they are
+ * queued apart without limit and passed to the listener first. Queue depth,
+ * overflow counters and latencies are available for management purposes
+ * through {@link #getStatistics()}.
  * 
  * @author Mark Brightwell
  * @param <T> type of cache object expected by listener
@@ -52,6 +63,12 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
    * The number of milliseconds a thread waits between checking for shutdown requests.
    */
   private static final int THREAD_SHUTDOWN_CHECK_INTERVAL = 2000;
+
+  /**
+   * A warning is logged every time this number of updates has been shed
+   * (when no {@link RejectedUpdateListener} is set).
+   */
+  private static final int SHED_WARNING_INTERVAL = 10000;
   
   /**
    * The wrapped listener.
@@ -62,6 +79,44 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
    * Queue keeping the cache objects.
    */
   private LinkedBlockingQueue<ObjectAndMethod> taskQueue;  
+
+  /**
+   * The capacity of the task queue.
+   */
+  private final int queueCapacity;
+
+  /**
+   * What to do with an update once the queue is full.
+   */
+  private final ListenerOverflowPolicy overflowPolicy;
+
+  /**
+   * Updates waiting in the queue, by cache object id. Only used with the
+   * {@link ListenerOverflowPolicy#COALESCE} policy.
+   */
+  private final ConcurrentHashMap<Object, ObjectAndMethod> pendingUpdates = new ConcurrentHashMap<>();
+
+  /**
+   * Receives the updates shed with the {@link ListenerOverflowPolicy#SHED} policy.
+   */
+  private volatile RejectedUpdateListener rejectedUpdateListener;
+
+  /**
+   * Marks the threads of this listener, which must never wait for space in
+   * its own queue.
+   */
+  private final ThreadLocal<Boolean> listenerThread = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+  /**
+   * Updates made by the listener threads while the task queue was full. Not
+   * bounded, since these threads cannot wait for the queue they drain.
+   */
+  private final ConcurrentLinkedQueue<ObjectAndMethod> ownUpdates = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Counters and latencies of this listener.
+   */
+  private final ListenerStatistics statistics = new ListenerStatistics();
   
   /**
    * Used for remembering which method to call (instead of reflection), in the map below.
@@ -94,8 +149,25 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
    *        should be called on
    */
   public MultiThreadedCacheListener(final C2monCacheListener<T> timCacheListener, final int queueCapacity, final int threadPoolSize) {
+    this(timCacheListener, queueCapacity, threadPoolSize, ListenerOverflowPolicy.BLOCK);
+  }
+
+  /**
+   * Constructor.
+   * @param timCacheListener the listener wrapped by this class
+   *        (the module listener)
+   * @param queueCapacity the capacity of the blocking queue 
+   *        containing the cache objects to pass to the listeners
+   * @param threadPoolSize the number of threads that the module 
+   *        should be called on
+   * @param overflowPolicy what to do with updates once the queue is full
+   */
+  public MultiThreadedCacheListener(final C2monCacheListener<T> timCacheListener, final int queueCapacity, final int threadPoolSize,
+                                    final ListenerOverflowPolicy overflowPolicy) {
     super();
     this.c2monCacheListener = timCacheListener;  
+    this.queueCapacity = queueCapacity;
+    this.overflowPolicy = overflowPolicy;
     taskQueue = new LinkedBlockingQueue<ObjectAndMethod>(queueCapacity);    
     executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, Long.MAX_VALUE, TimeUnit.NANOSECONDS, new SynchronousQueue<Runnable>());
     for (int i = 0; i < threadPoolSize; i++) {
@@ -106,25 +178,55 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
  
   @Override
   public void confirmStatus(T cacheable) {   
-    try {
-      if (!shutdownRequestMade) {              
-        taskQueue.put(new ObjectAndMethod(cacheable, SupportedMethods.STATUS_CONFIRMATION));        
-      } else {
-        log.warn("Attempt at notifying of element update after shutdown started "
-            + "- should not happen and indicates incorrect shutdown sequence!");       
-      }            
-    } catch (InterruptedException interEx) {
-      log.error("InterruptedExcetion caught while waiting for MultiThreadedListener queue to free space: ", interEx);
-    }
+    enqueue(new ObjectAndMethod(cacheable, SupportedMethods.STATUS_CONFIRMATION));
   }
 
 
 
   @Override
   public void notifyElementUpdated(T cacheable) {
+    ObjectAndMethod objectAndMethod = new ObjectAndMethod(cacheable, SupportedMethods.ON_UPDATE);
+    if (overflowPolicy == ListenerOverflowPolicy.COALESCE && !shutdownRequestMade) {
+      ObjectAndMethod queued = pendingUpdates.compute(cacheable.getId(),
+          (id, pending) -> pending == null ? objectAndMethod : pending.replaceCacheable(cacheable));
+      if (queued != objectAndMethod) {
+        statistics.recordCoalesced();
+        return;
+      }
+      if (!enqueue(objectAndMethod)) {
+        pendingUpdates.remove(cacheable.getId(), objectAndMethod);
+      }
+    } else {
+      enqueue(objectAndMethod);
+    }
+  }
+
+  /**
+   * Puts the notification on the queue, applying the overflow policy
+   * if the queue is full.
+   * @param objectAndMethod the notification
+   * @return true if the notification was queued
+   */
+  private boolean enqueue(final ObjectAndMethod objectAndMethod) {
     try {
-      if (!shutdownRequestMade) {        
-        taskQueue.put(new ObjectAndMethod(cacheable, SupportedMethods.ON_UPDATE));        
+      if (!shutdownRequestMade) {
+        if (!taskQueue.offer(objectAndMethod)) {
+          if (listenerThread.get()) {
+            // the listener updates the cache it listens to: waiting would deadlock it
+            statistics.recordOverflowed();
+            ownUpdates.add(objectAndMethod);
+            statistics.recordEnqueued();
+            return true;
+          }
+          if (overflowPolicy == ListenerOverflowPolicy.SHED) {
+            shed(objectAndMethod.cacheable);
+            return false;
+          }
+          statistics.recordBlocked();
+          taskQueue.put(objectAndMethod);
+        }
+        statistics.recordEnqueued();
+        return true;
       } else {
         log.warn("Attempt at notifying of element update after shutdown started "
             + "- should not happen and indicates incorrect shutdown sequence!");
@@ -132,6 +234,23 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
     } catch (InterruptedException interEx) {
       log.error("InterruptedExcetion caught while waiting for MultiThreadedListener queue to free space: ", interEx);
     }
+    return false;
+  }
+
+  /**
+   * Passes an update that did not fit in the queue to the rejected update
+   * listener, if any.
+   * @param cacheable the rejected object
+   */
+  private void shed(final T cacheable) {
+    long shedCount = statistics.recordShed();
+    RejectedUpdateListener spill = rejectedUpdateListener;
+    if (spill != null) {
+      spill.notifyUpdateRejected(cacheable);
+    } else if (shedCount == 1 || shedCount % SHED_WARNING_INTERVAL == 0) {
+      log.warn("Queue of listener {} is full (capacity {}): {} update(s) dropped so far",
+          c2monCacheListener.getClass().getName(), queueCapacity, shedCount);
+    }
   }
 
   /**
@@ -162,7 +281,7 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
       running = false;      
       shutdownRequestMade = true;        
       //wait for the queue to empty
-      while (!taskQueue.isEmpty()) {
+      while (!taskQueue.isEmpty() || !ownUpdates.isEmpty()) {
         try {
           Thread.sleep(100);
         } catch (InterruptedException ex) {
@@ -191,7 +310,47 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
    * @return the size of the task queue for this listener
    */  
   public int getTaskQueueSize() {
-    return taskQueue.size();
+    return taskQueue.size() + ownUpdates.size();
+  }
+
+  /**
+   * For management purposes.
+   * @return the capacity of the task queue for this listener
+   */
+  public int getTaskQueueCapacity() {
+    return queueCapacity;
+  }
+
+  /**
+   * @return the policy applied once the task queue is full
+   */
+  public ListenerOverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * For management purposes.
+   * @return the counters and latencies of this listener
+   */
+  public ListenerStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * @return the wrapped (module) listener
+   */
+  public C2monCacheListener<T> getWrappedListener() {
+    return c2monCacheListener;
+  }
+
+  /**
+   * Sets the listener receiving the updates that do not fit in the queue
+   * with the {@link ListenerOverflowPolicy#SHED} policy (they are dropped
+   * if none is set).
+   * @param rejectedUpdateListener the spill listener
+   */
+  public void setRejectedUpdateListener(final RejectedUpdateListener rejectedUpdateListener) {
+    this.rejectedUpdateListener = rejectedUpdateListener;
   }
 
   /**
@@ -202,14 +361,19 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
   private final class ObjectAndMethod {
     
     /**
-     * Object in notification.
+     * Object in notification (replaced by later updates when coalescing).
      */
-    private T cacheable;
+    private volatile T cacheable;
     
     /**
      * Method to call.
      */
-    private SupportedMethods method;
+    private final SupportedMethods method;
+
+    /**
+     * Time (from {@link System#nanoTime()}) the notification was queued.
+     */
+    private final long enqueueTime = System.nanoTime();
 
     /**
      * Constructor.
@@ -221,6 +385,16 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
       this.cacheable = cacheable;
       this.method = method;
     }
+
+    /**
+     * Replaces the object of a pending update by a newer one.
+     * @param newer the latest version of the object
+     * @return this notification
+     */
+    private ObjectAndMethod replaceCacheable(final T newer) {
+      this.cacheable = newer;
+      return this;
+    }
         
   }
   
@@ -241,10 +415,14 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
      * Runs from start up to shutdown and listens for updates.
      */
     @Override
-    public void run() {      
+    public void run() {
+      listenerThread.set(Boolean.TRUE);
       while (!shutdownRequestMade) {
         try {          
-          ObjectAndMethod objectAndMethod = taskQueue.poll(THREAD_SHUTDOWN_CHECK_INTERVAL, TimeUnit.MILLISECONDS);          
+          ObjectAndMethod objectAndMethod = ownUpdates.poll();
+          if (objectAndMethod == null) {
+            objectAndMethod = taskQueue.poll(THREAD_SHUTDOWN_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+          }
           if (objectAndMethod != null) {
             callCorrectMethod(objectAndMethod);
           }          
@@ -255,7 +433,7 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
       
       //empty the queue before shutting down
       ObjectAndMethod objectAndMethod;      
-      while ((objectAndMethod = taskQueue.poll()) != null) {
+      while ((objectAndMethod = ownUpdates.poll()) != null || (objectAndMethod = taskQueue.poll()) != null) {
         callCorrectMethod(objectAndMethod);
       }
     }
@@ -265,9 +443,14 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
      * @param objectAndMethod cacheable with method info
      */
     private void callCorrectMethod(final ObjectAndMethod objectAndMethod) {
+      long dispatchTime = System.nanoTime();
       try {
         SupportedMethods method = objectAndMethod.method;
         if (method.equals(SupportedMethods.ON_UPDATE)) {
+          if (overflowPolicy == ListenerOverflowPolicy.COALESCE) {
+            //stop coalescing before reading the object, so that no later update is lost
+            pendingUpdates.remove(objectAndMethod.cacheable.getId(), objectAndMethod);
+          }
           c2monCacheListener.notifyElementUpdated(objectAndMethod.cacheable);
         } else {
           c2monCacheListener.confirmStatus(objectAndMethod.cacheable);
@@ -275,6 +458,7 @@ public class MultiThreadedCacheListener<T extends Cacheable> implements C2monCac
       } catch (Exception e) {
         log.error("Exception caught when notifying listener: the update could not be processed.", e);
       }           
+      statistics.recordDispatched(dispatchTime - objectAndMethod.enqueueTime, System.nanoTime() - dispatchTime);
     }
   }
 }
@@ -27,6 +27,7 @@ import org.springframework.stereotype.Service;
 
 import cern.c2mon.server.cache.ClusterCache;
 import cern.c2mon.server.cache.ControlTagCache;
+import cern.c2mon.server.cache.DataTagCache;
 import cern.c2mon.server.cache.ProcessCache;
 import cern.c2mon.server.cache.common.AbstractCache;
 import cern.c2mon.server.cache.loading.common.C2monCacheLoader;
@@ -62,6 +63,9 @@ public class ProcessCacheImpl extends AbstractCache<Long, Process>implements Pro
   /** Used to post configure the associated control tags */
   private final ControlTagCache controlCache;
 
+  /** Counts the data tags of the processes in memory */
+  private final DataTagCache dataTagCache;
+
   @Autowired
   public ProcessCacheImpl(final ClusterCache clusterCache,
                           @Qualifier("processEhcache") final Ehcache ehcache,
@@ -69,11 +73,13 @@ public class ProcessCacheImpl extends AbstractCache<Long, Process>implements Pro
                           @Qualifier("processCacheLoader") final C2monCacheLoader c2monCacheLoader,
                           @Qualifier("processDAO") final SimpleCacheLoaderDAO<Process> cacheLoaderDAO,
                           @Qualifier("controlTagCache") final ControlTagCache controlCache,
+                          @Qualifier("dataTagCache") final DataTagCache dataTagCache,
                           final CacheProperties properties) {
 
     super(clusterCache, ehcache, cacheLoader, c2monCacheLoader, cacheLoaderDAO, properties);
     this.processDAO = (ProcessDAO) cacheLoaderDAO;
     this.controlCache = controlCache;
+    this.dataTagCache = dataTagCache;
   }
 
   /**
@@ -197,14 +203,24 @@ public class ProcessCacheImpl extends AbstractCache<Long, Process>implements Pro
     return processKey;
   }
 
+  /**
+   * Uses the counts kept in memory by the data tag cache, and only queries
+   * the DB if the tags are not counted in memory (multi-server mode).
+   */
   @Override
   public Integer getNumTags(Long processId) {
-    return processDAO.getNumTags(processId);
+    Integer numTags = dataTagCache.getNumTags(processId);
+    return numTags != null ? numTags : processDAO.getNumTags(processId);
   }
 
+  /**
+   * Uses the counts kept in memory by the data tag cache, and only queries
+   * the DB if the tags are not counted in memory (multi-server mode).
+   */
   @Override
   public Integer getNumInvalidTags(Long processId) {
-    return processDAO.getNumInvalidTags(processId);
+    Integer numInvalidTags = dataTagCache.getNumInvalidTags(processId);
+    return numInvalidTags != null ? numInvalidTags : processDAO.getNumInvalidTags(processId);
   }
 
   private void setProcessId(ControlTagCacheObject copy, Long processId) {
@@ -26,15 +26,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cern.c2mon.server.cache.BatchCacheSupervisionListener;
 import cern.c2mon.server.cache.C2monCacheWithSupervision;
 import cern.c2mon.server.cache.CacheSupervisionListener;
 import cern.c2mon.server.cache.ClusterCache;
 import cern.c2mon.server.cache.common.AbstractCache;
+import cern.c2mon.server.cache.common.CacheObjectCopier;
+import cern.c2mon.server.cache.common.CloningCopier;
+import cern.c2mon.server.cache.exception.CacheElementNotFoundException;
 import cern.c2mon.server.cache.loading.common.C2monCacheLoader;
 import cern.c2mon.server.cache.loading.SimpleCacheLoaderDAO;
 import cern.c2mon.server.common.tag.AbstractTagCacheObject;
 import cern.c2mon.server.common.tag.Tag;
 import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
 import net.sf.ehcache.loader.CacheLoader;
 import net.sf.ehcache.search.Attribute;
 import net.sf.ehcache.search.Query;
@@ -65,6 +70,23 @@ public abstract class AbstractTagCache<T extends Tag> extends AbstractCache<Long
   private final List<CacheSupervisionListener< ? super T>> listenersWithSupervision;
   private final ReentrantReadWriteLock listenerLock;
 
+  /**
+   * Field-level copy strategy used by {@link #getCopy(Object)}.
+   */
+  private final CacheObjectCopier<T> copier = new CloningCopier<>();
+
+  /**
+   * Case-insensitive name index, replacing the Ehcache search queries on the
+   * tag name. Not used in multi-server mode, since updates done by the other
+   * servers do not pass through this instance.
+   */
+  private final TagNameIndex nameIndex = new TagNameIndex();
+
+  /**
+   * Whether the {@link #nameIndex} is used for the name lookups.
+   */
+  private final boolean nameIndexEnabled;
+
   /**
    * Constructor.
    */
@@ -77,17 +99,152 @@ public abstract class AbstractTagCache<T extends Tag> extends AbstractCache<Long
     super(clusterCache, ehcache, cacheLoader, c2monCacheLoader, cacheLoaderDAO, properties);
     listenersWithSupervision = new ArrayList<>();
     listenerLock = new ReentrantReadWriteLock();
+    nameIndexEnabled = !properties.getMode().equalsIgnoreCase("multi");
+  }
+
+  /**
+   * Builds the name index once the cache is loaded, since the preloading
+   * puts the objects directly into the Ehcache.
+   */
+  @Override
+  protected void commonInit() {
+    super.commonInit();
+    if (nameIndexEnabled) {
+      rebuildNameIndex();
+    }
+  }
+
+  @Override
+  public void put(final Long key, final T value) {
+    if (nameIndexEnabled) {
+      nameIndex.put(key, value.getName());
+    }
+    super.put(key, value);
+  }
+
+  @Override
+  public void putQuiet(final T value) {
+    if (nameIndexEnabled) {
+      nameIndex.put(value.getId(), value.getName());
+    }
+    super.putQuiet(value);
+  }
+
+  @Override
+  public boolean remove(final Long id) {
+    boolean removed = super.remove(id);
+    if (nameIndexEnabled) {
+      nameIndex.remove(id);
+    }
+    return removed;
+  }
+
+  /**
+   * Re-creates the name index from the current cache content.
+   */
+  private void rebuildNameIndex() {
+    nameIndex.clear();
+    for (Long key : getKeys()) {
+      T tag = getIfPresent(key);
+      if (tag != null) {
+        nameIndex.put(key, tag.getName());
+      }
+    }
+    log.debug("rebuildNameIndex() - Indexed {} tag names of cache {}", nameIndex.size(), getCacheName());
+  }
+
+  /**
+   * @return the tag with the given id, or null if not in the cache (the DB is not accessed)
+   */
+  @SuppressWarnings("unchecked")
+  private T getIfPresent(final Long id) {
+    Element element = getCache().get(id);
+    return element == null ? null : (T) element.getObjectValue();
+  }
+
+  /**
+   * Returns the first of the tags found in the name index that is still in
+   * the cache under this name (it may have been renamed or removed concurrently).
+   *
+   * @return the tag or null if not found
+   */
+  private T getIndexedTag(final Collection<Long> ids, final String name) {
+    for (Long id : ids) {
+      T tag = getIfPresent(id);
+      if (tag != null && tag.getName() != null && tag.getName().equalsIgnoreCase(name)) {
+        return tag;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Tag cache objects provide a complete deep clone, which is an order of
+   * magnitude cheaper than the default serialization copy.
+   */
+  @Override
+  protected CacheObjectCopier<T> getCopier() {
+    return copier;
   }
 
 
   @Override
   public void notifyListenersOfSupervisionChange(final T tag) {
-    //only notify if the current value in the cache is not more recent (a new update could have overraken the supervision notification)
-    if (!this.getCopy(tag.getId()).getCacheTimestamp().after(tag.getCacheTimestamp())) {
+    if (!isOvertaken(tag)) {
       notifyListenersWithSupervision(tag);
-    } else {
+    }
+  }
+
+  @Override
+  public void notifyListenersOfSupervisionChange(final Collection<T> tags) {
+    List<T> current = new ArrayList<>(tags.size());
+    for (T tag : tags) {
+      try {
+        if (!isOvertaken(tag)) {
+          current.add(tag);
+        }
+      } catch (CacheElementNotFoundException e) {
+        log.warn("Tag " + tag.getId() + " was removed from the cache: it is left out of the supervision notification");
+      }
+    }
+    if (current.isEmpty()) {
+      return;
+    }
+
+    listenerLock.readLock().lock();
+    try {
+      for (CacheSupervisionListener< ? super T> cacheListener : listenersWithSupervision) {
+        if (cacheListener instanceof BatchCacheSupervisionListener) {
+          ((BatchCacheSupervisionListener< ? super T>) cacheListener).onSupervisionChanges(current);
+        } else {
+          for (T tag : current) {
+            cacheListener.onSupervisionChange(tag);
+          }
+        }
+      }
+    } finally {
+      listenerLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Only notify if the current value in the cache is not more recent (a new
+   * update could have overtaken the supervision notification). The timestamp
+   * is read from the cache object directly, without copying it.
+   *
+   * @param tag Tag copy with the supervision status applied
+   * @return true if the cache holds a more recent value
+   */
+  private boolean isOvertaken(final T tag) {
+    T cacheTag = getIfPresent(tag.getId());
+    if (cacheTag == null) {
+      cacheTag = getCopy(tag.getId());
+    }
+    if (cacheTag.getCacheTimestamp().after(tag.getCacheTimestamp())) {
       log.info("Filtering out Tag supervison notification as newer value in cache - tag id is " + tag.getId());
+      return true;
     }
+    return false;
   }
 
   /**
@@ -123,6 +280,10 @@ public abstract class AbstractTagCache<T extends Tag> extends AbstractCache<Long
       throw new IllegalArgumentException("Attempting to retrieve a Tag from the cache with a NULL or empty name parameter.");
     }
 
+    if (nameIndexEnabled) {
+      return getIndexedTag(nameIndex.get(name), name) != null;
+    }
+
     // This will prevent wildcard searches
     if (name.contains("*")) {
       name = name.replace("*", "\\*");
@@ -157,6 +318,10 @@ public abstract class AbstractTagCache<T extends Tag> extends AbstractCache<Long
       throw new IllegalArgumentException("Attempting to retrieve a Tag from the cache with a NULL or empty name parameter.");
     }
 
+    if (nameIndexEnabled) {
+      return getIndexedTag(nameIndex.get(name), name);
+    }
+
     // This will prevent wildcard searches
     if (name.contains("*")) {
       name = name.replace("*", "\\*");
@@ -186,8 +351,8 @@ public abstract class AbstractTagCache<T extends Tag> extends AbstractCache<Long
    * A regular expression matcher. '?' and '*' may be used.
    * The search is always case insensitive.
    * <p>
-   * WARN: Expressions starting with a leading wildcard character are
-   * potentially very expensive (ie. full scan) for indexed caches
+   * WARN: Expressions without a literal prefix or suffix (e.g. "*foo*") require
+   * a full scan of the tag names
    *
    * @param regex The regular expression including '?' and '*'
    * @param maxResults the maximum amount of results that shall be returned
@@ -216,6 +381,14 @@ public abstract class AbstractTagCache<T extends Tag> extends AbstractCache<Long
         }
       }
     }
+    else if (nameIndexEnabled) {
+      for (Long key : nameIndex.find(regex, maxResults)) {
+        T tag = getIfPresent(key);
+        if (tag != null) {
+          resultList.add(tag);
+        }
+      }
+    }
     else {
       try {
         Ehcache ehcache = getCache();
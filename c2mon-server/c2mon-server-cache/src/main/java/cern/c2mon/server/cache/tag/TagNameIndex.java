@@ -0,0 +1,217 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.tag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Case-insensitive index of the tag names of a tag cache, mapping the names
+ * to the tag ids. Names that only differ in case share an entry holding the
+ * ids of all their tags.
+ *
+ * <p>The names are kept in two sorted maps, one on the lower case name and
+ * one on the reversed lower case name. Exact lookups are a single map access.
+ * Wildcard searches with a literal prefix (e.g. {@code foo*}) only scan the
+ * range of names starting with the prefix, and searches with a leading
+ * wildcard but a literal suffix (e.g. {@code *bar}) scan the range of the
+ * reversed names. Only patterns without any literal prefix or suffix (e.g.
+ * {@code *foo*}) scan all names.
+ *
+ * <p>The wildcard syntax is the one of the Ehcache {@code ilike} criteria
+ * the index replaces: '*' matches any sequence of characters, '?' matches a
+ * single character, and both can be escaped with a backslash.
+ *
+ * <p>Updates are serialized and replace the id sets instead of modifying
+ * them, so lookups are not blocking. The caller should
+ * verify the returned ids against the cache, since a lookup running
+ * concurrently to an update may return a name that has just changed.
+ */
+class TagNameIndex {
+
+  /** Lower case name -> ids of the tags with this name */
+  private final ConcurrentSkipListMap<String, Set<Long>> names = new ConcurrentSkipListMap<>();
+
+  /** Reversed lower case name -> ids of the tags with this name */
+  private final ConcurrentSkipListMap<String, Set<Long>> reversedNames = new ConcurrentSkipListMap<>();
+
+  /** Tag id -> lower case name, needed to remove the old name when a tag is renamed */
+  private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+
+  /**
+   * Adds or updates the name of a tag.
+   *
+   * @param id the tag id
+   * @param name the current name of the tag, may be null
+   */
+  synchronized void put(final Long id, final String name) {
+    String key = name == null ? null : name.toLowerCase();
+    String previous = namesById.get(id);
+    if (previous != null && previous.equals(key)) {
+      return;
+    }
+    remove(id);
+    if (key != null) {
+      add(names, key, id);
+      add(reversedNames, reverse(key), id);
+      namesById.put(id, key);
+    }
+  }
+
+  /**
+   * Removes a tag from the index.
+   *
+   * @param id the tag id
+   */
+  synchronized void remove(final Long id) {
+    String previous = namesById.remove(id);
+    if (previous != null) {
+      remove(names, previous, id);
+      remove(reversedNames, reverse(previous), id);
+    }
+  }
+
+  /**
+   * Removes all tags from the index.
+   */
+  synchronized void clear() {
+    names.clear();
+    reversedNames.clear();
+    namesById.clear();
+  }
+
+  /**
+   * @return the number of indexed tags
+   */
+  int size() {
+    return namesById.size();
+  }
+
+  /**
+   * @param name the tag name, compared case-insensitively and without wildcards
+   * @return the ids of the tags with this name in ascending order, empty if not found
+   */
+  Collection<Long> get(final String name) {
+    Set<Long> ids = names.get(name.toLowerCase());
+    return ids == null ? Collections.emptySet() : ids;
+  }
+
+  /**
+   * Returns the ids of all tags whose name matches the given wildcard
+   * expression, ignoring case.
+   *
+   * @param wildcard the expression, including '?' and '*'
+   * @param maxResults the maximum number of ids to return
+   * @return the matching tag ids
+   */
+  List<Long> find(final String wildcard, final int maxResults) {
+    String expression = wildcard.toLowerCase();
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+    String prefix = null;
+    boolean escaped = false;
+
+    for (char c : expression.toCharArray()) {
+      if (!escaped && c == '\\') {
+        escaped = true;
+      } else if (!escaped && (c == '*' || c == '?')) {
+        if (prefix == null) {
+          prefix = literal.toString();
+        }
+        regex.append(Pattern.quote(literal.toString())).append(c == '*' ? ".*" : ".");
+        literal.setLength(0);
+      } else {
+        literal.append(c);
+        escaped = false;
+      }
+    }
+    regex.append(Pattern.quote(literal.toString()));
+
+    List<Long> result = new ArrayList<>();
+    if (prefix == null) {
+      // no wildcard at all
+      addAll(result, names.get(literal.toString()), maxResults);
+      return result;
+    }
+
+    NavigableMap<String, Set<Long>> range;
+    if (!prefix.isEmpty()) {
+      range = names.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    } else if (literal.length() > 0) {
+      String reversedSuffix = reverse(literal.toString());
+      range = reversedNames.subMap(reversedSuffix, true, reversedSuffix + Character.MAX_VALUE, false);
+    } else {
+      range = names;
+    }
+
+    Pattern pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+    boolean reversed = range != names && prefix.isEmpty();
+    for (Map.Entry<String, Set<Long>> entry : range.entrySet()) {
+      if (result.size() >= maxResults) {
+        break;
+      }
+      String name = reversed ? reverse(entry.getKey()) : entry.getKey();
+      if (pattern.matcher(name).matches()) {
+        addAll(result, entry.getValue(), maxResults);
+      }
+    }
+    return result;
+  }
+
+  private static void addAll(final List<Long> result, final Set<Long> ids, final int maxResults) {
+    if (ids != null) {
+      for (Long id : ids) {
+        if (result.size() >= maxResults) {
+          return;
+        }
+        result.add(id);
+      }
+    }
+  }
+
+  private static void add(final Map<String, Set<Long>> map, final String key, final Long id) {
+    map.compute(key, (name, ids) -> {
+      Set<Long> copy = ids == null ? new TreeSet<>() : new TreeSet<>(ids);
+      copy.add(id);
+      return Collections.unmodifiableSet(copy);
+    });
+  }
+
+  private static void remove(final Map<String, Set<Long>> map, final String key, final Long id) {
+    map.computeIfPresent(key, (name, ids) -> {
+      if (!ids.contains(id)) {
+        return ids;
+      }
+      Set<Long> copy = new TreeSet<>(ids);
+      copy.remove(id);
+      return copy.isEmpty() ? null : Collections.unmodifiableSet(copy);
+    });
+  }
+
+  private static String reverse(final String name) {
+    return new StringBuilder(name).reverse().toString();
+  }
+}
@@ -0,0 +1,100 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.common;
+
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+import cern.c2mon.server.common.alarm.AlarmCacheObject;
+import cern.c2mon.server.common.datatag.DataTagCacheObject;
+import cern.c2mon.server.common.rule.RuleTagCacheObject;
+import cern.c2mon.shared.common.datatag.DataTagConstants;
+import cern.c2mon.shared.common.datatag.TagQualityStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class CacheObjectCopierTest {
+
+  private CloningCopier<DataTagCacheObject> dataTagCopier = new CloningCopier<>();
+
+  private CloningCopier<RuleTagCacheObject> ruleTagCopier = new CloningCopier<>();
+
+  private CloningCopier<AlarmCacheObject> alarmCopier = new CloningCopier<>();
+
+  @Test
+  public void testDataTagCopyIsIndependent() {
+    DataTagCacheObject original = new DataTagCacheObject(1L, "test tag", "Float", DataTagConstants.MODE_OPERATIONAL);
+    original.setDaqTimestamp(new Timestamp(1000L));
+    original.getMetadata().addMetadata("key", "value");
+    original.getAlarmIds().add(10L);
+
+    DataTagCacheObject copy = dataTagCopier.copy(original);
+    copy.getDaqTimestamp().setTime(2000L);
+    copy.getMetadata().addMetadata("other", "value");
+    copy.getAlarmIds().add(20L);
+    copy.getDataTagQuality().addInvalidStatus(TagQualityStatus.INACCESSIBLE);
+
+    assertEquals(1000L, original.getDaqTimestamp().getTime());
+    assertEquals(1, original.getMetadata().getMetadata().size());
+    assertEquals(1, original.getAlarmIds().size());
+    assertFalse(original.getDataTagQuality().isInvalidStatusSet(TagQualityStatus.INACCESSIBLE));
+    assertNotSame(original.getWriteLock(), copy.getWriteLock());
+  }
+
+  @Test
+  public void testRuleTagCopySharesParsedExpression() {
+    RuleTagCacheObject original = new RuleTagCacheObject(2L, "test rule", "Boolean", DataTagConstants.MODE_OPERATIONAL,
+        "(#1000 < 0)|(#1000 > 200)[1],true[0]");
+    original.getEquipmentIds().add(5L);
+
+    RuleTagCacheObject copy = ruleTagCopier.copy(original);
+    copy.getEquipmentIds().add(6L);
+
+    assertSame(original.getRuleExpression(), copy.getRuleExpression());
+    assertEquals(original.getRuleText(), copy.getRuleText());
+    assertEquals(1, original.getEquipmentIds().size());
+  }
+
+  @Test
+  public void testAlarmCopyIsIndependent() {
+    AlarmCacheObject original = new AlarmCacheObject(3L);
+    original.getFifoSourceTimestamps().add(1L);
+
+    AlarmCacheObject copy = alarmCopier.copy(original);
+    copy.getFifoSourceTimestamps().add(2L);
+    copy.getTimestamp().setTime(5000L);
+
+    assertEquals(1, original.getFifoSourceTimestamps().size());
+    assertEquals(0L, original.getTimestamp().getTime());
+  }
+
+  @Test
+  public void testSerializationCopierFallback() {
+    DataTagCacheObject original = new DataTagCacheObject(4L, "test tag", "Integer", DataTagConstants.MODE_OPERATIONAL);
+    original.setValue(42);
+
+    DataTagCacheObject copy = new SerializationCopier<DataTagCacheObject>().copy(original);
+
+    assertNotSame(original, copy);
+    assertEquals(original.getId(), copy.getId());
+    assertEquals(42, copy.getValue());
+  }
+}
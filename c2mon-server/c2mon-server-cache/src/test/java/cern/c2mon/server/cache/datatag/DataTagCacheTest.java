@@ -17,6 +17,7 @@
 package cern.c2mon.server.cache.datatag;
 
 import cern.c2mon.server.cache.AbstractCacheIntegrationTest;
+import cern.c2mon.server.cache.BatchCacheSupervisionListener;
 import cern.c2mon.server.cache.DataTagCache;
 import cern.c2mon.server.cache.dbaccess.DataTagMapper;
 import cern.c2mon.server.cache.exception.CacheElementNotFoundException;
@@ -29,6 +30,8 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -174,4 +177,31 @@ public class DataTagCacheTest extends AbstractCacheIntegrationTest {
       Assert.assertTrue(dataTag.getName().toLowerCase().contains("PROPERTY_test".toLowerCase()));
     }
   }
+
+  /**
+   * A tag removed from the cache must not prevent the other tags of the
+   * batch from being notified.
+   */
+  @Test
+  public void testSupervisionBatchWithRemovedTag() {
+    final List<DataTag> notified = new ArrayList<>();
+    dataTagCache.registerListenerWithSupervision(new BatchCacheSupervisionListener<DataTag>() {
+      @Override
+      public void onSupervisionChanges(Collection<? extends DataTag> tags) {
+        notified.addAll(tags);
+      }
+
+      @Override
+      public void onSupervisionChange(DataTag tag) {
+        notified.add(tag);
+      }
+    });
+    DataTag existing = dataTagCache.getCopy(200002L);
+    DataTag removed = new DataTagCacheObject(1L, "removed", "Float", (short) 0);
+
+    dataTagCache.notifyListenersOfSupervisionChange(Arrays.asList(removed, existing));
+
+    assertEquals(1, notified.size());
+    assertEquals(Long.valueOf(200002L), notified.get(0).getId());
+  }
 }
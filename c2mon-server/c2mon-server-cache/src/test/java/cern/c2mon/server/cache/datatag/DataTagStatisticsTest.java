@@ -0,0 +1,85 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.datatag;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cern.c2mon.server.common.datatag.DataTagCacheObject;
+import cern.c2mon.shared.common.datatag.TagQualityStatus;
+
+import static org.junit.Assert.assertEquals;
+
+public class DataTagStatisticsTest {
+
+  private DataTagStatistics statistics;
+
+  @Before
+  public void setUp() {
+    statistics = new DataTagStatistics();
+    statistics.put(createTag(1L, 10L, true));
+    statistics.put(createTag(2L, 10L, false));
+    statistics.put(createTag(3L, 20L, true));
+  }
+
+  @Test
+  public void testCountsPerProcess() {
+    assertEquals(2, statistics.getNumTags(10L));
+    assertEquals(1, statistics.getNumInvalidTags(10L));
+    assertEquals(1, statistics.getNumTags(20L));
+    assertEquals(0, statistics.getNumInvalidTags(20L));
+    assertEquals(0, statistics.getNumTags(30L));
+  }
+
+  @Test
+  public void testQualityTransitions() {
+    statistics.notifyElementUpdated(createTag(1L, 10L, false));
+    assertEquals(2, statistics.getNumInvalidTags(10L));
+
+    // repeated updates with the same quality are not counted twice
+    statistics.notifyElementUpdated(createTag(1L, 10L, false));
+    assertEquals(2, statistics.getNumTags(10L));
+    assertEquals(2, statistics.getNumInvalidTags(10L));
+
+    statistics.notifyElementUpdated(createTag(2L, 10L, true));
+    statistics.notifyElementUpdated(createTag(1L, 10L, true));
+    assertEquals(2, statistics.getNumTags(10L));
+    assertEquals(0, statistics.getNumInvalidTags(10L));
+  }
+
+  @Test
+  public void testRemove() {
+    statistics.remove(2L);
+    statistics.remove(4L);
+    assertEquals(1, statistics.getNumTags(10L));
+    assertEquals(0, statistics.getNumInvalidTags(10L));
+
+    statistics.clear();
+    assertEquals(0, statistics.getNumTags(20L));
+  }
+
+  private static DataTagCacheObject createTag(Long id, Long processId, boolean valid) {
+    DataTagCacheObject tag = new DataTagCacheObject(id);
+    tag.setProcessId(processId);
+    if (valid) {
+      tag.getDataTagQuality().validate();
+    } else {
+      tag.getDataTagQuality().setInvalidStatus(TagQualityStatus.INACCESSIBLE, "test");
+    }
+    return tag;
+  }
+}
@@ -21,11 +21,19 @@ import org.junit.Before;
 import org.junit.Test;
 
 import cern.c2mon.server.cache.C2monCacheListener;
+import cern.c2mon.server.common.datatag.DataTag;
+import cern.c2mon.server.common.datatag.DataTagCacheObject;
 import cern.c2mon.shared.common.Cacheable;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit test of the MultiThreadedCacheListener class
@@ -114,9 +122,124 @@ public class MultiThreadedListenerTest {
     multiThreadedListener.notifyElementUpdated(mockCacheable);    
   }
   
+  @Test
+  public void testCoalesceKeepsLatestUpdate() throws InterruptedException {
+    BlockingListener listener = new BlockingListener();
+    MultiThreadedCacheListener<DataTag> coalescingListener = new MultiThreadedCacheListener<>(listener, 10, 1, ListenerOverflowPolicy.COALESCE);
+    coalescingListener.start();
+    DataTag first = new DataTagCacheObject(1L);
+    DataTag older = new DataTagCacheObject(2L);
+    DataTag newer = new DataTagCacheObject(2L);
+    DataTag latest = new DataTagCacheObject(2L);
+
+    coalescingListener.notifyElementUpdated(first);
+    assertTrue(listener.dispatching.await(5, TimeUnit.SECONDS));
+    coalescingListener.notifyElementUpdated(older);
+    coalescingListener.notifyElementUpdated(newer);
+    coalescingListener.notifyElementUpdated(latest);
+    assertEquals(1, coalescingListener.getTaskQueueSize());
+
+    listener.gate.countDown();
+    coalescingListener.stop();
+    assertEquals(2, listener.received.size());
+    assertSame(first, listener.received.get(0));
+    assertSame(latest, listener.received.get(1));
+    assertEquals(2, coalescingListener.getStatistics().getCoalesced());
+    assertEquals(2, coalescingListener.getStatistics().getDispatched());
+  }
+
+  @Test
+  public void testShedToRejectedUpdateListener() throws InterruptedException {
+    BlockingListener listener = new BlockingListener();
+    MultiThreadedCacheListener<DataTag> sheddingListener = new MultiThreadedCacheListener<>(listener, 1, 1, ListenerOverflowPolicy.SHED);
+    sheddingListener.start();
+    List<Object> rejected = new CopyOnWriteArrayList<>();
+    sheddingListener.setRejectedUpdateListener(rejected::add);
+    DataTag first = new DataTagCacheObject(1L);
+    DataTag queued = new DataTagCacheObject(2L);
+    DataTag shed = new DataTagCacheObject(3L);
+
+    sheddingListener.notifyElementUpdated(first);
+    assertTrue(listener.dispatching.await(5, TimeUnit.SECONDS));
+    sheddingListener.notifyElementUpdated(queued);
+    sheddingListener.notifyElementUpdated(shed);
+
+    listener.gate.countDown();
+    sheddingListener.stop();
+    assertEquals(2, listener.received.size());
+    assertSame(queued, listener.received.get(1));
+    assertEquals(1, rejected.size());
+    assertSame(shed, rejected.get(0));
+    assertEquals(1, sheddingListener.getStatistics().getShed());
+    assertEquals(2, sheddingListener.getStatistics().getEnqueued());
+    assertTrue(sheddingListener.getStatistics().getQueueLatencyMicros(99) > 0);
+  }
+
+  @Test
+  public void testListenerUpdatingItsOwnCacheIsNotBlocked() throws InterruptedException {
+    CountDownLatch fed = new CountDownLatch(1);
+    CountDownLatch delivered = new CountDownLatch(100);
+    List<MultiThreadedCacheListener<DataTag>> self = new CopyOnWriteArrayList<>();
+    C2monCacheListener<DataTag> feedingListener = new C2monCacheListener<DataTag>() {
+      @Override
+      public void notifyElementUpdated(DataTag cacheable) {
+        if (cacheable.getId() == 0L) {
+          // writes far more updates to its own cache than the queue can hold
+          for (long id = 1; id <= 100; id++) {
+            self.get(0).notifyElementUpdated(new DataTagCacheObject(id));
+          }
+          fed.countDown();
+        } else {
+          delivered.countDown();
+        }
+      }
+
+      @Override
+      public void confirmStatus(DataTag cacheable) {
+      }
+    };
+    MultiThreadedCacheListener<DataTag> blockingListener = new MultiThreadedCacheListener<>(feedingListener, 10, 1, ListenerOverflowPolicy.BLOCK);
+    self.add(blockingListener);
+    blockingListener.start();
+
+    blockingListener.notifyElementUpdated(new DataTagCacheObject(0L));
+    assertTrue("the listener thread must not wait for its own queue", fed.await(5, TimeUnit.SECONDS));
+    assertTrue("all updates of the listener to its own cache must be delivered", delivered.await(5, TimeUnit.SECONDS));
+    assertEquals(0, blockingListener.getStatistics().getShed());
+    assertTrue(blockingListener.getStatistics().getOverflowed() > 0);
+    blockingListener.stop();
+  }
+
   @After
   public void shutdown() {
     multiThreadedListener.stop();
   }
 
+  /**
+   * Records the updates it receives, holding the first one until the gate opens.
+   */
+  private static final class BlockingListener implements C2monCacheListener<DataTag> {
+
+    private final CountDownLatch dispatching = new CountDownLatch(1);
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private final List<DataTag> received = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void notifyElementUpdated(DataTag cacheable) {
+      received.add(cacheable);
+      dispatching.countDown();
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public void confirmStatus(DataTag cacheable) {
+    }
+  }
+
 }
@@ -63,4 +63,15 @@ public class ProcessCacheTest extends AbstractCacheIntegrationTest {
     }
   }
   
+  /**
+   * The tag counts kept in memory match the counts in the DB.
+   */
+  @Test
+  public void testTagCounts() {
+    for (Long processId : processCache.getKeys()) {
+      assertEquals(processMapper.getNumTags(processId), processCache.getNumTags(processId));
+      assertEquals(processMapper.getNumInvalidTags(processId), processCache.getNumInvalidTags(processId));
+    }
+  }
+
 }
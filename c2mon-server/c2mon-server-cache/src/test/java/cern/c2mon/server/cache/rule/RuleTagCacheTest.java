@@ -23,6 +23,9 @@ import static org.junit.Assert.assertTrue;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import cern.c2mon.server.cache.AbstractCacheIntegrationTest;
 import cern.c2mon.server.cache.junit.CachePopulationRule;
@@ -30,7 +33,10 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import cern.c2mon.server.cache.C2monCacheListener;
 import cern.c2mon.server.cache.dbaccess.RuleTagMapper;
+import cern.c2mon.server.cache.listener.ListenerOverflowPolicy;
+import cern.c2mon.server.common.component.Lifecycle;
 import cern.c2mon.server.common.rule.RuleTag;
 import cern.c2mon.server.common.rule.RuleTagCacheObject;
 import cern.c2mon.server.common.tag.Tag;
@@ -122,6 +128,56 @@ public class RuleTagCacheTest extends AbstractCacheIntegrationTest {
     assertTrue(rule.getEquipmentIds().contains(170L));
   }
   
+  /**
+   * A listener writing rule tags (like the rule evaluation) must neither
+   * deadlock on its own bounded queue nor hold back the updates of listeners
+   * registered with the default queue.
+   */
+  @Test
+  public void testListenerFeedingItsOwnCachePastCapacity() throws InterruptedException {
+    final long ruleId = 60002L;
+    final int updates = 1000;
+    AtomicBoolean fed = new AtomicBoolean(false);
+    CountDownLatch written = new CountDownLatch(1);
+    CountDownLatch received = new CountDownLatch(updates + 1);
+    CountDownLatch fedBack = new CountDownLatch(updates + 1);
+
+    Lifecycle feedingListener = ruleTagCache.registerThreadedListener(new RuleTagListener() {
+      @Override
+      public void notifyElementUpdated(RuleTag ruleTag) {
+        if (ruleTag.getId() == ruleId) {
+          fedBack.countDown();
+        }
+        if (ruleTag.getId() == ruleId && fed.compareAndSet(false, true)) {
+          for (int i = 0; i < updates; i++) {
+            ruleTagCache.put(ruleId, ruleTagCache.getCopy(ruleId));
+          }
+          written.countDown();
+        }
+      }
+    }, 10, 1, ListenerOverflowPolicy.BLOCK);
+    Lifecycle countingListener = ruleTagCache.registerListener(new RuleTagListener() {
+      @Override
+      public void notifyElementUpdated(RuleTag ruleTag) {
+        if (ruleTag.getId() == ruleId) {
+          received.countDown();
+        }
+      }
+    });
+    feedingListener.start();
+    countingListener.start();
+
+    try {
+      ruleTagCache.notifyListenersOfUpdate(ruleId);
+      assertTrue("rule tag updates were blocked", written.await(30, TimeUnit.SECONDS));
+      assertTrue("updates missing on the unbounded queue", received.await(30, TimeUnit.SECONDS));
+      assertTrue("own updates missing on the bounded queue", fedBack.await(30, TimeUnit.SECONDS));
+    } finally {
+      feedingListener.stop();
+      countingListener.stop();
+    }
+  }
+
   @Test
   public void testGetTagByName() {
     Assert.assertNull(ruleTagCache.get("does not exist"));
@@ -176,4 +232,10 @@ public class RuleTagCacheTest extends AbstractCacheIntegrationTest {
       Assert.assertTrue(ruleTag.getName().toLowerCase().endsWith(regex3.substring(regex3.lastIndexOf('*') + 1).toLowerCase()));
     }
   }
+
+  private abstract static class RuleTagListener implements C2monCacheListener<RuleTag> {
+    @Override
+    public void confirmStatus(RuleTag ruleTag) {
+    }
+  }
 }
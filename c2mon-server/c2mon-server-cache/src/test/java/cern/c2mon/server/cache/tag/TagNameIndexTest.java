@@ -0,0 +1,105 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.tag;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TagNameIndexTest {
+
+  private TagNameIndex index;
+
+  @Before
+  public void setUp() {
+    index = new TagNameIndex();
+    index.put(1L, "Foo/Temperature");
+    index.put(2L, "foo/pressure");
+    index.put(3L, "bar/Temperature");
+    index.put(4L, "bar/*special?");
+  }
+
+  @Test
+  public void testExactLookupIsCaseInsensitive() {
+    assertEquals(Collections.singleton(1L), index.get("foo/temperature"));
+    assertEquals(Collections.singleton(2L), index.get("FOO/PRESSURE"));
+    assertEquals(Collections.singleton(4L), index.get("bar/*special?"));
+    assertTrue(index.get("foo/*").isEmpty());
+  }
+
+  @Test
+  public void testRenameAndRemove() {
+    index.put(1L, "foo/humidity");
+    assertTrue(index.get("foo/temperature").isEmpty());
+    assertEquals(Collections.singleton(1L), index.get("FOO/HUMIDITY"));
+
+    index.remove(1L);
+    assertTrue(index.get("foo/humidity").isEmpty());
+    assertEquals(3, index.size());
+    assertEquals(Collections.emptyList(), index.find("*humidity", 10));
+  }
+
+  @Test
+  public void testNamesDifferingOnlyInCase() {
+    index.put(5L, "FOO/TEMPERATURE");
+    assertEquals(new HashSet<>(Arrays.asList(1L, 5L)), new HashSet<>(index.get("foo/temperature")));
+    assertEquals(new HashSet<>(Arrays.asList(1L, 5L)), new HashSet<>(index.find("foo/temp*", 10)));
+    assertEquals(new HashSet<>(Arrays.asList(1L, 3L, 5L)), new HashSet<>(index.find("*temperature", 10)));
+    assertEquals(1, index.find("foo/temp*", 1).size());
+
+    index.remove(1L);
+    assertEquals(Collections.singleton(5L), index.get("Foo/Temperature"));
+    assertEquals(Collections.singletonList(5L), index.find("*o/temperature", 10));
+
+    index.put(5L, "foo/humidity");
+    assertTrue(index.get("foo/temperature").isEmpty());
+    assertEquals(Collections.singletonList(3L), index.find("*temperature", 10));
+  }
+
+  @Test
+  public void testPrefixWildcard() {
+    assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(index.find("FOO/*", 10)));
+    assertEquals(1, index.find("foo/*", 1).size());
+    assertEquals(Collections.singletonList(1L), index.find("foo/t?mperature", 10));
+  }
+
+  @Test
+  public void testSuffixWildcard() {
+    assertEquals(new HashSet<>(Arrays.asList(1L, 3L)), new HashSet<>(index.find("*temperature", 10)));
+    assertEquals(Collections.singletonList(3L), index.find("*r/temperature", 10));
+  }
+
+  @Test
+  public void testInnerWildcard() {
+    assertEquals(new HashSet<>(Arrays.asList(1L, 3L)), new HashSet<>(index.find("*/temp*", 10)));
+    assertEquals(4, index.find("*", 10).size());
+    assertTrue(index.find("*unknown*", 10).isEmpty());
+  }
+
+  @Test
+  public void testEscapedWildcards() {
+    assertEquals(Collections.singletonList(4L), index.find("bar/\\*special\\?", 10));
+    assertEquals(Collections.singletonList(4L), index.find("*\\*special?", 10));
+    assertTrue(index.find("bar/\\*", 10).isEmpty());
+  }
+}
@@ -0,0 +1,32 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.loading;
+
+/**
+ * Gives access to the version of the configuration stored in the database,
+ * used to check that a cache snapshot still matches the database.
+ */
+public interface ConfigurationVersionDAO {
+
+  /**
+   * Returns a stamp that changes every time a configuration is applied to
+   * the database.
+   *
+   * @return the current configuration version, or null if it is not known
+   */
+  String getConfigurationVersion();
+}
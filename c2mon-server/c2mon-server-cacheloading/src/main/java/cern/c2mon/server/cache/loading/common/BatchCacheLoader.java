@@ -33,6 +33,9 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
  * Cache loader implementation that loads the cache on multiple threads. The cache
  * must provided a BatchCacheLoaderDAO implementation.
  *
+ * <p>If cache snapshots are enabled, the cache is restored from its
+ * snapshot instead when it is still valid (see {@link CacheSnapshotManager}).
+ *
  * @param <T> the cache object type
  *
  * @author Mark Brightwell
@@ -46,6 +49,12 @@ public class BatchCacheLoader<T extends Cacheable> implements C2monCacheLoader {
   @Autowired
   private ThreadPoolTaskExecutor cacheLoadingThreadPoolTaskExecutor;
 
+  /**
+   * Restores the cache from an on-disk snapshot, if enabled.
+   */
+  @Autowired(required = false)
+  private CacheSnapshotManager cacheSnapshotManager;
+
   /**
    * Timeout before an inactive thread is returned to the pool
    */
@@ -94,6 +103,10 @@ public class BatchCacheLoader<T extends Cacheable> implements C2monCacheLoader {
   @Override
   public void preload() {
     log.debug("preload() - Start preloading data for cache " + cache.getName());
+    if (cacheSnapshotManager != null && cacheSnapshotManager.restore(cache, batchCacheLoaderDAO)) {
+      return;
+    }
+
     Integer lastRow = batchCacheLoaderDAO.getMaxRow(); // 0 if no cache objects!
 
     cacheLoadingThreadPoolTaskExecutor.setThreadNamePrefix(this.threadNamePrefix);
@@ -0,0 +1,235 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.loading.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+/**
+ * On-disk snapshot of the content of one cache, used to restore the cache at
+ * start-up without loading it from the database.
+ *
+ * <p>The file starts with a header (format version, time of writing, the
+ * configuration version and the number of cache objects in the database at
+ * that time), followed by the serialized keys and objects. It is restored
+ * through a memory-mapped buffer and only accepted if it is recent enough and
+ * the database still has the same configuration version and number of
+ * objects. A snapshot is used at most once: it is deleted when it is read, so
+ * that a later crash never restores it again.
+ */
+@Slf4j
+final class CacheSnapshot {
+
+  private static final int MAGIC = 0xC2CA_C4E5;
+
+  private static final int FORMAT_VERSION = 2;
+
+  /**
+   * The serialization stream is reset every that many objects, so that its
+   * back-reference table does not keep the whole cache alive.
+   */
+  private static final int RESET_INTERVAL = 1000;
+
+  private final Path file;
+
+  /**
+   * @param directory the directory containing the snapshots
+   * @param cacheName the name of the cache, used as file name
+   */
+  CacheSnapshot(final Path directory, final String cacheName) {
+    this.file = directory.resolve(cacheName + ".snapshot");
+  }
+
+  Path getFile() {
+    return file;
+  }
+
+  /**
+   * Writes the current content of the cache to the snapshot file, replacing
+   * the previous snapshot atomically.
+   *
+   * @param cache the cache to save
+   * @param dbCount the number of objects of this cache in the database
+   * @param configurationVersion the version of the configuration in the database
+   * @return the number of objects written
+   * @throws IOException if the file cannot be written
+   */
+  int write(final Ehcache cache, final int dbCount, final String configurationVersion) throws IOException {
+    if (configurationVersion == null) {
+      throw new IllegalArgumentException("A snapshot cannot be written without a configuration version");
+    }
+    Files.createDirectories(file.getParent());
+    Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    int count = 0;
+    try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(System.currentTimeMillis());
+      out.writeUTF(configurationVersion);
+      out.writeInt(dbCount);
+      for (Object key : cache.getKeys()) {
+        cache.acquireReadLockOnKey(key);
+        try {
+          Element element = cache.getQuiet(key);
+          if (element != null && element.getObjectValue() != null) {
+            out.writeObject(key);
+            out.writeObject(element.getObjectValue());
+            if (++count % RESET_INTERVAL == 0) {
+              out.reset();
+            }
+          }
+        } finally {
+          cache.releaseReadLockOnKey(key);
+        }
+      }
+      out.writeObject(null);
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return count;
+  }
+
+  /**
+   * Loads the snapshot into the cache if it is valid. The snapshot file is
+   * deleted in any case.
+   *
+   * @param cache the cache to fill
+   * @param dbCount the number of objects of this cache currently in the database
+   * @param configurationVersion the current version of the configuration in
+   *                             the database, null if it is not known
+   * @param maxAge the maximum age (in ms) of a valid snapshot
+   * @return true if the cache was restored, false if it was left empty
+   */
+  boolean restore(final Ehcache cache, final int dbCount, final String configurationVersion, final long maxAge) {
+    if (!Files.isRegularFile(file)) {
+      log.info("No snapshot found for cache {} in {}", cache.getName(), file.getParent());
+      return false;
+    }
+    if (configurationVersion == null) {
+      log.warn("Ignoring snapshot {}: the configuration version of the database is not known", file);
+      delete();
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+         ObjectInputStream in = new ObjectInputStream(open(channel))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        log.warn("Ignoring snapshot {}: unknown format", file);
+        return false;
+      }
+      long age = System.currentTimeMillis() - in.readLong();
+      if (age > maxAge) {
+        log.warn("Ignoring snapshot {}: written {} ms ago", file, age);
+        return false;
+      }
+      String snapshotVersion = in.readUTF();
+      if (!snapshotVersion.equals(configurationVersion)) {
+        log.warn("Ignoring snapshot {}: it was written for configuration version {} and the database is at version {}",
+            file, snapshotVersion, configurationVersion);
+        return false;
+      }
+      int snapshotDbCount = in.readInt();
+      if (snapshotDbCount != dbCount) {
+        log.warn("Ignoring snapshot {}: the database contained {} objects when it was written and now contains {}",
+            file, snapshotDbCount, dbCount);
+        return false;
+      }
+      int count = 0;
+      Object key;
+      while ((key = in.readObject()) != null) {
+        cache.putQuiet(new Element(key, in.readObject()));
+        count++;
+      }
+      log.info("Restored {} objects into cache {} from snapshot {}", count, cache.getName(), file);
+      return true;
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      log.warn("Failed to restore cache {} from snapshot {}", cache.getName(), file, e);
+      cache.removeAll();
+      return false;
+    } finally {
+      delete();
+    }
+  }
+
+  /**
+   * Removes the snapshot file, if any.
+   */
+  void delete() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Unable to delete cache snapshot {}", file, e);
+    }
+  }
+
+  private static InputStream open(final FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      return new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+    }
+    return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+  }
+
+  /**
+   * Input stream reading a memory-mapped file.
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(final MappedByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int read = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, read);
+      return read;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
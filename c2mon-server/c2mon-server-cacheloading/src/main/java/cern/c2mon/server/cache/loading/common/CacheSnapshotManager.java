@@ -0,0 +1,228 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.loading.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.ehcache.Ehcache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import cern.c2mon.server.cache.loading.BatchCacheLoaderDAO;
+import cern.c2mon.server.cache.loading.ConfigurationVersionDAO;
+import cern.c2mon.server.cache.loading.config.CacheLoadingProperties;
+import cern.c2mon.server.common.config.ServerConstants;
+
+/**
+ * Restores the caches loaded by a {@link BatchCacheLoader} from their
+ * {@link CacheSnapshot} at start-up, and writes new snapshots at shutdown
+ * (and periodically if configured).
+ *
+ * <p>Snapshots are only used if <code>c2mon.server.cacheloading.snapshotDirectory</code>
+ * is set, and never in multi-server mode, where the other servers keep
+ * updating the distributed cache.
+ *
+ * <p>Every snapshot is stamped with the configuration version given by the
+ * {@link ConfigurationVersionDAO}. Without such a DAO, or if the version
+ * cannot be read, no snapshot is written or restored. Configurations applied
+ * without changing that version (i.e. not stored in the configuration
+ * database) must call {@link #invalidate()}.
+ */
+@Slf4j
+@Component
+public class CacheSnapshotManager implements SmartLifecycle {
+
+  private final CacheLoadingProperties properties;
+
+  private final boolean enabled;
+
+  /**
+   * Gives the configuration version the snapshots are stamped with.
+   */
+  @Autowired(required = false)
+  private ConfigurationVersionDAO configurationVersionDAO;
+
+  /**
+   * The caches that will be saved, by cache name.
+   */
+  private final Map<String, SnapshotCache> caches = new ConcurrentHashMap<>();
+
+  private Timer timer;
+
+  private volatile boolean running = false;
+
+  @Autowired
+  public CacheSnapshotManager(final CacheLoadingProperties properties, final Environment environment) {
+    this.properties = properties;
+    String mode = environment.getProperty("c2mon.server.cache.mode", "single-nonpersistent");
+    this.enabled = properties.getSnapshotDirectory() != null && !mode.equalsIgnoreCase("multi");
+    if (properties.getSnapshotDirectory() != null && !enabled) {
+      log.warn("Cache snapshots are not supported in multi-server mode and will not be used");
+    }
+  }
+
+  /**
+   * Registers the cache to be saved at shutdown and restores it from its
+   * snapshot if there is a valid one.
+   *
+   * @param cache the cache to restore
+   * @param loaderDAO the DAO used to check the snapshot against the database
+   * @return true if the cache was restored, false if it should be loaded from the database
+   */
+  public boolean restore(final Ehcache cache, final BatchCacheLoaderDAO<?> loaderDAO) {
+    if (!enabled) {
+      return false;
+    }
+    CacheSnapshot snapshot = new CacheSnapshot(getDirectory(), cache.getName());
+    caches.put(cache.getName(), new SnapshotCache(cache, loaderDAO, snapshot));
+    return snapshot.restore(cache, loaderDAO.getMaxRow(), getConfigurationVersion(), properties.getSnapshotMaxAge());
+  }
+
+  /**
+   * Writes the snapshots of all registered caches.
+   */
+  public void writeSnapshots() {
+    if (caches.isEmpty()) {
+      return;
+    }
+    String configurationVersion = getConfigurationVersion();
+    if (configurationVersion == null) {
+      log.error("The configuration version of the database is not known: no cache snapshot is written");
+      invalidate();
+      return;
+    }
+    for (SnapshotCache snapshotCache : caches.values()) {
+      long start = System.currentTimeMillis();
+      try {
+        int count = snapshotCache.snapshot.write(snapshotCache.cache, snapshotCache.loaderDAO.getMaxRow(),
+            configurationVersion);
+        log.info("Saved {} objects of cache {} to snapshot {} in {} ms", count, snapshotCache.cache.getName(),
+            snapshotCache.snapshot.getFile(), System.currentTimeMillis() - start);
+      } catch (IOException | RuntimeException e) {
+        log.error("Unable to write the snapshot of cache {}", snapshotCache.cache.getName(), e);
+        snapshotCache.snapshot.delete();
+      }
+    }
+  }
+
+  /**
+   * Deletes the snapshots of all registered caches, which no longer match
+   * the database. They are written again at the next scheduled write or at
+   * shutdown.
+   */
+  public void invalidate() {
+    for (SnapshotCache snapshotCache : caches.values()) {
+      snapshotCache.snapshot.delete();
+    }
+  }
+
+  private String getConfigurationVersion() {
+    if (configurationVersionDAO == null) {
+      log.warn("No configuration version is available to validate the cache snapshots");
+      return null;
+    }
+    try {
+      return configurationVersionDAO.getConfigurationVersion();
+    } catch (RuntimeException e) {
+      log.warn("Unable to read the configuration version from the database", e);
+      return null;
+    }
+  }
+
+  private Path getDirectory() {
+    return Paths.get(properties.getSnapshotDirectory());
+  }
+
+  @Override
+  public boolean isAutoStartup() {
+    return true;
+  }
+
+  @Override
+  public void stop(final Runnable callback) {
+    stop();
+    callback.run();
+  }
+
+  @Override
+  public synchronized void start() {
+    running = true;
+    long interval = properties.getSnapshotInterval();
+    if (enabled && interval > 0) {
+      timer = new Timer("CacheSnapshotWriter", true);
+      timer.schedule(new TimerTask() {
+        @Override
+        public void run() {
+          writeSnapshots();
+        }
+      }, interval, interval);
+    }
+  }
+
+  /**
+   * Writes the snapshots once the caches are no longer updated (the
+   * database is still available in this phase).
+   */
+  @Override
+  public synchronized void stop() {
+    if (running) {
+      running = false;
+      if (timer != null) {
+        timer.cancel();
+        timer = null;
+      }
+      writeSnapshots();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return ServerConstants.PHASE_STOP_LAST;
+  }
+
+  /**
+   * A registered cache with what is needed to save it.
+   */
+  private static final class SnapshotCache {
+
+    private final Ehcache cache;
+
+    private final BatchCacheLoaderDAO<?> loaderDAO;
+
+    private final CacheSnapshot snapshot;
+
+    private SnapshotCache(final Ehcache cache, final BatchCacheLoaderDAO<?> loaderDAO, final CacheSnapshot snapshot) {
+      this.cache = cache;
+      this.loaderDAO = loaderDAO;
+      this.snapshot = snapshot;
+    }
+  }
+}
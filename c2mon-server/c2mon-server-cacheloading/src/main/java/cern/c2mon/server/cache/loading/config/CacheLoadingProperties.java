@@ -30,4 +30,25 @@ public class CacheLoadingProperties {
    * thrown at startup)
    */
   private int queueSize = 1000;
+
+  /**
+   * Directory in which a snapshot of the data tag, rule tag and alarm caches
+   * is written at shutdown. At the next start-up the caches are restored from
+   * it instead of being loaded from the database, if it is still valid
+   * (same configuration version and number of objects in the database).
+   * Snapshots are disabled if not set, and in multi-server cache mode
+   */
+  private String snapshotDirectory = null;
+
+  /**
+   * Snapshots older than this (in ms) are ignored at start-up
+   */
+  private long snapshotMaxAge = 86400000;
+
+  /**
+   * If > 0, interval (in ms) at which snapshots are also written while the
+   * server is running, so that they are available after a crash. Such a
+   * snapshot may contain older tag values than the database
+   */
+  private long snapshotInterval = 0;
 }
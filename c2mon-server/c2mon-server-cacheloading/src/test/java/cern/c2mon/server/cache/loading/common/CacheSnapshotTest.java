@@ -0,0 +1,139 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.cache.loading.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cern.c2mon.server.common.datatag.DataTagCacheObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private CacheManager cacheManager;
+
+  private Ehcache source;
+
+  private Ehcache target;
+
+  private CacheSnapshot snapshot;
+
+  @Before
+  public void setUp() {
+    cacheManager = new CacheManager(new Configuration().name("CacheSnapshotTest"));
+    source = new Cache(new CacheConfiguration("source", 0));
+    target = new Cache(new CacheConfiguration("target", 0));
+    cacheManager.addCache(source);
+    cacheManager.addCache(target);
+    snapshot = new CacheSnapshot(folder.getRoot().toPath().resolve("snapshots"), "tagCache");
+    for (long id = 1; id <= 2500; id++) {
+      DataTagCacheObject tag = new DataTagCacheObject(id, "tag" + id, "Float", (short) 0);
+      tag.setValue((float) id);
+      source.put(new Element(id, tag));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    cacheManager.shutdown();
+  }
+
+  @Test
+  public void testWriteAndRestore() throws IOException {
+    assertEquals(2500, snapshot.write(source, 2500, "3:42:1000"));
+
+    assertTrue(snapshot.restore(target, 2500, "3:42:1000", 60000));
+
+    assertEquals(2500, target.getSize());
+    DataTagCacheObject tag = (DataTagCacheObject) target.get(1234L).getObjectValue();
+    assertEquals("tag1234", tag.getName());
+    assertEquals(1234f, tag.getValue());
+    assertFalse("a snapshot is only used once", Files.exists(snapshot.getFile()));
+  }
+
+  @Test
+  public void testSnapshotIgnoredIfDatabaseChanged() throws IOException {
+    snapshot.write(source, 2500, "3:42:1000");
+
+    assertFalse(snapshot.restore(target, 2501, "3:42:1000", 60000));
+    assertEquals(0, target.getSize());
+    assertFalse(Files.exists(snapshot.getFile()));
+  }
+
+  @Test
+  public void testSnapshotIgnoredIfConfigurationChanged() throws IOException {
+    snapshot.write(source, 2500, "3:42:1000");
+
+    assertFalse(snapshot.restore(target, 2500, "4:43:2000", 60000));
+    assertEquals(0, target.getSize());
+    assertFalse(Files.exists(snapshot.getFile()));
+  }
+
+  @Test
+  public void testSnapshotIgnoredWithoutConfigurationVersion() throws IOException {
+    snapshot.write(source, 2500, "3:42:1000");
+
+    assertFalse(snapshot.restore(target, 2500, null, 60000));
+    assertEquals(0, target.getSize());
+    assertFalse(Files.exists(snapshot.getFile()));
+  }
+
+  @Test
+  public void testSnapshotIgnoredIfTooOld() throws IOException {
+    snapshot.write(source, 2500, "3:42:1000");
+
+    assertFalse(snapshot.restore(target, 2500, "3:42:1000", -1));
+    assertEquals(0, target.getSize());
+  }
+
+  @Test
+  public void testCorruptedSnapshotLeavesCacheEmpty() throws IOException {
+    snapshot.write(source, 2500, "3:42:1000");
+    Path file = snapshot.getFile();
+    byte[] content = Files.readAllBytes(file);
+    byte[] truncated = new byte[content.length / 2];
+    System.arraycopy(content, 0, truncated, 0, truncated.length);
+    Files.write(file, truncated);
+
+    assertFalse(snapshot.restore(target, 2500, "3:42:1000", 60000));
+    assertEquals(0, target.getSize());
+  }
+
+  @Test
+  public void testNoSnapshot() {
+    assertFalse(snapshot.restore(target, 2500, "3:42:1000", 60000));
+  }
+}
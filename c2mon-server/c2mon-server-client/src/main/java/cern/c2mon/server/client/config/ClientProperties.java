@@ -26,6 +26,15 @@ public class ClientProperties {
      */
     private String tagTopicPrefix = "c2mon.client.tag";
 
+    /**
+     * Number of topics over which the tags of a process are spread, by tag ID.
+     * If greater than 1, the shard number (tag ID modulo the number of shards)
+     * is appended to the process topic, so that clients only receive the
+     * updates of the shards containing their subscribed tags. With 0 or 1
+     * all tags of a process are published on one topic.
+     */
+    private int tagTopicShards = 0;
+
     /** Specify the initial number of concurrent consumers to receive client requests */
     private int initialConsumers = 5;
 
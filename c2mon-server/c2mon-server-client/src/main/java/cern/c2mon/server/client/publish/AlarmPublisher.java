@@ -31,6 +31,7 @@ import org.springframework.stereotype.Service;
 import cern.c2mon.server.cache.C2monCacheListener;
 import cern.c2mon.server.cache.CacheRegistrationService;
 import cern.c2mon.server.cache.TagLocationService;
+import cern.c2mon.server.cache.listener.ListenerOverflowPolicy;
 import cern.c2mon.server.client.util.TransferObjectFactory;
 import cern.c2mon.server.common.alarm.Alarm;
 import cern.c2mon.server.common.component.Lifecycle;
@@ -99,11 +100,12 @@ public class AlarmPublisher implements C2monCacheListener<Alarm>, SmartLifecycle
   }
 
   /**
-   * Registering this listener to alarms.
+   * Registering this listener to alarms. Clients only need the latest state
+   * of an alarm, so pending updates of the same alarm are coalesced.
    */
   @PostConstruct
   void init() {
-    listenerContainer = cacheRegistrationService.registerToAlarms(this);
+    listenerContainer = cacheRegistrationService.registerToAlarms(this, ListenerOverflowPolicy.COALESCE);
   }
 
   @Override
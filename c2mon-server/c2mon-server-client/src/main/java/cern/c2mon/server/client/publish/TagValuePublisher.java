@@ -180,9 +180,10 @@ public class TagValuePublisher implements AlarmAggregatorListener, Configuration
   @Override
   public void publish(final TagWithAlarms tagWithAlarms) {
     TransferTagValueImpl tagValue = TransferObjectFactory.createTransferTagValue(tagWithAlarms);
-    log.trace("publish - Publishing tag update to client: " + TransferTagSerializer.toJson(tagValue));
+    String json = TransferTagSerializer.toJson(tagValue);
+    log.trace("publish - Publishing tag update to client: {}", json);
 
-    jmsSender.sendToTopic(TransferTagSerializer.toJson(tagValue), TopicProvider.topicFor(tagWithAlarms.getTag(), properties));
+    jmsSender.sendToTopic(json, TopicProvider.topicFor(tagWithAlarms.getTag(), properties));
   }
 
   @Override
@@ -194,9 +195,10 @@ public class TagValuePublisher implements AlarmAggregatorListener, Configuration
         String topic = TopicProvider.topicFor(tagWithAlarms.getTag(), properties);
         TransferTagImpl tag = TransferObjectFactory.createTransferTag(tagWithAlarms, aliveTimerFacade.isRegisteredAliveTimer(tagId), topic);
 
-        log.trace("notifyOnConfigurationUpdate - Publishing configuration update to client: " + TransferTagSerializer.toJson(tag));
+        String json = TransferTagSerializer.toJson(tag);
+        log.trace("notifyOnConfigurationUpdate - Publishing configuration update to client: {}", json);
 
-        jmsSender.sendToTopic(TransferTagSerializer.toJson(tag), topic);
+        jmsSender.sendToTopic(json, topic);
       } catch (JmsException e) {
         log.error("notifyOnConfigurationUpdate - Error publishing configuration update to topic for tag " + tagWithAlarms.getTag().getId()
             + " - submitting for republication", e);
@@ -7,6 +7,13 @@ import cern.c2mon.server.common.rule.RuleTag;
 import cern.c2mon.server.common.tag.Tag;
 
 /**
+ * Determines the topic on which the updates of a tag are published to the
+ * clients. Data tags and rules are published per process, optionally spread
+ * over several shard topics by tag id (see
+ * {@link ClientProperties.Jms#getTagTopicShards()}). The client subscribes to
+ * the topic name it receives with the tag, so it only gets the updates of the
+ * shards its tags belong to.
+ *
  * @author Justin Lewis Salmon
  */
 public class TopicProvider {
@@ -17,9 +24,17 @@ public class TopicProvider {
     if (tag instanceof ControlTag) {
       return properties.getJms().getControlTagTopic();
     } else if (tag instanceof RuleTag) {
-      return trunk + "." + ((RuleTag) tag).getLowestProcessId();
+      return shardTopic(trunk + "." + ((RuleTag) tag).getLowestProcessId(), tag.getId(), properties);
     } else {
-      return trunk + "." + ((DataTag) tag).getProcessId();
+      return shardTopic(trunk + "." + ((DataTag) tag).getProcessId(), tag.getId(), properties);
     }
   }
+
+  private static String shardTopic(String processTopic, Long tagId, ClientProperties properties) {
+    int shards = properties.getJms().getTagTopicShards();
+    if (shards <= 1) {
+      return processTopic;
+    }
+    return processTopic + "." + Math.floorMod(tagId, shards);
+  }
 }
@@ -0,0 +1,69 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.client.publish;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cern.c2mon.server.client.config.ClientProperties;
+import cern.c2mon.server.common.control.ControlTagCacheObject;
+import cern.c2mon.server.common.datatag.DataTagCacheObject;
+import cern.c2mon.server.common.rule.RuleTagCacheObject;
+
+import static org.junit.Assert.assertEquals;
+
+public class TopicProviderTest {
+
+  private ClientProperties properties;
+
+  private DataTagCacheObject dataTag;
+
+  private RuleTagCacheObject ruleTag;
+
+  @Before
+  public void setUp() {
+    properties = new ClientProperties();
+    dataTag = new DataTagCacheObject(1003L);
+    dataTag.setProcessId(50L);
+    ruleTag = new RuleTagCacheObject(2005L);
+    ruleTag.setProcessIds(Collections.singleton(60L));
+  }
+
+  @Test
+  public void testProcessTopicWithoutSharding() {
+    assertEquals("c2mon.client.tag.50", TopicProvider.topicFor(dataTag, properties));
+    assertEquals("c2mon.client.tag.60", TopicProvider.topicFor(ruleTag, properties));
+
+    properties.getJms().setTagTopicShards(1);
+    assertEquals("c2mon.client.tag.50", TopicProvider.topicFor(dataTag, properties));
+  }
+
+  @Test
+  public void testShardedTopics() {
+    properties.getJms().setTagTopicShards(4);
+    assertEquals("c2mon.client.tag.50.3", TopicProvider.topicFor(dataTag, properties));
+    assertEquals("c2mon.client.tag.60.1", TopicProvider.topicFor(ruleTag, properties));
+  }
+
+  @Test
+  public void testControlTagsAreNotSharded() {
+    properties.getJms().setTagTopicShards(4);
+    assertEquals(properties.getJms().getControlTagTopic(), TopicProvider.topicFor(new ControlTagCacheObject(1001L), properties));
+  }
+}
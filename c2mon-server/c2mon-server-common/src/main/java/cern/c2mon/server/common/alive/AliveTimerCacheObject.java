@@ -148,8 +148,10 @@ public class AliveTimerCacheObject implements AliveTimer, Cacheable, Cloneable {
     @Override
     public AliveTimerCacheObject clone() throws CloneNotSupportedException {
         AliveTimerCacheObject aliveTimer = (AliveTimerCacheObject) super.clone();
-        aliveTimer.dependentAliveTimerIds = new ArrayList<Long>(this.dependentAliveTimerIds);
-        
+        if (this.dependentAliveTimerIds != null) {
+            aliveTimer.dependentAliveTimerIds = new ArrayList<Long>(this.dependentAliveTimerIds);
+        }
+
         return aliveTimer;
     }
 
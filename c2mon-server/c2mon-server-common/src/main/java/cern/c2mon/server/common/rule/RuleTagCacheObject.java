@@ -129,11 +129,11 @@ public class RuleTagCacheObject extends AbstractTagCacheObject implements RuleTa
                 ruleTagCacheObject.parentProcesses.add(procId);
             }
         }
-        ruleTagCacheObject.ruleExpression = null;
-        if (this.ruleExpression != null && ruleText != null) {
-          // TODO: Test correct clone support to all rule objects and replace then again the statement
-//         ruleTagCacheObject.ruleExpression = (RuleExpression) this.ruleExpression.clone();
-          ruleTagCacheObject.setRuleText(ruleText);
+        // the parsed RuleExpression is never modified after creation (setRuleText()
+        // always parses a new instance), so the reference can be shared instead of
+        // re-parsing the rule text for every copy
+        if (ruleText == null) {
+          ruleTagCacheObject.ruleExpression = null;
         }
 
         return ruleTagCacheObject;
@@ -27,6 +27,8 @@ import java.io.Serializable;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
@@ -148,15 +150,17 @@ public abstract class AbstractTagCacheObject implements DataTagConstants, Clonea
 
   /**
    * Identifiers of all alarms attached to the datatag
+   * (copy-on-write, so that clones share the ids until one of
+   * them is modified).
    */
-  private Collection<Long> alarmIds;
+  private CopyOnWriteArrayList<Long> alarmIds;
 
   /**
    * Identifiers of all rules attached to the datatag
    * (tests will fail if not initialized as this field
    * is set during cache loading from DB).
    */
-  private Collection<Long> ruleIds;
+  private CopyOnWriteArrayList<Long> ruleIds;
 
   /**
    * String of rules ids obtained from the database;
@@ -200,8 +204,8 @@ public abstract class AbstractTagCacheObject implements DataTagConstants, Clonea
     writeLock = lock.writeLock();
 
     dataTagQuality = new DataTagQualityImpl();
-    alarmIds = new ArrayList<>();
-    ruleIds = new ArrayList<>();
+    alarmIds = new CopyOnWriteArrayList<>();
+    ruleIds = new CopyOnWriteArrayList<>();
     cacheTimestamp = new Timestamp(System.currentTimeMillis());
     metadata = new Metadata();
   }
@@ -220,8 +224,12 @@ public abstract class AbstractTagCacheObject implements DataTagConstants, Clonea
    * The clone is provided with <b>new</b> locks: these do not lock access
    * to the object residing in the cache (the clone is no longer in the
    * cache).
+   *
+   * <p>The alarm and rule ids are copy-on-write lists: the clone shares
+   * their content with the original until either of them is modified.
    */
   @Override
+  @SuppressWarnings("unchecked")
   public Object clone() throws CloneNotSupportedException {
     AbstractTagCacheObject cacheObject = (AbstractTagCacheObject) super.clone();
     ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
@@ -230,11 +238,14 @@ public abstract class AbstractTagCacheObject implements DataTagConstants, Clonea
     if (dataTagQuality != null) {
       cacheObject.dataTagQuality = (DataTagQuality) dataTagQuality.clone();
     }
-    cacheObject.alarmIds = (ArrayList<Long>) ((ArrayList<Long>) alarmIds).clone();
-    cacheObject.ruleIds = (ArrayList<Long>) ((ArrayList<Long>) ruleIds).clone();
+    cacheObject.alarmIds = (CopyOnWriteArrayList<Long>) alarmIds.clone();
+    cacheObject.ruleIds = (CopyOnWriteArrayList<Long>) ruleIds.clone();
     if (cacheTimestamp != null) {
       cacheObject.cacheTimestamp = (Timestamp) cacheTimestamp.clone();
     }
+    if (metadata != null) {
+      cacheObject.metadata = metadata.clone();
+    }
     return cacheObject;
   }
 
@@ -301,6 +312,22 @@ public abstract class AbstractTagCacheObject implements DataTagConstants, Clonea
     }
   }
 
+  public Collection<Long> getAlarmIds() {
+    return alarmIds;
+  }
+
+  public void setAlarmIds(final Collection<Long> alarmIds) {
+    this.alarmIds = alarmIds != null ? new CopyOnWriteArrayList<>(alarmIds) : new CopyOnWriteArrayList<>();
+  }
+
+  public Collection<Long> getRuleIds() {
+    return ruleIds;
+  }
+
+  public void setRuleIds(final Collection<Long> ruleIds) {
+    this.ruleIds = ruleIds != null ? new CopyOnWriteArrayList<>(ruleIds) : new CopyOnWriteArrayList<>();
+  }
+
   public final boolean isValid() {
     return dataTagQuality.isValid();
   }
@@ -391,12 +418,13 @@ public abstract class AbstractTagCacheObject implements DataTagConstants, Clonea
     try {
       if (ruleIdsString != null && !ruleIdsString.isEmpty()) {
         String[] ruleIdArray = ruleIdsString.split(",");
-        setRuleIds(new ArrayList<Long>(ruleIdArray.length));
+        Collection<Long> parsedRuleIds = new LinkedHashSet<>(ruleIdArray.length);
         for (int i = 0; i != ruleIdArray.length; i++) {
           if (!ruleIdArray[i].equals("")) {
-            addRuleId(Long.valueOf(ruleIdArray[i].trim()));
+            parsedRuleIds.add(Long.valueOf(ruleIdArray[i].trim()));
           }
         }
+        setRuleIds(parsedRuleIds);
       } else {
         setRuleIds(new ArrayList<>(0));
         this.ruleIdsString = null;
@@ -0,0 +1,62 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.common.tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import cern.c2mon.server.common.datatag.DataTagCacheObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of the rule id handling in {@link AbstractTagCacheObject}.
+ */
+public class AbstractTagCacheObjectTest {
+
+  @Test
+  public void testRuleIdsStringIsParsedInOrderWithoutDuplicates() {
+    DataTagCacheObject tag = new DataTagCacheObject(1L);
+    tag.setRuleIdsString("3, 1,,2,3,1");
+
+    assertEquals(Arrays.asList(3L, 1L, 2L), new ArrayList<>(tag.getRuleIds()));
+    assertEquals("3, 1,,2,3,1", tag.getRuleIdsString());
+  }
+
+  @Test
+  public void testEmptyRuleIdsStringClearsRuleIds() {
+    DataTagCacheObject tag = new DataTagCacheObject(1L);
+    tag.setRuleIdsString("1,2");
+    tag.setRuleIdsString("");
+
+    assertTrue(tag.getRuleIds().isEmpty());
+    assertNull(tag.getRuleIdsString());
+  }
+
+  @Test
+  public void testInvalidRuleIdsStringClearsRuleIds() {
+    DataTagCacheObject tag = new DataTagCacheObject(1L);
+    tag.setRuleIdsString("1,x");
+
+    assertTrue(tag.getRuleIds().isEmpty());
+    assertNull(tag.getRuleIdsString());
+  }
+}
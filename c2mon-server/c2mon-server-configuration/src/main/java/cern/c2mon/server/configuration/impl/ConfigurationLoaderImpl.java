@@ -42,6 +42,7 @@ import cern.c2mon.server.cache.ClusterCache;
 import cern.c2mon.server.cache.ProcessCache;
 import cern.c2mon.server.cache.ProcessFacade;
 import cern.c2mon.server.cache.loading.SequenceDAO;
+import cern.c2mon.server.cache.loading.common.CacheSnapshotManager;
 import cern.c2mon.server.common.config.ServerProperties;
 import cern.c2mon.server.configuration.ConfigProgressMonitor;
 import cern.c2mon.server.configuration.ConfigurationLoader;
@@ -150,6 +151,12 @@ public class ConfigurationLoaderImpl implements ConfigurationLoader {
    */
   private ConfigurationParser configParser;
 
+  /**
+   * Deletes the cache snapshots, which become stale when a configuration is applied.
+   */
+  @Autowired(required = false)
+  private CacheSnapshotManager cacheSnapshotManager;
+
   @Autowired
   public ConfigurationLoaderImpl(ProcessCommunicationManager processCommunicationManager,
                                  ConfigurationDAO configurationDAO,
@@ -306,6 +313,10 @@ public class ConfigurationLoaderImpl implements ConfigurationLoader {
   ) {
     ConfigurationReport report = new ConfigurationReport(configId, configName, "");
 
+    if (cacheSnapshotManager != null) {
+      cacheSnapshotManager.invalidate();
+    }
+
     //map of element reports that need a DAQ child report adding
     Map<Long, ConfigurationElementReport> daqReportPlaceholder = new HashMap<>();
     //map of elements themselves elt_seq_id -> element
@@ -25,6 +25,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import cern.c2mon.server.cache.loading.ConfigurationVersionDAO;
 import cern.c2mon.server.configuration.dao.ConfigurationDAO;
 import cern.c2mon.shared.client.configuration.ConfigurationDescriptor;
 import cern.c2mon.shared.client.configuration.ConfigurationElement;
@@ -33,13 +34,14 @@ import javax.sql.DataSource;
 
 /**
  * Mybatis implementation of the ConfigurationDAO for the server
- * configuration module.
+ * configuration module. It also provides the configuration version used
+ * to validate the cache snapshots.
  *
  * @author Mark Brightwell
  *
  */
 @Service
-public class ConfigurationDAOImpl implements ConfigurationDAO {
+public class ConfigurationDAOImpl implements ConfigurationDAO, ConfigurationVersionDAO {
 
   /**
    * The Mybatis mapper.
@@ -106,4 +108,18 @@ public class ConfigurationDAOImpl implements ConfigurationDAO {
   public void markAsApplied(int id) {
     configurationMapper.markAsApplied(id);
   }
+
+  /**
+   * The version is made of the number of applied configurations, the highest
+   * applied configuration id and the latest apply date, so that it changes
+   * whenever a configuration of the configuration database is applied.
+   */
+  @Override
+  public String getConfigurationVersion() {
+    JdbcTemplate template = new JdbcTemplate(configurationDataSource);
+    String sql = "SELECT COUNT(*), MAX(CONFIGID), MAX(APPLYDATE) FROM TIMCONFIG WHERE APPLYDATE IS NOT NULL";
+
+    return template.queryForObject(sql, (rs, rowNum) ->
+        rs.getLong(1) + ":" + rs.getLong(2) + ":" + (rs.getTimestamp(3) == null ? 0 : rs.getTimestamp(3).getTime()));
+  }
 }
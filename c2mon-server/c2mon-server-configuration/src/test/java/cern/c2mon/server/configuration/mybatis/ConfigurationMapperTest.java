@@ -18,6 +18,7 @@ package cern.c2mon.server.configuration.mybatis;
 
 import cern.c2mon.server.cache.config.CacheModule;
 import cern.c2mon.server.cache.dbaccess.config.CacheDbAccessModule;
+import cern.c2mon.server.cache.loading.ConfigurationVersionDAO;
 import cern.c2mon.server.cache.loading.config.CacheLoadingModule;
 import cern.c2mon.server.common.config.CommonModule;
 import cern.c2mon.server.configuration.config.ConfigurationModule;
@@ -44,6 +45,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * Integration tests of the configuration Mybatis mapper with
@@ -74,6 +76,9 @@ public class ConfigurationMapperTest {
   @Autowired
   private ConfigurationDAO configurationDAO;
 
+  @Autowired
+  private ConfigurationVersionDAO configurationVersionDAO;
+
   @Autowired
   private JmsContainerManagerImpl jmsContainerManager;
 
@@ -153,4 +158,12 @@ public class ConfigurationMapperTest {
     configurationDAO.markAsApplied(1);
   }
 
+  @Test
+  public void testConfigurationVersionChangesWhenApplied() {
+    String version = configurationVersionDAO.getConfigurationVersion();
+    configurationDAO.markAsApplied(19);
+
+    assertNotEquals(version, configurationVersionDAO.getConfigurationVersion());
+  }
+
 }
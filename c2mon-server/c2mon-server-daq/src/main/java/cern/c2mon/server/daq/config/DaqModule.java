@@ -16,13 +16,10 @@
  *****************************************************************************/
 package cern.c2mon.server.daq.config;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * This class is responsible for configuring the Spring context for the
@@ -37,20 +34,4 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 @EnableConfigurationProperties(DaqProperties.class)
 @ComponentScan("cern.c2mon.server.daq")
 public class DaqModule {
-
-  private static final String THREAD_NAME_PREFIX = "TagUpdater-";
-
-  @Autowired
-  private DaqProperties properties;
-
-  @Bean
-  public ThreadPoolTaskExecutor daqThreadPoolTaskExecutor() {
-    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-    executor.setCorePoolSize(properties.getJms().getUpdate().getNumExecutorThreads());
-    executor.setMaxPoolSize(properties.getJms().getUpdate().getNumExecutorThreads());
-    executor.setKeepAliveSeconds(properties.getJms().getUpdate().getKeepAliveSeconds());
-    executor.setAllowCoreThreadTimeOut(true);
-    executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
-    return executor;
-  }
 }
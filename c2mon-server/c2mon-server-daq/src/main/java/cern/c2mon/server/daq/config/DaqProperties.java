@@ -48,33 +48,36 @@ public class DaqProperties {
        * call (i.e. put in cache and notify listeners)
        */
       boolean transacted = true;
-      
+
       /**
-       * Specify the limit for idle executions of a consumer task, not having received
-       * any message within its execution. If this limit is reached, the task will shut
-       * down and leave receiving to other executing tasks.
-       * Raise this limit if you encounter too frequent scaling up and down. With this
-       * limit being higher, an idle consumer will be kept around longer, avoiding the
-       * restart of a consumer once a new load of messages comes in.
+       * Number of JMS sessions, and so of concurrent threads, receiving the updates of all
+       * DAQ update queues. The consumers of the queues are spread over these
+       * sessions.
        */
-      int idleTaskExecutionLimit = 5;
-      
+      int numExecutorThreads = 100;
+
       /**
-       * Specify the maximum number of messages to process in one task. More
-       * concretely, this limits the number of message reception attempts per task,
-       * which includes receive iterations that did not actually pick up a message
-       * until they hit their timeout (see the "receiveTimeout" property).
+       * Number of messages the broker sends ahead to each consumer of a DAQ
+       * update queue. A lower value spreads the messages of a busy queue more
+       * evenly over its consumers.
        */
-      int maxMessagesPerTask = 1;
-      
-      /** Set the timeout to use for receive calls, in milliseconds */
-      int receiveTimeout = 1000;
-      
-      /** Set the global TagUpdater's pool size shared by all DAQ update queues */
-      int numExecutorThreads = 100;
-      
-      /** Set the TagUpdater's ThreadPoolTaskExecutor keep-alive seconds */
-      int keepAliveSeconds = 60;
+      int prefetchSize = 100;
+
+      /**
+       * Number of worker threads applying the incoming values to the cache. The
+       * values are distributed by tag id, so the updates of a given tag are always
+       * applied in order. The JMS container thread waits until the values of its
+       * message have been applied before acknowledging it. If set to 0 (default),
+       * the values are applied directly on the JMS container thread that received
+       * the message.
+       */
+      int workerThreads = 0;
+
+      /**
+       * Capacity of the value queue of each worker thread. The JMS container
+       * threads block once a queue is full.
+       */
+      int workerQueueCapacity = 10000;
     }
 
     /**
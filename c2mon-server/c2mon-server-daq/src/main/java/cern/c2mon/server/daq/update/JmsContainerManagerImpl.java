@@ -16,8 +16,8 @@
  *****************************************************************************/
 package cern.c2mon.server.daq.update;
 
-import java.util.*;
-import java.util.concurrent.*;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import javax.annotation.PostConstruct;
 import javax.jms.ConnectionFactory;
@@ -25,17 +25,14 @@ import javax.jms.Message;
 
 import cern.c2mon.server.daq.JmsContainerManager;
 import cern.c2mon.server.daq.config.DaqProperties;
-import org.apache.activemq.command.ActiveMQQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.SmartLifecycle;
-import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import org.springframework.jms.listener.SessionAwareMessageListener;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import cern.c2mon.server.cache.ClusterCache;
 import cern.c2mon.server.cache.ProcessCache;
@@ -47,6 +44,10 @@ import org.springframework.stereotype.Component;
  * Implementation of the JmsContainer bean. Also manages the daq-in update
  * components, including shutting down the daq-in JMS connection factory.
  *
+ * <p>The update queues of all Processes are consumed by a single
+ * {@link UpdateConsumerPool}, on a fixed number of JMS sessions, rather than
+ * by one listener container (with its own threads and connections) per Process.
+ *
  * @author Mark Brightwell
  *
  */
@@ -59,11 +60,6 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(JmsContainerManagerImpl.class);
 
-  /**
-   * Milliseconds before an idle consumer thread is closed (not used by any Process container).
-   */
-  private static final long THREAD_IDLE_LIMIT = 60000;
-
   /**
    * Flag for lifecycle management.
    */
@@ -75,25 +71,9 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
   private ProcessCache processCache;
 
   /**
-   * Running containers.
-   */
-  private ConcurrentHashMap<Long, DefaultMessageListenerContainer> jmsContainers =
-                          new ConcurrentHashMap<Long, DefaultMessageListenerContainer>();
-
-  /**
-   * Threads shared by all containers.
-   */
-  private ThreadPoolTaskExecutor daqThreadPoolTaskExecutor;
-
-  /**
-   * The JMS connection factory used (instantiated in XML).
+   * Consumers of the update queues of all Processes.
    */
-  private ConnectionFactory updateConnectionFactory;
-
-  /**
-   * The message listener: is SourceUpdateManagerImpl
-   */
-  private SessionAwareMessageListener<Message> listener;
+  private UpdateConsumerPool consumerPool;
 
   /**
    * Timer for checking if subscription to JMS have been modified by
@@ -121,64 +101,35 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
                                  final @Qualifier("daqInConnectionFactory") ConnectionFactory updateConnectionFactory,
                                  final @Qualifier("sourceUpdateManager") SessionAwareMessageListener<Message> listener,
                                  final @Qualifier("clusterCache") ClusterCache clusterCache,
-                                 final ThreadPoolTaskExecutor daqThreadPoolTaskExecutor,
                                  final DaqProperties properties) {
     super();
     this.processCache = processCache;
-    this.updateConnectionFactory = updateConnectionFactory;
-    this.listener = listener;
     this.clusterCache = clusterCache;
-    this.daqThreadPoolTaskExecutor = daqThreadPoolTaskExecutor;
     this.properties = properties;
+    DaqProperties.Jms.Update update = properties.getJms().getUpdate();
+    // only the initial consumers are used during the warm-up phase
+    this.consumerPool = new UpdateConsumerPool(updateConnectionFactory, listener, update.getNumExecutorThreads(),
+        update.getInitialConsumers(), update.getInitialConsumers(), update.getPrefetchSize(), update.isTransacted());
   }
 
 
   @PostConstruct
   public void init() {
-    daqThreadPoolTaskExecutor.initialize();
     for (Long id : processCache.getKeys()) {
-      subscribe(processCache.get(id), properties.getJms().getUpdate().getMaxConsumers());
+      subscribe(processCache.get(id));
     }
   }
 
   @Override
   public void subscribe(final Process process) {
     LOGGER.trace("Subscribing to updates from Process " + process.getId());
-    if (!jmsContainers.containsKey(process.getId())) {
-      DefaultMessageListenerContainer container = subscribe(process, properties.getJms().getUpdate().getMaxConsumers());
-      container.start();
-    } else {
+    if (!consumerPool.subscribe(process.getId(), getQueueName(process))) {
       LOGGER.warn("Attempt at creating a JMS listener container for a Process that already has one.");
     }
   }
 
-  /**
-   * Returns the container so that it can be started manually when added during
-   * server runtime.
-   * @param process the Process to create a container for
-   * @param consumersMax the max number of consumers (at start-up subscribe with less)
-   * @return the JMS container that was created
-   */
-  private DefaultMessageListenerContainer subscribe(final Process process, final int consumersMax) {
-    DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
-    container.setConnectionFactory(updateConnectionFactory);
-    container.setDestination(new ActiveMQQueue(properties.getJms().getQueuePrefix() + ".update." + process.getName()));
-    container.setMessageListener(listener);
-    container.setConcurrentConsumers(properties.getJms().getUpdate().getInitialConsumers());
-    container.setMaxConcurrentConsumers(consumersMax);
-    container.setSessionTransacted(properties.getJms().getUpdate().isTransacted());
-    container.setCacheLevel(DefaultMessageListenerContainer.CACHE_CONSUMER);
-    container.setAutoStartup(false);
-    container.setPhase(ServerConstants.PHASE_START_LAST);
-    container.setMaxMessagesPerTask(properties.getJms().getUpdate().getMaxMessagesPerTask());
-    container.setReceiveTimeout(properties.getJms().getUpdate().getReceiveTimeout());
-    container.setIdleTaskExecutionLimit(properties.getJms().getUpdate().getIdleTaskExecutionLimit());
-    container.setBeanName(process.getName() + " update JMS container");
-    container.setTaskExecutor(daqThreadPoolTaskExecutor);
-    container.setAcceptMessagesWhileStopping(false);
-    jmsContainers.put(process.getId(), container);
-    container.initialize();
-    return container;
+  private String getQueueName(final Process process) {
+    return properties.getJms().getQueuePrefix() + ".update." + process.getName();
   }
 
   @Override
@@ -193,57 +144,50 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
    */
   private void unsubscribe(final Long processId) {
     LOGGER.trace("Unsubscribing from updates for Process " + processId);
-    if (jmsContainers.containsKey(processId)) {
-      DefaultMessageListenerContainer container = jmsContainers.get(processId);
-
-      // Shut down the container in another thread to avoid blocking
-      Executors.newFixedThreadPool(1).submit(new ContainerShutdownTask(container));
-
-      jmsContainers.remove(processId);
-    } else {
+    if (!consumerPool.unsubscribe(processId)) {
       LOGGER.warn("Attempt to remove an unrecognized JMS listener container.");
     }
   }
 
   /**
-   * For management purposes. Starts the JMS container.
+   * For management purposes. Stops consuming the updates of the Process.
    * @param processName name of the process
    */
   @ManagedOperation(description="Stop this JMS container")
   public void stopContainer(String processName) {
     LOGGER.info("Stopping JMS container for Process " + processName);
-    jmsContainers.get(processCache.getProcessId(processName)).stop();
+    consumerPool.setPaused(processCache.getProcessId(processName), true);
   }
 
   /**
-   * For management purposes. Stops the JMS container.
+   * For management purposes. Restarts consuming the updates of the Process.
    * @param processName name of the process
    */
   @ManagedOperation(description="Start this JMS container.")
   public void startContainer(String processName) {
     LOGGER.info("Starting JMS container for Process " + processName);
-    jmsContainers.get(processCache.getProcessId(processName)).start();
+    consumerPool.setPaused(processCache.getProcessId(processName), false);
   }
 
   /**
-   * For management purposes. Returns the queue size of receive tasks
-   * waiting for execution.
-   * @return queue size
+   * For management purposes. Returns the number of threads currently
+   * processing JMS updates.
+   * @return the number of active threads
    */
-  @ManagedOperation(description="Get executor queue size.")
-  public int getTaskQueueSize() {
-//    return daqThreadPoolTaskExecutor.getQueue().size();
-    return daqThreadPoolTaskExecutor.getThreadPoolExecutor().getQueue().size();
+  @ManagedOperation(description="Get the number of active threads listening for JMS updates.")
+  public int getNumActiveThreads() {
+    return consumerPool.getNumProcessing();
   }
 
   /**
-   * For management purposes. Returns the number of active threads listening
-   * for JMS updates.
-   * @return the number of active threads
+   * For management purposes. Returns the number of consumers of the update
+   * queue of the Process.
+   * @param processName name of the process
+   * @return the number of consumers
    */
-  @ManagedOperation(description="Get the number of active threads listening for JMS updates.")
-  public int getNumActiveThreads() {
-    return daqThreadPoolTaskExecutor.getActiveCount();
+  @ManagedOperation(description="Get the number of consumers of this Process update queue.")
+  public int getNumConsumers(String processName) {
+    return consumerPool.getNumConsumers(processCache.getProcessId(processName));
   }
 
 
@@ -256,21 +200,18 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
   }
 
   /**
-   * Increases the max number of update threads to the value set in the properties file after 2 minutes (initial set in XML).
+   * Increases the max number of update consumers to the value set in the properties file after the warm-up time.
    * Only intended to be started/stopped once (multiple calls to start will have no effect).
    */
   @Override
   public synchronized void start() {
     if (!running) {
       running = true;
-      //start JMS containers (not in Spring context!)
       LOGGER.info("Starting Process JMS listeners...");
-      for (Map.Entry<Long, DefaultMessageListenerContainer> entry : jmsContainers.entrySet()) {
-        entry.getValue().start();
-      }
+      consumerPool.start();
       LOGGER.info("Finished starting Process JMS listeners.");
 
-      //start thread that will increase the listener thread number after warm up time
+      //start thread that will increase the max number of consumers after warm up time
       //(this thread expires if stop is called)
       new Thread(new Runnable() {
 
@@ -287,9 +228,7 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
           }
           if (running) {
             LOGGER.info("Increasing max concurrent update consumers to operational value.");
-            for (Map.Entry<Long, DefaultMessageListenerContainer> entry : jmsContainers.entrySet()) {
-              entry.getValue().setMaxConcurrentConsumers(properties.getJms().getUpdate().getMaxConsumers());
-            }
+            consumerPool.setMaxConsumers(properties.getJms().getUpdate().getMaxConsumers());
           }
         }
 
@@ -308,25 +247,13 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
   @Override
   public synchronized void stop() {
     try {
-      LOGGER.info("Stopping JMS update containers listening for tag updates from the DAQ layer.");
-      subscriptionChecker.cancel();
-      ThreadPoolExecutor shutdownExecutor = new ThreadPoolExecutor(10, 10, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
-        String threadName = "StopDaqUpdate";
-        return new Thread(r, threadName);
-      });
-      Collection<ContainerShutdownTask> containerTasks = new ArrayList<ContainerShutdownTask>();
-      for (Map.Entry<Long, DefaultMessageListenerContainer> entry : jmsContainers.entrySet()) {
-        ContainerShutdownTask containerShutdownTask = new ContainerShutdownTask(entry.getValue());
-        containerTasks.add(containerShutdownTask);
+      LOGGER.info("Stopping JMS update consumers listening for tag updates from the DAQ layer.");
+      if (subscriptionChecker != null) {
+        subscriptionChecker.cancel();
       }
-      shutdownExecutor.invokeAll(containerTasks, 60, TimeUnit.SECONDS);
-      shutdownExecutor.shutdown();
-      jmsContainers.clear();
-      daqThreadPoolTaskExecutor.shutdown();
-//      LOGGER.info("Stopping JMS connections to DAQs");
-//      updateConnectionFactory.stop(); //closes all JMS connections in the pool
+      consumerPool.stop();
     } catch (Exception e) {
-      LOGGER.error("Exception caught while closing down the Spring listener/JMS thread pool", e);
+      LOGGER.error("Exception caught while closing down the JMS update consumers", e);
     }
   }
 
@@ -368,14 +295,14 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
         try {
           //check no new
           for (Long id : processCache.getKeys()) {
-            if (!jmsContainers.containsKey(id)) {
+            if (!consumerPool.getSubscribedProcessIds().contains(id)) {
               subscribe(processCache.get(id));
             }
           }
           //check no old that needs unsubscribing
-          for (Map.Entry<Long, DefaultMessageListenerContainer> entry : jmsContainers.entrySet()) {
-            if (!processCache.getKeys().contains(entry.getKey())) {
-              unsubscribe(entry.getKey());
+          for (Long id : consumerPool.getSubscribedProcessIds()) {
+            if (!processCache.getKeys().contains(id)) {
+              unsubscribe(id);
             }
           }
         } catch (Exception e) {
@@ -386,28 +313,4 @@ public class JmsContainerManagerImpl implements JmsContainerManager, SmartLifecy
       }
     }
   }
-
-  /**
-   * For shutting down many containers.
-   */
-  private class ContainerShutdownTask implements Callable<DefaultMessageListenerContainer> {
-
-    private DefaultMessageListenerContainer container;
-
-    /**
-     * Constructor.
-     * @param container that needs shutting down
-     */
-    public ContainerShutdownTask(DefaultMessageListenerContainer container) {
-      super();
-      this.container = container;
-    }
-
-    @Override
-    public DefaultMessageListenerContainer call() throws Exception {
-      container.shutdown();
-      return container;
-    }
-
-  }
 }
@@ -0,0 +1,262 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.daq.update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+
+/**
+ * Applies incoming DAQ values on a fixed number of worker threads. Each value
+ * is assigned to a worker by its tag id, so all updates of a given tag are
+ * applied one after the other in the order of reception, while updates of
+ * different tags are processed in parallel.
+ *
+ * <p>{@link #dispatch(Collection)} only returns once all values of the message
+ * have been applied, so that the JMS message is not acknowledged while its
+ * values are still queued.
+ *
+ * <p>Every worker has a bounded queue. Once it is full, {@link #dispatch(Collection)}
+ * blocks the calling JMS container thread, which slows down the consumption
+ * from the broker instead of letting the queues grow without limit. Once the
+ * processor has been stopped, values are rejected instead, so that no
+ * container thread waits for workers that are no longer running.
+ */
+@Slf4j
+class ShardedUpdateProcessor {
+
+  private static final String THREAD_NAME_PREFIX = "TagUpdateWorker-";
+
+  /**
+   * Maximum number of values taken from a worker queue at once.
+   */
+  private static final int MAX_BATCH_SIZE = 500;
+
+  /**
+   * Time a worker waits for new values before checking the running flag.
+   */
+  private static final long POLL_TIMEOUT_MILLIS = 500;
+
+  private final List<BlockingQueue<PendingValue>> queues;
+
+  private final List<Thread> workers;
+
+  /**
+   * Callback applying a single value to the cache.
+   */
+  private final Consumer<SourceDataTagValue> valueHandler;
+
+  private volatile boolean running = false;
+
+  /**
+   * Set by {@link #stop()}; from then on no more values are accepted.
+   */
+  private volatile boolean stopped = false;
+
+  /**
+   * Set by {@link #stop()} once the workers have exited; values still queued
+   * are then never applied.
+   */
+  private volatile boolean terminated = false;
+
+  /**
+   * @param workerThreads number of worker threads (and queues)
+   * @param queueCapacity capacity of each worker queue
+   * @param valueHandler called by the workers for every value
+   */
+  ShardedUpdateProcessor(final int workerThreads, final int queueCapacity, final Consumer<SourceDataTagValue> valueHandler) {
+    this.valueHandler = valueHandler;
+    this.queues = new ArrayList<>(workerThreads);
+    this.workers = new ArrayList<>(workerThreads);
+    for (int i = 0; i < workerThreads; i++) {
+      BlockingQueue<PendingValue> queue = new ArrayBlockingQueue<>(queueCapacity);
+      queues.add(queue);
+      Thread worker = new Thread(() -> processQueue(queue), THREAD_NAME_PREFIX + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+    }
+  }
+
+  /**
+   * Starts the worker threads.
+   */
+  synchronized void start() {
+    if (!running) {
+      running = true;
+      workers.forEach(Thread::start);
+      log.info("Started {} DAQ update worker threads", workers.size());
+    }
+  }
+
+  /**
+   * Stops the workers once all queued values have been applied. Should only be
+   * called after the JMS containers have been stopped.
+   */
+  synchronized void stop() {
+    stopped = true;
+    if (running) {
+      running = false;
+      for (Thread worker : workers) {
+        try {
+          worker.join();
+        } catch (InterruptedException e) {
+          log.warn("Interrupted while waiting for DAQ update worker {} to terminate", worker.getName());
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      terminated = true;
+      int lost = 0;
+      for (BlockingQueue<PendingValue> queue : queues) {
+        PendingValue pending;
+        while ((pending = queue.poll()) != null) {
+          pending.message.reject();
+          lost++;
+        }
+      }
+      if (lost > 0) {
+        log.warn("{} values dispatched while stopping the DAQ update workers were not applied", lost);
+      }
+      log.info("Stopped DAQ update worker threads");
+    }
+  }
+
+  /**
+   * Hands the values to the workers responsible for their tags and waits until
+   * they have all been applied. Blocks if one of the worker queues is full,
+   * until there is space or the processor is stopped.
+   *
+   * @param values the values of a single DAQ update message
+   * @throws IllegalStateException if the processor has been stopped before all values
+   *         were applied, or if the calling thread is interrupted; the message must then
+   *         not be acknowledged
+   */
+  void dispatch(final Collection<SourceDataTagValue> values) {
+    PendingMessage message = new PendingMessage(values.size());
+    try {
+      for (SourceDataTagValue value : values) {
+        BlockingQueue<PendingValue> queue = queues.get((int) Math.floorMod(value.getId(), (long) queues.size()));
+        PendingValue pending = new PendingValue(value, message);
+        do {
+          if (stopped) {
+            throw new IllegalStateException("DAQ update processor has been stopped: update for tag #" + value.getId() + " rejected");
+          }
+        } while (!queue.offer(pending, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+      }
+      while (!message.remaining.await(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (terminated) {
+          // values queued after stop() emptied the queues
+          for (BlockingQueue<PendingValue> queue : queues) {
+            queue.removeIf(pending -> pending.message == message);
+          }
+          message.rejected = true;
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while dispatching DAQ update to the worker queues", e);
+    }
+    if (message.rejected) {
+      throw new IllegalStateException("DAQ update processor has been stopped before applying all values of the update");
+    }
+  }
+
+  /**
+   * @return the total number of values waiting in the worker queues
+   */
+  int getQueueSize() {
+    int size = 0;
+    for (BlockingQueue<PendingValue> queue : queues) {
+      size += queue.size();
+    }
+    return size;
+  }
+
+  private void processQueue(final BlockingQueue<PendingValue> queue) {
+    List<PendingValue> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingValue first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        for (PendingValue pending : batch) {
+          try {
+            valueHandler.accept(pending.value);
+          } catch (RuntimeException e) {
+            log.error("Exception caught while applying update for tag #{}: the update is lost", pending.value.getId(), e);
+          } finally {
+            pending.message.remaining.countDown();
+          }
+        }
+      } catch (InterruptedException e) {
+        log.warn("DAQ update worker {} interrupted: {} values left unprocessed", Thread.currentThread().getName(), queue.size());
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * The values of a dispatched message not applied yet.
+   */
+  private static final class PendingMessage {
+
+    private final CountDownLatch remaining;
+
+    /** Set if some values will never be applied */
+    private volatile boolean rejected = false;
+
+    private PendingMessage(final int size) {
+      this.remaining = new CountDownLatch(size);
+    }
+
+    private void reject() {
+      rejected = true;
+      remaining.countDown();
+    }
+  }
+
+  /**
+   * A value waiting in a worker queue.
+   */
+  private static final class PendingValue {
+
+    private final SourceDataTagValue value;
+
+    private final PendingMessage message;
+
+    private PendingValue(final SourceDataTagValue value, final PendingMessage message) {
+      this.value = value;
+      this.message = message;
+    }
+  }
+}
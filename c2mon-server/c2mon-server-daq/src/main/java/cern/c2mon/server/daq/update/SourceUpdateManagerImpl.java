@@ -19,6 +19,8 @@ package cern.c2mon.server.daq.update;
 import java.util.Collection;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.Session;
@@ -42,6 +44,7 @@ import cern.c2mon.server.cache.ProcessFacade;
 import cern.c2mon.server.cache.exception.CacheElementNotFoundException;
 import cern.c2mon.server.common.process.Process;
 import cern.c2mon.server.common.thread.Event;
+import cern.c2mon.server.daq.config.DaqProperties;
 import cern.c2mon.server.supervision.SupervisionManager;
 import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
 import cern.c2mon.shared.common.datatag.SourceDataTagValue;
@@ -102,6 +105,14 @@ public class SourceUpdateManagerImpl implements SourceUpdateManager, SessionAwar
 
   private final ServerProperties properties;
 
+  private final DaqProperties daqProperties;
+
+  /**
+   * Applies the values on tag id sharded worker threads; null if the values
+   * are applied directly on the JMS container threads.
+   */
+  private ShardedUpdateProcessor shardedUpdateProcessor;
+
   /**
    * For management only. Number of JMS threads
    * currently active.
@@ -135,7 +146,8 @@ public class SourceUpdateManagerImpl implements SourceUpdateManager, SessionAwar
                                  final DataTagValueUpdateConverter dataTagValueUpdateConverter,
                                  final ProcessFacade processFacade,
                                  final ProcessCache processCache,
-                                 final ServerProperties properties) {
+                                 final ServerProperties properties,
+                                 final DaqProperties daqProperties) {
     super();
     this.dataTagFacade = dataTagFacade;
     this.controlTagFacade = controlTagFacade;
@@ -144,6 +156,30 @@ public class SourceUpdateManagerImpl implements SourceUpdateManager, SessionAwar
     this.processFacade = processFacade;
     this.processCache = processCache;
     this.properties = properties;
+    this.daqProperties = daqProperties;
+  }
+
+  /**
+   * Starts the update worker threads, if enabled.
+   */
+  @PostConstruct
+  public void init() {
+    int workerThreads = daqProperties.getJms().getUpdate().getWorkerThreads();
+    if (workerThreads > 0) {
+      shardedUpdateProcessor = new ShardedUpdateProcessor(workerThreads,
+          daqProperties.getJms().getUpdate().getWorkerQueueCapacity(), this::processValue);
+      shardedUpdateProcessor.start();
+    }
+  }
+
+  /**
+   * Applies all values still queued for the update workers before shutdown.
+   */
+  @PreDestroy
+  public void shutdown() {
+    if (shardedUpdateProcessor != null) {
+      shardedUpdateProcessor.stop();
+    }
   }
 
   /**
@@ -151,7 +187,8 @@ public class SourceUpdateManagerImpl implements SourceUpdateManager, SessionAwar
    *
    * The incoming JMS message is only acknowledged once this method has returned successfully
    * (since this method is specified as listener method in the JCA container; the transaction
-   * manager manages the acknowledgment).
+   * manager manages the acknowledgment). With update worker threads, the method waits until
+   * the workers have applied all values.
    *
    * @param dataTagValueUpdate the incoming collection of updates (could be null if some error
    * occurred in converting the message; in this case, log the problem and ignore this update)
@@ -163,18 +200,12 @@ public class SourceUpdateManagerImpl implements SourceUpdateManager, SessionAwar
       activeUpdateThreads.getAndIncrement();
       Collection<SourceDataTagValue> values = dataTagValueUpdate.getValues();
       if (values != null ) {
-
-        for(SourceDataTagValue sourceDataTagValue : values){
-
-          //if the incoming value is a control tag (i.e. alive or commFault)
-          if (sourceDataTagValue.isControlTag()) {
-            processControl(sourceDataTagValue);
-          } else {
-            //else is a normal DataTag update
-            processDataTag(sourceDataTagValue);
+        if (shardedUpdateProcessor != null) {
+          shardedUpdateProcessor.dispatch(values);
+        } else {
+          for (SourceDataTagValue sourceDataTagValue : values) {
+            processValue(sourceDataTagValue);
           }
-          //log in file
-          sourceDataTagValue.log();
         }
       }
     } finally {
@@ -220,6 +251,23 @@ public class SourceUpdateManagerImpl implements SourceUpdateManager, SessionAwar
     }
   }
 
+  /**
+   * Applies a single incoming value to the cache and logs it.
+   *
+   * @param sourceDataTagValue the incoming value
+   */
+  private void processValue(final SourceDataTagValue sourceDataTagValue) {
+    //if the incoming value is a control tag (i.e. alive or commFault)
+    if (sourceDataTagValue.isControlTag()) {
+      processControl(sourceDataTagValue);
+    } else {
+      //else is a normal DataTag update
+      processDataTag(sourceDataTagValue);
+    }
+    //log in file
+    sourceDataTagValue.log();
+  }
+
   /**
    * Performs all operations needed on reception of a control tag. Currently very similar to
    * processDataTag method and uses the {@link DataTagFacade} to update the ControlTagCacheObject as it
@@ -269,62 +317,104 @@ public class SourceUpdateManagerImpl implements SourceUpdateManager, SessionAwar
   }
 
   /**
-   * Function to check all possible process PIK scenarios
+   * For management only.
+   * @return the number of values waiting in the update worker queues
+   */
+  @ManagedAttribute(description = "Number of DAQ values waiting in the update worker queues")
+  public int getWorkerQueueSize() {
+    return shardedUpdateProcessor != null ? shardedUpdateProcessor.getQueueSize() : 0;
+  }
+
+  /**
+   * Function to check all possible process PIK scenarios.
+   *
+   * <p>The PIK registered in the cache is only read (under the shared read lock
+   * of the cache element), so concurrent updates of the same process do not block
+   * each other. The write lock is only taken in the rare case where the server
+   * has no PIK registered and the one of the update has to be saved.
    *
    * @param dataTagValueUpdate Update with all information
    * @return {@link #IGNORE_UPDATE} if PIK registered in server but no PIK or wrong PIK sent
    *         {@link #ACCEPT_UPDATE} in any other case
    */
   private Boolean checkProcessPIK(final DataTagValueUpdate dataTagValueUpdate) {
-    Process process;
-
-    processCache.acquireWriteLockOnKey(dataTagValueUpdate.getProcessId());
     try {
-      process = this.processCache.get(dataTagValueUpdate.getProcessId());
+      Process process;
+      Long processPIK;
+      processCache.acquireReadLockOnKey(dataTagValueUpdate.getProcessId());
+      try {
+        process = this.processCache.get(dataTagValueUpdate.getProcessId());
+        processPIK = process.getProcessPIK();
+      } finally {
+        processCache.releaseReadLockOnKey(dataTagValueUpdate.getProcessId());
+      }
 
       // if PIK is registered in Server
-      if (process.getProcessPIK() != null) {
-        // If no PIK sent by the DAQ update or wrong PIK is sent by DAQ update ignore message
-        if (dataTagValueUpdate.getProcessPIK() == null) {
-          log.warn(" Processing incoming update for Process " + process.getName() +
-              ": PIK registered (" + process.getProcessPIK() + ") but no PIK received from update: Ignoring the update");
-
-          // TODO: Send disconnection
-          return IGNORE_UPDATE;
-        } else if (!process.getProcessPIK().equals(dataTagValueUpdate.getProcessPIK())) {
-          log.warn("Processing incoming updates for Process " + process.getName() +
-              ": Received wrong PIK - cache vs update (" + process.getProcessPIK() + " vs " +
-              dataTagValueUpdate.getProcessPIK() + "): Ignoring the update");
-
-          // TODO: Send disconnection
-          return IGNORE_UPDATE;
-        }
+      if (processPIK != null) {
+        return checkRegisteredPIK(process.getName(), processPIK, dataTagValueUpdate);
       }
-      // If no PIK register in server cache (ie. corrupted) save the PIK and Accept
-      else {
-        // If no PIK sent by the DAQ update ignore message
-        if (dataTagValueUpdate.getProcessPIK() == null) {
-          log.warn("Processing incoming update for Process " + process.getName() + " with no PIK: Ignoring the update");
-
-          return IGNORE_UPDATE;
-        }
-
-        // If the Test Mode is on we don't save the PIK
-        if (properties.isTestMode()) {
-          log.trace("[TEST] Processing incoming update for Process " + process.getName());
-        } else {
-          log.trace("Processing incoming update for Process " + process.getName() + " and saving PIK " + dataTagValueUpdate.getProcessPIK());
+      // If no PIK sent by the DAQ update ignore message
+      if (dataTagValueUpdate.getProcessPIK() == null) {
+        log.warn("Processing incoming update for Process " + process.getName() + " with no PIK: Ignoring the update");
 
-          this.processFacade.setProcessPIK(process.getId(), dataTagValueUpdate.getProcessPIK());
-        }
+        return IGNORE_UPDATE;
       }
+      return registerProcessPIK(dataTagValueUpdate);
     } catch (CacheElementNotFoundException cacheEx) {
       log.warn("Receive updates from unrecognized Process #" + dataTagValueUpdate.getProcessId() +  ": Ignoring the updates", cacheEx);
-    } finally {
-      processCache.releaseWriteLockOnKey(dataTagValueUpdate.getProcessId());
     }
 
     // If no problems we accept the update
     return ACCEPT_UPDATE;
   }
+
+  /**
+   * Compares the PIK of the update with the one registered in the server.
+   */
+  private Boolean checkRegisteredPIK(final String processName, final Long processPIK,
+                                     final DataTagValueUpdate dataTagValueUpdate) {
+    // If no PIK sent by the DAQ update or wrong PIK is sent by DAQ update ignore message
+    if (dataTagValueUpdate.getProcessPIK() == null) {
+      log.warn(" Processing incoming update for Process " + processName +
+          ": PIK registered (" + processPIK + ") but no PIK received from update: Ignoring the update");
+
+      // TODO: Send disconnection
+      return IGNORE_UPDATE;
+    } else if (!processPIK.equals(dataTagValueUpdate.getProcessPIK())) {
+      log.warn("Processing incoming updates for Process " + processName +
+          ": Received wrong PIK - cache vs update (" + processPIK + " vs " +
+          dataTagValueUpdate.getProcessPIK() + "): Ignoring the update");
+
+      // TODO: Send disconnection
+      return IGNORE_UPDATE;
+    }
+    return ACCEPT_UPDATE;
+  }
+
+  /**
+   * If no PIK is registered in the server cache (ie. corrupted), saves the PIK of
+   * the update and accepts it. The PIK is checked again under the write lock, as
+   * another thread may have registered it in the meantime.
+   */
+  private Boolean registerProcessPIK(final DataTagValueUpdate dataTagValueUpdate) {
+    processCache.acquireWriteLockOnKey(dataTagValueUpdate.getProcessId());
+    try {
+      Process process = this.processCache.get(dataTagValueUpdate.getProcessId());
+      if (process.getProcessPIK() != null) {
+        return checkRegisteredPIK(process.getName(), process.getProcessPIK(), dataTagValueUpdate);
+      }
+
+      // If the Test Mode is on we don't save the PIK
+      if (properties.isTestMode()) {
+        log.trace("[TEST] Processing incoming update for Process " + process.getName());
+      } else {
+        log.trace("Processing incoming update for Process " + process.getName() + " and saving PIK " + dataTagValueUpdate.getProcessPIK());
+
+        this.processFacade.setProcessPIK(process.getId(), dataTagValueUpdate.getProcessPIK());
+      }
+    } finally {
+      processCache.releaseWriteLockOnKey(dataTagValueUpdate.getProcessId());
+    }
+    return ACCEPT_UPDATE;
+  }
 }
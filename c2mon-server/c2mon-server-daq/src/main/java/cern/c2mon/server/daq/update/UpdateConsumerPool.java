@@ -0,0 +1,558 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.daq.update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+
+/**
+ * Receives the updates of all Process queues on a fixed number of JMS
+ * sessions of a single connection.
+ *
+ * <p>Every Process queue is consumed by one or more asynchronous consumers,
+ * each created on one of the sessions. The broker client dispatches the
+ * messages of all consumers of a session on one thread at a time, so the
+ * number of updates processed concurrently is bounded by the number of
+ * sessions, whatever the number of Processes.
+ *
+ * <p>The consumers are assigned adaptively: a Process starts with the initial
+ * number of consumers, placed on the least loaded sessions. The pool then
+ * periodically checks the time spent processing the messages of each Process.
+ * A Process whose consumers are busy most of the time gets an additional
+ * consumer, up to the maximum number of consumers; an idle Process goes back to
+ * its initial number of consumers.
+ *
+ * <p>Once the connection is started, a session belongs to the thread
+ * dispatching its messages and no consumer can be created on it from another
+ * thread. The consumers created from then on (additional consumers, new or
+ * resumed subscriptions) are therefore created while the delivery of the
+ * connection is stopped, which waits for the messages being processed.
+ *
+ * <p>If the connection fails, it is recreated with all consumers.
+ */
+@Slf4j
+class UpdateConsumerPool implements ExceptionListener {
+
+  /**
+   * Interval of the load checks.
+   */
+  private static final long REBALANCE_INTERVAL_MILLIS = 5000;
+
+  /**
+   * Delay between reconnection attempts.
+   */
+  private static final long RECONNECT_INTERVAL_MILLIS = 5000;
+
+  /**
+   * A Process using more than this fraction of the check interval per
+   * consumer to process its messages gets an additional consumer.
+   */
+  private static final double BUSY_RATIO = 0.8;
+
+  /**
+   * A Process using less than this fraction of the check interval per
+   * consumer to process its messages is considered idle.
+   */
+  private static final double IDLE_RATIO = 0.1;
+
+  private final ConnectionFactory connectionFactory;
+
+  private final SessionAwareMessageListener<Message> listener;
+
+  private final int numSessions;
+
+  private final int initialConsumers;
+
+  private final int prefetchSize;
+
+  private final boolean transacted;
+
+  /**
+   * Source of the time used to measure the load, in nanoseconds.
+   */
+  private final LongSupplier clock;
+
+  /**
+   * Maximum number of consumers per Process, raised after the warm-up.
+   */
+  private int maxConsumers;
+
+  /**
+   * Process id -> subscription, in subscription order.
+   */
+  private final Map<Long, Subscription> subscriptions = new LinkedHashMap<>();
+
+  private final List<UpdateSession> sessions = new ArrayList<>();
+
+  private Connection connection;
+
+  /**
+   * Whether the connection is started, so that its delivery must be stopped
+   * to create consumers.
+   */
+  private boolean started = false;
+
+  private boolean running = false;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * @param connectionFactory the factory of the DAQ update connection
+   * @param listener the listener processing the update messages
+   * @param numSessions the number of sessions (and so of receiving threads)
+   * @param initialConsumers the number of consumers of a Process queue without backlog
+   * @param maxConsumers the maximum number of consumers of a Process queue
+   * @param prefetchSize the number of messages prefetched by each consumer
+   * @param transacted whether the messages are acknowledged by committing the session
+   *                   once processed
+   */
+  UpdateConsumerPool(final ConnectionFactory connectionFactory, final SessionAwareMessageListener<Message> listener,
+                     final int numSessions, final int initialConsumers, final int maxConsumers,
+                     final int prefetchSize, final boolean transacted) {
+    this(connectionFactory, listener, numSessions, initialConsumers, maxConsumers, prefetchSize, transacted,
+        System::nanoTime);
+  }
+
+  /**
+   * @param clock the source of the time used to measure the load, in nanoseconds
+   */
+  UpdateConsumerPool(final ConnectionFactory connectionFactory, final SessionAwareMessageListener<Message> listener,
+                     final int numSessions, final int initialConsumers, final int maxConsumers,
+                     final int prefetchSize, final boolean transacted, final LongSupplier clock) {
+    this.clock = clock;
+    this.connectionFactory = connectionFactory;
+    this.listener = listener;
+    this.numSessions = Math.max(1, numSessions);
+    this.initialConsumers = Math.max(1, initialConsumers);
+    this.maxConsumers = Math.max(this.initialConsumers, maxConsumers);
+    this.prefetchSize = prefetchSize;
+    this.transacted = transacted;
+  }
+
+  /**
+   * Opens the connection and creates the consumers of all subscribed Processes.
+   */
+  synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "DaqUpdateConsumerPool");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::rebalance, REBALANCE_INTERVAL_MILLIS, REBALANCE_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+    connect();
+  }
+
+  /**
+   * Closes the connection. The subscriptions are kept.
+   */
+  synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    scheduler.shutdownNow();
+    disconnect();
+  }
+
+  /**
+   * Starts consuming the updates of a Process.
+   *
+   * @param processId the Process id
+   * @param queueName the update queue of the Process
+   * @return false if the Process was already subscribed
+   */
+  synchronized boolean subscribe(final Long processId, final String queueName) {
+    if (subscriptions.containsKey(processId)) {
+      return false;
+    }
+    Subscription subscription = new Subscription(queueName, clock.getAsLong());
+    subscriptions.put(processId, subscription);
+    if (connection != null) {
+      addConsumers(subscription, initialConsumers);
+    }
+    return true;
+  }
+
+  /**
+   * Stops consuming the updates of a Process.
+   *
+   * @param processId the Process id
+   * @return false if the Process was not subscribed
+   */
+  synchronized boolean unsubscribe(final Long processId) {
+    Subscription subscription = subscriptions.remove(processId);
+    if (subscription == null) {
+      return false;
+    }
+    closeConsumers(subscription);
+    return true;
+  }
+
+  /**
+   * @return the ids of the subscribed Processes
+   */
+  synchronized Set<Long> getSubscribedProcessIds() {
+    return new HashSet<>(subscriptions.keySet());
+  }
+
+  /**
+   * Stops or restarts the consumption of the updates of a Process, keeping
+   * its subscription.
+   *
+   * @param processId the Process id
+   * @param paused true to stop the consumption
+   */
+  synchronized void setPaused(final Long processId, final boolean paused) {
+    Subscription subscription = subscriptions.get(processId);
+    if (subscription == null || subscription.paused == paused) {
+      return;
+    }
+    subscription.paused = paused;
+    if (paused) {
+      closeConsumers(subscription);
+    } else if (connection != null) {
+      addConsumers(subscription, initialConsumers);
+    }
+  }
+
+  /**
+   * @param maxConsumers the new maximum number of consumers per Process
+   */
+  synchronized void setMaxConsumers(final int maxConsumers) {
+    this.maxConsumers = Math.max(initialConsumers, maxConsumers);
+  }
+
+  /**
+   * @param processId the Process id
+   * @return the current number of consumers of the Process queue
+   */
+  synchronized int getNumConsumers(final Long processId) {
+    Subscription subscription = subscriptions.get(processId);
+    return subscription == null ? 0 : subscription.consumers.size();
+  }
+
+  /**
+   * @return the number of messages being processed
+   */
+  synchronized int getNumProcessing() {
+    int processing = 0;
+    for (Subscription subscription : subscriptions.values()) {
+      for (Consumer consumer : subscription.consumers) {
+        if (consumer.processingSince != 0) {
+          processing++;
+        }
+      }
+    }
+    return processing;
+  }
+
+  /**
+   * Adds a consumer to every busy Process, and removes the additional
+   * consumers of idle Processes.
+   */
+  synchronized void rebalance() {
+    if (connection == null) {
+      return;
+    }
+    long now = clock.getAsLong();
+    List<Subscription> busySubscriptions = new ArrayList<>();
+    for (UpdateSession session : sessions) {
+      session.updateLoad();
+    }
+    for (Subscription subscription : subscriptions.values()) {
+      long elapsed = now - subscription.lastCheck;
+      long busy = subscription.busyNanos.sumThenReset();
+      for (Consumer consumer : subscription.consumers) {
+        long processingSince = consumer.processingSince;
+        if (processingSince != 0) {
+          busy += now - Math.max(processingSince, subscription.lastCheck);
+        }
+      }
+      subscription.lastCheck = now;
+      if (subscription.paused) {
+        continue;
+      }
+      int consumers = subscription.consumers.size();
+      if (busy > elapsed * BUSY_RATIO * consumers && consumers < maxConsumers && consumers < sessions.size()) {
+        log.debug("Consumers of queue {} busy {}% of the time: adding a consumer", subscription.queueName,
+            busy * 100 / (elapsed * consumers));
+        busySubscriptions.add(subscription);
+      } else if (consumers > initialConsumers && busy < elapsed * IDLE_RATIO * consumers) {
+        Consumer consumer = subscription.consumers.stream()
+            .max(Comparator.comparingLong(c -> c.session.load)).get();
+        closeConsumer(consumer);
+      }
+    }
+    if (!busySubscriptions.isEmpty()) {
+      addConsumers(busySubscriptions, 1);
+    }
+  }
+
+  @Override
+  public void onException(final JMSException exception) {
+    log.error("DAQ update connection failed, reconnecting", exception);
+    synchronized (this) {
+      if (running) {
+        disconnect();
+        scheduler.execute(this::connect);
+      }
+    }
+  }
+
+  private synchronized void connect() {
+    if (!running || connection != null) {
+      return;
+    }
+    try {
+      connection = connectionFactory.createConnection();
+      connection.setExceptionListener(this);
+      for (int i = 0; i < numSessions; i++) {
+        int acknowledgeMode = transacted ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE;
+        sessions.add(new UpdateSession(i, connection.createSession(transacted, acknowledgeMode)));
+      }
+      for (Subscription subscription : subscriptions.values()) {
+        if (!subscription.paused) {
+          addConsumers(subscription, initialConsumers);
+        }
+      }
+      connection.start();
+      started = true;
+      log.info("Receiving DAQ updates of {} Processes on {} sessions", subscriptions.size(), sessions.size());
+    } catch (JMSException e) {
+      log.error("Could not create the DAQ update connection, retrying in {} ms", RECONNECT_INTERVAL_MILLIS, e);
+      disconnect();
+      scheduler.schedule(this::connect, RECONNECT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void disconnect() {
+    for (Subscription subscription : subscriptions.values()) {
+      subscription.consumers.clear();
+    }
+    sessions.clear();
+    started = false;
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (JMSException e) {
+        log.warn("Error closing the DAQ update connection", e);
+      }
+      connection = null;
+    }
+  }
+
+  private void addConsumers(final Subscription subscription, final int count) {
+    addConsumers(Collections.singletonList(subscription), count);
+  }
+
+  /**
+   * Adds consumers on the least loaded sessions not consuming the queue yet.
+   * Once the connection is started, its delivery is stopped meanwhile.
+   */
+  private void addConsumers(final List<Subscription> toExtend, final int count) {
+    if (started) {
+      try {
+        connection.stop();
+      } catch (JMSException e) {
+        log.error("Could not stop the DAQ update connection to add consumers", e);
+        return;
+      }
+    }
+    try {
+      for (Subscription subscription : toExtend) {
+        addSessionConsumers(subscription, count);
+      }
+    } finally {
+      if (started) {
+        try {
+          connection.start();
+        } catch (JMSException e) {
+          log.error("Could not restart the DAQ update connection", e);
+        }
+      }
+    }
+  }
+
+  private void addSessionConsumers(final Subscription subscription, final int count) {
+    for (int i = 0; i < count; i++) {
+      UpdateSession session = sessions.stream()
+          .filter(s -> subscription.consumers.stream().noneMatch(c -> c.session == s))
+          .min(Comparator.comparingLong((UpdateSession s) -> s.load).thenComparingInt(s -> s.consumers))
+          .orElse(null);
+      if (session == null) {
+        return;
+      }
+      try {
+        Consumer consumer = new Consumer(subscription, session);
+        consumer.messageConsumer = session.session.createConsumer(
+            new ActiveMQQueue(subscription.queueName + "?consumer.prefetchSize=" + prefetchSize));
+        consumer.messageConsumer.setMessageListener(consumer);
+        subscription.consumers.add(consumer);
+        session.consumers++;
+      } catch (JMSException e) {
+        log.error("Could not create a consumer for queue {}", subscription.queueName, e);
+        return;
+      }
+    }
+  }
+
+  private void closeConsumers(final Subscription subscription) {
+    for (Consumer consumer : new ArrayList<>(subscription.consumers)) {
+      closeConsumer(consumer);
+    }
+  }
+
+  /**
+   * Closing a consumer is allowed from any thread and waits for the message
+   * being processed, if any.
+   */
+  private void closeConsumer(final Consumer consumer) {
+    consumer.subscription.consumers.remove(consumer);
+    consumer.session.consumers--;
+    try {
+      consumer.messageConsumer.close();
+    } catch (JMSException e) {
+      log.warn("Error closing a consumer of queue {}", consumer.subscription.queueName, e);
+    }
+  }
+
+  /**
+   * A session shared by the consumers of several Processes.
+   */
+  private static final class UpdateSession {
+
+    private final int index;
+
+    private final Session session;
+
+    /** Time spent processing messages since the last check */
+    private final LongAdder busyNanos = new LongAdder();
+
+    /** Time spent processing messages during the last check interval */
+    private long load;
+
+    /** Number of consumers on this session */
+    private int consumers;
+
+    private UpdateSession(final int index, final Session session) {
+      this.index = index;
+      this.session = session;
+    }
+
+    private void updateLoad() {
+      load = busyNanos.sumThenReset();
+    }
+  }
+
+  /**
+   * The consumers of a Process queue.
+   */
+  private static final class Subscription {
+
+    private final String queueName;
+
+    private final List<Consumer> consumers = new ArrayList<>();
+
+    /** Time spent processing messages of this queue since the last check */
+    private final LongAdder busyNanos = new LongAdder();
+
+    /** Time of the last check; processing time before it has already been accounted */
+    private volatile long lastCheck;
+
+    private boolean paused = false;
+
+    private Subscription(final String queueName, final long now) {
+      this.queueName = queueName;
+      this.lastCheck = now;
+    }
+  }
+
+  /**
+   * Consumer of a Process queue on one of the sessions.
+   */
+  private final class Consumer implements MessageListener {
+
+    private final Subscription subscription;
+
+    private final UpdateSession session;
+
+    private MessageConsumer messageConsumer;
+
+    /** Start time of the message being processed, 0 if none */
+    private volatile long processingSince;
+
+    private Consumer(final Subscription subscription, final UpdateSession session) {
+      this.subscription = subscription;
+      this.session = session;
+    }
+
+    @Override
+    public void onMessage(final Message message) {
+      long start = clock.getAsLong();
+      processingSince = start;
+      try {
+        listener.onMessage(message, session.session);
+        if (transacted) {
+          session.session.commit();
+        }
+      } catch (JMSException | RuntimeException e) {
+        log.error("Error processing an update from queue {}", subscription.queueName, e);
+        if (transacted) {
+          try {
+            session.session.rollback();
+          } catch (JMSException rollbackException) {
+            log.error("Error rolling back the session {}", session.index, rollbackException);
+          }
+        }
+      } finally {
+        processingSince = 0;
+        long busy = clock.getAsLong() - Math.max(start, subscription.lastCheck);
+        subscription.busyNanos.add(busy);
+        session.busyNanos.add(busy);
+      }
+    }
+  }
+}
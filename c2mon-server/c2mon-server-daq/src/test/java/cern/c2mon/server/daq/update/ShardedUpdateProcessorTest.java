@@ -0,0 +1,156 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.daq.update;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShardedUpdateProcessorTest {
+
+  @Test
+  public void testUpdatesOfTagAreAppliedInOrder() {
+    Map<Long, List<Object>> received = new ConcurrentHashMap<>();
+    ShardedUpdateProcessor processor = new ShardedUpdateProcessor(4, 100,
+        value -> received.computeIfAbsent(value.getId(), id -> new CopyOnWriteArrayList<>()).add(value.getValue()));
+    processor.start();
+
+    for (int i = 0; i < 1000; i++) {
+      List<SourceDataTagValue> values = new ArrayList<>();
+      for (long tagId = 1; tagId <= 10; tagId++) {
+        values.add(createValue(tagId, i));
+      }
+      processor.dispatch(values);
+    }
+    processor.stop();
+
+    assertEquals(10, received.size());
+    for (List<Object> tagValues : received.values()) {
+      assertEquals(1000, tagValues.size());
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(i, tagValues.get(i));
+      }
+    }
+    assertEquals(0, processor.getQueueSize());
+  }
+
+  @Test
+  public void testDispatchReturnsOnceValuesAreApplied() {
+    List<Object> applied = new CopyOnWriteArrayList<>();
+    ShardedUpdateProcessor processor = new ShardedUpdateProcessor(4, 100, value -> applied.add(value.getValue()));
+    processor.start();
+    try {
+      for (int i = 0; i < 100; i++) {
+        List<SourceDataTagValue> values = new ArrayList<>();
+        for (long tagId = 1; tagId <= 10; tagId++) {
+          values.add(createValue(tagId, i));
+        }
+        processor.dispatch(values);
+        assertEquals((i + 1) * 10, applied.size());
+      }
+    } finally {
+      processor.stop();
+    }
+  }
+
+  @Test
+  public void testBlockedDispatchIsReleasedByStop() throws Exception {
+    CountDownLatch handling = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ShardedUpdateProcessor processor = new ShardedUpdateProcessor(1, 1, value -> {
+      handling.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    processor.start();
+
+    // the worker holds the first value; of the two next ones, one fills the
+    // queue and the other one waits for queue space
+    Thread first = new Thread(() -> processor.dispatch(Collections.singletonList(createValue(1L, 1))));
+    first.start();
+    assertTrue(handling.await(5, TimeUnit.SECONDS));
+    List<Exception> dispatchErrors = new CopyOnWriteArrayList<>();
+    CountDownLatch rejected = new CountDownLatch(1);
+    List<Thread> dispatchers = new ArrayList<>();
+    for (int i = 2; i <= 3; i++) {
+      SourceDataTagValue value = createValue(1L, i);
+      dispatchers.add(new Thread(() -> {
+        try {
+          processor.dispatch(Collections.singletonList(value));
+        } catch (IllegalStateException e) {
+          dispatchErrors.add(e);
+          rejected.countDown();
+        }
+      }));
+    }
+    dispatchers.forEach(Thread::start);
+    Thread stopper = new Thread(processor::stop);
+    stopper.start();
+
+    assertTrue("dispatch should not block after stop()", rejected.await(5, TimeUnit.SECONDS));
+
+    // the value held by the worker is still applied
+    release.countDown();
+    first.join(5000);
+    assertFalse(first.isAlive());
+    for (Thread dispatcher : dispatchers) {
+      dispatcher.join(5000);
+      assertFalse(dispatcher.isAlive());
+    }
+    // depending on when stop() is seen, the value in the queue is applied or rejected
+    assertFalse(dispatchErrors.isEmpty());
+    stopper.join(5000);
+    assertFalse(stopper.isAlive());
+  }
+
+  @Test
+  public void testDispatchAfterStopIsRejected() {
+    ShardedUpdateProcessor processor = new ShardedUpdateProcessor(1, 10, value -> { });
+    processor.start();
+    processor.stop();
+    try {
+      processor.dispatch(Collections.singletonList(createValue(1L, 1)));
+      fail("dispatch should be rejected once the processor is stopped");
+    } catch (IllegalStateException e) {
+      assertEquals(0, processor.getQueueSize());
+    }
+  }
+
+  private static SourceDataTagValue createValue(final Long tagId, final int value) {
+    return new SourceDataTagValue(tagId, "tag" + tagId, false, value, new SourceDataTagQuality(),
+        new Timestamp(System.currentTimeMillis()), 0, false, null, 9999999);
+  }
+}
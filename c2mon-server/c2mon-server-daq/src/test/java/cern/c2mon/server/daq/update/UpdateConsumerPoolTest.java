@@ -0,0 +1,186 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.daq.update;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateConsumerPoolTest {
+
+  private ActiveMQConnectionFactory connectionFactory;
+
+  private Connection producerConnection;
+
+  private UpdateConsumerPool pool;
+
+  @Before
+  public void setUp() throws JMSException {
+    connectionFactory = new ActiveMQConnectionFactory("vm://UpdateConsumerPoolTest?broker.persistent=false&broker.useJmx=false");
+    producerConnection = connectionFactory.createConnection();
+    producerConnection.start();
+  }
+
+  @After
+  public void tearDown() throws JMSException {
+    if (pool != null) {
+      pool.stop();
+    }
+    producerConnection.close();
+  }
+
+  @Test
+  public void testQueuesAreConsumedOnSharedSessions() throws Exception {
+    List<String> received = new CopyOnWriteArrayList<>();
+    AtomicInteger processing = new AtomicInteger();
+    AtomicInteger maxProcessing = new AtomicInteger();
+    CountDownLatch latch = new CountDownLatch(30);
+    pool = new UpdateConsumerPool(connectionFactory, (message, session) -> {
+      maxProcessing.accumulateAndGet(processing.incrementAndGet(), Math::max);
+      received.add(((TextMessage) message).getText());
+      processing.decrementAndGet();
+      latch.countDown();
+    }, 2, 1, 1, 10, true);
+
+    for (long processId = 1; processId <= 3; processId++) {
+      pool.subscribe(processId, "test.update.P" + processId);
+    }
+    pool.start();
+    for (int processId = 1; processId <= 3; processId++) {
+      send("test.update.P" + processId, 10);
+    }
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(30, received.size());
+    assertTrue(maxProcessing.get() <= 2);
+  }
+
+  @Test
+  public void testUnsubscribedQueueIsNotConsumed() throws Exception {
+    List<String> received = new CopyOnWriteArrayList<>();
+    pool = new UpdateConsumerPool(connectionFactory, (message, session) -> received.add(((TextMessage) message).getText()),
+        2, 1, 1, 10, true);
+    pool.subscribe(1L, "test.update.unsubscribed");
+    pool.start();
+    assertEquals(1, pool.getNumConsumers(1L));
+
+    assertTrue(pool.unsubscribe(1L));
+    send("test.update.unsubscribed", 5);
+    Thread.sleep(500);
+
+    assertTrue(received.isEmpty());
+    assertEquals(0, pool.getNumConsumers(1L));
+  }
+
+  @Test
+  public void testConsumersFollowLoad() throws Exception {
+    AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(1));
+    Semaphore entered = new Semaphore(0);
+    AtomicReference<CountDownLatch> release = new AtomicReference<>(new CountDownLatch(1));
+    // one message prefetched per consumer, so that each round keeps every consumer busy
+    pool = new UpdateConsumerPool(connectionFactory, (message, session) -> {
+      CountDownLatch held = release.get();
+      entered.release();
+      try {
+        held.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, 4, 1, 3, 1, true, clock::get);
+    pool.subscribe(1L, "test.update.load");
+    pool.start();
+
+    // every consumer blocks on a message: one consumer is added per check
+    for (int consumers = 1; consumers < 3; consumers++) {
+      send("test.update.load", consumers);
+      assertTrue(entered.tryAcquire(consumers, 10, TimeUnit.SECONDS));
+      releaseAndCheckAfter(clock, 1, release);
+      assertEquals(consumers + 1, pool.getNumConsumers(1L));
+    }
+    send("test.update.load", 3);
+    assertTrue(entered.tryAcquire(3, 10, TimeUnit.SECONDS));
+    assertEquals(3, pool.getNumProcessing());
+    checkAfter(clock, 1);
+    assertEquals(3, pool.getNumConsumers(1L));
+
+    // adding a consumer waits for the messages being processed
+    pool.setMaxConsumers(4);
+    releaseAndCheckAfter(clock, 1, release);
+    assertEquals(4, pool.getNumConsumers(1L));
+    assertEquals(0, pool.getNumProcessing());
+
+    // the additional consumers are removed one per check once idle
+    for (int consumers = 3; consumers >= 1; consumers--) {
+      checkAfter(clock, 1);
+      assertEquals(consumers, pool.getNumConsumers(1L));
+    }
+    checkAfter(clock, 1);
+    assertEquals(1, pool.getNumConsumers(1L));
+  }
+
+  /**
+   * Advances the clock and checks the load, without letting the periodic check
+   * of the pool run in between.
+   */
+  private void checkAfter(AtomicLong clock, long seconds) {
+    synchronized (pool) {
+      clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+      pool.rebalance();
+    }
+  }
+
+  /**
+   * As {@link #checkAfter(AtomicLong, long)}, releasing the messages being
+   * processed once the clock is advanced: a check adding consumers waits for
+   * them.
+   */
+  private void releaseAndCheckAfter(AtomicLong clock, long seconds, AtomicReference<CountDownLatch> release) {
+    synchronized (pool) {
+      clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+      release.getAndSet(new CountDownLatch(1)).countDown();
+      pool.rebalance();
+    }
+  }
+
+  private void send(String queueName, int count) throws JMSException {
+    Session session = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    MessageProducer producer = session.createProducer(session.createQueue(queueName));
+    for (int i = 0; i < count; i++) {
+      producer.send(session.createTextMessage(queueName + "-" + i));
+    }
+    session.close();
+  }
+}
@@ -16,8 +16,12 @@
  *****************************************************************************/
 package cern.c2mon.server.elasticsearch;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +34,11 @@ import cern.c2mon.server.elasticsearch.domain.IndexMetadata;
  * Rest-based (check
  * <a href="https://www.elastic.co/guide/en/elasticsearch/client/java-rest/current/index.html>
  * Elasticsearch Documentation</a> for more details) supported index-related operations manager.
+ * <p>
+ * Known indices are kept in a concurrent set, so that checking an existing
+ * index does not lock. Only the creation of an index is serialized, on a
+ * fixed set of locks striped by index name; documents are indexed and updated
+ * concurrently.
  *
  * @author James Hamilton
  * @author Serhiy Boychenko
@@ -38,7 +47,22 @@ import cern.c2mon.server.elasticsearch.domain.IndexMetadata;
 @Component
 public class IndexManager {
 
-  private final List<String> indexCache = new CopyOnWriteArrayList<>();
+  private final Set<String> indexCache = ConcurrentHashMap.newKeySet();
+
+  /** Number of locks the index creations are striped over */
+  private static final int CREATION_LOCK_STRIPES = 64;
+
+  /** Locks serializing the creation of the indices hashed to them */
+  private final Object[] creationLocks = new Object[CREATION_LOCK_STRIPES];
+
+  /** Indices waiting to be created in the background */
+  private final Set<String> pendingCreations = ConcurrentHashMap.newKeySet();
+
+  private final ExecutorService creationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "IndexManager-creation");
+    thread.setDaemon(true);
+    return thread;
+  });
 
   private final ElasticsearchClient client;
 
@@ -48,6 +72,9 @@ public class IndexManager {
   @Autowired
   public IndexManager(ElasticsearchClient client) {
     this.client = client;
+    for (int i = 0; i < creationLocks.length; i++) {
+      creationLocks[i] = new Object();
+    }
   }
 
   /**
@@ -58,7 +85,11 @@ public class IndexManager {
    * @return true if the index was successfully created, false otherwise.
    */
   public boolean create(IndexMetadata indexMetadata, String mapping) {
-    synchronized (IndexManager.class) {
+    if (indexCache.contains(indexMetadata.getName())) {
+      return true;
+    }
+
+    synchronized (creationLock(indexMetadata.getName())) {
       if (exists(indexMetadata)) {
         return true;
       }
@@ -75,6 +106,32 @@ public class IndexManager {
     }
   }
 
+  /**
+   * Create an index in the background if it is not known yet, e.g. the index
+   * of the next time bucket ahead of rollover.
+   *
+   * @param indexMetadata with details of index to be created
+   * @param mapping the mapping source.
+   */
+  public void createAsync(IndexMetadata indexMetadata, String mapping) {
+    String name = indexMetadata.getName();
+    if (indexCache.contains(name) || !pendingCreations.add(name)) {
+      return;
+    }
+
+    creationExecutor.execute(() -> {
+      try {
+        if (!create(indexMetadata, mapping)) {
+          log.warn("Could not create index '{}' in advance", name);
+        }
+      } catch (RuntimeException e) {
+        log.warn("Error creating index '{}' in advance", name, e);
+      } finally {
+        pendingCreations.remove(name);
+      }
+    });
+  }
+
   /**
    * Store document with relation to specific index.
    *
@@ -83,13 +140,11 @@ public class IndexManager {
    * @return true if the document was successfully indexed, false otherwise.
    */
   public boolean index(IndexMetadata indexMetadata, String data) {
-    synchronized (IndexManager.class) {
-      boolean indexed = client.indexData(indexMetadata, data);
+    boolean indexed = client.indexData(indexMetadata, data);
 
-      client.waitForYellowStatus();
+    client.waitForYellowStatus();
 
-      return indexed;
-    }
+    return indexed;
   }
 
   /**
@@ -102,20 +157,16 @@ public class IndexManager {
    * @return true if the index exists, false otherwise.
    */
   public boolean exists(IndexMetadata indexMetadata) {
-    synchronized (IndexManager.class) {
-      if (indexCache.contains(indexMetadata.getName())) {
-        return true;
-      }
-
-      IndexMetadata.builder().name(indexMetadata.getName()).routing(indexMetadata.getRouting()).build();
-
-      if (client.isIndexExisting(indexMetadata)) {
-        indexCache.add(indexMetadata.getName());
-        return true;
-      }
+    if (indexCache.contains(indexMetadata.getName())) {
+      return true;
+    }
 
-      return false;
+    if (client.isIndexExisting(indexMetadata)) {
+      indexCache.add(indexMetadata.getName());
+      return true;
     }
+
+    return false;
   }
 
   /**
@@ -126,13 +177,11 @@ public class IndexManager {
    * @return true if index was successfully updated, false otherwise.
    */
   public boolean update(IndexMetadata indexMetadata, String data) {
-    synchronized (IndexManager.class) {
-      boolean updated = client.updateIndex(indexMetadata, data);
+    boolean updated = client.updateIndex(indexMetadata, data);
 
-      client.waitForYellowStatus();
+    client.waitForYellowStatus();
 
-      return updated;
-    }
+    return updated;
   }
 
   /**
@@ -142,7 +191,7 @@ public class IndexManager {
    * @return true if index was successfully deleted, false otherwise.
    */
   public boolean delete(IndexMetadata indexMetadata) {
-    synchronized (IndexManager.class) {
+    synchronized (creationLock(indexMetadata.getName())) {
       indexCache.remove(indexMetadata.getName());
       boolean deleted = client.deleteIndex(indexMetadata);
       client.waitForYellowStatus();
@@ -150,12 +199,23 @@ public class IndexManager {
     }
   }
 
+  /**
+   * @param name of the index
+   * @return the lock serializing the creation and deletion of the index
+   */
+  private Object creationLock(String name) {
+    return creationLocks[(name.hashCode() & Integer.MAX_VALUE) % creationLocks.length];
+  }
+
   /**
    * Removes all cached components from index cache.
    */
   void purgeIndexCache() {
-    synchronized (IndexManager.class) {
-      indexCache.clear();
-    }
+    indexCache.clear();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    creationExecutor.shutdownNow();
   }
 }
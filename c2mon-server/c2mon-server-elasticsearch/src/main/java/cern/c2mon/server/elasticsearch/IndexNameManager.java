@@ -19,8 +19,15 @@ package cern.c2mon.server.elasticsearch;
 import java.text.SimpleDateFormat;
 import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,12 +41,28 @@ import cern.c2mon.server.elasticsearch.tag.config.TagConfigDocument;
 
 /**
  * Manages index name definitions.
+ * <p>
+ * Time series documents are indexed by their own timestamp, so that documents
+ * replayed from the fallback files end up in the index of the time they were
+ * recorded. Index names are cached per prefix together with the time bucket
+ * (day, week or month) they cover, so that the name is only formatted once
+ * per bucket, even if timestamps arrive out of order. All methods are
+ * thread-safe.
  */
 @Component
 public class IndexNameManager {
 
   private Clock clock;
 
+  /** Maximum number of days for which index names are cached per prefix */
+  private static final int MAX_CACHED_DAYS = 1024;
+
+  /** Index prefix to the bucket of the last generated index name */
+  private final Map<String, IndexBucket> lastBuckets = new ConcurrentHashMap<>();
+
+  /** Index prefix to the buckets of recently generated index names, by epoch day */
+  private final Map<String, Map<Long, IndexBucket>> bucketsByDay = new ConcurrentHashMap<>();
+
   @Getter
   private final ElasticsearchProperties properties;
 
@@ -61,7 +84,18 @@ public class IndexNameManager {
    */
   public String indexFor(TagDocument tag) {
     String prefix = properties.getIndexPrefix() + "-tag_";
-    return getIndexName(prefix, Instant.now(clock));
+    return getIndexName(prefix, timestampOf(tag));
+  }
+
+  /**
+   * Generate the index that will follow the current index of {@link TagDocument}s.
+   *
+   * @param tag the tag to generate an index for
+   * @return the generated index name
+   */
+  public String nextIndexFor(TagDocument tag) {
+    String prefix = properties.getIndexPrefix() + "-tag_";
+    return getIndexName(prefix, nextBucket(Instant.now(clock)));
   }
 
   /**
@@ -83,7 +117,18 @@ public class IndexNameManager {
    */
   public String indexFor(AlarmDocument alarm) {
     String prefix = properties.getIndexPrefix() + "-alarm_";
-    return getIndexName(prefix, Instant.now(clock));
+    return getIndexName(prefix, timestampOf(alarm));
+  }
+
+  /**
+   * Generate the index that will follow the current index of {@link AlarmDocument}s.
+   *
+   * @param alarm the alarm to generate an index for
+   * @return the generated index name
+   */
+  public String nextIndexFor(AlarmDocument alarm) {
+    String prefix = properties.getIndexPrefix() + "-alarm_";
+    return getIndexName(prefix, nextBucket(Instant.now(clock)));
   }
 
   /**
@@ -95,7 +140,18 @@ public class IndexNameManager {
    */
   public String indexFor(SupervisionEventDocument supervisionEvent) {
     String prefix = properties.getIndexPrefix() + "-supervision_";
-    return getIndexName(prefix, Instant.now(clock));
+    return getIndexName(prefix, timestampOf(supervisionEvent));
+  }
+
+  /**
+   * Generate the index that will follow the current index of {@link SupervisionEventDocument}s.
+   *
+   * @param supervisionEvent the supervision event to generate an index for
+   * @return the generated index name
+   */
+  public String nextIndexFor(SupervisionEventDocument supervisionEvent) {
+    String prefix = properties.getIndexPrefix() + "-supervision_";
+    return getIndexName(prefix, nextBucket(Instant.now(clock)));
   }
 
   /**
@@ -108,22 +164,90 @@ public class IndexNameManager {
    */
   private String getIndexName(String prefix, Instant instant) {
     String indexType = properties.getIndexType();
+    long millis = instant.toEpochMilli();
+
+    IndexBucket bucket = lastBuckets.get(prefix);
+    if (bucket != null && bucket.contains(indexType, millis)) {
+      return bucket.name;
+    }
+
+    Map<Long, IndexBucket> days = bucketsByDay.computeIfAbsent(prefix, key -> new ConcurrentHashMap<>());
+    long day = instant.atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    bucket = days.get(day);
+    if (bucket == null || !bucket.contains(indexType, millis)) {
+      bucket = createBucket(prefix, indexType, instant);
+      if (days.size() >= MAX_CACHED_DAYS) {
+        days.clear();
+      }
+      days.put(day, bucket);
+    }
+
+    lastBuckets.put(prefix, bucket);
+    return bucket.name;
+  }
+
+  /**
+   * @return the "timestamp" of the document, or the current time if it has none
+   */
+  private Instant timestampOf(Map<String, Object> document) {
+    Object timestamp = document.get("timestamp");
+    if (timestamp instanceof Number) {
+      return Instant.ofEpochMilli(((Number) timestamp).longValue());
+    }
+    return Instant.now(clock);
+  }
+
+  private IndexBucket createBucket(String prefix, String indexType, Instant instant) {
+    ZonedDateTime time = instant.atZone(ZoneId.systemDefault());
+    ZonedDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+    ZonedDateTime start;
+    ZonedDateTime end;
     String dateFormat;
 
     switch (indexType.toLowerCase(Locale.getDefault())) {
       case "d":
         dateFormat = "yyyy-MM-dd";
+        start = day;
+        end = day.plusDays(1);
         break;
       case "w":
+        // the name combines the calendar year with the week of year, so a
+        // week crossing the new year is split into two buckets
         dateFormat = "yyyy-'W'ww";
+        ZonedDateTime weekStart = day.with(WeekFields.of(Locale.getDefault()).dayOfWeek(), 1);
+        ZonedDateTime yearStart = day.with(TemporalAdjusters.firstDayOfYear());
+        start = weekStart.isAfter(yearStart) ? weekStart : yearStart;
+        ZonedDateTime weekEnd = weekStart.plusWeeks(1);
+        ZonedDateTime yearEnd = yearStart.plusYears(1);
+        end = weekEnd.isBefore(yearEnd) ? weekEnd : yearEnd;
         break;
       case "m":
       default:
         dateFormat = "yyyy-MM";
+        start = day.with(TemporalAdjusters.firstDayOfMonth());
+        end = start.plusMonths(1);
         break;
     }
 
-    return prefix + new SimpleDateFormat(dateFormat, Locale.getDefault()).format(Date.from(instant));
+    String name = prefix + new SimpleDateFormat(dateFormat, Locale.getDefault()).format(Date.from(instant));
+    return new IndexBucket(indexType, start.toInstant().toEpochMilli(), end.toInstant().toEpochMilli(), name);
+  }
+
+  /**
+   * @return an instant in the time bucket following the one of the given instant
+   */
+  private Instant nextBucket(Instant instant) {
+    ZonedDateTime time = instant.atZone(ZoneId.systemDefault());
+
+    switch (properties.getIndexType().toLowerCase(Locale.getDefault())) {
+      case "d":
+        return time.plusDays(1).toInstant();
+      case "w":
+        return time.plusWeeks(1).toInstant();
+      case "m":
+      default:
+        return time.plusMonths(1).toInstant();
+    }
   }
 
   /**
@@ -134,4 +258,26 @@ public class IndexNameManager {
   protected void setClock(Clock clock) {
     this.clock = clock;
   }
+
+  /**
+   * Time interval [start, end) covered by an index name.
+   */
+  private static final class IndexBucket {
+
+    private final String indexType;
+    private final long start;
+    private final long end;
+    private final String name;
+
+    private IndexBucket(String indexType, long start, long end, String name) {
+      this.indexType = indexType;
+      this.start = start;
+      this.end = end;
+      this.name = name;
+    }
+
+    private boolean contains(String indexType, long millis) {
+      return this.indexType.equals(indexType) && start <= millis && millis < end;
+    }
+  }
 }
@@ -48,6 +48,9 @@ public class AlarmDocumentIndexer implements IDBPersistenceHandler<AlarmDocument
   @Autowired
   private IndexManager indexManager;
 
+  /** Index of the last document, used to detect a rollover */
+  private volatile String currentIndex;
+
   @Override
   public void storeData(AlarmDocument alarm) throws IDBPersistenceException {
     storeData(Collections.singletonList(alarm));
@@ -83,8 +86,14 @@ public class AlarmDocumentIndexer implements IDBPersistenceHandler<AlarmDocument
       indexManager.create(indexMetadata, MappingFactory.createAlarmMapping());
     }
 
-    return indexMetadata.getName();
+    if (!indexMetadata.getName().equals(currentIndex)) {
+      currentIndex = indexMetadata.getName();
+      // create the index of the next time bucket before it is needed
+      indexManager.createAsync(IndexMetadata.builder().name(indexNameManager.nextIndexFor(alarm)).build(),
+          MappingFactory.createAlarmMapping());
+    }
 
+    return indexMetadata.getName();
   }
 
   @Override
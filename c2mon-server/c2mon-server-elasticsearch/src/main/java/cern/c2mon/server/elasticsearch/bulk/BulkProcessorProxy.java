@@ -16,6 +16,12 @@
  *****************************************************************************/
 package cern.c2mon.server.elasticsearch.bulk;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import lombok.extern.slf4j.Slf4j;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.bulk.BulkRequest;
@@ -53,6 +59,31 @@ public class BulkProcessorProxy implements BulkProcessor.Listener {
     bulkProcessor.add(request);
   }
 
+  /**
+   * Allows to perform bulk {@link IndexRequest}s, grouped by target index.
+   * <p>
+   * Requests for the same index are added one after the other, so that a
+   * batch with out-of-order timestamps (e.g. replayed from the fallback file)
+   * results in bulk requests that each touch as few indices as possible.
+   * The bulk requests are executed concurrently by the {@link BulkProcessor},
+   * according to the configured number of concurrent requests.
+   *
+   * @param requests to be executed in bulk actions.
+   */
+  public void add(Collection<IndexRequest> requests) {
+    Map<String, List<IndexRequest>> requestsByIndex = new LinkedHashMap<>();
+    for (IndexRequest request : requests) {
+      Assert.notNull(request, "IndexRequest must not be null!");
+      requestsByIndex.computeIfAbsent(request.index(), index -> new ArrayList<>()).add(request);
+    }
+
+    for (List<IndexRequest> indexRequests : requestsByIndex.values()) {
+      for (IndexRequest request : indexRequests) {
+        bulkProcessor.add(request);
+      }
+    }
+  }
+
   /**
    * flushes the data to server
    */
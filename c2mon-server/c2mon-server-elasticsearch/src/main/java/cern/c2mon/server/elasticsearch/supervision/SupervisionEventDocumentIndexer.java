@@ -48,6 +48,9 @@ public class SupervisionEventDocumentIndexer implements IDBPersistenceHandler<Su
   @Autowired
   private IndexManager indexManager;
 
+  /** Index of the last document, used to detect a rollover */
+  private volatile String currentIndex;
+
   @Override
   public void storeData(SupervisionEventDocument supervisionEvent) throws IDBPersistenceException {
     storeData(Collections.singletonList(supervisionEvent));
@@ -82,6 +85,13 @@ public class SupervisionEventDocumentIndexer implements IDBPersistenceHandler<Su
       indexManager.create(indexMetadata, MappingFactory.createSupervisionMapping());
     }
 
+    if (!indexMetadata.getName().equals(currentIndex)) {
+      currentIndex = indexMetadata.getName();
+      // create the index of the next time bucket before it is needed
+      indexManager.createAsync(IndexMetadata.builder().name(indexNameManager.nextIndexFor(supervisionEvent)).build(),
+          MappingFactory.createSupervisionMapping());
+    }
+
     return indexMetadata.getName();
   }
 
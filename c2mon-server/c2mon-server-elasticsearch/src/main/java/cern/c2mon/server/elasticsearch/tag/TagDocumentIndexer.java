@@ -16,6 +16,7 @@
  *****************************************************************************/
 package cern.c2mon.server.elasticsearch.tag;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -52,6 +53,9 @@ public class TagDocumentIndexer implements IDBPersistenceHandler<TagDocument> {
 
   private BulkProcessorProxy bulkProcessor;
 
+  /** Index of the last document, used to detect a rollover */
+  private volatile String currentIndex;
+
   /**
    * @param client Elasticsearch client instance
    * @param properties Elasticsearch properties
@@ -76,8 +80,12 @@ public class TagDocumentIndexer implements IDBPersistenceHandler<TagDocument> {
   public void storeData(List<TagDocument> tags) throws IDBPersistenceException {
     try {
       log.debug("Trying to send a batch of size {}", tags.size());
-      tags.forEach(this::indexTag);
+      List<IndexRequest> requests = new ArrayList<>(tags.size());
+      for (TagDocument tag : tags) {
+        requests.add(indexTag(tag));
+      }
 
+      bulkProcessor.add(requests);
       bulkProcessor.flush();
     } catch (Exception e) {
       log.warn("Error indexing batch", e);
@@ -85,16 +93,17 @@ public class TagDocumentIndexer implements IDBPersistenceHandler<TagDocument> {
     }
   }
 
-  private void indexTag(TagDocument tag) {
+  /**
+   * @return the request indexing the tag into the index of its timestamp
+   */
+  private IndexRequest indexTag(TagDocument tag) {
     String index = getOrCreateIndex(tag);
 
     log.trace("Indexing tag (#{}, index={}, type={})", tag.getId(), index, ElasticsearchProperties.TYPE);
 
-    IndexRequest indexNewTag = new IndexRequest(index, ElasticsearchProperties.TYPE)
+    return new IndexRequest(index, ElasticsearchProperties.TYPE)
         .source(tag.toString(), XContentType.JSON)
         .routing(tag.getId());
-
-    bulkProcessor.add(indexNewTag);
   }
 
   private String getOrCreateIndex(TagDocument tag) {
@@ -104,8 +113,14 @@ public class TagDocumentIndexer implements IDBPersistenceHandler<TagDocument> {
       indexManager.create(indexMetadata, MappingFactory.createTagMapping());
     }
 
-    return indexMetadata.getName();
+    if (!indexMetadata.getName().equals(currentIndex)) {
+      currentIndex = indexMetadata.getName();
+      // create the index of the next time bucket before it is needed
+      indexManager.createAsync(IndexMetadata.builder().name(indexNameManager.nextIndexFor(tag)).build(),
+          MappingFactory.createTagMapping());
+    }
 
+    return indexMetadata.getName();
   }
 
   @Override
@@ -70,7 +70,7 @@ public class TagDocumentListener implements C2monBufferedCacheListener<Tag>, Sma
     this.converter = converter;
 
     if (properties.isEnabled()) {
-      listenerContainer = cacheRegistrationService.registerBufferedListenerToTags(this);
+      listenerContainer = cacheRegistrationService.registerBoundedBufferedListenerToTags(this);
     }
   }
 
@@ -79,4 +79,42 @@ public class IndexNameManagerTestSuite {
     String index = indexNameManager.indexFor(document);
     assertEquals("Daily index name should contain day definition", "c2mon-tag_2015-12-01", index);
   }
+
+  @Test
+  public void indexNameIsReusedWithinBucket() {
+    indexNameManager.getProperties().setIndexType("D");
+
+    String index = indexNameManager.indexFor(new TagDocument());
+    indexNameManager.setClock(Clock.fixed(Instant.ofEpochMilli(1448928000000L + 3_600_000L), ZoneId.systemDefault()));
+
+    assertEquals("Index name should not change within a day", index, indexNameManager.indexFor(new TagDocument()));
+
+    indexNameManager.getProperties().setIndexType("M");
+    assertEquals("Index name should follow the index type", "c2mon-tag_2015-12", indexNameManager.indexFor(new TagDocument()));
+  }
+
+  @Test
+  public void nextIndex() {
+    indexNameManager.getProperties().setIndexType("M");
+    assertEquals("Next monthly index should be the following month", "c2mon-tag_2016-01",
+        indexNameManager.nextIndexFor(new TagDocument()));
+
+    indexNameManager.getProperties().setIndexType("D");
+    assertEquals("Next daily index should be the following day", "c2mon-tag_2015-12-02",
+        indexNameManager.nextIndexFor(new TagDocument()));
+  }
+
+  @Test
+  public void indexFollowsDocumentTimestamp() {
+    indexNameManager.getProperties().setIndexType("M");
+
+    TagDocument old = new TagDocument();
+    old.put(TIMESTAMP_PROPERTY, 1446336000000L);
+    TagDocument current = new TagDocument();
+    current.put(TIMESTAMP_PROPERTY, 1448928000000L);
+
+    assertEquals("Index should be the month of the document", "c2mon-tag_2015-11", indexNameManager.indexFor(old));
+    assertEquals("Index should be the month of the document", "c2mon-tag_2015-12", indexNameManager.indexFor(current));
+    assertEquals("Index should be the month of the document", "c2mon-tag_2015-11", indexNameManager.indexFor(old));
+  }
 }
@@ -30,6 +30,14 @@ public class HistoryProperties {
    */
   private String commandFallbackFile = "/tmp/command-fallback.txt";
 
+  /**
+   * Number of threads used to write large batches of tag history records
+   * concurrently. Each thread holds one database connection while a batch is
+   * written, so the history connection pool must provide at least that many.
+   * Set to 1 to write each batch on a single thread.
+   */
+  private int tagWriterThreads = 4;
+
   private Jdbc jdbc = new Jdbc();
 
   @Data
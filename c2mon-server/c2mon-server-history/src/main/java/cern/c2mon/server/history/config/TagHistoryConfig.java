@@ -40,6 +40,6 @@ public class TagHistoryConfig {
   @Bean
   public LoggerDAO<TagRecord> tagLoggerDAO() throws Exception {
     return new LoggerDAO<>(historySqlSessionFactory.getObject(), TagRecordMapper.class.getCanonicalName(),
-        properties.getJdbc().getUrl());
+        properties.getJdbc().getUrl(), properties.getTagWriterThreads());
   }
 }
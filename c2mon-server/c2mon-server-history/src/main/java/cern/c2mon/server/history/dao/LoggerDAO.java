@@ -16,7 +16,14 @@
  *****************************************************************************/
 package cern.c2mon.server.history.dao;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.session.ExecutorType;
@@ -34,6 +41,18 @@ import cern.c2mon.server.history.mapper.LoggerMapper;
  * Common DAO implementation for objects that need storing in a history table using
  * the fallback mechanism.
  *
+ * <p>If constructed with more than one writer thread, lists of more than
+ * {@link #RECORDS_PER_BATCH} records are split into at most one partition per
+ * writer thread. The partitions are inserted concurrently, each through its own
+ * batch session (and so its own connection), in JDBC batches of
+ * {@link #RECORDS_PER_BATCH} records. A call therefore never holds more
+ * connections than there are writer threads, whatever the size of the list. The
+ * JDBC batches are sent as array DML by the Oracle driver; for MySQL, add
+ * <code>rewriteBatchedStatements=true</code> to the JDBC URL to have them sent as
+ * multi-row inserts. The partitions are only committed once all of them have been
+ * inserted, in list order, so that the number of committed records reported to the
+ * fallback mechanism on failure is always a prefix of the list.
+ *
  * @author Mark Brightwell
  *
  * @param <T>
@@ -72,6 +91,16 @@ public class LoggerDAO<T extends IFallback> implements IDBPersistenceHandler<T>
    */
   private String dbUrl;
 
+  /**
+   * Threads inserting partitions of large lists, or null to insert on the calling thread.
+   */
+  private ExecutorService writerExecutor;
+
+  /**
+   * Maximum number of partitions, and so of sessions, used by one call.
+   */
+  private int writerThreads = 1;
+
   /**
    *
    * @param sqlSessionFactory
@@ -96,6 +125,32 @@ public class LoggerDAO<T extends IFallback> implements IDBPersistenceHandler<T>
     // }
   }
 
+  /**
+   * @param sqlSessionFactory
+   * @param mapperInterface
+   *          the mapper used for the inserts
+   * @param dbUrl
+   *          only used for logging error messages
+   * @param writerThreads
+   *          number of threads inserting partitions of large lists concurrently;
+   *          1 inserts all records on the calling thread
+   * @throws ClassNotFoundException
+   */
+  public LoggerDAO(SqlSessionFactory sqlSessionFactory, String mapperInterface, String dbUrl, int writerThreads)
+      throws ClassNotFoundException {
+    this(sqlSessionFactory, mapperInterface, dbUrl);
+    if (writerThreads > 1) {
+      this.writerThreads = writerThreads;
+      String threadPrefix = this.mapperInterface.getSimpleName() + "-writer-";
+      AtomicInteger threadCount = new AtomicInteger();
+      writerExecutor = Executors.newFixedThreadPool(writerThreads, runnable -> {
+        Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
   /**
    * Inserts into the database a set of rows containing the data coming in
    * several IFallback objects
@@ -110,6 +165,15 @@ public class LoggerDAO<T extends IFallback> implements IDBPersistenceHandler<T>
   @SuppressWarnings("unchecked")
   // add generics to persistence manager
   public final void storeData(final List data) throws IDBPersistenceException {
+    if (writerExecutor != null && data.size() > RECORDS_PER_BATCH) {
+      storeInPartitions(data);
+    } else {
+      storeOnCallingThread(data);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void storeOnCallingThread(final List data) throws IDBPersistenceException {
     SqlSession session = null;
     int size = data.size();
     int commited = 0;
@@ -166,6 +230,140 @@ public class LoggerDAO<T extends IFallback> implements IDBPersistenceHandler<T>
     }
   }
 
+  /**
+   * Inserts the partitions of the list concurrently, then commits them in list
+   * order. If an insert fails, the other partitions stop inserting and all are
+   * rolled back once every insert has returned, since a session must not be
+   * used by two threads; if a commit fails, the remaining partitions are rolled
+   * back and the records committed so far are reported.
+   */
+  @SuppressWarnings("unchecked")
+  private void storeInPartitions(final List data) throws IDBPersistenceException {
+    int size = data.size();
+    int partitions = Math.min(writerThreads, (size + RECORDS_PER_BATCH - 1) / RECORDS_PER_BATCH);
+    int partitionSize = (size + partitions - 1) / partitions;
+    List<SqlSession> sessions = new ArrayList<>();
+    List<Integer> partitionEnds = new ArrayList<>();
+    List<Future<?>> inserts = new ArrayList<>();
+    AtomicBoolean aborted = new AtomicBoolean(false);
+    Throwable failure = null;
+    boolean interrupted = false;
+    int commited = 0;
+
+    try {
+      try {
+        for (int start = 0; start < size; start += partitionSize) {
+          List<T> partition = data.subList(start, Math.min(start + partitionSize, size));
+          SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+          sessions.add(session);
+          partitionEnds.add(start + partition.size());
+          inserts.add(writerExecutor.submit(() -> insert(session, partition, aborted)));
+        }
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("storeData([Collection]) : Inserting " + size + " rows in " + sessions.size() + " partitions");
+        }
+      } catch (RuntimeException e) {
+        failure = e;
+        aborted.set(true);
+      }
+
+      // every insert must have returned before its session is rolled back or closed
+      for (Future<?> insert : inserts) {
+        boolean done = false;
+        while (!done) {
+          try {
+            insert.get();
+            done = true;
+          } catch (ExecutionException e) {
+            if (failure == null) {
+              failure = e.getCause();
+            }
+            aborted.set(true);
+            done = true;
+          } catch (InterruptedException e) {
+            interrupted = true;
+            aborted.set(true);
+          }
+        }
+      }
+
+      if (failure == null && !interrupted) {
+        try {
+          for (int i = 0; i < sessions.size(); i++) {
+            sessions.get(i).commit();
+            commited = partitionEnds.get(i);
+          }
+        } catch (PersistenceException e) {
+          failure = e;
+        }
+      }
+
+      if (failure != null) {
+        LOGGER.error("storeData([Collection]) : Error executing/committing partitioned insert for " + size + " dataTags", failure);
+        rollback(sessions);
+        throw new IDBPersistenceException(failure.getMessage(), commited);
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+        rollback(sessions);
+        throw new IDBPersistenceException("Interrupted while inserting " + size + " dataTags", commited);
+      }
+    } finally {
+      for (SqlSession session : sessions) {
+        try {
+          session.close();
+        } catch (Exception e) {
+          LOGGER.error("storeData([Collection]) : Error closing session.", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Inserts the records through the batch session and sends them to the
+   * database in batches of {@link #RECORDS_PER_BATCH}, without committing.
+   * Stops early once another partition has failed.
+   */
+  private void insert(final SqlSession session, final List<T> records, final AtomicBoolean aborted) {
+    LoggerMapper<T> persistenceMapper = session.getMapper(mapperInterface);
+    int pending = 0;
+    for (T record : records) {
+      if (aborted.get()) {
+        return;
+      }
+      if (record != null) {
+        persistenceMapper.insertLog(record);
+        if (++pending == RECORDS_PER_BATCH) {
+          session.flushStatements();
+          pending = 0;
+        }
+      }
+    }
+    session.flushStatements();
+  }
+
+  /**
+   * Rolls back the sessions; sessions that have already been committed are not affected.
+   */
+  private void rollback(final List<SqlSession> sessions) {
+    for (SqlSession session : sessions) {
+      try {
+        session.rollback();
+      } catch (Exception e) {
+        LOGGER.error("storeData([Collection]) : Error rolling back transaction.", e);
+      }
+    }
+  }
+
+  /**
+   * Stops the writer threads; called by Spring when the context is closed.
+   */
+  public void shutdown() {
+    if (writerExecutor != null) {
+      writerExecutor.shutdown();
+    }
+  }
+
   @Override
   public String getDBInfo() {
     return "C2MON history account on DB with URL: " + dbUrl;
@@ -88,7 +88,7 @@ public class TagRecordListener implements C2monBufferedCacheListener<Tag>, Smart
    */
   @PostConstruct
   public void init() {
-    listenerContainer = cacheRegistrationService.registerBufferedListenerToTags(this);
+    listenerContainer = cacheRegistrationService.registerBoundedBufferedListenerToTags(this);
   }
 
   @Override
@@ -0,0 +1,259 @@
+/******************************************************************************
+ * Copyright (C) 2010-2016 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.server.history.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import cern.c2mon.pmanager.persistence.exception.IDBPersistenceException;
+import cern.c2mon.server.cache.config.CacheModule;
+import cern.c2mon.server.cache.dbaccess.config.CacheDbAccessModule;
+import cern.c2mon.server.cache.loading.config.CacheLoadingModule;
+import cern.c2mon.server.command.config.CommandModule;
+import cern.c2mon.server.common.config.CommonModule;
+import cern.c2mon.server.daq.config.DaqModule;
+import cern.c2mon.server.history.config.HistoryModule;
+import cern.c2mon.server.history.mapper.TagRecordMapper;
+import cern.c2mon.server.history.structure.TagRecord;
+import cern.c2mon.server.supervision.config.SupervisionModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the partitioned batch writes of the tag history DAO.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {
+    CommonModule.class,
+    CacheModule.class,
+    CacheDbAccessModule.class,
+    CacheLoadingModule.class,
+    SupervisionModule.class,
+    CommandModule.class,
+    DaqModule.class,
+    HistoryModule.class
+})
+public class LoggerDAOTest {
+
+  private static final Long ID = 11L;
+
+  @Autowired
+  private LoggerDAO<TagRecord> tagLoggerDAO;
+
+  @Autowired
+  private TagRecordMapper tagRecordMapper;
+
+  @Autowired
+  private SqlSessionFactory historySqlSessionFactory;
+
+  @Autowired
+  @Qualifier("historyDataSource")
+  private DataSource historyDataSource;
+
+  @Before
+  public void beforeTest() {
+    tagRecordMapper.deleteDataTagLog(ID);
+  }
+
+  @After
+  public void afterTest() {
+    tagRecordMapper.deleteDataTagLog(ID);
+  }
+
+  /**
+   * A list spanning several partitions is written in full.
+   */
+  @Test
+  public void testStorePartitionedData() throws IDBPersistenceException {
+    tagLoggerDAO.storeData(createRecords(1234));
+
+    assertEquals(1234, countRecords());
+  }
+
+  /**
+   * A list with more partitions of {@link LoggerDAO#RECORDS_PER_BATCH} records than
+   * connections in the pool never holds more connections than writer threads.
+   */
+  @Test
+  public void testStoreMorePartitionsThanPoolConnections() throws Exception {
+    LoggerDAO<TagRecord> loggerDAO = new LoggerDAO<>(boundedPool(historySqlSessionFactory, 2),
+        TagRecordMapper.class.getCanonicalName(), "test", 2);
+    try {
+      loggerDAO.storeData(createRecords(3001));
+    } finally {
+      loggerDAO.shutdown();
+    }
+
+    assertEquals(3001, countRecords());
+  }
+
+  /**
+   * A failing insert in one partition rolls back all partitions, so that no
+   * record is reported as committed.
+   */
+  @Test
+  public void testFailingPartitionCommitsNothing() {
+    List<TagRecord> records = createRecords(1234);
+    records.get(700).setServerTimestamp(null);
+    try {
+      tagLoggerDAO.storeData(records);
+      fail("Expected the insert of a record without server timestamp to fail");
+    } catch (IDBPersistenceException e) {
+      assertEquals(0, e.getCommited());
+    }
+  }
+
+  /**
+   * A failing partition is only rolled back and closed with the others once
+   * all of them have stopped inserting, as a session is not thread-safe.
+   */
+  @Test
+  public void testFailingPartitionWaitsForTheOtherPartitions() throws Exception {
+    AtomicBoolean overlapped = new AtomicBoolean();
+    LoggerDAO<TagRecord> loggerDAO = new LoggerDAO<>(slowSecondSession(historySqlSessionFactory, overlapped),
+        TagRecordMapper.class.getCanonicalName(), "test", 2);
+    List<TagRecord> records = createRecords(1234);
+    records.get(100).setServerTimestamp(null);
+    try {
+      loggerDAO.storeData(records);
+      fail("Expected the insert of a record without server timestamp to fail");
+    } catch (IDBPersistenceException e) {
+      assertEquals(0, e.getCommited());
+    } finally {
+      loggerDAO.shutdown();
+    }
+
+    assertFalse("a session was rolled back or closed while still inserting", overlapped.get());
+  }
+
+  private int countRecords() {
+    return new JdbcTemplate(historyDataSource).queryForObject("SELECT COUNT(*) FROM SHORTTERMLOG WHERE TAGID = ?",
+        Integer.class, ID);
+  }
+
+  /**
+   * @return a session factory failing to open more than the given number of
+   *         sessions at a time, like a connection pool of that size
+   */
+  private static SqlSessionFactory boundedPool(final SqlSessionFactory factory, final int connections) {
+    Semaphore pool = new Semaphore(connections);
+    return (SqlSessionFactory) Proxy.newProxyInstance(LoggerDAOTest.class.getClassLoader(),
+        new Class<?>[] {SqlSessionFactory.class}, (proxy, method, args) -> {
+          if (!method.getName().equals("openSession")) {
+            return invoke(factory, method, args);
+          }
+          if (!pool.tryAcquire(2, TimeUnit.SECONDS)) {
+            throw new PersistenceException("Timed out waiting for a connection of the pool");
+          }
+          SqlSession session = (SqlSession) invoke(factory, method, args);
+          AtomicBoolean closed = new AtomicBoolean();
+          return Proxy.newProxyInstance(LoggerDAOTest.class.getClassLoader(), new Class<?>[] {SqlSession.class},
+              (sessionProxy, sessionMethod, sessionArgs) -> {
+                if (sessionMethod.getName().equals("close") && closed.compareAndSet(false, true)) {
+                  pool.release();
+                }
+                return invoke(session, sessionMethod, sessionArgs);
+              });
+        });
+  }
+
+  /**
+   * @return a session factory whose second session is slow to start inserting,
+   *         and flags any rollback or close of a session while another thread
+   *         still uses it
+   */
+  private static SqlSessionFactory slowSecondSession(final SqlSessionFactory factory, final AtomicBoolean overlapped) {
+    AtomicInteger opened = new AtomicInteger();
+    return (SqlSessionFactory) Proxy.newProxyInstance(LoggerDAOTest.class.getClassLoader(),
+        new Class<?>[] {SqlSessionFactory.class}, (proxy, method, args) -> {
+          if (!method.getName().equals("openSession")) {
+            return invoke(factory, method, args);
+          }
+          SqlSession session = (SqlSession) invoke(factory, method, args);
+          boolean slow = opened.incrementAndGet() == 2;
+          AtomicBoolean inUse = new AtomicBoolean();
+          return Proxy.newProxyInstance(LoggerDAOTest.class.getClassLoader(), new Class<?>[] {SqlSession.class},
+              (sessionProxy, sessionMethod, sessionArgs) -> {
+                String name = sessionMethod.getName();
+                if (name.equals("getMapper") || name.equals("flushStatements")) {
+                  inUse.set(true);
+                  try {
+                    if (slow) {
+                      Thread.sleep(500);
+                    }
+                    return invoke(session, sessionMethod, sessionArgs);
+                  } finally {
+                    inUse.set(false);
+                  }
+                }
+                if ((name.equals("rollback") || name.equals("close")) && inUse.get()) {
+                  overlapped.set(true);
+                }
+                return invoke(session, sessionMethod, sessionArgs);
+              });
+        });
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static List<TagRecord> createRecords(int count) {
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    List<TagRecord> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      TagRecord tag = new TagRecord();
+      tag.setTagId(ID);
+      tag.setTagDataType("Integer");
+      tag.setSourceTimestamp(now);
+      tag.setDaqTimestamp(now);
+      tag.setServerTimestamp(now);
+      tag.setTagValue(Integer.toString(i));
+      records.add(tag);
+    }
+    return records;
+  }
+}
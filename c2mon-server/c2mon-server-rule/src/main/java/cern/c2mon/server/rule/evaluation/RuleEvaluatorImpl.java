@@ -33,6 +33,7 @@ import cern.c2mon.server.cache.CacheRegistrationService;
 import cern.c2mon.server.cache.RuleTagCache;
 import cern.c2mon.server.cache.TagLocationService;
 import cern.c2mon.server.cache.exception.CacheElementNotFoundException;
+import cern.c2mon.server.cache.listener.ListenerOverflowPolicy;
 import cern.c2mon.server.common.component.Lifecycle;
 import cern.c2mon.server.common.config.ServerConstants;
 import cern.c2mon.server.common.rule.RuleTag;
@@ -94,11 +95,13 @@ public class RuleEvaluatorImpl implements C2monCacheListener<Tag>, SmartLifecycl
   }
 
   /**
-   * Registers to tag caches.
+   * Registers to tag caches. Pending updates of a tag can be coalesced, as
+   * the rules are evaluated with the current cache values.
    */
   @PostConstruct
   public void init() {
-    listenerContainer = cacheRegistrationService.registerToAllTags(this, properties.getNumEvaluationThreads());
+    listenerContainer = cacheRegistrationService.registerToAllTags(this, properties.getNumEvaluationThreads(),
+        ListenerOverflowPolicy.COALESCE);
   }
 
   @Override
@@ -19,7 +19,10 @@ package cern.c2mon.server.supervision.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 
@@ -64,6 +67,10 @@ import cern.c2mon.shared.common.supervision.SupervisionConstants.SupervisionStat
  * callbacks if they are overtaken by a newer incoming value (may happen since
  * many callbacks are made and this could last some time).
  *
+ * <p>The supervision events of the Processes/Equipment are read once per
+ * notification, and the affected tags are passed to the cache listeners
+ * in batches of {@link #NOTIFICATION_BATCH_SIZE}.
+ *
  * <p>Notice that if a cache element is reconfigured during one of these supervision
  * notifications, the corresponding callback may fail for the given element and any
  * dependent elements (eg. Rules dependent on a Tag).
@@ -79,6 +86,11 @@ public class SupervisionTagNotifier implements SupervisionListener, SmartLifecyc
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(SupervisionTagNotifier.class);
 
+  /**
+   * Maximum number of tags passed to the cache listeners in one call.
+   */
+  static final int NOTIFICATION_BATCH_SIZE = 1000;
+
   /**
    * Register for notifications from the SupervisionNotifier bean.
    */
@@ -251,50 +263,44 @@ public class SupervisionTagNotifier implements SupervisionListener, SmartLifecyc
         clusterCache.releaseWriteLockOnKey(EVENT_LOCK);
       }
 
+      SupervisionPropagation propagation = new SupervisionPropagation();
       switch (event.getEntity()) {
       case PROCESS :
-        notifyProcessTags(entityId);
+        notifyProcessTags(entityId, propagation);
         break;
       case EQUIPMENT:
-        notifyEquipmentTags(entityId);
+        notifyEquipmentTags(entityId, propagation);
         break;
       case SUBEQUIPMENT:
-        notifySubEquipmentTags(entityId);
+        notifySubEquipmentTags(entityId, propagation);
         break;
       default:
         break;
       }
+      propagation.flush();
     }
   }
 
   /**
    * Notifies all equipments under this process. Will use event in local map.
    * @param processId process id
+   * @param propagation the state of the current notification
    */
-  private void notifyProcessTags(final Long processId) {
+  private void notifyProcessTags(final Long processId, final SupervisionPropagation propagation) {
     Process process = processCache.getCopy(processId);
     for (Long equipmentId : process.getEquipmentIds()) { //no lock required as get copy
-      notifyEquipmentTags(equipmentId);
+      notifyEquipmentTags(equipmentId, propagation);
     }
   }
 
   /**
    * Calls notification method for all tags associated to the Equipment (DataTags only).
    * @param equipementId the equipment id
+   * @param propagation the state of the current notification
    */
-  private void notifyEquipmentTags(final Long equipementId) {
+  private void notifyEquipmentTags(final Long equipementId, final SupervisionPropagation propagation) {
     try {
-      //local map so as not to notify rules twice; lock on map when modifying
-      Map<Long, Boolean> notifiedRules = new HashMap<>();
-      Collection<Long> tagIds = equipmentFacade.getDataTagIds(equipementId);
-      for (Long id : tagIds) {
-       try {
-         callCacheNotification(id, notifiedRules); //recursively notifies all dependent rules also, once only
-       } catch (CacheElementNotFoundException cacheEx) {
-         LOGGER.warn("Unable to locate Tag/Rule cache element during Tag supervision " //TODO ask DAQ refresh
-             + "change callback (some Tags/Rules may have been omitted)", cacheEx);
-       }
-      }
+      notifyTags(equipmentFacade.getDataTagIds(equipementId), propagation);
     } catch (CacheElementNotFoundException cacheEx) {
       LOGGER.warn("Unable to locate Equipment element during Tag supervision "
           + "change callback (so no invalidation callbacks performed for associated Tags)", cacheEx);
@@ -305,75 +311,144 @@ public class SupervisionTagNotifier implements SupervisionListener, SmartLifecyc
    * Calls notification method for all tags associated to a SubEquipment.
    *
    * @param subEquipmentId the sub equipment id
+   * @param propagation the state of the current notification
    */
-  private void notifySubEquipmentTags(final Long subEquipmentId) {
+  private void notifySubEquipmentTags(final Long subEquipmentId, final SupervisionPropagation propagation) {
     try {
-      //local map so as not to notify rules twice; lock on map when modifying
-      Map<Long, Boolean> notifiedRules = new HashMap<>();
-      Collection<Long> tagIds = subEquipmentFacade.getDataTagIds(subEquipmentId);
-      for (Long id : tagIds) {
-       try {
-         callCacheNotification(id, notifiedRules); //recursively notifies all dependent rules also, once only
-       } catch (CacheElementNotFoundException cacheEx) {
-         LOGGER.warn("Unable to locate Tag/Rule cache element during Tag supervision " //TODO ask DAQ refresh
-             + "change callback (some Tags/Rules may have been omitted)", cacheEx);
-       }
-      }
+      notifyTags(subEquipmentFacade.getDataTagIds(subEquipmentId), propagation);
     } catch (CacheElementNotFoundException cacheEx) {
       LOGGER.warn("Unable to locate SubEquipment element during Tag supervision "
           + "change callback (so no invalidation callbacks performed for associated Tags)", cacheEx);
     }
   }
 
+  private void notifyTags(final Collection<Long> tagIds, final SupervisionPropagation propagation) {
+    for (Long id : tagIds) {
+      try {
+        callCacheNotification(id, propagation); //recursively notifies all dependent rules also, once only
+      } catch (CacheElementNotFoundException cacheEx) {
+        LOGGER.warn("Unable to locate Tag/Rule cache element during Tag supervision " //TODO ask DAQ refresh
+            + "change callback (some Tags/Rules may have been omitted)", cacheEx);
+      }
+    }
+  }
+
   /**
-   * Private recursive method for calling all listeners; recursive calls for
-   * calling the notification for all dependent rules also.
+   * Private recursive method for collecting the tags to notify; recursive calls for
+   * collecting all dependent rules also.
    * @param id tag id
-   * @param notifiedRules map for preventing multiple notifications for rules
+   * @param propagation the state of the current notification, preventing multiple
+   *                    notifications for rules
    */
-  private void callCacheNotification(final Long id, final Map<Long, Boolean> notifiedRules) {
-    synchronized (notifiedRules) {
-      Tag tagCopy = tagLocationService.getCopy(id);
-      if (!notifiedRules.containsKey(tagCopy.getId())) {
-        LOGGER.trace("Performing supervision notification for tag " + id);
-        boolean dirtyTagContext = false;
-
-        for (Long procId : tagCopy.getProcessIds()) {
-          if (processEventCache.hasKey(procId)) { //null never override a value, so if statement ok out of lock
-            supervisionAppender.addSupervisionQuality(tagCopy, processEventCache.getCopy(procId));
-            dirtyTagContext = true;
-          }
+  private void callCacheNotification(final Long id, final SupervisionPropagation propagation) {
+    Tag tagCopy = tagLocationService.getCopy(id);
+    if (!propagation.notifiedRules.contains(tagCopy.getId())) {
+      LOGGER.trace("Performing supervision notification for tag " + id);
+      boolean dirtyTagContext = false;
+
+      for (Long procId : tagCopy.getProcessIds()) {
+        SupervisionEvent event = propagation.getEvent(processEventCache, propagation.processEvents, procId);
+        if (event != null) {
+          supervisionAppender.addSupervisionQuality(tagCopy, event);
+          dirtyTagContext = true;
         }
-        for (Long eqId : tagCopy.getEquipmentIds()) {
-          if (equipmentEventCache.hasKey(eqId)) {
-            supervisionAppender.addSupervisionQuality(tagCopy, equipmentEventCache.getCopy(eqId));
-            dirtyTagContext = true;
-          }
+      }
+      for (Long eqId : tagCopy.getEquipmentIds()) {
+        SupervisionEvent event = propagation.getEvent(equipmentEventCache, propagation.equipmentEvents, eqId);
+        if (event != null) {
+          supervisionAppender.addSupervisionQuality(tagCopy, event);
+          dirtyTagContext = true;
         }
-        for (Long subEqId : tagCopy.getSubEquipmentIds()) {
-          if (subEquipmentEventCache.hasKey(subEqId)) {
-            supervisionAppender.addSupervisionQuality(tagCopy, subEquipmentEventCache.getCopy(subEqId));
-            dirtyTagContext = true;
-          }
+      }
+      for (Long subEqId : tagCopy.getSubEquipmentIds()) {
+        SupervisionEvent event = propagation.getEvent(subEquipmentEventCache, propagation.subEquipmentEvents, subEqId);
+        if (event != null) {
+          supervisionAppender.addSupervisionQuality(tagCopy, event);
+          dirtyTagContext = true;
         }
+      }
+
+      if (dirtyTagContext) {
+        propagation.add(tagCopy);
+      }
+    }
+
+    Collection<Long> ruleIds;
+    ruleIds = new ArrayList<>(tagCopy.getRuleIds());
+    for (Long ruleId : ruleIds) {
+      callCacheNotification(ruleId, propagation);
+      propagation.notifiedRules.add(ruleId);
+    }
+  }
+
+  /**
+   * State of a single supervision notification: the supervision events read
+   * so far, the rules already notified, and the tags waiting to be passed to
+   * the cache listeners. The events are read once per notification rather
+   * than once per tag, which is the dominant cost when all tags of a DAQ
+   * change state.
+   */
+  private final class SupervisionPropagation {
+
+    private final Set<Long> notifiedRules = new HashSet<>();
+
+    private final Map<Long, SupervisionEvent> processEvents = new HashMap<>();
+    private final Map<Long, SupervisionEvent> equipmentEvents = new HashMap<>();
+    private final Map<Long, SupervisionEvent> subEquipmentEvents = new HashMap<>();
+
+    private final List<DataTag> dataTags = new ArrayList<>();
+    private final List<RuleTag> ruleTags = new ArrayList<>();
+
+    /**
+     * @return the event of the given entity, or null if none is known
+     */
+    private SupervisionEvent getEvent(final C2monCache<Long, SupervisionEvent> eventCache,
+                                      final Map<Long, SupervisionEvent> events, final Long entityId) {
+      if (!events.containsKey(entityId)) {
+        //null never override a value, so if statement ok out of lock
+        events.put(entityId, eventCache.hasKey(entityId) ? eventCache.getCopy(entityId) : null);
+      }
+      return events.get(entityId);
+    }
 
-        if (dirtyTagContext) {
-          if (tagCopy instanceof DataTag) {
-            dataTagCache.notifyListenersOfSupervisionChange((DataTag) tagCopy);
-          } else if (tagCopy instanceof RuleTag) {
-            ruleTagCache.notifyListenersOfSupervisionChange((RuleTag) tagCopy);
-          } else {
-            throw new IllegalArgumentException("Unexpected call with Tag parameter that is neither DataTag or RuleTag; "
-                + "type is " + tagCopy.getClass().getSimpleName());
-          }
+    private void add(final Tag tagCopy) {
+      if (tagCopy instanceof DataTag) {
+        dataTags.add((DataTag) tagCopy);
+        if (dataTags.size() >= NOTIFICATION_BATCH_SIZE) {
+          flushDataTags();
+        }
+      } else if (tagCopy instanceof RuleTag) {
+        ruleTags.add((RuleTag) tagCopy);
+        if (ruleTags.size() >= NOTIFICATION_BATCH_SIZE) {
+          // the rules may depend on data tags still waiting
+          flush();
         }
+      } else {
+        throw new IllegalArgumentException("Unexpected call with Tag parameter that is neither DataTag or RuleTag; "
+            + "type is " + tagCopy.getClass().getSimpleName());
       }
+    }
+
+    /**
+     * Notifies the listeners of the waiting tags. Data tags are always
+     * notified before the rules depending on them.
+     */
+    private void flush() {
+      flushDataTags();
+      flushRuleTags();
+    }
+
+    private void flushDataTags() {
+      if (!dataTags.isEmpty()) {
+        dataTagCache.notifyListenersOfSupervisionChange(new ArrayList<>(dataTags));
+        dataTags.clear();
+      }
+    }
 
-      Collection<Long> ruleIds;
-      ruleIds = new ArrayList<>(tagCopy.getRuleIds());
-      for (Long ruleId : ruleIds) {
-        callCacheNotification(ruleId, notifiedRules);
-        notifiedRules.put(ruleId, true);
+    private void flushRuleTags() {
+      if (!ruleTags.isEmpty()) {
+        ruleTagCache.notifyListenersOfSupervisionChange(new ArrayList<>(ruleTags));
+        ruleTags.clear();
       }
     }
   }
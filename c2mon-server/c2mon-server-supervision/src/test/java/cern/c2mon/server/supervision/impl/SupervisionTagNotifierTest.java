@@ -37,9 +37,11 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import cern.c2mon.server.cache.*;
 import cern.c2mon.server.cache.supervision.SupervisionAppender;
+import cern.c2mon.server.common.datatag.DataTag;
 import cern.c2mon.server.common.datatag.DataTagCacheObject;
 import cern.c2mon.server.common.equipment.EquipmentCacheObject;
 import cern.c2mon.server.common.process.ProcessCacheObject;
+import cern.c2mon.server.common.rule.RuleTag;
 import cern.c2mon.server.common.rule.RuleTagCacheObject;
 import cern.c2mon.server.common.subequipment.SubEquipmentCacheObject;
 import cern.c2mon.server.supervision.SupervisionNotifier;
@@ -223,15 +225,13 @@ public class SupervisionTagNotifierTest {
     EasyMock.expect(tagLocationService.getCopy(201L)).andReturn(ruleTag2);
     EasyMock.expect(tagLocationService.getCopy(202L)).andReturn(ruleTag3);
     supervisionAppender.addSupervisionQuality(dataTag, event);
-    dataTagCache.notifyListenersOfSupervisionChange(dataTag);
     supervisionAppender.addSupervisionQuality(dataTag2, event);
-    dataTagCache.notifyListenersOfSupervisionChange(dataTag2);
     supervisionAppender.addSupervisionQuality(ruleTag,event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag); //only once although uses triggered by 2 different tags
     supervisionAppender.addSupervisionQuality(ruleTag2,event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag2);
     supervisionAppender.addSupervisionQuality(ruleTag3,event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag3);
+    dataTagCache.notifyListenersOfSupervisionChange(Arrays.<DataTag>asList(dataTag, dataTag2));
+    //ruleTag only once although triggered by 2 different tags
+    ruleTagCache.notifyListenersOfSupervisionChange(Arrays.<RuleTag>asList(ruleTag, ruleTag2, ruleTag3));
 
     mockControl.replay();
 
@@ -256,15 +256,13 @@ public class SupervisionTagNotifierTest {
     EasyMock.expect(tagLocationService.getCopy(201L)).andReturn(ruleTag2);
     EasyMock.expect(tagLocationService.getCopy(202L)).andReturn(ruleTag3);
     supervisionAppender.addSupervisionQuality(dataTag,event);
-    dataTagCache.notifyListenersOfSupervisionChange(dataTag);
     supervisionAppender.addSupervisionQuality(dataTag2,event);
-    dataTagCache.notifyListenersOfSupervisionChange(dataTag2);
     supervisionAppender.addSupervisionQuality(ruleTag,event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag); //only once although uses triggered by 2 different tags
     supervisionAppender.addSupervisionQuality(ruleTag2,event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag2);
     supervisionAppender.addSupervisionQuality(ruleTag3,event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag3);
+    dataTagCache.notifyListenersOfSupervisionChange(Arrays.<DataTag>asList(dataTag, dataTag2));
+    //ruleTag only once although triggered by 2 different tags
+    ruleTagCache.notifyListenersOfSupervisionChange(Arrays.<RuleTag>asList(ruleTag, ruleTag2, ruleTag3));
 
     mockControl.replay();
 
@@ -285,13 +283,11 @@ public class SupervisionTagNotifierTest {
     EasyMock.expect(tagLocationService.getCopy(203L)).andReturn(ruleTag4).times(2);
     EasyMock.expect(tagLocationService.getCopy(204L)).andReturn(ruleTag5).times(2);
     supervisionAppender.addSupervisionQuality(dataTag3, event);
-    dataTagCache.notifyListenersOfSupervisionChange(dataTag3);
     supervisionAppender.addSupervisionQuality(dataTag4, event);
-    dataTagCache.notifyListenersOfSupervisionChange(dataTag4);
     supervisionAppender.addSupervisionQuality(ruleTag4, event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag4);
     supervisionAppender.addSupervisionQuality(ruleTag5, event);
-    ruleTagCache.notifyListenersOfSupervisionChange(ruleTag5);
+    dataTagCache.notifyListenersOfSupervisionChange(Arrays.<DataTag>asList(dataTag3, dataTag4));
+    ruleTagCache.notifyListenersOfSupervisionChange(Arrays.<RuleTag>asList(ruleTag4, ruleTag5));
 
     mockControl.replay();
 
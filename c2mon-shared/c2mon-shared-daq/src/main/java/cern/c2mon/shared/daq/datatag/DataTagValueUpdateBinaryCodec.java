@@ -0,0 +1,272 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.shared.daq.datatag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
+import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
+import cern.c2mon.shared.common.datatag.SourceDataTagQualityCode;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+
+/**
+ * Compact binary encoding of a {@link DataTagValueUpdate}, used by the
+ * {@link DataTagValueUpdateConverter} for <code>BytesMessage</code>s.
+ *
+ * <p>Version 1 of the format is a fixed sequence of fields per update:
+ * process id and PIK, the number of values, then for each value its id,
+ * name, flags, typed value, value description, quality, timestamps,
+ * priority and time-to-live. Values of the primitive wrapper types and
+ * strings are written natively; any other value (arrays, beans) is written
+ * as JSON so that it is decoded exactly as on the JSON path.
+ */
+final class DataTagValueUpdateBinaryCodec {
+
+  private static final byte TYPE_NULL = 0;
+  private static final byte TYPE_BOOLEAN = 1;
+  private static final byte TYPE_BYTE = 2;
+  private static final byte TYPE_SHORT = 3;
+  private static final byte TYPE_INTEGER = 4;
+  private static final byte TYPE_LONG = 5;
+  private static final byte TYPE_FLOAT = 6;
+  private static final byte TYPE_DOUBLE = 7;
+  private static final byte TYPE_STRING = 8;
+  private static final byte TYPE_JSON = 9;
+
+  private static final int FLAG_CONTROL_TAG = 1;
+  private static final int FLAG_GUARANTEED_DELIVERY = 1 << 1;
+  private static final int FLAG_SIMULATED = 1 << 2;
+
+  /**
+   * Estimated encoded size of a value, used to size the output buffer.
+   */
+  private static final int VALUE_SIZE_ESTIMATE = 96;
+
+  /**
+   * Used for the values that are not written natively.
+   */
+  private final ObjectMapper mapper;
+
+  DataTagValueUpdateBinaryCodec(final ObjectMapper mapper) {
+    this.mapper = mapper;
+  }
+
+  byte[] encode(final DataTagValueUpdate update) throws IOException {
+    Collection<SourceDataTagValue> values = update.getValues();
+    int size = values == null ? 0 : values.size();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + size * VALUE_SIZE_ESTIMATE);
+    DataOutputStream out = new DataOutputStream(bytes);
+
+    writeNullableLong(out, update.getProcessId());
+    writeNullableLong(out, update.getProcessPIK());
+    out.writeInt(size);
+    if (values != null) {
+      for (SourceDataTagValue value : values) {
+        writeValue(out, value);
+      }
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  DataTagValueUpdate decode(final byte[] body) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+
+    Long processId = readNullableLong(in);
+    Long processPIK = readNullableLong(in);
+    int size = in.readInt();
+    ArrayList<SourceDataTagValue> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readValue(in));
+    }
+    DataTagValueUpdate update = new DataTagValueUpdate(processId, processPIK);
+    update.setValues(values);
+    return update;
+  }
+
+  private void writeValue(final DataOutputStream out, final SourceDataTagValue value) throws IOException {
+    writeNullableLong(out, value.getId());
+    writeString(out, value.getName());
+    int flags = 0;
+    if (value.isControlTag()) {
+      flags |= FLAG_CONTROL_TAG;
+    }
+    if (value.isGuaranteedDelivery()) {
+      flags |= FLAG_GUARANTEED_DELIVERY;
+    }
+    if (value.isSimulated()) {
+      flags |= FLAG_SIMULATED;
+    }
+    out.writeByte(flags);
+    writeObject(out, value.getValue());
+    writeString(out, value.getValueDescription());
+
+    SourceDataTagQuality quality = value.getQuality();
+    if (quality == null) {
+      out.writeBoolean(false);
+    } else {
+      out.writeBoolean(true);
+      writeString(out, quality.getQualityCode() == null ? null : quality.getQualityCode().name());
+      writeString(out, quality.getDescription());
+    }
+
+    writeTimestamp(out, value.getTimestamp());
+    writeTimestamp(out, value.getDaqTimestamp());
+    out.writeInt(value.getPriority());
+    out.writeInt(value.getTimeToLive());
+  }
+
+  private SourceDataTagValue readValue(final DataInputStream in) throws IOException {
+    SourceDataTagValue value = new SourceDataTagValue();
+    value.setId(readNullableLong(in));
+    value.setName(readString(in));
+    int flags = in.readByte();
+    value.setControlTag((flags & FLAG_CONTROL_TAG) != 0);
+    value.setGuaranteedDelivery((flags & FLAG_GUARANTEED_DELIVERY) != 0);
+    value.setSimulated((flags & FLAG_SIMULATED) != 0);
+    value.setValue(readObject(in));
+    value.setValueDescription(readString(in));
+
+    if (in.readBoolean()) {
+      String code = readString(in);
+      value.setQuality(new SourceDataTagQuality(code == null ? null : SourceDataTagQualityCode.valueOf(code), readString(in)));
+    }
+
+    value.setTimestamp(readTimestamp(in));
+    value.setDaqTimestamp(readTimestamp(in));
+    value.setPriority(in.readInt());
+    value.setTimeToLive(in.readInt());
+    return value;
+  }
+
+  private void writeObject(final DataOutputStream out, final Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(TYPE_NULL);
+    } else if (value instanceof Boolean) {
+      out.writeByte(TYPE_BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof Byte) {
+      out.writeByte(TYPE_BYTE);
+      out.writeByte((Byte) value);
+    } else if (value instanceof Short) {
+      out.writeByte(TYPE_SHORT);
+      out.writeShort((Short) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(TYPE_INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(TYPE_LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Float) {
+      out.writeByte(TYPE_FLOAT);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      out.writeByte(TYPE_DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof String) {
+      out.writeByte(TYPE_STRING);
+      writeString(out, (String) value);
+    } else {
+      out.writeByte(TYPE_JSON);
+      writeString(out, mapper.writeValueAsString(value));
+    }
+  }
+
+  private Object readObject(final DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case TYPE_NULL:
+        return null;
+      case TYPE_BOOLEAN:
+        return in.readBoolean();
+      case TYPE_BYTE:
+        return in.readByte();
+      case TYPE_SHORT:
+        return in.readShort();
+      case TYPE_INTEGER:
+        return in.readInt();
+      case TYPE_LONG:
+        return in.readLong();
+      case TYPE_FLOAT:
+        return in.readFloat();
+      case TYPE_DOUBLE:
+        return in.readDouble();
+      case TYPE_STRING:
+        return readString(in);
+      case TYPE_JSON:
+        return mapper.readValue(readString(in), Object.class);
+      default:
+        throw new IOException("Unknown value type " + type + " in binary update");
+    }
+  }
+
+  private static void writeTimestamp(final DataOutputStream out, final Timestamp timestamp) throws IOException {
+    writeNullableLong(out, timestamp == null ? null : timestamp.getTime());
+  }
+
+  private static Timestamp readTimestamp(final DataInputStream in) throws IOException {
+    Long time = readNullableLong(in);
+    return time == null ? null : new Timestamp(time);
+  }
+
+  private static void writeNullableLong(final DataOutputStream out, final Long value) throws IOException {
+    if (value == null) {
+      out.writeBoolean(false);
+    } else {
+      out.writeBoolean(true);
+      out.writeLong(value);
+    }
+  }
+
+  private static Long readNullableLong(final DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readLong() : null;
+  }
+
+  /**
+   * Strings are written as their UTF-8 length followed by the bytes (-1 for null),
+   * as {@link DataOutputStream#writeUTF(String)} is limited to 64KB.
+   */
+  private static void writeString(final DataOutputStream out, final String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(final DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -25,6 +25,7 @@ import org.springframework.jms.support.converter.MessageConversionException;
 import org.springframework.jms.support.converter.MessageConverter;
 
 import javax.annotation.PostConstruct;
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.Session;
@@ -35,17 +36,50 @@ import java.io.IOException;
  * Converter class used to convert between JSON messages and
  * {@link DataTagValueUpdate} instances.
  *
+ * <p>Updates can also be sent in a compact binary format, as
+ * <code>BytesMessage</code>s carrying the format version in the
+ * {@link #BINARY_FORMAT_PROPERTY} property. Incoming messages are decoded
+ * according to their type, so JSON and binary senders can be mixed.
+ *
  * @author Mark Brightwell
  */
 @Slf4j
 public class DataTagValueUpdateConverter implements MessageConverter {
 
+  /**
+   * Name of the message property holding the version of the binary format.
+   */
+  public static final String BINARY_FORMAT_PROPERTY = "c2monBinaryFormat";
+
+  /**
+   * Latest version of the binary format, the only one understood so far.
+   */
+  public static final int BINARY_FORMAT_VERSION = 1;
+
   private ObjectMapper mapper;
 
+  private final DataTagValueUpdateBinaryCodec binaryCodec;
+
+  /**
+   * If true, outgoing updates are sent in the binary format instead of JSON.
+   */
+  private final boolean binaryEncoding;
+
   public DataTagValueUpdateConverter() {
+    this(false);
+  }
+
+  /**
+   * @param binaryEncoding whether {@link #toMessage} should use the binary
+   *                       format (only servers from version 1.9.5 on can
+   *                       decode it)
+   */
+  public DataTagValueUpdateConverter(final boolean binaryEncoding) {
     this.mapper = new ObjectMapper();
     mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     mapper.enable(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY);
+    this.binaryCodec = new DataTagValueUpdateBinaryCodec(mapper);
+    this.binaryEncoding = binaryEncoding;
   }
 
   /**
@@ -62,8 +96,12 @@ public class DataTagValueUpdateConverter implements MessageConverter {
       throw new MessageConversionException("Message must not be null!");
     }
 
+    if (message instanceof BytesMessage) {
+      return fromBytesMessage((BytesMessage) message);
+    }
+
     if (!(message instanceof TextMessage)) {
-      throw new MessageConversionException("Message must be an instance of TextMessage!");
+      throw new MessageConversionException("Message must be an instance of TextMessage or BytesMessage!");
     }
 
     try {
@@ -77,6 +115,44 @@ public class DataTagValueUpdateConverter implements MessageConverter {
     }
   }
 
+  private DataTagValueUpdate fromBytesMessage(final BytesMessage message) throws JMSException {
+    int version = message.propertyExists(BINARY_FORMAT_PROPERTY) ? message.getIntProperty(BINARY_FORMAT_PROPERTY) : 0;
+    if (version != BINARY_FORMAT_VERSION) {
+      throw new MessageConversionException("Unsupported binary update format version: " + version);
+    }
+
+    try {
+      byte[] body = new byte[(int) message.getBodyLength()];
+      message.readBytes(body);
+      return binaryCodec.decode(body);
+    } catch (IOException | RuntimeException e) {
+      log.error("Exception caught while parsing incoming binary update", e);
+      throw new MessageConversionException("Exception caught while parsing incoming binary update", e);
+    }
+  }
+
+  /**
+   * Encodes the update in the binary format, e.g. for storing it locally.
+   *
+   * @param update the update to encode
+   * @return the encoded update
+   * @throws IOException if the update cannot be encoded
+   */
+  public byte[] toBytes(final DataTagValueUpdate update) throws IOException {
+    return binaryCodec.encode(update);
+  }
+
+  /**
+   * Decodes an update encoded with {@link #toBytes}.
+   *
+   * @param bytes the encoded update
+   * @return the decoded update
+   * @throws IOException if the bytes are not a valid encoded update
+   */
+  public DataTagValueUpdate fromBytes(final byte[] bytes) throws IOException {
+    return binaryCodec.decode(bytes);
+  }
+
   /**
    * Converts a {@link DataTagValueUpdate} to a JMS {@link Message}
    *
@@ -88,6 +164,18 @@ public class DataTagValueUpdateConverter implements MessageConverter {
    */
   @Override
   public Message toMessage(final Object tag, final Session session) throws JMSException {
+    if (binaryEncoding && tag instanceof DataTagValueUpdate) {
+      try {
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(binaryCodec.encode((DataTagValueUpdate) tag));
+        message.setIntProperty(BINARY_FORMAT_PROPERTY, BINARY_FORMAT_VERSION);
+        return message;
+      } catch (IOException e) {
+        log.error("Exception caught in converting dataTagValueUpdate to binary", e);
+        throw new MessageConversionException("Exception caught in converting dataTagValueUpdate to binary: " + e.getMessage(), e);
+      }
+    }
+
     try {
       String json = mapper.writeValueAsString(tag);
       return session.createTextMessage(json);
@@ -0,0 +1,106 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.shared.daq.datatag;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import cern.c2mon.shared.common.datatag.DataTagAddress;
+import cern.c2mon.shared.common.datatag.DataTagValueUpdate;
+import cern.c2mon.shared.common.datatag.SourceDataTagQuality;
+import cern.c2mon.shared.common.datatag.SourceDataTagQualityCode;
+import cern.c2mon.shared.common.datatag.SourceDataTagValue;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DataTagValueUpdateBinaryCodecTest {
+
+  private DataTagValueUpdateBinaryCodec codec;
+
+  @Before
+  public void setUp() {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    mapper.enable(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY);
+    codec = new DataTagValueUpdateBinaryCodec(mapper);
+  }
+
+  @Test
+  public void testRoundTripOfTypedValues() throws IOException {
+    List<Object> values = Arrays.asList(Boolean.TRUE, (byte) 7, (short) -3, 42, Long.MAX_VALUE, 1.5f, -2.25d, "ünïcode", null);
+    DataTagValueUpdate update = new DataTagValueUpdate(90L, 12345L);
+    long id = 1000L;
+    for (Object value : values) {
+      SourceDataTagValue tagValue = new SourceDataTagValue(id++, "tag" + id, false, value,
+          new SourceDataTagQuality(), new Timestamp(System.currentTimeMillis()), DataTagAddress.PRIORITY_HIGH,
+          true, "description", 60000);
+      tagValue.setSimulated(true);
+      update.addValue(tagValue);
+    }
+
+    DataTagValueUpdate decoded = codec.decode(codec.encode(update));
+
+    assertEquals(update.getProcessId(), decoded.getProcessId());
+    assertEquals(update.getProcessPIK(), decoded.getProcessPIK());
+    assertEquals(new ArrayList<>(update.getValues()), new ArrayList<>(decoded.getValues()));
+    List<SourceDataTagValue> decodedValues = new ArrayList<>(decoded.getValues());
+    for (int i = 0; i < values.size(); i++) {
+      SourceDataTagValue decodedValue = decodedValues.get(i);
+      assertEquals(values.get(i), decodedValue.getValue());
+      assertEquals(60000, decodedValue.getTimeToLive());
+    }
+  }
+
+  @Test
+  public void testRoundTripOfInvalidControlTag() throws IOException {
+    SourceDataTagValue tagValue = new SourceDataTagValue(1L, "control", true, null,
+        new SourceDataTagQuality(SourceDataTagQualityCode.DATA_UNAVAILABLE, "no connection"), (Timestamp) null,
+        DataTagAddress.PRIORITY_LOW, false, null, DataTagAddress.TTL_FOREVER);
+    DataTagValueUpdate update = new DataTagValueUpdate(5L);
+    update.addValue(tagValue);
+
+    SourceDataTagValue decoded = codec.decode(codec.encode(update)).getValues().iterator().next();
+
+    assertEquals(tagValue, decoded);
+    assertNull(decoded.getTimestamp());
+    assertNull(decoded.getValue());
+    assertEquals(SourceDataTagQualityCode.DATA_UNAVAILABLE, decoded.getQuality().getQualityCode());
+    assertEquals("no connection", decoded.getQuality().getDescription());
+  }
+
+  @Test
+  public void testArraysAreDecodedAsOnTheJsonPath() throws IOException {
+    SourceDataTagValue tagValue = new SourceDataTagValue(1L, "array", false, new Integer[]{1, 2, 3},
+        new SourceDataTagQuality(), System.currentTimeMillis(), DataTagAddress.PRIORITY_LOW, false, null, DataTagAddress.TTL_FOREVER);
+    DataTagValueUpdate update = new DataTagValueUpdate(5L);
+    update.addValue(tagValue);
+
+    SourceDataTagValue decoded = codec.decode(codec.encode(update)).getValues().iterator().next();
+
+    assertArrayEquals(new Object[]{1, 2, 3}, (Object[]) decoded.getValue());
+  }
+}
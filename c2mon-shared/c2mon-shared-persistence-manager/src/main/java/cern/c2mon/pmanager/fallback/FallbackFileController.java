@@ -25,8 +25,10 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import cern.c2mon.pmanager.fallback.manager.FallbackObjectContainer;
@@ -36,6 +38,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Abstract class that holds all the common functionality to the different
  * fallback files that may exists
+ * <p>
+ * The counter file stores the number of lines already committed together with
+ * the byte offset of the first line not yet committed, so that the read
+ * position can be restored without reading the file from its beginning. The
+ * offsets of the lines read since the last commit are kept in memory, so that
+ * a partially committed set of lines can be re-read from the first line that
+ * was not committed.
  *
  * @author mruizgar
  *
@@ -61,7 +70,7 @@ public class FallbackFileController {
     private BufferedReader dInput;
 
     /** Stream file input for the fallback log file */
-    private BufferedReader inputBuf;
+    private FallbackFileReader inputBuf;
 
     /**
      * Counter for the file, that shows the number of lines that are still in
@@ -75,6 +84,21 @@ public class FallbackFileController {
      */
     private int numberOfLines;
 
+    /** Byte offset of the first line that has not been committed yet */
+    private long readBackOffset;
+
+    /**
+     * Byte offsets of the lines read since the last commit: element i is the
+     * offset of line readBackLines + i
+     */
+    private long[] lineOffsets = new long[1024];
+
+    /** Number of valid elements in lineOffsets */
+    private int indexedLines;
+
+    /** Number of the next line to be read from the input stream */
+    private int nextLine;
+
     /**
      * @param tFile
      *            the tagsFile to set
@@ -130,7 +154,7 @@ public class FallbackFileController {
     /**
      * @return the input
      */
-    public final BufferedReader getInput() {
+    public final FallbackFileReader getInput() {
         return inputBuf;
     }
 
@@ -138,7 +162,7 @@ public class FallbackFileController {
      * @param in
      *            the input to set
      */
-    public final void setInput(final BufferedReader in) {
+    public final void setInput(final FallbackFileReader in) {
         this.inputBuf = in;
     }
 
@@ -187,6 +211,13 @@ public class FallbackFileController {
         this.readBackLines = readLines;
     }
 
+    /**
+     * @return the byte offset of the first line that has not been committed yet
+     */
+    public final long getReadBackOffset() {
+        return readBackOffset;
+    }
+
     /**
      * Gets the absolute path of the counter file, given the absolute path of
      * its corresponding fallback file
@@ -271,6 +302,21 @@ public class FallbackFileController {
             line = dInput.readLine();
             if (line != null) {
                 counter = new Integer(line).intValue();
+                String offsetLine = dInput.readLine();
+                long offset = offsetLine == null ? -1 : Long.parseLong(offsetLine.trim());
+                if (isLineStart(offset)) {
+                    readBackLines = counter;
+                    readBackOffset = offset;
+                } else {
+                    // Counter file without (valid) offset: find the first line
+                    // that has not been yet processed by reading the file
+                    readBackLines = 0;
+                    readBackOffset = 0;
+                    goToLine(counter);
+                    readBackLines = counter;
+                    readBackOffset = inputBuf.getPosition();
+                }
+                indexedLines = 0;
                 // Put the reading descriptor in the first line that has not
                 // been yet processed
                 goToLine(counter);
@@ -291,7 +337,30 @@ public class FallbackFileController {
     }
 
     /**
-     * It prepares the file descriptor to read from a certain number of lines
+     * Checks whether the offset is the beginning of a line of the fallback file
+     *
+     * @param offset
+     *            The byte offset to check
+     * @return true if the offset is 0 or follows a line terminator
+     */
+    private boolean isLineStart(final long offset) throws IOException {
+        if (offset == 0) {
+            return true;
+        }
+        if (offset < 0 || offset > dataFile.length()) {
+            return false;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(dataFile, "r")) {
+            file.seek(offset - 1);
+            return file.read() == '\n';
+        }
+    }
+
+    /**
+     * It prepares the file descriptor to read from a certain number of lines.
+     * Lines read since the last commit are found through their recorded
+     * offsets; otherwise the file is read from the first line not yet
+     * committed.
      *
      * @param lineNumber
      *            The number of lines to be read to prepare the file descriptor
@@ -300,24 +369,91 @@ public class FallbackFileController {
      *             reading the file
      */
     public final void goToLine(final int lineNumber) throws DataFallbackException {
-        boolean moreLines = true;
-        int readlines = 0;
-
         openFallbackInputStream();
-        if (lineNumber != 0) {
-            try {
-                while (moreLines && readlines < lineNumber) {
-                    if (getInput().readLine() == null)
-                        moreLines = false;
-                    else
-                        readlines++;
+        int known = Math.min(lineNumber - readBackLines, indexedLines - 1);
+        if (known >= 0) {
+            seekToLine(readBackLines + known, lineOffsets[known]);
+        } else if (lineNumber < readBackLines) {
+            seekToLine(0, 0);
+        } else {
+            seekToLine(readBackLines, readBackOffset);
+        }
+        try {
+            while (nextLine < lineNumber) {
+                long offset = getInput().getPosition();
+                if (!getInput().skipLine()) {
+                    break;
                 }
-            } catch (IOException e) {
-                throw new DataFallbackException(e.getMessage());
+                indexLine(nextLine, offset);
+                nextLine++;
             }
+        } catch (IOException e) {
+            throw new DataFallbackException(e.getMessage());
+        }
+    }
+
+    /**
+     * Positions the input stream at the beginning of a line
+     *
+     * @param lineNumber
+     *            The number of the line
+     * @param offset
+     *            The byte offset of the line
+     */
+    private void seekToLine(final int lineNumber, final long offset) {
+        getInput().seek(offset);
+        nextLine = lineNumber;
+    }
+
+    /**
+     * Records the offset of a line read since the last commit
+     *
+     * @param lineNumber
+     *            The number of the line
+     * @param offset
+     *            The byte offset of the line
+     */
+    private void indexLine(final int lineNumber, final long offset) {
+        if (lineNumber - readBackLines == indexedLines) {
+            if (indexedLines == lineOffsets.length) {
+                lineOffsets = Arrays.copyOf(lineOffsets, indexedLines * 2);
+            }
+            lineOffsets[indexedLines++] = offset;
         }
     }
 
+    /**
+     * Marks the next lines after the last committed one as committed, moving
+     * the commit position to the line that follows them. The position is only
+     * kept in memory until {@link #updateNumberOfProcessedLines()} is called.
+     *
+     * @param numOfLines
+     *            The number of lines that have been committed
+     * @throws DataFallbackException
+     *             An exception is thrown if the offset of the line following
+     *             the committed ones cannot be determined
+     */
+    public final void addReadBackLines(final int numOfLines) throws DataFallbackException {
+        int line = readBackLines + numOfLines;
+        long offset;
+        if (numOfLines < indexedLines) {
+            offset = lineOffsets[numOfLines];
+        } else {
+            if (getInput() == null || nextLine != line) {
+                goToLine(line);
+            }
+            offset = getInput().getPosition();
+        }
+        if (numOfLines < indexedLines) {
+            System.arraycopy(lineOffsets, numOfLines, lineOffsets, 0, indexedLines - numOfLines);
+            indexedLines -= numOfLines;
+        } else {
+            indexedLines = 0;
+        }
+        readBackLines = line;
+        readBackOffset = offset;
+    }
+
     /**
      * Create a stream to read from the counter file
      *
@@ -428,10 +564,12 @@ public class FallbackFileController {
                 LOG.debug("openFallbackInputStream() : Opening the reader for the "
                         + dataFile.getName() + "file");
             try {
-                setInput(new BufferedReader(new FileReader(dataFile)));
+                setInput(new FallbackFileReader(dataFile));
             } catch (IOException e) {
                 throw new DataFallbackException(e.getMessage());
             }
+            // Start reading from the first line that has not been committed
+            seekToLine(readBackLines, readBackOffset);
         }
     }
 
@@ -485,6 +623,8 @@ public class FallbackFileController {
             openCounterDataOutputStream();
             dOutput.write("0");
             dOutput.newLine();
+            dOutput.write("0");
+            dOutput.newLine();
             dOutput.flush();
             if (LOG.isDebugEnabled())
                 LOG
@@ -558,10 +698,13 @@ public class FallbackFileController {
         boolean moreLines = true;
         try {
             while (moreLines && readlines < numOfLines) {
+                long offset = getInput().getPosition();
                 line = getInput().readLine();
                 if (line == null) {
                     moreLines = false;
                 } else {
+                    indexLine(nextLine, offset);
+                    nextLine++;
                     try {
                         // Parse the line to get the datatags values
                         obj = fallbackObj.getObject(line);
@@ -627,8 +770,9 @@ public class FallbackFileController {
     private int calcNumberOfLines() throws DataFallbackException {
         int lines = 0;
         openFallbackInputStream();
+        seekToLine(0, 0);
         try {
-            while (getInput().readLine() != null) {
+            while (getInput().skipLine()) {
                 lines++;
             }
         } catch (IOException e) {
@@ -654,9 +798,11 @@ public class FallbackFileController {
         try {
             this.getDOutput().write(new Integer(getReadBackLines()).toString());
             getDOutput().newLine();
+            getDOutput().write(Long.toString(getReadBackOffset()));
+            getDOutput().newLine();
             if (LOG.isDebugEnabled())
                 LOG.debug("removeLines() - The counter file has been updated with the value "
-                        + getReadBackLines());
+                        + getReadBackLines() + " (offset " + getReadBackOffset() + ")");
         } catch (IOException e) {
             throw new DataFallbackException(e.getMessage());
         }
@@ -694,6 +840,9 @@ public class FallbackFileController {
             }
             // Reset the fallback counters
             initializeCounterFile();
+            readBackOffset = 0;
+            indexedLines = 0;
+            nextLine = 0;
 
         }
     }
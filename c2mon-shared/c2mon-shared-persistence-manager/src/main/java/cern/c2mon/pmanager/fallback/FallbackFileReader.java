@@ -0,0 +1,172 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.pmanager.fallback;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Line reader for a fallback file that knows the byte offset of the next line
+ * to read and can be positioned directly at any such offset. Lines are read
+ * with positional reads on the file channel, so seeking does not require
+ * reading the file from its beginning.
+ *
+ * @see FallbackFileController
+ */
+public class FallbackFileReader implements Closeable {
+
+    /** Size of the read buffer */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Charset used by the writer of the fallback file */
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    /** The channel of the fallback file */
+    private final FileChannel channel;
+
+    /** Buffer holding the bytes of the file starting at bufferStart */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /** Byte offset in the file of the first byte of the buffer */
+    private long bufferStart;
+
+    /** Bytes of the line being read */
+    private byte[] line = new byte[256];
+
+    /**
+     * Opens a reader positioned at the beginning of the file
+     *
+     * @param file
+     *            The fallback file
+     * @throws IOException
+     *             An exception is thrown if the file cannot be opened
+     */
+    public FallbackFileReader(final File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffer.flip();
+    }
+
+    /**
+     * @return The byte offset of the next line to be read
+     */
+    public final long getPosition() {
+        return bufferStart + buffer.position();
+    }
+
+    /**
+     * Positions the reader at the given byte offset, which must be the
+     * beginning of a line
+     *
+     * @param offset
+     *            The byte offset of the next line to be read
+     */
+    public final void seek(final long offset) {
+        bufferStart = offset;
+        buffer.clear();
+        buffer.flip();
+    }
+
+    /**
+     * @return Whether there are still bytes to be read in the file
+     * @throws IOException
+     *             An exception is thrown if the file size cannot be read
+     */
+    public final boolean ready() throws IOException {
+        return buffer.hasRemaining() || getPosition() < channel.size();
+    }
+
+    /**
+     * Reads the next line, without its line terminator
+     *
+     * @return The line, or null if the end of the file has been reached
+     * @throws IOException
+     *             An exception is thrown if the file cannot be read
+     */
+    public final String readLine() throws IOException {
+        int length = scanLine(true);
+        if (length < 0) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, CHARSET);
+    }
+
+    /**
+     * Moves the reader to the beginning of the next line
+     *
+     * @return false if the end of the file had already been reached
+     * @throws IOException
+     *             An exception is thrown if the file cannot be read
+     */
+    public final boolean skipLine() throws IOException {
+        return scanLine(false) >= 0;
+    }
+
+    /**
+     * Reads up to and including the next line terminator
+     *
+     * @param keep
+     *            Whether to copy the bytes of the line into the line array
+     * @return The number of bytes of the line before the terminator, or -1 if
+     *         the end of the file has been reached
+     */
+    private int scanLine(final boolean keep) throws IOException {
+        int length = 0;
+        boolean read = false;
+        while (buffer.hasRemaining() || fill()) {
+            read = true;
+            byte b = buffer.get();
+            if (b == '\n') {
+                return length;
+            }
+            if (keep) {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length] = b;
+            }
+            length++;
+        }
+        return read ? length : -1;
+    }
+
+    /**
+     * Reads the next bytes of the file into the buffer
+     *
+     * @return false if the end of the file has been reached
+     */
+    private boolean fill() throws IOException {
+        bufferStart = getPosition();
+        buffer.clear();
+        int count = channel.read(buffer, bufferStart);
+        buffer.flip();
+        return count > 0;
+    }
+
+    @Override
+    public final void close() throws IOException {
+        channel.close();
+    }
+}
@@ -230,10 +230,10 @@ public class FallbackFileManager {
 
         boolean removed = true;
 
-        // Update the number of already committed datatags
-        fFileController.setReadBackLines(numberOfLines + fFileController.getReadBackLines());
-        // Virtually remove those datatags from the file
+        // Update the number of already committed datatags and virtually
+        // remove them from the file
         try {
+            fFileController.addReadBackLines(numberOfLines);
             fFileController.updateNumberOfProcessedLines();
         } catch (DataFallbackException e) {
             removed = false;
@@ -18,12 +18,15 @@
 package cern.c2mon.pmanager.fallback;
 
 import cern.c2mon.pmanager.fallback.exception.DataFallbackException;
+import cern.c2mon.pmanager.fallback.manager.FallbackObjectContainer;
 import cern.c2mon.pmanager.mock.FallbackImpl;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 
 import static org.junit.Assert.*;
 
@@ -129,4 +132,64 @@ public class FallbackFileControllerTest {
     }
     assertNull(fFileController.getOutput());
   }
+
+  /**
+   * Tests that after a partial commit the lines are read again from the first
+   * line not committed, also by a new controller reading the stored offset
+   */
+  @Test
+  public final void testResumeFromCommittedOffset() throws IOException, DataFallbackException {
+    File file = createFallbackFile(10);
+    FallbackFileController fFileController = new FallbackFileController(file.getAbsolutePath());
+    fFileController.getCounterFile().deleteOnExit();
+    assertEquals(10, fFileController.getNumberOfLines());
+
+    fFileController.openFallbackInputStream();
+    assertEquals(6, fFileController.readLines(6, new FallbackImpl()).getReadLines());
+    fFileController.goToLine(4);
+    fFileController.addReadBackLines(4);
+    fFileController.updateNumberOfProcessedLines();
+    assertEquals("line-4", readLine(fFileController));
+
+    FallbackFileController restarted = new FallbackFileController(file.getAbsolutePath());
+    assertEquals(4, restarted.getReadBackLines());
+    assertEquals(fFileController.getReadBackOffset(), restarted.getReadBackOffset());
+    assertEquals("line-4", readLine(restarted));
+  }
+
+  /**
+   * Tests that a counter file holding only the number of committed lines is
+   * still positioned on the right line
+   */
+  @Test
+  public final void testCounterFileWithoutOffset() throws IOException, DataFallbackException {
+    File file = createFallbackFile(5);
+    FallbackFileController fFileController = new FallbackFileController(file.getAbsolutePath());
+    fFileController.getCounterFile().deleteOnExit();
+    try (Writer writer = new FileWriter(fFileController.getCounterFile())) {
+      writer.write("2\n");
+    }
+
+    FallbackFileController restarted = new FallbackFileController(file.getAbsolutePath());
+    assertEquals(2, restarted.getReadBackLines());
+    assertEquals("line-2", readLine(restarted));
+  }
+
+  private static File createFallbackFile(int lines) throws IOException {
+    File file = File.createTempFile("IndexedFallback", ".log");
+    file.deleteOnExit();
+    try (Writer writer = new FileWriter(file)) {
+      for (int i = 0; i < lines; i++) {
+        // lines of different lengths, including multi-byte characters
+        writer.write("line-" + i + (i % 2 == 0 ? "" : " \u00e9\u00e8") + "\n");
+      }
+    }
+    return file;
+  }
+
+  private static String readLine(FallbackFileController fFileController) throws DataFallbackException {
+    fFileController.openFallbackInputStream();
+    FallbackObjectContainer container = fFileController.readLines(1, new FallbackImpl());
+    return container.getObjects().get(0).toString();
+  }
 }
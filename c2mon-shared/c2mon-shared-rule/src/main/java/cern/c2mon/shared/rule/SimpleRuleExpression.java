@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Set;
 
 import cern.c2mon.shared.common.rule.RuleInputValue;
+import cern.c2mon.shared.rule.parser.CompiledExpression;
 import cern.c2mon.shared.rule.parser.InvalidExpressionParser;
 import cern.c2mon.shared.rule.parser.Parser;
 import cern.c2mon.shared.rule.parser.RuleConstant;
@@ -36,6 +37,17 @@ public class SimpleRuleExpression extends RuleExpression implements Cloneable {
      */
     private Object[] tokens = null;
 
+    /**
+     * Compiled form of the tokens, created on first evaluation. Null if the
+     * tokens could not be compiled, in which case the token interpreter is used.
+     */
+    private transient volatile CompiledExpression compiledExpression;
+
+    /**
+     * Set once the compilation of the tokens has been attempted.
+     */
+    private transient volatile boolean compilationDone = false;
+
     public SimpleRuleExpression(final String pExpression) throws RuleFormatException {
         super(pExpression, RuleType.Simple);
         this.tokens = tokenize(pExpression);
@@ -523,6 +535,10 @@ public class SimpleRuleExpression extends RuleExpression implements Cloneable {
     private Object handleRuleWithNoInvalidTags(final Map<Long, Object> pInputParams)
         throws RuleEvaluationException {
 
+      final CompiledExpression compiled = getCompiledExpression();
+      if (compiled != null) {
+        return compiled.evaluate(resolveInputValues(compiled, pInputParams, false), Parser.getInstance());
+      }
       final Object[] valueTokens = splitToTokens(pInputParams);
       final Object result = Parser.getInstance().eval(valueTokens); // => evaluate the expression as normal
       return result;
@@ -558,11 +574,63 @@ public class SimpleRuleExpression extends RuleExpression implements Cloneable {
     private Object tryToIgnoreInvalidTags(final Map<Long, Object> pInputParams) 
         throws RuleEvaluationException {
       
+      final CompiledExpression compiled = getCompiledExpression();
+      if (compiled != null) {
+        return compiled.evaluate(resolveInputValues(compiled, pInputParams, true), InvalidExpressionParser.getInstance());
+      }
       final Object[] valueTokens = splitToTokensAndAllowInvalidTags(pInputParams);
       final Object result = InvalidExpressionParser.getInstance().eval(valueTokens);
       
       return result;
     }
+
+    /**
+     * @return The compiled form of the tokens, or null if they cannot be compiled
+     */
+    private CompiledExpression getCompiledExpression() {
+      if (!compilationDone) {
+        compiledExpression = CompiledExpression.compile(tokens);
+        compilationDone = true;
+      }
+      return compiledExpression;
+    }
+
+    /**
+     * Same as {@link #splitToTokens(Map)} (or {@link #splitToTokensAndAllowInvalidTags(Map)}
+     * if invalid tags are allowed), but only the values of the input tags are
+     * returned, in the order expected by the compiled expression.
+     *
+     * @param compiled the compiled expression
+     * @param pInputParams Map of value objects related to the input tag ids
+     * @param allowInvalidTags if true, invalid tags are replaced with {@link RuleConstant#INTERNAL_INVALID}
+     * @return the input values
+     * @throws RuleEvaluationException in case the DataTags contained in the Rule
+     * are Null, or non-existent (or Invalid, if not allowed).
+     */
+    private Object[] resolveInputValues(final CompiledExpression compiled, final Map<Long, Object> pInputParams,
+                                        final boolean allowInvalidTags) throws RuleEvaluationException {
+
+      Object[] inputValues = new Object[compiled.getInputCount()];
+      for (int i = 0; i < inputValues.length; i++) {
+          long tagId = compiled.getInputTagId(i);
+          Object val = pInputParams.get(tagId);
+          if (val != null && val instanceof RuleInputValue) {
+              RuleInputValue tag = (RuleInputValue) val;
+              if (allowInvalidTags && !tag.isValid()) {
+                  inputValues[i] = RuleConstant.INTERNAL_INVALID.toString();
+              } else if (tag.getValue() == null) {
+                  throw new RuleEvaluationException("Cannot evaluate rule: tag " + tag.getId() + " is null.");
+              } else {
+                  inputValues[i] = tag.getValue();
+              }
+          } else if (val != null) {
+              inputValues[i] = val;
+          } else {
+              throw new RuleEvaluationException("Cannot evaluate rule: input tag missing " + tagId);
+          }
+      }
+      return inputValues;
+    }
     
     @Override
     public Set<Long> getInputTagIds() {
@@ -0,0 +1,297 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.shared.rule.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cern.c2mon.shared.rule.RuleEvaluationException;
+import cern.c2mon.shared.rule.RuleInputTagId;
+
+/**
+ * Compiled form of a tokenized rule expression. The token array is parsed once
+ * into a tree of nodes, which are then evaluated directly against the input
+ * values, without copying or re-scanning the tokens on every evaluation.
+ *
+ * <p>The tree reproduces exactly the structure {@link AbstractParser#eval(Object[])}
+ * derives from the tokens: an operand followed by the main operator and the
+ * (right-recursive) rest of the expression. The binary operations themselves are
+ * delegated to {@link AbstractParser#calculateExpr(Object, Object, Operator)},
+ * so the results of both {@link Parser} and {@link InvalidExpressionParser}
+ * are the same as with the token interpreter.
+ *
+ * <p>Every distinct input tag is given a slot. The caller resolves the input
+ * values into an array in the order of {@link #getInputTagIds()} and passes it to
+ * {@link #evaluate(Object[], AbstractParser)}.
+ *
+ * <p>Instances are immutable and can be shared between threads.
+ */
+public final class CompiledExpression {
+
+  /**
+   * Root of the expression tree.
+   */
+  private final Node root;
+
+  /**
+   * Input tag ids, in the order of their first occurrence in the expression.
+   */
+  private final long[] inputTagIds;
+
+  private CompiledExpression(final Node root, final long[] inputTagIds) {
+    this.root = root;
+    this.inputTagIds = inputTagIds;
+  }
+
+  /**
+   * Compiles the given tokens.
+   *
+   * @param tokens the rule in token format, with {@link RuleInputTagId}s for the input tags
+   * @return the compiled expression, or <code>null</code> if the tokens do not form an
+   *         expression that can be compiled. In this case the expression has to be
+   *         evaluated with {@link AbstractParser#eval(Object[])}, which reports the error.
+   */
+  public static CompiledExpression compile(final Object[] tokens) {
+    List<Long> tagIds = new ArrayList<>();
+    Node root;
+    try {
+      root = compile(tokens, tagIds, Parser.getInstance());
+    } catch (RuntimeException e) {
+      return null;
+    }
+    if (root == null) {
+      return null;
+    }
+    long[] ids = new long[tagIds.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = tagIds.get(i);
+    }
+    return new CompiledExpression(root, ids);
+  }
+
+  /**
+   * @return the ids of the input tags, defining the order of the input values
+   *         expected by {@link #evaluate(Object[], AbstractParser)}
+   */
+  public long[] getInputTagIds() {
+    return inputTagIds.clone();
+  }
+
+  /**
+   * @return the number of input values expected by {@link #evaluate(Object[], AbstractParser)}
+   */
+  public int getInputCount() {
+    return inputTagIds.length;
+  }
+
+  /**
+   * @param index input slot
+   * @return the id of the input tag stored at the given slot
+   */
+  public long getInputTagId(final int index) {
+    return inputTagIds[index];
+  }
+
+  /**
+   * Evaluates the expression. Errors are reported in the same way as by
+   * {@link AbstractParser#eval(Object[])}.
+   *
+   * @param inputValues the values of the input tags, in the order of {@link #getInputTagIds()}
+   * @param parser the parser providing the operator semantics
+   * @return the result of the expression
+   */
+  public Object evaluate(final Object[] inputValues, final AbstractParser parser) {
+    try {
+      return root.evaluate(inputValues, parser);
+    } catch (ClassCastException cce) {
+      throw cce;
+    } catch (Exception e) {
+      throw new RuntimeException("Unexpected error during rule evaluation.", e);
+    }
+  }
+
+  /**
+   * Mirrors the recursive decomposition of {@link AbstractParser#eval(Object[])}.
+   *
+   * @return the compiled node, or null if the tokens cannot be compiled
+   */
+  private static Node compile(final Object[] token, final List<Long> tagIds, final AbstractParser parser) {
+    if (!parser.isParenthesisBalanced(token)) {
+      return null;
+    }
+
+    if (token.length == 1) {
+      if (token[0] instanceof RuleInputTagId) {
+        Long tagId = ((RuleInputTagId) token[0]).getId();
+        int slot = tagIds.indexOf(tagId);
+        if (slot < 0) {
+          slot = tagIds.size();
+          tagIds.add(tagId);
+        }
+        return new InputNode(slot);
+      }
+      return new ValueNode(token[0]);
+    }
+
+    Object[] x = parser.extractExpressionFromTheLeft(token);
+
+    // Special case: "(" expression ")"
+    if (token[0] instanceof String
+        && token[token.length - 1] instanceof String
+        && (x.length) == (token.length - 2)
+        && token[0].equals("(")
+        && token[token.length - 1].equals(")")) {
+      return compile(x, tagIds, parser);
+    }
+
+    // Special case: unary operators "!" and "-"
+    if (x.length == token.length) {
+      Object[] x2 = new Object[x.length - 1];
+      System.arraycopy(x, 1, x2, 0, x2.length);
+      Node operand = compile(x2, tagIds, parser);
+      if (operand == null) {
+        return null;
+      }
+      if (x[0] instanceof String && x[0].equals("!")) {
+        return new NotNode(operand);
+      } else if (x[0] instanceof String && x[0].equals("-")) {
+        return new NegationNode(operand);
+      }
+      return null;
+    }
+
+    final int operatorIndex = (token[0] instanceof String && (((String) token[0]).compareTo("(") == 0))
+        ? (x.length + 2) : (x.length);
+    if (!(token[operatorIndex] instanceof String)) {
+      return null;
+    }
+    Operator operator = Operator.fromString((String) token[operatorIndex]);
+    if (operator == null) {
+      return null;
+    }
+    Object[] y = new Object[token.length - operatorIndex - 1];
+    System.arraycopy(token, operatorIndex + 1, y, 0, y.length);
+
+    Node left = compile(x, tagIds, parser);
+    Node right = left == null ? null : compile(y, tagIds, parser);
+    if (right == null) {
+      return null;
+    }
+    return new BinaryNode(operator, left, right);
+  }
+
+  /**
+   * Node of the expression tree.
+   */
+  private abstract static class Node {
+
+    abstract Object evaluate(Object[] inputValues, AbstractParser parser) throws RuleEvaluationException;
+  }
+
+  /**
+   * Constant of the expression (number, boolean, string or keyword).
+   */
+  private static final class ValueNode extends Node {
+
+    private final Object value;
+
+    ValueNode(final Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object evaluate(final Object[] inputValues, final AbstractParser parser) {
+      return value;
+    }
+  }
+
+  /**
+   * Value of an input tag.
+   */
+  private static final class InputNode extends Node {
+
+    private final int slot;
+
+    InputNode(final int slot) {
+      this.slot = slot;
+    }
+
+    @Override
+    Object evaluate(final Object[] inputValues, final AbstractParser parser) {
+      return inputValues[slot];
+    }
+  }
+
+  /**
+   * Unary operator "!".
+   */
+  private static final class NotNode extends Node {
+
+    private final Node operand;
+
+    NotNode(final Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object evaluate(final Object[] inputValues, final AbstractParser parser) throws RuleEvaluationException {
+      return operand.evaluate(inputValues, parser).equals(Boolean.TRUE) ? Boolean.FALSE : Boolean.TRUE;
+    }
+  }
+
+  /**
+   * Unary operator "-".
+   */
+  private static final class NegationNode extends Node {
+
+    private final Node operand;
+
+    NegationNode(final Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object evaluate(final Object[] inputValues, final AbstractParser parser) throws RuleEvaluationException {
+      return Double.valueOf(-((Number) operand.evaluate(inputValues, parser)).doubleValue());
+    }
+  }
+
+  /**
+   * Binary expression x OPERATOR y.
+   */
+  private static final class BinaryNode extends Node {
+
+    private final Operator operator;
+
+    private final Node left;
+
+    private final Node right;
+
+    BinaryNode(final Operator operator, final Node left, final Node right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Object[] inputValues, final AbstractParser parser) throws RuleEvaluationException {
+      Object xResult = left.evaluate(inputValues, parser);
+      Object yResult = right.evaluate(inputValues, parser);
+      return parser.calculateExpr(xResult, yResult, operator);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.shared.rule;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cern.c2mon.shared.rule.parser.CompiledExpression;
+import cern.c2mon.shared.rule.parser.InvalidExpressionParser;
+import cern.c2mon.shared.rule.parser.Parser;
+import cern.c2mon.shared.rule.parser.RuleConstant;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Makes sure the compiled expressions return the same results as the token
+ * interpreter of {@link Parser}.
+ */
+public class CompiledExpressionTest {
+
+  private static final List<String> EXPRESSIONS = Arrays.asList(
+      "#100 + #200 * 2",
+      "#100 * #200 + 2",
+      "(#100 + #200) * 2",
+      "2 ^ #100 - #200 / 4",
+      "-(#100) + 3",
+      "-(#100 + 3) * 2",
+      "!(#100 > #200)",
+      "!(#100 > 3) & (#200 < 10)",
+      "(#100 >= 5) | (#200 <= 2)",
+      "#100 = #200",
+      "#100 != 5",
+      "((#100 = 1) | (#200 = 2)) & (#100 < 100)",
+      "#100 && 6",
+      "#100 || 8",
+      "(((#100)))",
+      "#100",
+      "true",
+      "1.5E3 - #200");
+
+  @Test
+  public void testResultsMatchInterpreter() throws Exception {
+    Map<Long, Object> inputs = new HashMap<>();
+    for (double x : new double[] {-3, 0, 1, 5, 12.5}) {
+      for (double y : new double[] {-1, 2, 5, 7}) {
+        inputs.put(100L, x);
+        inputs.put(200L, y);
+        for (String expression : EXPRESSIONS) {
+          Object[] tokens = SimpleRuleExpression.tokenize(expression);
+          CompiledExpression compiled = CompiledExpression.compile(tokens);
+          assertNotNull(expression, compiled);
+
+          Object[] inputValues = new Object[compiled.getInputCount()];
+          for (int i = 0; i < inputValues.length; i++) {
+            inputValues[i] = inputs.get(compiled.getInputTagId(i));
+          }
+          assertEquals(expression, Parser.getInstance().eval(replaceTags(tokens, inputs)),
+              compiled.evaluate(inputValues, Parser.getInstance()));
+          assertEquals(expression, new SimpleRuleExpression(expression).evaluate(inputs),
+              compiled.evaluate(inputValues, Parser.getInstance()));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testInputTagIdsInOrderOfOccurrence() throws Exception {
+    CompiledExpression compiled = CompiledExpression.compile(SimpleRuleExpression.tokenize("#300 + #100 * #300 - #200"));
+    assertArrayEquals(new long[] {300L, 100L, 200L}, compiled.getInputTagIds());
+  }
+
+  @Test
+  public void testInvalidTagsUseInvalidExpressionParser() throws Exception {
+    Object[] tokens = SimpleRuleExpression.tokenize("(#100 = 2) | (3 = 3)");
+    CompiledExpression compiled = CompiledExpression.compile(tokens);
+    Object[] inputValues = new Object[] {RuleConstant.INTERNAL_INVALID.toString()};
+    Map<Long, Object> inputs = new HashMap<>();
+    inputs.put(100L, RuleConstant.INTERNAL_INVALID.toString());
+
+    assertEquals(InvalidExpressionParser.getInstance().eval(replaceTags(tokens, inputs)),
+        compiled.evaluate(inputValues, InvalidExpressionParser.getInstance()));
+  }
+
+  @Test
+  public void testMalformedExpressionIsNotCompiled() throws Exception {
+    assertNull(CompiledExpression.compile(SimpleRuleExpression.tokenize("(#100 + 2")));
+    assertNull(CompiledExpression.compile(SimpleRuleExpression.tokenize("#100 2")));
+    // the interpreter only accepts "-" in front of a parenthesis
+    assertNull(CompiledExpression.compile(SimpleRuleExpression.tokenize("-#100 + 3")));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testTypeErrorIsReportedAsWithInterpreter() throws Exception {
+    Map<Long, Object> inputs = new HashMap<>();
+    inputs.put(100L, Boolean.TRUE);
+    new SimpleRuleExpression("#100 + 2").evaluate(inputs);
+  }
+
+  private static Object[] replaceTags(final Object[] tokens, final Map<Long, Object> inputs) {
+    Object[] valueTokens = new Object[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      valueTokens[i] = tokens[i] instanceof RuleInputTagId ? inputs.get(((RuleInputTagId) tokens[i]).getId()) : tokens[i];
+    }
+    return valueTokens;
+  }
+}
@@ -19,15 +19,25 @@ package cern.c2mon.shared.util.buffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /** A buffering utility class.
+ *
+ * <p>The buffer is lock-free. The objects are kept in a non-blocking FIFO queue, from which
+ * the firing thread drains them directly into the collection passed to the listener. With
+ * DUPLICATE_OK and a maximum capacity, the oldest objects are evicted from the head of the
+ * queue in constant time. With DUPLICATE_REPLACE and DUPLICATE_DISCARD, the queued entries
+ * are also kept in a map keyed by the pushed objects (using <code>equals</code>), which
+ * coalesces the duplicates into the entry already queued.
+ *
  * @author F.Calderini
  */
 public class SynchroBuffer {
@@ -58,7 +68,7 @@ public class SynchroBuffer {
    * If the maximum capacity is reached, we only log
    * a warning every WARNING_FREQUENCY removals from the buffer.
    */
-  private int warningCounter = 0;
+  private final AtomicInteger warningCounter = new AtomicInteger();
   
   /**
    * The frequency of the warnings if the buffer capacity
@@ -74,9 +84,14 @@ public class SynchroBuffer {
     
   private SynchroBufferListener listener = null;
     
-  /** The buffer */
-  private List buffer = null;
-  private Map bufferMap = null;
+  /** The buffer, holding the objects (DUPLICATE_OK) or their {@link Entry} (other policies) */
+  private Queue<Object> buffer = null;
+
+  /** The queued entries by object, for DUPLICATE_REPLACE and DUPLICATE_DISCARD */
+  private ConcurrentHashMap<Object, Entry> bufferMap = null;
+
+  /** The number of objects in the buffer */
+  private final AtomicInteger size = new AtomicInteger();
   
   /** Allows object duplication.
    */
@@ -191,8 +206,8 @@ public class SynchroBuffer {
       this.windowGrowthFactor = growthFactor;
       this.duplicatePolicy = policy;
       this.capacity = capacity;
-      buffer = new ArrayList();
-      bufferMap = new LinkedHashMap();
+      buffer = new ConcurrentLinkedQueue<>();
+      bufferMap = new ConcurrentHashMap<>();
       checkingThread = "".equalsIgnoreCase(name) ? new CheckingThread() : new CheckingThread(name);
       checkingThread.setDaemon(daemon);
       checkingThread.start();
@@ -200,15 +215,8 @@ public class SynchroBuffer {
   }
   
   private long fire() {
-    //if (buffer.size() == 0)
-//          return 0;
     setFiring(true);
-    Collection pulled = null;
-    synchronized(buffer) {
-      pulled = (Collection) ((ArrayList)buffer).clone();
-      buffer.clear();
-      bufferMap.clear();
-    }
+    Collection pulled = drain();
     long time_before = System.currentTimeMillis();
     if (listener != null) {
       if (pulled.size() > 0) {
@@ -226,11 +234,35 @@ public class SynchroBuffer {
     return time_elapsed;
   }
     
+  /**
+   * Removes the objects currently in the buffer. Objects pushed while draining are left
+   * for the next drain, so that a continuous flow of pushes cannot hold up the firing thread.
+   * @return the drained objects, in the order they were pushed
+   */
+  private List<Object> drain() {
+    int count = size.get();
+    List<Object> pulled = new ArrayList<>(count);
+    while (pulled.size() < count) {
+      Object polled = buffer.poll();
+      if (polled == null) {
+        break;
+      }
+      size.decrementAndGet();
+      if (polled instanceof Entry) {
+        pulled.add(((Entry) polled).remove());
+      } else {
+        pulled.add(polled);
+      }
+    }
+    return pulled;
+  }
+
   /** Push an object into the buffer. 
    * If the duplicate policy is DUPLICATE_DISCARD the object is discarded if the buffer already contains it. 
    * If the duplicate policy is DUPLICATE_REPLACE the object replaces any previously pushed duplicated instance. 
    * The object is appended otherwise.
    * <code>equals</code> method is used to determine duplications.
+   * Null objects are ignored.
    * @param o the object to push
    */
   public void push(Object object) {
@@ -239,45 +271,60 @@ public class SynchroBuffer {
       throw new IllegalArgumentException("buffer closed");
     }
     
+    if (object == null) {
+      LOGGER.warn("Ignoring null object pushed into the SynchroBuffer");
+      return;
+    }
+
     boolean objectAdded = false;
-    synchronized(buffer) {
-      switch (duplicatePolicy) {
-        case SynchroBuffer.DUPLICATE_DISCARD :
-          if (!bufferMap.containsKey(object)) {
-            buffer.add(object);
-            bufferMap.put(object, new Integer(buffer.size()-1));
-            objectAdded = true;
-          }
-          break;
-        case SynchroBuffer.DUPLICATE_REPLACE:
-          Integer index = (Integer)bufferMap.get(object);
-          if (index == null) {
-            buffer.add(object);
-            index = new Integer(buffer.size()-1);
-            bufferMap.put(object, index);
-            objectAdded = true;
-          } else {
-            buffer.set(index.intValue(), object);
-          }
-          break;
-        default :
-          buffer.add(object);
-          //if the buffer is to large, remove the oldest object
-          if (capacity != INFINITE_CAPACITY && buffer.size() > capacity) {
-              buffer.remove(0);
-              //log capacity reached
-              capacityWarn();
-          }
-          objectAdded = true;
-      }
-      
+    switch (duplicatePolicy) {
+      case SynchroBuffer.DUPLICATE_DISCARD :
+      case SynchroBuffer.DUPLICATE_REPLACE :
+        objectAdded = pushEntry(object);
+        break;
+      default :
+        buffer.add(object);
+        size.incrementAndGet();
+        //if the buffer is to large, remove the oldest object
+        if (capacity != INFINITE_CAPACITY && size.get() > capacity) {
+            if (buffer.poll() != null) {
+              size.decrementAndGet();
+            }
+            //log capacity reached
+            capacityWarn();
+        }
+        objectAdded = true;
     }
-    if (LOGGER.isDebugEnabled() && objectAdded && buffer.size() > 100 && buffer.size() % 1000 == 0) {
-        LOGGER.debug("buffer reached " + buffer.size() + " cached elements and growing... ");
+
+    int currentSize = size.get();
+    if (LOGGER.isDebugEnabled() && objectAdded && currentSize > 100 && currentSize % 1000 == 0) {
+        LOGGER.debug("buffer reached " + currentSize + " cached elements and growing... ");
         LOGGER.debug("if enabled, buffer will keep size below the maximum capacity, which is set at " + capacity);
     }
   }
     
+  /**
+   * Pushes an object with the DUPLICATE_DISCARD or DUPLICATE_REPLACE policy. The map update
+   * is atomic with the removal of the entry by the firing thread, so a replacing object is
+   * either delivered with the entry or queued in a new entry.
+   * @return true if a new entry was queued
+   */
+  private boolean pushEntry(final Object object) {
+    boolean[] queued = new boolean[1];
+    bufferMap.compute(object, (key, entry) -> {
+      if (entry == null) {
+        entry = new Entry(key, object);
+        buffer.add(entry);
+        size.incrementAndGet();
+        queued[0] = true;
+      } else if (duplicatePolicy == SynchroBuffer.DUPLICATE_REPLACE) {
+        entry.value = object;
+      }
+      return entry;
+    });
+    return queued[0];
+  }
+
   /**
    * Log a warning message if the capacity is reached
    * (every 500 times the capacity is reached, so as
@@ -285,12 +332,8 @@ public class SynchroBuffer {
    */
   private void capacityWarn() {
     //warn every so often (according to frequency parameter)
-      if (warningCounter == 0) {
-          LOGGER.warn("The maximum capacity of the SynchroBuffer was reached (current size is " + buffer.size() + ") - FIFO was applied to the buffer.");
-          warningCounter = WARNING_FREQUENCY;
-      }
-      else {
-          warningCounter = warningCounter - 1;
+      if (warningCounter.getAndIncrement() % (WARNING_FREQUENCY + 1) == 0) {
+          LOGGER.warn("The maximum capacity of the SynchroBuffer was reached (current size is " + size.get() + ") - FIFO was applied to the buffer.");
       }
   }
   
@@ -303,21 +346,27 @@ public class SynchroBuffer {
       throw new IllegalArgumentException("buffer closed");
     }
     if ( (collection != null) && (collection.size() != 0) ) {
-      synchronized(buffer) {
-        if ( (duplicatePolicy != SynchroBuffer.DUPLICATE_DISCARD) && (duplicatePolicy != SynchroBuffer.DUPLICATE_REPLACE) ) {
-            buffer.addAll(collection);            
-            // if the buffer is too large, remove the same number of old objects as those just added, and log warning
-            if (capacity != INFINITE_CAPACITY && buffer.size() > capacity) {
-                //always log if collection is too large to add to buffer without overflow
-                LOGGER.warn("The maximum capacity of the SynchroBuffer was reached (current size is " + buffer.size() + ") - FIFO was applied to the buffer.");
-                while (buffer.size() > capacity) {
-                    buffer.remove(0);
-                }
+      if ( (duplicatePolicy != SynchroBuffer.DUPLICATE_DISCARD) && (duplicatePolicy != SynchroBuffer.DUPLICATE_REPLACE) ) {
+          for (Object object : collection) {
+            if (object != null) {
+              buffer.add(object);
+              size.incrementAndGet();
             }
-        } else {
-          Iterator iterator = collection.iterator();
-          while (iterator.hasNext()) {
-            push(iterator.next());
+          }
+          // if the buffer is too large, remove the same number of old objects as those just added, and log warning
+          if (capacity != INFINITE_CAPACITY && size.get() > capacity) {
+              //always log if collection is too large to add to buffer without overflow
+              LOGGER.warn("The maximum capacity of the SynchroBuffer was reached (current size is " + size.get() + ") - FIFO was applied to the buffer.");
+              while (size.get() > capacity && buffer.poll() != null) {
+                  size.decrementAndGet();
+              }
+          }
+      } else {
+        Iterator iterator = collection.iterator();
+        while (iterator.hasNext()) {
+          Object object = iterator.next();
+          if (object != null) {
+            pushEntry(object);
           }
         }
       }
@@ -364,9 +413,7 @@ public class SynchroBuffer {
   }
     
   private boolean isEmpty() {
-    synchronized(buffer) {
-      return buffer.isEmpty();
-    }
+    return buffer.isEmpty();
   }
     
   private boolean isEnabled() {   
@@ -382,19 +429,14 @@ public class SynchroBuffer {
    * @return the current size of the buffer
    */
   public final int getSize() {
-      synchronized (buffer) {
-          return buffer.size();
-      }
+      return size.get();
   }
   
   /**
    * Empties the SynchroBuffer of all it's current content.
    */
   public final void empty() {
-      synchronized (buffer) {
-          buffer.clear();
-          bufferMap.clear();
-      }
+      drain();
   }
 
   /** 
@@ -434,7 +476,7 @@ public class SynchroBuffer {
       LOGGER.debug("synchro checkingThread");
       while ( (!isClosed()) || (!isEmpty() && isEnabled()) ) {
         if (isEnabled()) {
-            objects_per_sec = (1000 * buffer.size()) / (wait_time + firing_time);
+            objects_per_sec = (1000 * getSize()) / (wait_time + firing_time);
           calculated_window_size = minWindowSize + ((long)(windowGrowthFactor * objects_per_sec));
           wait_time = ( (calculated_window_size < maxWindowSize) ? calculated_window_size : maxWindowSize );
           firing_time = fire();
@@ -449,7 +491,37 @@ public class SynchroBuffer {
       }
     }
   }
-}
 
+  /**
+   * Queued entry of the DUPLICATE_REPLACE and DUPLICATE_DISCARD policies.
+   */
+  private final class Entry {
+
+    /** The key of the entry in the buffer map */
+    private final Object key;
+
+    /** The object to deliver, only modified within the map compute functions */
+    private Object value;
 
+    private Entry(final Object key, final Object value) {
+      this.key = key;
+      this.value = value;
+    }
 
+    /**
+     * Removes the entry from the buffer map.
+     * @return the object to deliver for this entry
+     */
+    private Object remove() {
+      Object[] removed = new Object[1];
+      bufferMap.computeIfPresent(key, (k, entry) -> {
+        if (entry == this) {
+          removed[0] = value;
+          return null;
+        }
+        return entry;
+      });
+      return removed[0] != null ? removed[0] : value;
+    }
+  }
+}
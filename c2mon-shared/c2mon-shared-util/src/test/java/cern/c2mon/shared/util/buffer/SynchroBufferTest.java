@@ -0,0 +1,155 @@
+/******************************************************************************
+ * Copyright (C) 2010-2026 CERN. All rights not expressly granted are reserved.
+ *
+ * This file is part of the CERN Control and Monitoring Platform 'C2MON'.
+ * C2MON is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the license.
+ *
+ * C2MON is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with C2MON. If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package cern.c2mon.shared.util.buffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SynchroBufferTest {
+
+  private SynchroBuffer buffer;
+
+  private final List<Object> pulled = Collections.synchronizedList(new ArrayList<>());
+
+  @After
+  public void tearDown() {
+    if (buffer != null) {
+      buffer.empty();
+      buffer.close();
+    }
+  }
+
+  @Test
+  public void testCapacityEvictsOldestObjects() throws InterruptedException {
+    buffer = new SynchroBuffer(10, 100, 1, SynchroBuffer.DUPLICATE_OK, 5, true);
+    for (int i = 0; i < 10; i++) {
+      buffer.push(i);
+    }
+    buffer.push(Arrays.asList(10, 11));
+    assertEquals(5, buffer.getSize());
+
+    awaitPulled(5);
+    assertEquals(Arrays.asList(7, 8, 9, 10, 11), pulled);
+  }
+
+  @Test
+  public void testDuplicateReplaceKeepsPosition() throws InterruptedException {
+    buffer = new SynchroBuffer(10, 100, 1, SynchroBuffer.DUPLICATE_REPLACE);
+    buffer.push(new Keyed(1, "a"));
+    buffer.push(new Keyed(2, "b"));
+    buffer.push(new Keyed(1, "c"));
+    buffer.push(Arrays.asList(new Keyed(3, "d"), new Keyed(2, "e")));
+    assertEquals(3, buffer.getSize());
+
+    awaitPulled(3);
+    assertEquals("c", ((Keyed) pulled.get(0)).payload);
+    assertEquals("e", ((Keyed) pulled.get(1)).payload);
+    assertEquals("d", ((Keyed) pulled.get(2)).payload);
+  }
+
+  @Test
+  public void testDuplicateDiscardKeepsFirst() throws InterruptedException {
+    buffer = new SynchroBuffer(10, 100, 1, SynchroBuffer.DUPLICATE_DISCARD);
+    buffer.push(new Keyed(1, "a"));
+    buffer.push(new Keyed(1, "b"));
+    buffer.push(new Keyed(2, "c"));
+    assertEquals(2, buffer.getSize());
+
+    awaitPulled(2);
+    assertEquals("a", ((Keyed) pulled.get(0)).payload);
+    assertEquals("c", ((Keyed) pulled.get(1)).payload);
+  }
+
+  @Test
+  public void testConcurrentProducers() throws InterruptedException {
+    final int producers = 4;
+    final int pushes = 20000;
+    buffer = new SynchroBuffer(10, 100, 1, SynchroBuffer.DUPLICATE_OK);
+    setListener();
+    buffer.enable();
+
+    CountDownLatch done = new CountDownLatch(producers);
+    for (int p = 0; p < producers; p++) {
+      final int offset = p * pushes;
+      new Thread(() -> {
+        for (int i = 0; i < pushes; i++) {
+          buffer.push(offset + i);
+        }
+        done.countDown();
+      }).start();
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+
+    waitFor(producers * pushes);
+    Set<Object> distinct = new HashSet<>(pulled);
+    assertEquals(producers * pushes, pulled.size());
+    assertEquals(producers * pushes, distinct.size());
+  }
+
+  private void awaitPulled(int expected) throws InterruptedException {
+    setListener();
+    buffer.enable();
+    waitFor(expected);
+    assertEquals(expected, pulled.size());
+  }
+
+  private void setListener() {
+    buffer.setSynchroBufferListener(event -> pulled.addAll(event.getPulled()));
+  }
+
+  private void waitFor(int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (pulled.size() < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static final class Keyed {
+
+    private final int key;
+
+    private final String payload;
+
+    private Keyed(int key, String payload) {
+      this.key = key;
+      this.payload = payload;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Keyed && ((Keyed) o).key == key;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(key);
+    }
+  }
+}